@@ -1,8 +1,13 @@
 package gui;
 
 import exceptions.TooManyToppingsException;
+import io.LoadReport;
 import io.MenuLoader;
+import io.MenuReloader;
+import io.OrderJournal;
 import menu.MenuItem;
+import menu.MenuSnapshot;
+import menu.MoneyFormat;
 import menu.Order;
 import pizza.CustomPizza;
 import pizza.Pizza;
@@ -14,6 +19,8 @@ import pizza.ingredients.Topping;
 import javax.swing.*;
 import java.awt.event.ActionEvent;
 import java.awt.event.ActionListener;
+import java.io.IOException;
+import java.nio.file.Paths;
 import java.time.LocalDate;
 import java.time.LocalTime;
 import java.util.*;
@@ -28,6 +35,9 @@ public class Display extends javax.swing.JPanel {
     /* loads the menu from text file */
     private final menu.Menu menu = MenuLoader.load("PizzaMenu.txt");
 
+    /* snapshot of the menu whose pizzas are listed in the menu select box */
+    private MenuSnapshot shownSnapshot;
+
     /* creates a new customer order string */
     private final StringBuilder currentOrderPanelString = new StringBuilder();
 
@@ -41,6 +51,93 @@ public class Display extends javax.swing.JPanel {
 
     public Display() {
         initComponents();
+        watchMenuFile();
+        openOrderJournal();
+    }
+
+    /**
+     * Opens the journal of confirmed orders, replaying the orders confirmed
+     * since its last checkpoint before the application was last stopped, and
+     * checkpoints it periodically. The orders covered by the checkpoints are
+     * only shown as a count and total, so they are not read.
+     */
+    private void openOrderJournal() {
+        try {
+            journal = new OrderJournal(Paths.get(OrderJournal.DEFAULT_DIRECTORY),
+                    OrderJournal.DEFAULT_SEGMENT_SIZE, orders::add, false);
+            journal.startCheckpoints(OrderJournal.DEFAULT_CHECKPOINT_ORDERS,
+                    OrderJournal.DEFAULT_CHECKPOINT_MILLIS,
+                    exception -> SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                            "Confirmed orders cannot be checkpointed:\n" + exception.getMessage(),
+                            "Order journal", JOptionPane.WARNING_MESSAGE)));
+        } catch (IOException exception) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Order journal cannot be opened, so confirmed orders will not be saved:\n"
+                            + exception.getMessage(),
+                    "Order journal", JOptionPane.ERROR_MESSAGE));
+            return;
+        }
+        if (journal.getCheckpointedOrders() > 0) {
+            earlierOrders = journal.getCheckpointedOrders() + " earlier orders totalling $"
+                    + MoneyFormat.WITH_ZERO_DOLLARS.format(journal.getCheckpointedTotalPriceInCents());
+        }
+        if (!orders.isEmpty()
+                || earlierOrders != null) {
+            showOrders();
+        }
+    }
+
+    /* count and total of the orders covered by the journal's checkpoints when it was opened, or null if there are none */
+    private String earlierOrders;
+
+    private void showOrders() {
+        StringJoiner joiner =
+                new StringJoiner(System.lineSeparator() + System.lineSeparator());
+        if (earlierOrders != null) {
+            joiner.add(earlierOrders);
+        }
+        for (Order o : orders) {
+            joiner.add(o.toString());
+        }
+        jTextArea1.setText(joiner.toString());
+    }
+
+    /**
+     * Reloads the menu whenever the menu file changes, refreshing the menu
+     * pizzas and toppings that can be selected once a reload succeeds.
+     */
+    private void watchMenuFile() {
+        try {
+            new MenuReloader("PizzaMenu.txt", report ->
+                    SwingUtilities.invokeLater(() -> menuReloaded(report)))
+                    .start();
+        } catch (IOException exception) {
+            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(this,
+                    "Menu file cannot be watched, so changes to it will not be shown:\n"
+                            + exception.getMessage(),
+                    "Menu", JOptionPane.WARNING_MESSAGE));
+        }
+    }
+
+    /**
+     * Shows the menu that was reloaded, or a warning if the menu file could
+     * not be loaded. This is called on the event dispatch thread.
+     */
+    private void menuReloaded(LoadReport report) {
+        if (report.getMenu() == null) {
+            JOptionPane.showMessageDialog(this,
+                    "Menu file was not reloaded:\n" + report,
+                    "Menu", JOptionPane.WARNING_MESSAGE);
+            return;
+        } else if (report.getDiff().isEmpty()) {
+            return;
+        }
+        MenuSnapshot snapshot = menu.snapshot();
+        shownSnapshot = snapshot;
+        jComboBox3.setModel(new javax.swing.DefaultComboBoxModel<>(
+                snapshot.getItems().stream().map(MenuItem::getName).toArray(String[]::new)));
+        toppingsComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(
+                snapshot.getToppings().stream().map(Topping::toString).toArray(String[]::new)));
     }
 
     /**
@@ -191,15 +288,21 @@ public class Display extends javax.swing.JPanel {
             public void actionPerformed(ActionEvent e) {
                 order.setTime(LocalTime.now());
                 order.setDate(LocalDate.now());
+                if (journal != null) {
+                    // the record is written by the journal's thread, so the GUI is not held up by the fsync
+                    String confirmed = order.getName();
+                    journal.appendAsync(order).whenComplete((sequence, exception) -> {
+                        if (exception != null) {
+                            SwingUtilities.invokeLater(() -> JOptionPane.showMessageDialog(Display.this,
+                                    "Order for " + confirmed + " was not saved:\n" + exception.getMessage(),
+                                    "Order journal", JOptionPane.ERROR_MESSAGE));
+                        }
+                    });
+                }
                 orders.add(order);
                 order = new Order();
                 jTextArea2.setText("");
-                StringJoiner joiner =
-                        new StringJoiner(System.lineSeparator() + System.lineSeparator());
-                for (Order o : orders) {
-                    joiner.add(o.toString());
-                }
-                jTextArea1.setText(joiner.toString());
+                showOrders();
             }
         });
 
@@ -251,8 +354,8 @@ public class Display extends javax.swing.JPanel {
 
         // Sets the combo list to be the list of toppings
         toppingsComboBox.setModel(new javax.swing.DefaultComboBoxModel<>(
-                // get array of string which are the names from Topping values()
-                Arrays.stream(Topping.values()).map(Topping::toString).toArray(String[]::new)));
+                // get array of string which are the names of the menu's toppings
+                menu.snapshot().getToppings().stream().map(Topping::toString).toArray(String[]::new)));
 
         clearToppingButton.setActionCommand("cancelMenuItemButton");
         clearToppingButton.setBackground(new java.awt.Color(255, 102, 102));
@@ -767,16 +870,17 @@ public class Display extends javax.swing.JPanel {
 
         jComboBox3.setBackground(new java.awt.Color(153, 255, 153));
 
+        shownSnapshot = menu.snapshot();
         jComboBox3.setModel(new javax.swing.DefaultComboBoxModel<>(
-                menu.getItems().stream().map(MenuItem::getName).toArray(String[]::new)));
+                shownSnapshot.getItems().stream().map(MenuItem::getName).toArray(String[]::new)));
 
         jComboBox3.addActionListener(new java.awt.event.ActionListener() {
             public void actionPerformed(java.awt.event.ActionEvent evt) {
 
-                String selected = (String) jComboBox3.getSelectedItem(); // get the selected item
-                //  gets the selected menUItem from the list of Menu Items in the menu
-                MenuItem mu = menu.getItems().stream().filter((menu.MenuItem t)
-                        -> t.getName().equals(selected)).findFirst().get();
+                Pizza pizza = selectedMenuPizza();
+                if (pizza == null) {
+                    return;
+                }
                 Bases.BaseSize size = Bases.BaseSize.MEDIUM;
                 if (selectMediumRadioButton.isSelected()) {
                     size = Bases.BaseSize.MEDIUM;
@@ -785,9 +889,9 @@ public class Display extends javax.swing.JPanel {
                 } else if (selectLargeRadioButton.isSelected()) {
                     size = Bases.BaseSize.LARGE;
                 }
-                ((Pizza)mu).set(size);
-                String sel = mu.toString(); // get the first item that matches the selected item
-                selectPrice.setText(String.format("$%.2f",mu.getTotalPrice()));
+                pizza.set(size);
+                String sel = pizza.toString(); // get the first item that matches the selected item
+                selectPrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(pizza.getTotalPriceInCents()));
                 jComboBox3ActionPerformed(sel);
             }
         });
@@ -857,62 +961,59 @@ public class Display extends javax.swing.JPanel {
         selectSmallRadioButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                selectSizePrice.setText(String.format("$%.2f", Bases.BaseSize.SMALL.getPrice()));
-                String selected = (String) jComboBox3.getSelectedItem();
-
-                //  gets the selected menUItem from the list of Menu Items in the menu
-                MenuItem mu = menu.getItems().stream().filter((menu.MenuItem t)
-                        -> t.getName().equals(selected)).findFirst().get();
-                ((Pizza)mu).set(Bases.BaseSize.SMALL);
-                selectPrice.setText(String.format("$%.2f",mu.getTotalPrice()));
+                selectSizePrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(Bases.BaseSize.SMALL.getPriceInCents()));
+                Pizza pizza = selectedMenuPizza();
+                if (pizza == null) {
+                    return;
+                }
+                pizza.set(Bases.BaseSize.SMALL);
+                selectPrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(pizza.getTotalPriceInCents()));
 
             }
         });
         selectMediumRadioButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                selectSizePrice.setText(String.format("$%.2f", Bases.BaseSize.MEDIUM.getPrice()));
-                String selected = (String) jComboBox3.getSelectedItem();
-
-                //  gets the selected menUItem from the list of Menu Items in the menu
-                MenuItem mu = menu.getItems().stream().filter((menu.MenuItem t)
-                        -> t.getName().equals(selected)).findFirst().get();
-                ((Pizza)mu).set(Bases.BaseSize.MEDIUM);
-                selectPrice.setText(String.format("$%.2f",mu.getTotalPrice()));
+                selectSizePrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(Bases.BaseSize.MEDIUM.getPriceInCents()));
+                Pizza pizza = selectedMenuPizza();
+                if (pizza == null) {
+                    return;
+                }
+                pizza.set(Bases.BaseSize.MEDIUM);
+                selectPrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(pizza.getTotalPriceInCents()));
             }
         });
         selectLargeRadioButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                selectSizePrice.setText(String.format("$%.2f", Bases.BaseSize.LARGE.getPrice()));
-                String selected = (String) jComboBox3.getSelectedItem();
-
-                //  gets the selected menUItem from the list of Menu Items in the menu
-                MenuItem mu = menu.getItems().stream().filter((menu.MenuItem t)
-                        -> t.getName().equals(selected)).findFirst().get();
-                ((Pizza)mu).set(Bases.BaseSize.LARGE);
-                selectPrice.setText(String.format("$%.2f",mu.getTotalPrice()));
+                selectSizePrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(Bases.BaseSize.LARGE.getPriceInCents()));
+                Pizza pizza = selectedMenuPizza();
+                if (pizza == null) {
+                    return;
+                }
+                pizza.set(Bases.BaseSize.LARGE);
+                selectPrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(pizza.getTotalPriceInCents()));
             }
         });
 
         createSmallRadioButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                createSizePrice.setText(String.format("$%.2f", Bases.BaseSize.SMALL.getPrice()));
+                createSizePrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(Bases.BaseSize.SMALL.getPriceInCents()));
                 updateToppingsLabelAndButton();
             }
         });
         createMediumRadioButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                createSizePrice.setText(String.format("$%.2f", Bases.BaseSize.MEDIUM.getPrice()));
+                createSizePrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(Bases.BaseSize.MEDIUM.getPriceInCents()));
                 updateToppingsLabelAndButton();
             }
         });
         createLargeRadioButton.addActionListener(new ActionListener() {
             @Override
             public void actionPerformed(ActionEvent e) {
-                createSizePrice.setText(String.format("$%.2f", Bases.BaseSize.LARGE.getPrice()));
+                createSizePrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(Bases.BaseSize.LARGE.getPriceInCents()));
                 updateToppingsLabelAndButton();
             }
         });
@@ -1358,7 +1459,7 @@ public class Display extends javax.swing.JPanel {
                 button.setVisible(false);
             }
         }
-        createTotalPrice.setText(String.format("$%.2f", size.getPrice() + toppings.size() * 2));
+        createTotalPrice.setText("$" + MoneyFormat.WITH_ZERO_DOLLARS.format(size.getPriceInCents() + toppings.size() * Topping.PRICE_IN_CENTS));
     }
 
     private void toppingButtonAddActionPerformed(java.awt.event.ActionEvent evt) {
@@ -1407,12 +1508,25 @@ public class Display extends javax.swing.JPanel {
 
     Order order = new Order();
     List<Order> orders = new ArrayList<>();
-    private void selectAddPizzaButtonActionListener(java.awt.event.ActionEvent evt) {
+    /* journal of the confirmed orders, or null if it cannot be opened */
+    private OrderJournal journal;
+    /**
+     * Returns a copy of the pizza selected in the menu select box, found in
+     * the snapshot that filled the box rather than that of the order, which
+     * may be older than a reload. Returns null if no pizza is selected.
+     */
+    private Pizza selectedMenuPizza() {
         String selected = (String) jComboBox3.getSelectedItem();
+        MenuItem mu = selected == null ? null : shownSnapshot.findByName(selected);
+        return mu instanceof Pizza ? ((Pizza) mu).copy() : null;
+    }
 
-        //  gets the selected menUItem from the list of Menu Items in the menu
-        MenuItem mu = menu.getItems().stream().filter((menu.MenuItem t)
-                -> t.getName().equals(selected)).findFirst().get();
+    private void selectAddPizzaButtonActionListener(java.awt.event.ActionEvent evt) {
+        Pizza pizza = selectedMenuPizza();
+        if (pizza == null) {
+            JOptionPane.showMessageDialog(this, "Please select a pizza from the menu");
+            return;
+        }
         Bases.BaseSize size = Bases.BaseSize.MEDIUM;
         if (selectMediumRadioButton.isSelected()) {
             size = Bases.BaseSize.MEDIUM;
@@ -1439,8 +1553,7 @@ public class Display extends javax.swing.JPanel {
         } else if (selectNoneSauceRadioButton.isSelected()) {
             sauce = Sauces.Sauce.NONE;
         }
-        // add mu to order
-        Pizza pizza = (Pizza) mu;
+        // add the copy of the selected pizza to order
         pizza.set(size);
         pizza.set(sauce);
         pizza.set(cheese);
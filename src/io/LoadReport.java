@@ -0,0 +1,192 @@
+package io;
+
+import menu.Menu;
+import menu.MenuDiff;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Report of every error found in a menu file by MenuLoader.validate,
+ * MenuLoader.loadLeniently or MenuReloader, which check the whole file rather
+ * than stopping at the first bad line.
+ * <p>
+ * Each error is kept with the line number it was found on, in the order of the
+ * lines. An error in the number of pizza lines is reported against the first
+ * line, after any other errors.
+ */
+public final class LoadReport {
+
+    /**
+     * An error found on a line of a menu file.
+     */
+    public static final class LineError {
+        /**
+         * line number the error was found on
+         */
+        private final int lineNumber;
+
+        /**
+         * exception describing the error
+         */
+        private final Exception exception;
+
+        /**
+         * Creates an error found on the given line.
+         * @param lineNumber line number the error was found on
+         * @param exception exception describing the error
+         */
+        private LineError(int lineNumber, Exception exception) {
+            this.lineNumber = lineNumber;
+            this.exception = exception;
+        }
+
+        /**
+         * Returns the line number the error was found on.
+         * @return line number of the error
+         */
+        public int getLineNumber() {
+            return lineNumber;
+        }
+
+        /**
+         * Returns the exception describing the error, which is a
+         * PizzaFormatException, TooManyToppingsException,
+         * IndexOutOfBoundsException or IllegalArgumentException, as would have
+         * been thrown when loading the menu, or, on line 0, an IOException if
+         * MenuReloader could not read the file.
+         * @return exception describing the error
+         */
+        public Exception getException() {
+            return exception;
+        }
+
+        /**
+         * Returns the line number and the description of the error.
+         * @return string representation of this error
+         */
+        @Override
+        public String toString() {
+            return lineNumber + ": " + exception;
+        }
+    }
+
+    /**
+     * errors found in the menu file, in the order of their lines
+     */
+    private final List<LineError> errors = new ArrayList<>();
+
+    /**
+     * menu the valid pizzas were loaded into, or null if they were not loaded
+     */
+    private Menu menu;
+
+    /**
+     * differences applied to the menu by a reload, or null if it was not
+     * reloaded
+     */
+    private MenuDiff diff;
+
+    /**
+     * number of lines in the menu file
+     */
+    private int numberOfLines;
+
+    /**
+     * Creates an empty report.
+     */
+    LoadReport() {}
+
+    /**
+     * Adds an error found on the given line.
+     * @param lineNumber line number the error was found on
+     * @param exception exception describing the error
+     */
+    void addError(int lineNumber, Exception exception) {
+        errors.add(new LineError(lineNumber, exception));
+    }
+
+    /**
+     * Sets the menu the valid pizzas were loaded into.
+     * @param menu menu holding the loaded pizzas
+     */
+    void setMenu(Menu menu) {
+        this.menu = menu;
+    }
+
+    /**
+     * Sets the differences applied to the menu by a reload.
+     * @param diff differences applied to the menu
+     */
+    void setDiff(MenuDiff diff) {
+        this.diff = diff;
+    }
+
+    /**
+     * Sets the number of lines in the menu file.
+     * @param numberOfLines number of lines in the menu file
+     */
+    void setNumberOfLines(int numberOfLines) {
+        this.numberOfLines = numberOfLines;
+    }
+
+    /**
+     * Returns true if no errors were found in the menu file, otherwise, false.
+     * @return true if the menu file is valid, otherwise, false
+     */
+    public boolean isValid() {
+        return errors.isEmpty();
+    }
+
+    /**
+     * Returns the errors found in the menu file, in the order of their lines.
+     * <p>
+     * The returned list cannot be modified.
+     * @return errors found in the menu file
+     */
+    public List<LineError> getErrors() {
+        return Collections.unmodifiableList(errors);
+    }
+
+    /**
+     * Returns the menu the valid pizzas were loaded into, or null if the menu
+     * file was only validated, or was not reloaded because it has errors.
+     * @return menu holding the loaded pizzas, or null
+     */
+    public Menu getMenu() {
+        return menu;
+    }
+
+    /**
+     * Returns the differences MenuReloader applied to the menu, or null if the
+     * menu file was not reloaded by MenuReloader, or has errors.
+     * @return differences applied to the menu, or null
+     */
+    public MenuDiff getDiff() {
+        return diff;
+    }
+
+    /**
+     * Returns the number of lines in the menu file.
+     * @return number of lines in the menu file
+     */
+    public int getNumberOfLines() {
+        return numberOfLines;
+    }
+
+    /**
+     * Returns the number of errors found and each of the errors, one per line.
+     * @return string representation of this report
+     */
+    @Override
+    public String toString() {
+        StringBuilder report = new StringBuilder();
+        report.append(errors.size()).append(" ERRORS IN ")
+                .append(numberOfLines).append(" LINES");
+        for (LineError error : errors) {
+            report.append(System.lineSeparator()).append(error);
+        }
+        return report.toString();
+    }
+}
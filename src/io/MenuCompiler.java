@@ -0,0 +1,364 @@
+package io;
+
+import exceptions.PizzaFormatException;
+import exceptions.TooManyToppingsException;
+import menu.Menu;
+import menu.MenuItem;
+import menu.MenuSnapshot;
+import pizza.MenuPizza;
+import pizza.Pizza;
+import pizza.ingredients.Topping;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+import static pizza.ingredients.Bases.BaseSize.MEDIUM;
+import static pizza.ingredients.Cheeses.Cheese.MOZZARELLA;
+import static pizza.ingredients.Sauces.Sauce.TOMATO;
+import static pizza.ingredients.Topping.createTopping;
+
+/**
+ * Class to compile a loaded menu into a compact binary file, and to load the
+ * menu back from that file without parsing the text menu file again.
+ * <p>
+ * The compiled file holds what the text menu file holds once it has been
+ * parsed: the toppings with their vegan flags, and the name and toppings of
+ * each menu pizza, with names already in title format. It is laid out as,
+ *     magic number and format version (int, int)
+ *     CRC32 checksum of the text menu file it was compiled from (long)
+ *     string table: count, then length and UTF-8 bytes of each string
+ *     topping table: count, then string index and vegan flag of each topping
+ *     pizza table: count, then string index of the name, number of toppings
+ *         and topping ordinals of each pizza, being the positions of its
+ *         toppings in the topping table
+ *     CRC32 checksum of everything before it (long)
+ * where counts, lengths, indexes and ordinals are ints. The toppings of each
+ * pizza are kept as a list of ordinals rather than a set, as a pizza may have
+ * the same topping more than once and the order of its toppings is shown.
+ * <p>
+ * A compiled file is only used if it was compiled from a text menu file with
+ * the same checksum, and is otherwise ignored, as is a file that is truncated
+ * or corrupted.
+ */
+public class MenuCompiler {
+
+    /**
+     * extension added to the name of a text menu file for its compiled file
+     */
+    public static final String EXTENSION = ".compiled";
+
+    /**
+     * number identifying a compiled menu file, "PZMC"
+     */
+    private static final int MAGIC = 0x505A4D43;
+
+    /**
+     * version of the compiled menu file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * Inherited default constructor, not used in this class.
+     */
+    public MenuCompiler() {}
+
+    /**
+     * Returns the CRC32 checksum of the bytes between the position and limit
+     * of the given buffer, without changing its position.
+     * @param buffer buffer holding the bytes of a text menu file
+     * @return checksum of the text menu file
+     */
+    public static long checksum(ByteBuffer buffer) {
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.duplicate());
+        return checksum.getValue();
+    }
+
+    /**
+     * Writes the menu pizzas and toppings of the given snapshot to a compiled
+     * file, replacing the file in a single step.
+     * <p>
+     * Items that are not menu pizzas are not compiled.
+     * @param snapshot snapshot of the menu loaded from the text menu file
+     * @param checksum checksum of the text menu file
+     * @param target path of the compiled file
+     * @throws IOException if the compiled file cannot be written
+     */
+    public static void compile(MenuSnapshot snapshot,
+                               long checksum,
+                               Path target)
+            throws IOException {
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        List<Topping> toppings = snapshot.getToppings();
+        Map<Topping, Integer> toppingIndexes = new HashMap<>();
+        List<Pizza> pizzas = new ArrayList<>();
+        for (Topping topping : toppings) {
+            indexOf(topping.toString(), strings, stringIndexes);
+            toppingIndexes.put(topping, toppingIndexes.size());
+        }
+        for (MenuItem item : snapshot.getItems()) {
+            if (item instanceof MenuPizza) {
+                pizzas.add((Pizza) item);
+                indexOf(item.getName(), strings, stringIndexes);
+            }
+        }
+
+        Path temporary = Files.createTempFile(
+                target.toAbsolutePath().getParent(),
+                target.getFileName().toString(), ".tmp");
+        try {
+            try (OutputStream file = Files.newOutputStream(temporary)) {
+                CheckedOutputStream checked = new CheckedOutputStream(
+                        new BufferedOutputStream(file), new CRC32());
+                DataOutputStream output = new DataOutputStream(checked);
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(checksum);
+
+                output.writeInt(strings.size());
+                for (String string : strings) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+
+                output.writeInt(toppings.size());
+                for (Topping topping : toppings) {
+                    output.writeInt(stringIndexes.get(topping.toString()));
+                    output.writeBoolean(topping.isVegan());
+                }
+
+                output.writeInt(pizzas.size());
+                for (Pizza pizza : pizzas) {
+                    List<Topping> pizzaToppings = pizza.getToppings();
+                    output.writeInt(stringIndexes.get(pizza.getName()));
+                    output.writeInt(pizzaToppings.size());
+                    for (Topping topping : pizzaToppings) {
+                        output.writeInt(toppingIndexes.get(topping));
+                    }
+                }
+
+                output.writeLong(checked.getChecksum().getValue());
+                output.flush();
+            }
+            Files.move(temporary, target,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+    }
+
+    /**
+     * Returns the index of the given string in the string table, adding it to
+     * the table if it is not already there.
+     * @param string string to be found
+     * @param strings strings in the table, in order
+     * @param stringIndexes index of each string in the table
+     * @return index of the string in the table
+     */
+    private static int indexOf(String string,
+                               List<String> strings,
+                               Map<String, Integer> stringIndexes) {
+        Integer index = stringIndexes.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndexes.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Loads the toppings and menu pizzas from the compiled file held between
+     * the position and limit of the given buffer, and publishes the menu.
+     * <p>
+     * The whole file is checked before any topping or pizza is created, so
+     * that nothing is loaded from a compiled file that cannot be used.
+     * @param buffer buffer holding the bytes of the compiled file
+     * @param checksum checksum of the text menu file
+     * @return menu holding the loaded pizzas, or null if the compiled file was
+     *     compiled from a different text menu file, or is truncated or
+     *     corrupted
+     * @throws PizzaFormatException if a topping in the compiled file has
+     *     already been created
+     */
+    public static Menu load(ByteBuffer buffer,
+                            long checksum)
+            throws PizzaFormatException {
+        CompiledMenu compiled = read(buffer.duplicate(), checksum);
+        if (compiled == null) {
+            return null;
+        }
+
+        Topping[] toppings = new Topping[compiled.toppingNames.length];
+        for (int index = 0; index < toppings.length; index++) {
+            try {
+                createTopping(compiled.toppingNames[index],
+                        compiled.isVegan[index]);
+            } catch (IllegalArgumentException exception) {
+                throw new PizzaFormatException(
+                        "TOPPING LINE CONTAINS AN INVALID TOPPING NAME",
+                        compiled.isVegan[index] ? 4 : 3);
+            }
+            toppings[index] = Topping.valueOf(compiled.toppingNames[index]);
+        }
+
+        List<Topping> pizzaToppings = new ArrayList<>(Pizza.MAX_TOPPINGS);
+        for (int pizza = 0; pizza < compiled.pizzaNames.length; pizza++) {
+            pizzaToppings.clear();
+            for (int index = compiled.toppingOffsets[pizza];
+                 index < compiled.toppingOffsets[pizza + 1]; index++) {
+                pizzaToppings.add(toppings[compiled.toppingOrdinals[index]]);
+            }
+            try {
+                new MenuPizza(MEDIUM, TOMATO, MOZZARELLA, pizzaToppings)
+                        .setName(compiled.pizzaNames[pizza]);
+            } catch (TooManyToppingsException exception) {
+                // the number of toppings was checked when reading the file
+                throw new IllegalStateException(exception);
+            }
+        }
+        Menu.getInstance().publish();
+        return Menu.getInstance();
+    }
+
+    /**
+     * Reads and checks the contents of a compiled file.
+     * @param buffer buffer holding the bytes of the compiled file
+     * @param checksum checksum of the text menu file
+     * @return contents of the compiled file, or null if it was compiled from a
+     *     different text menu file, or is truncated or corrupted
+     */
+    private static CompiledMenu read(ByteBuffer buffer,
+                                     long checksum) {
+        try {
+            if (buffer.remaining() < Long.BYTES
+                    || buffer.getInt() != MAGIC
+                    || buffer.getInt() != VERSION
+                    || buffer.getLong() != checksum) {
+                return null;
+            }
+            int start = buffer.position() - 2 * Integer.BYTES - Long.BYTES;
+            int end = buffer.limit() - Long.BYTES;
+            CRC32 fileChecksum = new CRC32();
+            fileChecksum.update(buffer.duplicate().position(start).limit(end));
+            if (fileChecksum.getValue() != buffer.getLong(end)) {
+                return null;
+            }
+
+            String[] strings = new String[readCount(buffer)];
+            byte[] bytes = new byte[0];
+            for (int index = 0; index < strings.length; index++) {
+                int length = readCount(buffer);
+                if (length > bytes.length) {
+                    bytes = new byte[Math.max(length, 2 * bytes.length)];
+                }
+                buffer.get(bytes, 0, length);
+                strings[index] = new String(bytes, 0, length,
+                        StandardCharsets.UTF_8);
+            }
+
+            CompiledMenu compiled = new CompiledMenu();
+            int numberOfToppings = readCount(buffer);
+            compiled.toppingNames = new String[numberOfToppings];
+            compiled.isVegan = new boolean[numberOfToppings];
+            for (int index = 0; index < numberOfToppings; index++) {
+                compiled.toppingNames[index] = strings[buffer.getInt()];
+                compiled.isVegan[index] = buffer.get() != 0;
+            }
+
+            int numberOfPizzas = readCount(buffer);
+            compiled.pizzaNames = new String[numberOfPizzas];
+            compiled.toppingOffsets = new int[numberOfPizzas + 1];
+            List<Integer> ordinals = new ArrayList<>();
+            for (int pizza = 0; pizza < numberOfPizzas; pizza++) {
+                compiled.pizzaNames[pizza] = strings[buffer.getInt()];
+                int count = readCount(buffer);
+                if (count > Pizza.MAX_TOPPINGS) {
+                    return null;
+                }
+                for (int index = 0; index < count; index++) {
+                    int ordinal = buffer.getInt();
+                    if (ordinal < 0
+                            || ordinal >= numberOfToppings) {
+                        return null;
+                    }
+                    ordinals.add(ordinal);
+                }
+                compiled.toppingOffsets[pizza + 1] = ordinals.size();
+            }
+            compiled.toppingOrdinals = ordinals.stream()
+                    .mapToInt(Integer::intValue).toArray();
+            return buffer.position() == end ? compiled : null;
+        } catch (BufferUnderflowException
+                 | IndexOutOfBoundsException
+                 | IllegalArgumentException exception) {
+            return null;
+        }
+    }
+
+    /**
+     * Reads a count or length from the buffer.
+     * @param buffer buffer holding the bytes of the compiled file
+     * @return count or length that was read
+     * @throws IllegalArgumentException if the count is negative or greater
+     *     than the number of bytes left in the buffer
+     */
+    private static int readCount(ByteBuffer buffer)
+            throws IllegalArgumentException {
+        int count = buffer.getInt();
+        if (count < 0
+                || count > buffer.remaining()) {
+            throw new IllegalArgumentException();
+        }
+        return count;
+    }
+
+    /**
+     * Contents of a compiled file, read and checked before anything is
+     * loaded.
+     */
+    private static class CompiledMenu {
+        /**
+         * name of each topping, in the order of their ordinals
+         */
+        private String[] toppingNames;
+
+        /**
+         * vegan flag of each topping, in the order of their ordinals
+         */
+        private boolean[] isVegan;
+
+        /**
+         * name of each pizza, in menu order
+         */
+        private String[] pizzaNames;
+
+        /**
+         * index in toppingOrdinals of the first topping of each pizza, and of
+         * the end of the toppings of the last pizza
+         */
+        private int[] toppingOffsets;
+
+        /**
+         * topping ordinals of every pizza, one pizza after another
+         */
+        private int[] toppingOrdinals;
+    }
+}
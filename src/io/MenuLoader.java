@@ -6,11 +6,18 @@ import menu.Menu;
 import pizza.MenuPizza;
 import pizza.ingredients.Topping;
 
+import java.io.FileInputStream;
 import java.io.FileNotFoundException;
 import java.io.IOException;
 import java.io.BufferedReader;
-import java.io.FileReader;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
 import java.util.*;
+import java.util.concurrent.ForkJoinPool;
 
 import static java.lang.Character.toLowerCase;
 import static java.lang.Character.toUpperCase;
@@ -57,8 +64,7 @@ public class MenuLoader {
     public MenuLoader() {}
 
     /**
-     * Creates a BufferedReader, utilizing a FileReader to be parsed by the
-     * getMenu method.
+     * Reads the bytes of the menu file to be parsed by the getMenu method.
      * <p>
      * The file to be loaded is stored within a package called assets under the
      * filename PizzaMenu.txt. This is the supplied file name, as other
@@ -90,10 +96,82 @@ public class MenuLoader {
      * menu txt file
      */
     public static Menu load(String filename) {
+        return load(filename, false, false, false);
+    }
+
+    /**
+     * Memory-maps the menu file to be parsed by the getMenu method, directly
+     * from the mapped bytes.
+     * <p>
+     * This is meant for very large menu files, which are then neither copied
+     * onto the heap nor decoded into lines before parsing. The file is loaded
+     * from the same location, and the application exits with the same exit
+     * codes, as the load method.
+     * @param filename string representing the file to be read
+     * @return a parsed menu type containing the list of pizzas found in the
+     * menu txt file
+     */
+    public static Menu loadMapped(String filename) {
+        return load(filename, true, false, false);
+    }
+
+    /**
+     * Memory-maps the menu file and parses its pizza lines in parallel on the
+     * common fork-join pool.
+     * <p>
+     * This is meant for menu files with millions of pizza lines. The menu is
+     * the same as the one given by the load method, and the application exits
+     * with the same exit codes.
+     * @param filename string representing the file to be read
+     * @return a parsed menu type containing the list of pizzas found in the
+     * menu txt file
+     */
+    public static Menu loadInParallel(String filename) {
+        return load(filename, true, true, false);
+    }
+
+    /**
+     * Loads the menu from the compiled file of the menu file, compiling it
+     * first if there is no compiled file for the current menu file.
+     * <p>
+     * The compiled file is kept next to the menu file, with the extension
+     * MenuCompiler.EXTENSION added to its name, and is only used while the
+     * checksum of the menu file is unchanged. The menu is the same as the one
+     * given by the load method, and the application exits with the same exit
+     * codes.
+     * @param filename string representing the file to be read
+     * @return a parsed menu type containing the list of pizzas found in the
+     * menu txt file
+     */
+    public static Menu loadCompiled(String filename) {
+        return load(filename, true, false, true);
+    }
+
+    /**
+     * Reads or maps the menu file and parses it, exiting the application with
+     * the exit code for any failure as described by the load method.
+     * @param filename string representing the file to be read
+     * @param isMapped if the file is memory-mapped rather than read
+     * @param isParallel if the pizza lines are parsed in parallel
+     * @param isCompiled if the menu is loaded from its compiled file
+     * @return a parsed menu type containing the list of pizzas found in the
+     * menu txt file
+     */
+    private static Menu load(String filename,
+                             boolean isMapped,
+                             boolean isParallel,
+                             boolean isCompiled) {
         try {
-            FileReader fileReader = new FileReader(PATH + filename);
-            BufferedReader bufferedReader = new BufferedReader(fileReader);
-            return getMenu(bufferedReader);
+            if (isCompiled) {
+                return getCompiledMenu(PATH + filename);
+            } else if (isParallel) {
+                return getMenu(map(PATH + filename), ForkJoinPool.commonPool());
+            } else if (isMapped) {
+                return getMenu(map(PATH + filename));
+            }
+            try (FileInputStream input = new FileInputStream(PATH + filename)) {
+                return getMenu(ByteBuffer.wrap(input.readAllBytes()));
+            }
         } catch (FileNotFoundException exception) {
             System.exit(Reason
                     .COULD_NOT_OPEN_FILE);
@@ -113,6 +191,67 @@ public class MenuLoader {
         return null;
     }
 
+    /**
+     * Memory-maps the whole of the given file for reading.
+     * <p>
+     * The mapping stays valid once the file has been closed, and is released
+     * when the returned buffer is garbage collected.
+     * @param pathname path of the file to be mapped
+     * @return buffer holding the bytes of the file
+     * @throws FileNotFoundException if the file cannot be opened
+     * @throws IOException if the file is too large to be mapped in one buffer
+     *     or an error occurs when mapping it
+     */
+    static MappedByteBuffer map(String pathname)
+            throws FileNotFoundException,
+            IOException {
+        try (FileInputStream input = new FileInputStream(pathname);
+             FileChannel channel = input.getChannel()) {
+            if (channel.size() > Integer.MAX_VALUE) {
+                throw new IOException(
+                        "FILE IS TOO LARGE TO BE MAPPED");
+            }
+            return channel.map(FileChannel.MapMode.READ_ONLY,
+                    0, channel.size());
+        }
+    }
+
+    /**
+     * Loads the menu from the compiled file of the given menu file, or parses
+     * the menu file and compiles it if the compiled file is missing, stale or
+     * corrupted.
+     * @param pathname path of the menu file
+     * @return a parsed menu type containing the list of pizzas found in the
+     * menu txt file
+     * @throws FileNotFoundException if the menu file cannot be opened
+     * @throws PizzaFormatException if the menu file has a format error
+     * @throws TooManyToppingsException if a pizza has too many toppings
+     * @throws IOException if the menu file cannot be read
+     */
+    static Menu getCompiledMenu(String pathname)
+            throws FileNotFoundException,
+            PizzaFormatException,
+            TooManyToppingsException,
+            IOException {
+        MappedByteBuffer source = map(pathname);
+        long checksum = MenuCompiler.checksum(source);
+        Path compiled = Paths.get(pathname + MenuCompiler.EXTENSION);
+        if (Files.isRegularFile(compiled)) {
+            Menu menu = MenuCompiler.load(map(compiled.toString()), checksum);
+            if (menu != null) {
+                return menu;
+            }
+        }
+
+        Menu menu = getMenu(source);
+        try {
+            MenuCompiler.compile(menu.snapshot(), checksum, compiled);
+        } catch (IOException exception) {
+            // the menu has been loaded, it is only compiled again next time
+        }
+        return menu;
+    }
+
     /**
      * Inner class within menu loader, providing an appropriate exit integer
      * code.
@@ -143,7 +282,139 @@ public class MenuLoader {
 
 
     /**
-     * Used by the load method to manage the parsing of the loaded data.
+     * Used by the load method to manage the parsing of the loaded data, given
+     * as the UTF-8 bytes between the position and limit of the buffer.
+     * <p>
+     * The bytes are parsed in a single pass by MenuParser, which accepts the
+     * same files and throws the same exceptions, for the same line numbers, as
+     * getMenu(BufferedReader), while creating far fewer objects per line.
+     * <p>
+     * Once every line has been parsed, the menu is published so that readers
+     * of Menu.snapshot() see the loaded pizzas all at once.
+     * @param buffer buffer holding the bytes of the menu file
+     * @return menu item that has loaded all the pizzas from the file
+     * @throws PizzaFormatException if the given buffer is 'null' or empty, or
+     *     for any of the reasons given by getMenu(BufferedReader)
+     * @throws TooManyToppingsException if a pizza line has too many toppings
+     * @throws IndexOutOfBoundsException if the number of pizza lines given in
+     *     the first line, does not match the number of pizza lines present in
+     *     the file
+     */
+    public static Menu getMenu(ByteBuffer buffer)
+            throws PizzaFormatException,
+            TooManyToppingsException,
+            IndexOutOfBoundsException {
+        if (buffer == null) {
+            throw new PizzaFormatException(
+                    "GIVEN READER IS NULL", 1);
+        }
+        return new MenuParser(buffer).parse();
+    }
+
+    /**
+     * Used by the loadInParallel method to manage the parsing of the loaded
+     * data, given as the UTF-8 bytes between the position and limit of the
+     * buffer, where the pizza lines are parsed in parallel on the given pool.
+     * <p>
+     * The pizza lines are parsed in chunks, and the pizzas are registered with
+     * the menu in the order of the file. If several lines are invalid, the
+     * exception for the first of them is thrown, as for getMenu(ByteBuffer).
+     * @param buffer buffer holding the bytes of the menu file
+     * @param pool pool to parse the pizza lines on
+     * @return menu item that has loaded all the pizzas from the file
+     * @throws PizzaFormatException if the given buffer is 'null' or empty, or
+     *     for any of the reasons given by getMenu(BufferedReader)
+     * @throws TooManyToppingsException if a pizza line has too many toppings
+     * @throws IndexOutOfBoundsException if the number of pizza lines given in
+     *     the first line, does not match the number of pizza lines present in
+     *     the file
+     */
+    public static Menu getMenu(ByteBuffer buffer,
+                               ForkJoinPool pool)
+            throws PizzaFormatException,
+            TooManyToppingsException,
+            IndexOutOfBoundsException {
+        if (buffer == null) {
+            throw new PizzaFormatException(
+                    "GIVEN READER IS NULL", 1);
+        }
+        return new MenuParser(buffer).parse(pool);
+    }
+
+    /**
+     * Checks every line of the menu file without loading it, returning a report
+     * of every error found rather than exiting the application.
+     * <p>
+     * Neither the toppings nor the menu are changed. The toppings declared by
+     * the file are checked as if no other toppings had been created.
+     * @param filename string representing the file to be read
+     * @return report of the errors found in the menu file
+     * @throws FileNotFoundException if the file cannot be opened
+     * @throws IOException if an error occurs when reading the file
+     */
+    public static LoadReport validate(String filename)
+            throws FileNotFoundException,
+            IOException {
+        return validate(map(PATH + filename));
+    }
+
+    /**
+     * Checks every line of the menu file held between the position and limit
+     * of the buffer, as described by validate(String).
+     * @param buffer buffer holding the bytes of the menu file
+     * @return report of the errors found in the menu file
+     * @throws IllegalArgumentException if buffer is null
+     */
+    public static LoadReport validate(ByteBuffer buffer)
+            throws IllegalArgumentException {
+        if (buffer == null) {
+            throw new IllegalArgumentException();
+        }
+        return new MenuParser(buffer).check(false);
+    }
+
+    /**
+     * Loads the toppings and every valid pizza from the menu file, skipping
+     * bad lines, and returns a report of every error found rather than
+     * exiting the application.
+     * <p>
+     * The menu is published once the whole file has been read, and is given
+     * by LoadReport.getMenu().
+     * @param filename string representing the file to be read
+     * @return report of the errors found in the menu file
+     * @throws FileNotFoundException if the file cannot be opened
+     * @throws IOException if an error occurs when reading the file
+     */
+    public static LoadReport loadLeniently(String filename)
+            throws FileNotFoundException,
+            IOException {
+        return loadLeniently(map(PATH + filename));
+    }
+
+    /**
+     * Loads the toppings and every valid pizza from the menu file held between
+     * the position and limit of the buffer, as described by
+     * loadLeniently(String).
+     * @param buffer buffer holding the bytes of the menu file
+     * @return report of the errors found in the menu file
+     * @throws IllegalArgumentException if buffer is null
+     */
+    public static LoadReport loadLeniently(ByteBuffer buffer)
+            throws IllegalArgumentException {
+        if (buffer == null) {
+            throw new IllegalArgumentException();
+        }
+        LoadReport report = new MenuParser(buffer).check(true);
+        Menu.getInstance().publish();
+        report.setMenu(Menu.getInstance());
+        return report;
+    }
+
+    /**
+     * Parses the loaded data from a buffered reader, one line at a time.
+     * <p>
+     * Once every line has been parsed, the menu is published so that readers
+     * of Menu.snapshot() see the loaded pizzas all at once.
      * @param reader buffered reader used to read file
      * @return menu item that has loaded all the pizzas from the file
      * @throws PizzaFormatException if the given reader is 'null' or empty,
@@ -190,6 +461,7 @@ public class MenuLoader {
             lineNumber++;
         }
         isNumberOfPizzasEqualToNumberOfPizzaLines(lineNumber);
+        Menu.getInstance().publish();
         return Menu.getInstance();
     }
 
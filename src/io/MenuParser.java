@@ -0,0 +1,1096 @@
+package io;
+
+import exceptions.PizzaFormatException;
+import exceptions.TooManyToppingsException;
+import menu.Menu;
+import pizza.MenuPizza;
+import pizza.Pizza;
+import pizza.ingredients.Topping;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
+import static pizza.ingredients.Bases.BaseSize.MEDIUM;
+import static pizza.ingredients.Cheeses.Cheese.MOZZARELLA;
+import static pizza.ingredients.Sauces.Sauce.TOMATO;
+import static pizza.ingredients.Topping.createTopping;
+
+/**
+ * Single pass parser for the pizza menu file format read by MenuLoader, which
+ * works directly over the UTF-8 bytes of the file.
+ * <p>
+ * Lines made up only of ASCII characters are read in place through a reusable
+ * view of the buffer, without creating a String for the line or arrays of its
+ * tokens. Other lines are decoded before being parsed. Either way, each line
+ * is checked in the same order as MenuLoader.getMenu(BufferedReader), so the
+ * same exceptions are thrown for the same line numbers.
+ * <p>
+ * Once the header has been parsed, the pizza lines may instead be parsed in
+ * parallel. The pizza lines are split into chunks at line ends, the lines in
+ * each chunk are counted and then parsed on a fork-join pool, and the parsed
+ * pizzas are created and registered with the menu in file order. As the
+ * chunks are merged in order, the first failure in the file is the one
+ * thrown, with its line number. The chunks look up toppings in a table of
+ * the toppings seen by the thread that parsed the header, so toppings it has
+ * staged are found by the threads of the pool.
+ * <p>
+ * Instead of stopping at the first error, the whole file may be checked,
+ * collecting every error with its line number in a LoadReport. When loading
+ * leniently, valid toppings and pizzas are created and bad lines are skipped.
+ * When validating, nothing is created: the toppings declared by the file are
+ * only remembered by name, as if no other toppings had been created, and each
+ * pizza line is only checked.
+ */
+final class MenuParser {
+
+    /**
+     * name of the pizza menu expected at the start of the first line
+     */
+    private static final String NAME = "PizzaMenu";
+
+    /**
+     * number of lines before the first pizza line
+     */
+    private static final int NUMBER_OF_HEADER_LINES = 5;
+
+    /**
+     * smallest number of bytes of pizza lines worth parsing as its own chunk
+     */
+    private static final int MINIMUM_CHUNK_SIZE = 1 << 16;
+
+    /**
+     * number of chunks the pizza lines are split into for each thread of the
+     * pool, so that threads finishing early can take on more chunks
+     */
+    private static final int CHUNKS_PER_THREAD = 4;
+
+    /**
+     * buffer holding the bytes of the menu file
+     */
+    private final ByteBuffer buffer;
+
+    /**
+     * index in the buffer of the start of the next line
+     */
+    private int position;
+
+    /**
+     * index in the buffer of the end of the menu file, or of the chunk being
+     * parsed
+     */
+    private final int limit;
+
+    /**
+     * reusable view of an ASCII line in the buffer
+     */
+    private final AsciiLine asciiLine = new AsciiLine();
+
+    /**
+     * current line of the menu file, without its line terminator
+     */
+    private CharSequence line;
+
+    /**
+     * current line number of the menu file
+     */
+    private int lineNumber = 0;
+
+    /**
+     * number of menu pizzas according to the first line of the menu file, or
+     * -1 until it has been parsed
+     */
+    private int numberOfPizzas = -1;
+
+    /**
+     * report of every error found when checking the whole file, or null if
+     * parsing stops at the first error
+     */
+    private LoadReport report;
+
+    /**
+     * uppercase names of the toppings declared by the menu file when it is
+     * only validated, or null if toppings and pizzas are created
+     */
+    private Set<String> declaredToppings;
+
+    /**
+     * toppings by uppercase name, as seen by the thread parsing the header,
+     * for chunks parsed on other threads, or null if toppings are looked up
+     * with Topping.valueOf(String)
+     */
+    private Map<String, Topping> definedToppings;
+
+    /**
+     * reusable builder for the name of the current pizza
+     */
+    private final StringBuilder pizzaName = new StringBuilder();
+
+    /**
+     * reusable list for the toppings of the current pizza
+     */
+    private final List<Topping> pizzaToppings = new ArrayList<>();
+
+    /**
+     * toppings already looked up by the text used for them on a pizza line
+     */
+    private final ToppingTable toppingTable = new ToppingTable();
+
+    /**
+     * Creates a parser for the menu file held between the position and limit
+     * of the given buffer.
+     * @param buffer buffer holding the bytes of the menu file
+     */
+    MenuParser(ByteBuffer buffer) {
+        this(buffer, buffer.position(), buffer.limit(), 0);
+    }
+
+    /**
+     * Creates a parser for the lines held between the given indexes of the
+     * buffer, where the line before the first has the given line number.
+     * @param buffer buffer holding the bytes of the menu file
+     * @param position index of the first byte to be parsed
+     * @param limit index after the last byte to be parsed
+     * @param lineNumber line number of the line before the first
+     */
+    private MenuParser(ByteBuffer buffer,
+                       int position,
+                       int limit,
+                       int lineNumber) {
+        this.buffer = buffer;
+        this.position = position;
+        this.limit = limit;
+        this.lineNumber = lineNumber;
+    }
+
+    /**
+     * Parses the menu file, creating its toppings and registering its pizzas
+     * with the menu.
+     * <p>
+     * Once every line has been parsed, the menu is published.
+     * @return menu holding the loaded pizzas
+     * @throws PizzaFormatException if the menu file is empty or a line is not
+     *     in the expected format
+     * @throws TooManyToppingsException if a pizza line has too many toppings
+     * @throws IndexOutOfBoundsException if a line is too short to hold the
+     *     expected fields, or if the number of pizza lines does not match the
+     *     number of pizzas given in the first line
+     */
+    Menu parse()
+            throws PizzaFormatException,
+            TooManyToppingsException,
+            IndexOutOfBoundsException {
+        parseHeader();
+        while (nextLine()) {
+            parsePizzaLine();
+        }
+        return parsed();
+    }
+
+    /**
+     * Parses the menu file as parse() does, except that the pizza lines are
+     * parsed in parallel on the given pool.
+     * @param pool pool to parse the pizza lines on
+     * @return menu holding the loaded pizzas
+     * @throws PizzaFormatException if the menu file is empty or a line is not
+     *     in the expected format
+     * @throws TooManyToppingsException if a pizza line has too many toppings
+     * @throws IndexOutOfBoundsException if a line is too short to hold the
+     *     expected fields, or if the number of pizza lines does not match the
+     *     number of pizzas given in the first line
+     */
+    Menu parse(ForkJoinPool pool)
+            throws PizzaFormatException,
+            TooManyToppingsException,
+            IndexOutOfBoundsException {
+        parseHeader();
+        // the pool threads would not see toppings staged by this thread
+        definedToppings = new HashMap<>();
+        for (Topping topping : Topping.values()) {
+            definedToppings.put(topping.toString(), topping);
+        }
+        int numberOfChunks = Math.max(1, Math.min(
+                pool.getParallelism() * CHUNKS_PER_THREAD,
+                (limit - position) / MINIMUM_CHUNK_SIZE));
+
+        List<Chunk> chunks = new ArrayList<>(numberOfChunks);
+        int chunkBegin = position;
+        for (int index = 1; index <= numberOfChunks; index++) {
+            int chunkEnd = index == numberOfChunks
+                    ? limit
+                    : nextLineStart(Math.max(chunkBegin, position
+                            + (int) ((long) (limit - position)
+                                    * index / numberOfChunks)));
+            chunks.add(new Chunk(chunkBegin, chunkEnd));
+            chunkBegin = chunkEnd;
+        }
+
+        List<ForkJoinTask<?>> tasks = new ArrayList<>(numberOfChunks);
+        for (Chunk chunk : chunks) {
+            tasks.add(pool.submit(chunk::countLines));
+        }
+        for (int index = 0; index < numberOfChunks; index++) {
+            tasks.get(index).join();
+            chunks.get(index).previousLineNumber = lineNumber;
+            lineNumber += chunks.get(index).numberOfLines;
+        }
+
+        tasks.clear();
+        for (Chunk chunk : chunks) {
+            tasks.add(pool.submit(chunk::parse));
+        }
+        for (int index = 0; index < numberOfChunks; index++) {
+            tasks.get(index).join();
+            chunks.get(index).createPizzas();
+            chunks.set(index, null);
+        }
+        return parsed();
+    }
+
+    /**
+     * Checks every line of the menu file, reporting each line that cannot be
+     * parsed rather than stopping at the first of them.
+     * <p>
+     * If the file is loaded leniently, the toppings and the pizzas on valid
+     * lines are created, but the menu is not published. Otherwise, the file is
+     * only validated and neither the toppings nor the menu are changed.
+     * @param isLenient if the valid toppings and pizzas are loaded
+     * @return report of the errors found in the menu file
+     */
+    LoadReport check(boolean isLenient) {
+        report = new LoadReport();
+        if (!isLenient) {
+            declaredToppings = new HashSet<>();
+        }
+        if (position >= limit) {
+            report.addError(1, new PizzaFormatException(
+                    "GIVEN READER IS EMPTY", 1));
+        }
+        while (nextLine()) {
+            try {
+                parseLine();
+            } catch (PizzaFormatException
+                     | TooManyToppingsException
+                     | IndexOutOfBoundsException
+                     | IllegalArgumentException exception) {
+                report.addError(lineNumber, exception);
+            }
+        }
+        if (numberOfPizzas >= 0
+                && numberOfPizzas != lineNumber - NUMBER_OF_HEADER_LINES) {
+            report.addError(1, new IndexOutOfBoundsException(
+                    "NUMBER OF PIZZAS IS NOT EQUAL TO NUMBER OF PIZZA LINES"));
+        }
+        report.setNumberOfLines(lineNumber);
+        return report;
+    }
+
+    /**
+     * Parses the current line according to its line number.
+     * @throws PizzaFormatException if the line is not in the expected format
+     * @throws TooManyToppingsException if a pizza line has too many toppings
+     * @throws IndexOutOfBoundsException if the line is too short to hold the
+     *     expected fields
+     * @throws IllegalArgumentException if a pizza line has a blank name
+     */
+    private void parseLine()
+            throws PizzaFormatException,
+            TooManyToppingsException,
+            IndexOutOfBoundsException,
+            IllegalArgumentException {
+        if (lineNumber == 1) {
+            parseHeaderLine();
+        } else if (lineNumber == 2
+                || lineNumber == 5) {
+            parseBlankLine();
+        } else if (lineNumber == 3
+                || lineNumber == 4) {
+            parseToppingLine();
+        } else {
+            parsePizzaLine();
+        }
+    }
+
+    /**
+     * Parses the first five lines of the menu file, holding the number of
+     * pizzas and the toppings.
+     * @throws PizzaFormatException if the menu file is empty or a line is not
+     *     in the expected format
+     * @throws IndexOutOfBoundsException if the first line is too short to hold
+     *     the expected fields
+     */
+    private void parseHeader()
+            throws PizzaFormatException,
+            IndexOutOfBoundsException {
+        if (position >= limit) {
+            throw new PizzaFormatException(
+                    "GIVEN READER IS EMPTY", 1);
+        }
+        while (lineNumber < NUMBER_OF_HEADER_LINES && nextLine()) {
+            if (lineNumber == 1) {
+                parseHeaderLine();
+            } else if (lineNumber == 2
+                    || lineNumber == 5) {
+                parseBlankLine();
+            } else {
+                parseToppingLine();
+            }
+        }
+    }
+
+    /**
+     * Checks the number of pizza lines once every line has been parsed, and
+     * publishes the menu.
+     * @return menu holding the loaded pizzas
+     * @throws IndexOutOfBoundsException if the number of pizza lines does not
+     *     match the number of pizzas given in the first line
+     */
+    private Menu parsed()
+            throws IndexOutOfBoundsException {
+        if (numberOfPizzas != lineNumber - NUMBER_OF_HEADER_LINES) {
+            throw new IndexOutOfBoundsException("NUMBER OF PIZZAS IS NOT EQUAL "
+                    + "TO NUMBER OF PIZZA LINES");
+        }
+        Menu.getInstance().publish();
+        return Menu.getInstance();
+    }
+
+    /**
+     * Moves to the next line of the menu file, where lines are ended by a line
+     * feed, a carriage return or a carriage return followed by a line feed.
+     * @return true if there was another line, otherwise, false
+     */
+    private boolean nextLine() {
+        if (position >= limit) {
+            return false;
+        }
+        int start = position;
+        int end = start;
+        boolean isAscii = true;
+        while (end < limit) {
+            byte character = buffer.get(end);
+            if (character == '\n' || character == '\r') {
+                break;
+            } else if (character < 0) {
+                isAscii = false;
+            }
+            end++;
+        }
+        position = end;
+        if (end < limit) {
+            position++;
+            if (buffer.get(end) == '\r'
+                    && position < limit
+                    && buffer.get(position) == '\n') {
+                position++;
+            }
+        }
+        if (isAscii) {
+            line = asciiLine.of(start, end);
+        } else {
+            line = StandardCharsets.UTF_8.decode(
+                    buffer.duplicate().position(start).limit(end));
+        }
+        lineNumber++;
+        return true;
+    }
+
+    /**
+     * Returns the index in the buffer of the start of the line after the one
+     * holding the given index.
+     * @param index index in the buffer
+     * @return index of the start of the next line, or the limit
+     */
+    private int nextLineStart(int index) {
+        while (index < limit) {
+            byte character = buffer.get(index++);
+            if (character == '\n') {
+                break;
+            } else if (character == '\r') {
+                if (index < limit && buffer.get(index) == '\n') {
+                    index++;
+                }
+                break;
+            }
+        }
+        return index;
+    }
+
+    /**
+     * Checks the menu name and the space following it on the first line, and
+     * stores the number of menu pizzas.
+     * @throws PizzaFormatException if the name on the first line is not
+     *     'PizzaMenu', if the space is missing after the name or if the number
+     *     of pizzas cannot be parsed
+     * @throws IndexOutOfBoundsException if the line ends before the name, the
+     *     space or the number of pizzas
+     */
+    private void parseHeaderLine()
+            throws PizzaFormatException,
+            IndexOutOfBoundsException {
+        if (line.length() < NAME.length()) {
+            throw new IndexOutOfBoundsException(
+                    "FIRST LINE IS SHORTER THAN 'PizzaMenu'");
+        }
+        for (int index = 0; index < NAME.length(); index++) {
+            if (line.charAt(index) != NAME.charAt(index)) {
+                throw new PizzaFormatException(
+                        "NAME ON THE FIRST LINE IS NOT 'PizzaMenu'",
+                        lineNumber);
+            }
+        }
+        if (line.length() == NAME.length()) {
+            throw new IndexOutOfBoundsException(
+                    "FIRST LINE ENDS AFTER 'PizzaMenu'");
+        } else if (line.charAt(NAME.length()) != ' ') {
+            throw new PizzaFormatException(
+                    "SPACE IS MISSING AFTER NAME",
+                    lineNumber);
+        }
+
+        int begin = NAME.length() + 1;
+        int end = trimEnd(0, line.length());
+        if (end <= begin) {
+            throw new IndexOutOfBoundsException(
+                    "NUMBER OF PIZZAS IS MISSING FROM THE FIRST LINE");
+        }
+        int numberEnd = indexOf(' ', begin, end);
+        try {
+            numberOfPizzas = Integer.parseInt(line,
+                    begin, numberEnd < 0 ? end : numberEnd, 10);
+        } catch (NumberFormatException exception) {
+            throw new PizzaFormatException(
+                    "NUMBER OF PIZZAS CANNOT BE PARSED",
+                    lineNumber);
+        }
+    }
+
+    /**
+     * Checks that the current line is empty.
+     * @throws PizzaFormatException if the current line is not empty
+     */
+    private void parseBlankLine()
+            throws PizzaFormatException {
+        if (line.length() != 0) {
+            throw new PizzaFormatException(
+                    "MISSING BLANK LINE",
+                    lineNumber);
+        }
+    }
+
+    /**
+     * Creates the toppings listed on the current line, which are vegan if this
+     * is the fourth line.
+     * <p>
+     * When the whole file is being checked, every valid topping on the line is
+     * created before the line is reported, rather than only those before the
+     * first invalid topping.
+     * @throws PizzaFormatException if the line contains an invalid topping
+     *     name
+     */
+    private void parseToppingLine()
+            throws PizzaFormatException {
+        boolean isVegan = lineNumber == 4;
+        int begin = trimStart(0, line.length());
+        int end = trimEnd(begin, line.length());
+        boolean isValid = true;
+        int tokenBegin = begin;
+        while (true) {
+            int tokenEnd = indexOfSeparator(tokenBegin, end);
+            isValid &= declareTopping(substring(tokenBegin,
+                    tokenEnd < 0 ? end : tokenEnd), isVegan);
+            if (tokenEnd < 0
+                    || !isValid && report == null) {
+                break;
+            }
+            tokenBegin = tokenEnd + 2;
+        }
+        if (!isValid) {
+            throw new PizzaFormatException(
+                    "TOPPING LINE CONTAINS AN INVALID TOPPING NAME",
+                    lineNumber);
+        }
+    }
+
+    /**
+     * Creates a topping with the given name, or only remembers its name if the
+     * file is being validated.
+     * @param name name of the topping
+     * @param isVegan if the topping is vegan or non-vegan
+     * @return true if the topping name is valid, otherwise, false
+     */
+    private boolean declareTopping(String name, boolean isVegan) {
+        if (declaredToppings != null) {
+            return !name.isEmpty()
+                    && declaredToppings.add(name.toUpperCase());
+        }
+        try {
+            createTopping(name, isVegan);
+            return true;
+        } catch (IllegalArgumentException exception) {
+            return false;
+        }
+    }
+
+    /**
+     * Creates and registers the menu pizza described by the current line.
+     * @throws PizzaFormatException if the line contains a topping that was not
+     *     mentioned in any topping line
+     * @throws TooManyToppingsException if the line has too many toppings
+     * @throws IndexOutOfBoundsException if the line is missing the brackets
+     *     around its toppings or the name before them
+     */
+    private void parsePizzaLine()
+            throws PizzaFormatException,
+            TooManyToppingsException,
+            IndexOutOfBoundsException {
+        createPizza(pizzaToppings, readPizzaLine());
+    }
+
+    /**
+     * Reads the toppings of the pizza on the current line into pizzaToppings,
+     * and returns its name.
+     * @return name of the pizza in title format, or null if the line has no
+     *     name before the toppings
+     * @throws PizzaFormatException if the line contains a topping that was not
+     *     mentioned in any topping line
+     * @throws IndexOutOfBoundsException if the line is missing the brackets
+     *     around its toppings
+     */
+    private String readPizzaLine()
+            throws PizzaFormatException,
+            IndexOutOfBoundsException {
+        int open = indexOf('[', 0, line.length());
+        int close = indexOf(']', 0, line.length());
+        if (open + 1 > close) {
+            throw new IndexOutOfBoundsException(
+                    "PIZZA LINE IS MISSING ITS TOPPINGS");
+        }
+        parsePizzaToppings(open + 1, close);
+        if (open < 1) {
+            return null;
+        }
+        parsePizzaName(0, open - 1);
+        return pizzaName.toString();
+    }
+
+    /**
+     * Creates and registers a menu pizza with the given toppings and name, or
+     * only checks them if the file is being validated.
+     * <p>
+     * The toppings are checked before the name, in the same order as
+     * MenuLoader.getMenu(BufferedReader), and the pizza is only created once
+     * both are valid.
+     * @param toppings toppings of the pizza
+     * @param name name of the pizza, or null if the line has no name
+     * @throws TooManyToppingsException if there are too many toppings
+     * @throws IndexOutOfBoundsException if the name is null
+     * @throws IllegalArgumentException if the name is blank
+     */
+    private void createPizza(List<Topping> toppings,
+                             String name)
+            throws TooManyToppingsException,
+            IndexOutOfBoundsException,
+            IllegalArgumentException {
+        if (toppings.size() > Pizza.MAX_TOPPINGS) {
+            throw new TooManyToppingsException(
+                    "NUMBER OF TOPPINGS IS GREATER THAN THE MAXIMUM ALLOWABLE "
+                            + "NUMBER OF TOPPINGS");
+        } else if (name == null) {
+            throw new IndexOutOfBoundsException(
+                    "PIZZA LINE IS MISSING ITS NAME");
+        } else if (name.isBlank()) {
+            throw new IllegalArgumentException();
+        }
+        if (declaredToppings == null) {
+            new MenuPizza(MEDIUM, TOMATO, MOZZARELLA, toppings).setName(name);
+        }
+    }
+
+    /**
+     * Looks up the toppings listed between the given indexes of the current
+     * line, storing them in pizzaToppings.
+     * @param begin index of the first character of the toppings
+     * @param end index after the last character of the toppings
+     * @throws PizzaFormatException if a topping was not mentioned in any
+     *     topping line
+     */
+    private void parsePizzaToppings(int begin, int end)
+            throws PizzaFormatException {
+        pizzaToppings.clear();
+        int tokenBegin = trimStart(begin, end);
+        int tokenLimit = trimEnd(tokenBegin, end);
+        try {
+            while (true) {
+                int tokenEnd = indexOfSeparator(tokenBegin, tokenLimit);
+                if (tokenEnd < 0) {
+                    pizzaToppings.add(toppingTable.get(tokenBegin, tokenLimit));
+                    break;
+                }
+                pizzaToppings.add(toppingTable.get(tokenBegin, tokenEnd));
+                tokenBegin = tokenEnd + 2;
+            }
+        } catch (IllegalArgumentException exception) {
+            throw new PizzaFormatException(
+                    "PIZZA LINE CONTAINS AN INVALID TOPPING NAME, SUCH THAT, "
+                            + "IT WAS NOT MENTIONED IN ANY TOPPING LINE",
+                    lineNumber);
+        }
+    }
+
+    /**
+     * Builds the name between the given indexes of the current line in title
+     * format, i.e. 'This Is Title Format', storing it in pizzaName.
+     * <p>
+     * Words are separated by single spaces, which are kept as they are. As
+     * with MenuLoader, a space is added after the last word if the same word
+     * appears earlier in the name.
+     * @param begin index of the first character of the name
+     * @param end index after the last character of the name
+     */
+    private void parsePizzaName(int begin, int end) {
+        pizzaName.setLength(0);
+        begin = trimStart(begin, end);
+        end = trimEnd(begin, end);
+
+        int lastWord = begin;
+        int wordBegin = begin;
+        for (int index = begin; index <= end; index++) {
+            if (index == end || line.charAt(index) == ' ') {
+                for (int letter = wordBegin; letter < index; letter++) {
+                    pizzaName.append(letter == wordBegin
+                            ? Character.toUpperCase(line.charAt(letter))
+                            : Character.toLowerCase(line.charAt(letter)));
+                }
+                if (index < end) {
+                    pizzaName.append(' ');
+                    wordBegin = index + 1;
+                    lastWord = wordBegin;
+                }
+            }
+        }
+        for (wordBegin = begin; wordBegin < lastWord; ) {
+            int wordEnd = indexOf(' ', wordBegin, end);
+            if (regionEquals(wordBegin, wordEnd, lastWord, end)) {
+                pizzaName.append(' ');
+                break;
+            }
+            wordBegin = wordEnd + 1;
+        }
+    }
+
+    /**
+     * Returns the topping with the given name. If the file is being validated,
+     * the name is only checked against the declared toppings and null is
+     * returned in place of the topping. If a chunk is being parsed, the name
+     * is looked up in the toppings passed to it by the parser that split the
+     * file into chunks.
+     * @param name name of the topping
+     * @return topping with the given name, or null if validating
+     * @throws IllegalArgumentException if there is no topping with the given
+     *     name
+     */
+    private Topping lookUpTopping(String name)
+            throws IllegalArgumentException {
+        if (declaredToppings == null
+                && definedToppings == null) {
+            return Topping.valueOf(name);
+        } else if (declaredToppings == null) {
+            Topping topping = definedToppings.get(name.toUpperCase());
+            if (topping == null) {
+                throw new IllegalArgumentException(
+                        "NO TOPPING EXISTS WITH THE SPECIFIED NAME OF "
+                                + name.toUpperCase());
+            }
+            return topping;
+        } else if (!declaredToppings.contains(name.toUpperCase())) {
+            throw new IllegalArgumentException(
+                    "NO TOPPING EXISTS WITH THE SPECIFIED NAME OF "
+                            + name.toUpperCase());
+        }
+        return null;
+    }
+
+    /**
+     * Returns the index of the first occurrence of the given character between
+     * the given indexes of the current line, or -1 if it does not occur.
+     * @param character character to find
+     * @param begin index to start searching from
+     * @param end index to stop searching at
+     * @return index of the character, or -1
+     */
+    private int indexOf(char character, int begin, int end) {
+        for (int index = begin; index < end; index++) {
+            if (line.charAt(index) == character) {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first ", " between the given indexes of the
+     * current line, or -1 if it does not occur.
+     * @param begin index to start searching from
+     * @param end index to stop searching at
+     * @return index of the separator, or -1
+     */
+    private int indexOfSeparator(int begin, int end) {
+        for (int index = begin; index + 1 < end; index++) {
+            if (line.charAt(index) == ','
+                    && line.charAt(index + 1) == ' ') {
+                return index;
+            }
+        }
+        return -1;
+    }
+
+    /**
+     * Returns the index of the first character at or after begin that is not
+     * whitespace, as defined by String.trim().
+     * @param begin index to start from
+     * @param end index to stop at
+     * @return index of the first non-whitespace character, or end
+     */
+    private int trimStart(int begin, int end) {
+        while (begin < end && line.charAt(begin) <= ' ') {
+            begin++;
+        }
+        return begin;
+    }
+
+    /**
+     * Returns the index after the last character before end that is not
+     * whitespace, as defined by String.trim().
+     * @param begin index to stop at
+     * @param end index to start from
+     * @return index after the last non-whitespace character, or begin
+     */
+    private int trimEnd(int begin, int end) {
+        while (end > begin && line.charAt(end - 1) <= ' ') {
+            end--;
+        }
+        return end;
+    }
+
+    /**
+     * Returns true if the two given regions of the current line hold the same
+     * characters, otherwise, false.
+     * @param begin1 start of the first region
+     * @param end1 end of the first region
+     * @param begin2 start of the second region
+     * @param end2 end of the second region
+     * @return true if the regions are equal, otherwise, false
+     */
+    private boolean regionEquals(int begin1, int end1, int begin2, int end2) {
+        if (end1 - begin1 != end2 - begin2) {
+            return false;
+        }
+        for (int offset = 0; offset < end1 - begin1; offset++) {
+            if (line.charAt(begin1 + offset) != line.charAt(begin2 + offset)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the characters between the given indexes of the current line.
+     * @param begin index of the first character
+     * @param end index after the last character
+     * @return string of the characters between the indexes
+     */
+    private String substring(int begin, int end) {
+        return line.subSequence(begin, end).toString();
+    }
+
+    /**
+     * Pizza lines between two indexes of the buffer, which are parsed on their
+     * own and then merged into the menu in file order.
+     */
+    private final class Chunk {
+        /**
+         * index in the buffer of the first byte of the chunk
+         */
+        private final int begin;
+
+        /**
+         * index in the buffer after the last byte of the chunk
+         */
+        private final int end;
+
+        /**
+         * number of lines in the chunk
+         */
+        private int numberOfLines;
+
+        /**
+         * line number of the line before the first line of the chunk
+         */
+        private int previousLineNumber;
+
+        /**
+         * toppings of each pizza parsed from the chunk
+         */
+        private List<List<Topping>> toppings;
+
+        /**
+         * name of each pizza parsed from the chunk, or null if it has none
+         */
+        private List<String> names;
+
+        /**
+         * first failure when parsing the chunk, after the parsed pizzas
+         */
+        private Exception failure;
+
+        /**
+         * Creates a chunk of the pizza lines between the given indexes.
+         * @param begin index of the first byte of the chunk
+         * @param end index after the last byte of the chunk
+         */
+        private Chunk(int begin, int end) {
+            this.begin = begin;
+            this.end = end;
+        }
+
+        /**
+         * Counts the lines in the chunk, as they would be read by nextLine().
+         */
+        private void countLines() {
+            int count = 0;
+            for (int index = begin; index < end; index++) {
+                byte character = buffer.get(index);
+                if (character == '\n') {
+                    count++;
+                } else if (character == '\r') {
+                    count++;
+                    if (index + 1 < end && buffer.get(index + 1) == '\n') {
+                        index++;
+                    }
+                }
+            }
+            byte last = end > begin ? buffer.get(end - 1) : (byte) '\n';
+            numberOfLines = last == '\n' || last == '\r' ? count : count + 1;
+        }
+
+        /**
+         * Parses the pizza lines in the chunk with a parser of its own, up to
+         * the first line that fails.
+         */
+        private void parse() {
+            MenuParser parser = new MenuParser(buffer, begin, end,
+                    previousLineNumber);
+            parser.definedToppings = definedToppings;
+            toppings = new ArrayList<>(numberOfLines);
+            names = new ArrayList<>(numberOfLines);
+            try {
+                while (parser.nextLine()) {
+                    String name = parser.readPizzaLine();
+                    toppings.add(List.copyOf(parser.pizzaToppings));
+                    names.add(name);
+                }
+            } catch (PizzaFormatException
+                     | IndexOutOfBoundsException exception) {
+                failure = exception;
+            }
+        }
+
+        /**
+         * Creates and registers the pizzas parsed from the chunk, then throws
+         * the failure that stopped the chunk being parsed, if any.
+         * @throws PizzaFormatException if a line contains a topping that was
+         *     not mentioned in any topping line
+         * @throws TooManyToppingsException if a line has too many toppings
+         * @throws IndexOutOfBoundsException if a line is missing the brackets
+         *     around its toppings or the name before them
+         */
+        private void createPizzas()
+                throws PizzaFormatException,
+                TooManyToppingsException,
+                IndexOutOfBoundsException {
+            for (int index = 0; index < toppings.size(); index++) {
+                createPizza(toppings.get(index), names.get(index));
+            }
+            if (failure instanceof PizzaFormatException) {
+                throw (PizzaFormatException) failure;
+            } else if (failure != null) {
+                throw (IndexOutOfBoundsException) failure;
+            }
+        }
+    }
+
+    /**
+     * View of a line of ASCII characters held in the buffer, where each byte is
+     * one character.
+     */
+    private final class AsciiLine
+            implements CharSequence {
+        /**
+         * index in the buffer of the first character of the line
+         */
+        private int start;
+
+        /**
+         * number of characters in the line
+         */
+        private int length;
+
+        /**
+         * Points this view at the line between the given buffer indexes.
+         * @param start index of the first byte of the line
+         * @param end index after the last byte of the line
+         * @return this view
+         */
+        private AsciiLine of(int start, int end) {
+            this.start = start;
+            this.length = end - start;
+            return this;
+        }
+
+        @Override
+        public int length() {
+            return length;
+        }
+
+        @Override
+        public char charAt(int index) {
+            return (char) buffer.get(start + index);
+        }
+
+        @Override
+        public CharSequence subSequence(int begin, int end) {
+            byte[] bytes = new byte[end - begin];
+            buffer.get(start + begin, bytes);
+            return new String(bytes, StandardCharsets.ISO_8859_1);
+        }
+
+        @Override
+        public String toString() {
+            return subSequence(0, length).toString();
+        }
+    }
+
+    /**
+     * Open addressing hash table from the text used for a topping on a pizza
+     * line to the topping, so that each distinct spelling of a topping is only
+     * turned into a String and looked up once.
+     */
+    private final class ToppingTable {
+        /**
+         * text of each entry, or null for an empty slot
+         */
+        private String[] keys = new String[64];
+
+        /**
+         * topping of each entry
+         */
+        private Topping[] values = new Topping[64];
+
+        /**
+         * hash code of the text of each entry
+         */
+        private int[] hashCodes = new int[64];
+
+        /**
+         * number of entries in the table
+         */
+        private int size = 0;
+
+        /**
+         * Returns the topping named by the text between the given indexes of
+         * the current line, as given by lookUpTopping(String).
+         * @param begin index of the first character of the name
+         * @param end index after the last character of the name
+         * @return topping with the given name, or null if validating
+         * @throws IllegalArgumentException if there is no topping with the
+         *     given name
+         */
+        private Topping get(int begin, int end)
+                throws IllegalArgumentException {
+            int hashCode = 0;
+            for (int index = begin; index < end; index++) {
+                hashCode = 31 * hashCode + line.charAt(index);
+            }
+            int mask = keys.length - 1;
+            int slot = mix(hashCode) & mask;
+            while (keys[slot] != null) {
+                if (hashCodes[slot] == hashCode
+                        && matches(keys[slot], begin, end)) {
+                    return values[slot];
+                }
+                slot = (slot + 1) & mask;
+            }
+            String key = substring(begin, end);
+            Topping topping = lookUpTopping(key);
+            keys[slot] = key;
+            values[slot] = topping;
+            hashCodes[slot] = hashCode;
+            if (++size * 2 > keys.length) {
+                resize();
+            }
+            return topping;
+        }
+
+        /**
+         * Returns true if the given key holds the same characters as the
+         * current line between the given indexes, otherwise, false.
+         * @param key key of an entry
+         * @param begin index of the first character
+         * @param end index after the last character
+         * @return true if the key matches, otherwise, false
+         */
+        private boolean matches(String key, int begin, int end) {
+            if (key.length() != end - begin) {
+                return false;
+            }
+            for (int index = 0; index < key.length(); index++) {
+                if (key.charAt(index) != line.charAt(begin + index)) {
+                    return false;
+                }
+            }
+            return true;
+        }
+
+        /**
+         * Spreads the bits of a hash code so that similar keys do not fill
+         * neighbouring slots.
+         * @param hashCode hash code to spread
+         * @return spread hash code
+         */
+        private int mix(int hashCode) {
+            return hashCode ^ (hashCode >>> 16);
+        }
+
+        /**
+         * Doubles the number of slots in the table.
+         */
+        private void resize() {
+            String[] oldKeys = keys;
+            Topping[] oldValues = values;
+            int[] oldHashCodes = hashCodes;
+            keys = new String[oldKeys.length * 2];
+            values = new Topping[oldKeys.length * 2];
+            hashCodes = new int[oldKeys.length * 2];
+            int mask = keys.length - 1;
+            for (int index = 0; index < oldKeys.length; index++) {
+                if (oldKeys[index] != null) {
+                    int slot = mix(oldHashCodes[index]) & mask;
+                    while (keys[slot] != null) {
+                        slot = (slot + 1) & mask;
+                    }
+                    keys[slot] = oldKeys[index];
+                    values[slot] = oldValues[index];
+                    hashCodes[slot] = oldHashCodes[index];
+                }
+            }
+        }
+    }
+}
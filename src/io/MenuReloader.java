@@ -0,0 +1,233 @@
+package io;
+
+import menu.Menu;
+import pizza.ingredients.Topping;
+
+import java.io.Closeable;
+import java.io.FileInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.concurrent.TimeUnit;
+import java.util.function.Consumer;
+
+/**
+ * Reloads the menu whenever its menu file changes, while the application keeps
+ * running.
+ * <p>
+ * The folder holding the menu file is watched on a background thread. Once
+ * the file has changed and then been left alone for the debounce delay, it is
+ * reloaded on that thread, so that an editor saving the file in several steps
+ * causes a single reload.
+ * <p>
+ * A reload reads the file into a new set of toppings and menu items, staged
+ * with Topping.stageToppings() and Menu.stage(), checking every line as
+ * MenuLoader.loadLeniently does. Only if the file has no errors are the staged
+ * toppings and items published together by Menu.publishStaged(), replacing
+ * the previous ones at once. Otherwise, they are discarded and the menu is left as it was.
+ * Either way, the LoadReport of the reload is passed to the listener.
+ * <p>
+ * Publishing only applies the differences from the previous menu, so the
+ * toppings and menu items that have not changed are kept as the same objects.
+ * The differences are given by LoadReport.getDiff() and to the change
+ * listeners of the Menu.
+ */
+public class MenuReloader
+        implements Closeable {
+
+    /**
+     * default time in milliseconds the menu file must be left unchanged
+     * before it is reloaded
+     */
+    public static final long DEFAULT_DEBOUNCE_MILLIS = 250;
+
+    /**
+     * path of the menu file
+     */
+    private final Path file;
+
+    /**
+     * time in milliseconds the menu file must be left unchanged before it is
+     * reloaded
+     */
+    private final long debounceMillis;
+
+    /**
+     * listener given the report of each reload
+     */
+    private final Consumer<LoadReport> listener;
+
+    /**
+     * watch service watching the folder holding the menu file
+     */
+    private final WatchService watchService;
+
+    /**
+     * background thread waiting for changes to the menu file
+     */
+    private final Thread thread;
+
+    /**
+     * Creates a reloader for the menu file with the given name in the folder
+     * MenuLoader.PATH.
+     * <p>
+     * The file is not watched until start() is called.
+     * @param filename name of the menu file
+     * @param listener listener given the report of each reload
+     * @throws IOException if the folder cannot be watched
+     */
+    public MenuReloader(String filename,
+                        Consumer<LoadReport> listener)
+            throws IOException {
+        this(Paths.get(MenuLoader.PATH, filename),
+                DEFAULT_DEBOUNCE_MILLIS,
+                listener);
+    }
+
+    /**
+     * Creates a reloader for the menu file at the given path.
+     * <p>
+     * The file is not watched until start() is called.
+     * @param file path of the menu file
+     * @param debounceMillis time in milliseconds the menu file must be left
+     *     unchanged before it is reloaded
+     * @param listener listener given the report of each reload
+     * @throws IOException if the folder holding the file cannot be watched
+     * @throws IllegalArgumentException if file or listener is null, or if
+     *     debounceMillis is negative
+     */
+    public MenuReloader(Path file,
+                        long debounceMillis,
+                        Consumer<LoadReport> listener)
+            throws IOException,
+            IllegalArgumentException {
+        if (file == null
+                || listener == null
+                || debounceMillis < 0) {
+            throw new IllegalArgumentException();
+        }
+        this.file = file.toAbsolutePath();
+        this.debounceMillis = debounceMillis;
+        this.listener = listener;
+        this.watchService = file.getFileSystem().newWatchService();
+        this.file.getParent().register(watchService,
+                StandardWatchEventKinds.ENTRY_CREATE,
+                StandardWatchEventKinds.ENTRY_MODIFY);
+        this.thread = new Thread(this::watch, "MenuReloader");
+        this.thread.setDaemon(true);
+    }
+
+    /**
+     * Starts watching the menu file on a background thread.
+     */
+    public void start() {
+        thread.start();
+    }
+
+    /**
+     * Stops watching the menu file. A reload that is under way is finished.
+     * @throws IOException if the watch service cannot be closed
+     */
+    @Override
+    public void close()
+            throws IOException {
+        watchService.close();
+    }
+
+    /**
+     * Reloads the menu file now, on the current thread, publishing the new
+     * toppings and menu only if the file has no errors.
+     * <p>
+     * Only one reload runs at a time.
+     * @return report of the errors found in the menu file, whose menu is null
+     *     if the menu was not replaced
+     * @throws IOException if the menu file cannot be read
+     */
+    public synchronized LoadReport reload()
+            throws IOException {
+        ByteBuffer buffer;
+        try (FileInputStream input = new FileInputStream(file.toFile())) {
+            buffer = ByteBuffer.wrap(input.readAllBytes());
+        }
+
+        Menu menu = Menu.getInstance();
+        Topping.stageToppings();
+        menu.stage();
+        try {
+            LoadReport report = new MenuParser(buffer).check(true);
+            if (report.isValid()) {
+                report.setDiff(menu.publishStaged());
+                report.setMenu(menu);
+            }
+            return report;
+        } finally {
+            Topping.discardStagedToppings();
+            menu.discardStaged();
+        }
+    }
+
+    /**
+     * Waits for changes to the menu file until the watch service is closed,
+     * reloading the file once it has been left unchanged for the debounce
+     * delay.
+     */
+    private void watch() {
+        try {
+            while (true) {
+                boolean isChanged = isMenuFileChanged(watchService.take());
+                while (isChanged) {
+                    WatchKey key = watchService.poll(debounceMillis,
+                            TimeUnit.MILLISECONDS);
+                    if (key == null) {
+                        reloadAndReport();
+                        isChanged = false;
+                    } else {
+                        isMenuFileChanged(key);
+                    }
+                }
+            }
+        } catch (ClosedWatchServiceException
+                 | InterruptedException exception) {
+            // the reloader has been closed
+        }
+    }
+
+    /**
+     * Returns true if the events of the given key include a change to the menu
+     * file, or events may have been lost, and resets the key.
+     * @param key key with events for the folder holding the menu file
+     * @return true if the menu file may have changed, otherwise, false
+     */
+    private boolean isMenuFileChanged(WatchKey key) {
+        boolean isChanged = false;
+        for (WatchEvent<?> event : key.pollEvents()) {
+            if (event.kind() == StandardWatchEventKinds.OVERFLOW
+                    || file.getFileName().equals(event.context())) {
+                isChanged = true;
+            }
+        }
+        key.reset();
+        return isChanged;
+    }
+
+    /**
+     * Reloads the menu file and passes the report to the listener, reporting
+     * a file that cannot be read as an error on line 0.
+     */
+    private void reloadAndReport() {
+        LoadReport report;
+        try {
+            report = reload();
+        } catch (IOException exception) {
+            report = new LoadReport();
+            report.addError(0, exception);
+        }
+        listener.accept(report);
+    }
+}
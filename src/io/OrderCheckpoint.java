@@ -0,0 +1,676 @@
+package io;
+
+import menu.Order;
+import menu.OrderLine;
+import pizza.Pizza;
+import pizza.PizzaSpec;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.UUID;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+import java.util.zip.CheckedOutputStream;
+
+/**
+ * Checkpoint of some of the orders held by an OrderJournal, written to a
+ * compact binary file so that the journal records it covers can be removed.
+ * <p>
+ * Checkpoints form a chain, each covering the journal records from where the
+ * one before it ends, so a checkpoint only holds the orders appended since the
+ * last one, and writing it neither reads nor rewrites the earlier ones. Each
+ * checkpoint also holds the running totals of every order up to where it
+ * ends, so the totals of the journal are known without reading its orders.
+ * <p>
+ * So that the chain stays short, a checkpoint holding at least as many orders
+ * as the one before it is merged with it, as the carries of a binary counter
+ * are. The chain then holds about log2 of the number of orders checkpoints,
+ * and each order is rewritten about as many times over the life of the
+ * journal.
+ * <p>
+ * A checkpoint file is laid out as,
+ *     magic number and format version (int, int)
+ *     sequence number of the first journal record it covers (long)
+ *     sequence number of the first journal record it does not cover (long)
+ *     running price without discounts and total price in cents of the orders
+ *         of every record up to the first it does not cover (long, long)
+ *     string table: count, then length and UTF-8 bytes of each string
+ *     spec table: count, then for each spec the string indexes of its kind
+ *         and name, the ordinals of its size, sauce and cheese (bytes), its
+ *         number of toppings and the string index of each topping name, and
+ *         the string index of its string representation
+ *     order table: count, then for each order its UUID (long, long), the
+ *         string indexes of its customer name and tier, its date as an epoch
+ *         day (long), its time as a nano of day (long), its price without
+ *         discounts and total price in cents (long, long), its number of
+ *         lines, and the spec index and quantity of each line
+ *     CRC32 checksum of everything before it (long)
+ * where counts, indexes and quantities are ints, a null string has the index
+ * -1, and a null date is written as Long.MIN_VALUE and a null time as -1.
+ * Names, strings and specs repeated by many orders are only written once.
+ * Toppings are written by name and read with Topping.recordedValueOf(String),
+ * so a checkpoint can be read whatever toppings the menu defines.
+ * <p>
+ * Checkpoints of the first version, which cover every record from the first
+ * and hold no sequence number of their first record or running totals, can
+ * still be read.
+ */
+final class OrderCheckpoint {
+
+    /**
+     * number identifying a checkpoint file, "PZOC"
+     */
+    private static final int MAGIC = 0x505A4F43;
+
+    /**
+     * version of the checkpoint file format
+     */
+    private static final int VERSION = 2;
+
+    /**
+     * first version of the checkpoint file format, whose header only holds
+     * the sequence number of the first record it does not cover
+     */
+    private static final int FIRST_VERSION = 1;
+
+    /**
+     * number of bytes in the header of a checkpoint
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + 4 * Long.BYTES;
+
+    /**
+     * prefix of the name of each checkpoint file
+     */
+    private static final String PREFIX = "checkpoint-";
+
+    /**
+     * suffix of the name of each checkpoint file
+     */
+    private static final String SUFFIX = ".snap";
+
+    /**
+     * path of the checkpoint file
+     */
+    private final Path path;
+
+    /**
+     * sequence number of the first journal record this checkpoint covers
+     */
+    private final long firstSequence;
+
+    /**
+     * sequence number of the first journal record this checkpoint does not
+     * cover
+     */
+    private final long sequence;
+
+    /**
+     * price in cents without discounts of the orders of every record before
+     * sequence
+     */
+    private final long withoutDiscountInCents;
+
+    /**
+     * total price in cents of the orders of every record before sequence
+     */
+    private final long totalInCents;
+
+    /**
+     * position of the string table in the checkpoint file
+     */
+    private final int tablesPosition;
+
+    /**
+     * Creates a checkpoint read from, or written to, the given file.
+     * @param path path of the checkpoint file
+     * @param firstSequence sequence number of the first record covered
+     * @param sequence sequence number of the first record not covered
+     * @param withoutDiscountInCents running price without discounts in cents
+     * @param totalInCents running total price in cents
+     * @param tablesPosition position of the string table in the file
+     */
+    private OrderCheckpoint(Path path,
+                            long firstSequence,
+                            long sequence,
+                            long withoutDiscountInCents,
+                            long totalInCents,
+                            int tablesPosition) {
+        this.path = path;
+        this.firstSequence = firstSequence;
+        this.sequence = sequence;
+        this.withoutDiscountInCents = withoutDiscountInCents;
+        this.totalInCents = totalInCents;
+        this.tablesPosition = tablesPosition;
+    }
+
+    /**
+     * Returns the path of the checkpoint file.
+     * @return path of the checkpoint file
+     */
+    Path getPath() {
+        return path;
+    }
+
+    /**
+     * Returns the sequence number of the first journal record this checkpoint
+     * covers.
+     * @return sequence number of the first record covered
+     */
+    long getFirstSequence() {
+        return firstSequence;
+    }
+
+    /**
+     * Returns the sequence number of the first journal record this checkpoint
+     * does not cover, which is also the number of orders in the journal up to
+     * the end of this checkpoint.
+     * @return sequence number of the first record not covered
+     */
+    long getSequence() {
+        return sequence;
+    }
+
+    /**
+     * Returns the number of orders this checkpoint holds.
+     * @return number of orders in this checkpoint
+     */
+    long size() {
+        return sequence - firstSequence;
+    }
+
+    /**
+     * Returns the price in cents without discounts of the orders of every
+     * journal record up to the end of this checkpoint.
+     * @return running price without discounts in cents
+     */
+    long getWithoutDiscountInCents() {
+        return withoutDiscountInCents;
+    }
+
+    /**
+     * Returns the total price in cents of the orders of every journal record
+     * up to the end of this checkpoint.
+     * @return running total price in cents
+     */
+    long getTotalInCents() {
+        return totalInCents;
+    }
+
+    /**
+     * Returns the checkpoint files in the given folder, in the order they were
+     * written.
+     * @param directory folder holding the checkpoint files
+     * @return paths of the checkpoint files
+     * @throws IOException if the folder cannot be read
+     */
+    static List<Path> list(Path directory)
+            throws IOException {
+        List<Path> checkpoints = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(checkpoints::add);
+        }
+        // names hold zero padded sequence numbers, so sort in sequence order
+        checkpoints.sort(null);
+        return checkpoints;
+    }
+
+    /**
+     * Returns the path of the checkpoint file covering the journal records
+     * before the given sequence number.
+     * @param directory folder holding the checkpoint files
+     * @param sequence sequence number of the first record not covered
+     * @return path of the checkpoint file
+     */
+    static Path pathOf(Path directory,
+                       long sequence) {
+        return directory.resolve(
+                String.format("%s%020d%s", PREFIX, sequence, SUFFIX));
+    }
+
+    /**
+     * Reads the chain of checkpoints in the given folder, from the first
+     * journal record for as long as it is unbroken, without reading their
+     * orders.
+     * <p>
+     * A checkpoint merged from the ones before it replaces them, and any of
+     * them left behind because the journal stopped while merging is deleted.
+     * The chain ends before the first checkpoint that is truncated or
+     * corrupted, or does not carry on from where the one before it ends.
+     * @param directory folder holding the checkpoint files
+     * @return checkpoints in the chain, in journal order
+     * @throws IOException if a checkpoint file cannot be read, or one that
+     *     has been merged cannot be deleted
+     */
+    static List<OrderCheckpoint> readChain(Path directory)
+            throws IOException {
+        List<OrderCheckpoint> chain = new ArrayList<>();
+        List<Path> merged = new ArrayList<>();
+        for (Path path : list(directory)) {
+            OrderCheckpoint checkpoint = open(path);
+            if (checkpoint == null) {
+                break;
+            }
+            while (!chain.isEmpty()
+                    && last(chain).firstSequence >= checkpoint.firstSequence) {
+                merged.add(chain.remove(chain.size() - 1).path);
+            }
+            long end = chain.isEmpty() ? 0 : last(chain).sequence;
+            if (checkpoint.firstSequence != end) {
+                break;
+            }
+            chain.add(checkpoint);
+        }
+        for (Path path : merged) {
+            Files.delete(path);
+        }
+        return chain;
+    }
+
+    /**
+     * Returns the last checkpoint in the given chain.
+     * @param chain checkpoints in journal order, which must not be empty
+     * @return last checkpoint in the chain
+     */
+    private static OrderCheckpoint last(List<OrderCheckpoint> chain) {
+        return chain.get(chain.size() - 1);
+    }
+
+    /**
+     * Opens a checkpoint file, checking its checksum and reading its header.
+     * <p>
+     * The orders of a checkpoint of the first version are read to add up its
+     * running totals, as they are not recorded.
+     * @param path path of the checkpoint file
+     * @return checkpoint held by the file, or null if the file is truncated or
+     *     corrupted
+     * @throws IOException if the file cannot be read, or the orders of a
+     *     checkpoint of the first version cannot be rebuilt
+     */
+    static OrderCheckpoint open(Path path)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int end = buffer.limit() - Long.BYTES;
+        if (end < 2 * Integer.BYTES + Long.BYTES
+                || buffer.getInt() != MAGIC) {
+            return null;
+        }
+        int version = buffer.getInt();
+        if (version != FIRST_VERSION
+                && (version != VERSION || end < HEADER_SIZE)) {
+            return null;
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, end);
+        if (checksum.getValue() != buffer.getLong(end)) {
+            return null;
+        }
+
+        if (version == FIRST_VERSION) {
+            long sequence = buffer.getLong();
+            OrderCheckpoint checkpoint = new OrderCheckpoint(path, 0,
+                    sequence, 0, 0, buffer.position());
+            long[] totals = new long[2];
+            checkpoint.readTables(buffer, end, order -> {
+                totals[0] += order.getOrderPriceWithoutDiscountInCents();
+                totals[1] += order.getTotalPriceInCents();
+            });
+            return new OrderCheckpoint(path, 0, sequence, totals[0],
+                    totals[1], checkpoint.tablesPosition);
+        }
+        long firstSequence = buffer.getLong();
+        long sequence = buffer.getLong();
+        long withoutDiscountInCents = buffer.getLong();
+        long totalInCents = buffer.getLong();
+        return new OrderCheckpoint(path, firstSequence, sequence,
+                withoutDiscountInCents, totalInCents, buffer.position());
+    }
+
+    /**
+     * Writes a checkpoint of the given orders, carrying on the chain from
+     * where the given checkpoint ends, to a file replaced in a single step
+     * once it has been forced to the disk.
+     * @param directory folder holding the checkpoint files
+     * @param previous last checkpoint in the chain, or null if there is none
+     * @param sequence sequence number of the first journal record the
+     *     checkpoint does not cover
+     * @param orders orders of the records the checkpoint covers, in journal
+     *     order
+     * @return checkpoint that was written
+     * @throws IOException if the checkpoint file cannot be written
+     */
+    static OrderCheckpoint write(Path directory,
+                                 OrderCheckpoint previous,
+                                 long sequence,
+                                 List<Order> orders)
+            throws IOException {
+        long withoutDiscountInCents = 0;
+        long totalInCents = 0;
+        if (previous != null) {
+            withoutDiscountInCents = previous.withoutDiscountInCents;
+            totalInCents = previous.totalInCents;
+        }
+        for (Order order : orders) {
+            withoutDiscountInCents +=
+                    order.getOrderPriceWithoutDiscountInCents();
+            totalInCents += order.getTotalPriceInCents();
+        }
+        return write(pathOf(directory, sequence),
+                previous == null ? 0 : previous.sequence,
+                sequence,
+                withoutDiscountInCents,
+                totalInCents,
+                orders);
+    }
+
+    /**
+     * Merges two checkpoints next to each other in the chain into a single
+     * checkpoint, which replaces the file of the later one before the file of
+     * the earlier one is deleted.
+     * @param earlier checkpoint before the later one in the chain
+     * @param later checkpoint after the earlier one in the chain
+     * @return checkpoint covering the records of both checkpoints
+     * @throws IOException if either checkpoint cannot be read, or the merged
+     *     checkpoint cannot be written
+     */
+    static OrderCheckpoint merge(OrderCheckpoint earlier,
+                                 OrderCheckpoint later)
+            throws IOException {
+        List<Order> orders = new ArrayList<>();
+        earlier.read(orders::add);
+        later.read(orders::add);
+        OrderCheckpoint merged = write(later.path,
+                earlier.firstSequence,
+                later.sequence,
+                later.withoutDiscountInCents,
+                later.totalInCents,
+                orders);
+        Files.delete(earlier.path);
+        return merged;
+    }
+
+    /**
+     * Writes the given orders to a checkpoint file, replacing the file in a
+     * single step once it has been forced to the disk.
+     * @param target path of the checkpoint file
+     * @param firstSequence sequence number of the first journal record the
+     *     checkpoint covers
+     * @param sequence sequence number of the first journal record the
+     *     checkpoint does not cover
+     * @param withoutDiscountInCents running price without discounts in cents
+     * @param totalInCents running total price in cents
+     * @param orders orders covered by the checkpoint, in journal order
+     * @return checkpoint that was written
+     * @throws IOException if the checkpoint file cannot be written
+     */
+    private static OrderCheckpoint write(Path target,
+                                         long firstSequence,
+                                         long sequence,
+                                         long withoutDiscountInCents,
+                                         long totalInCents,
+                                         List<Order> orders)
+            throws IOException {
+        Map<String, Integer> stringIndexes = new HashMap<>();
+        List<String> strings = new ArrayList<>();
+        Map<PizzaSpec, Integer> specIndexes = new HashMap<>();
+        List<PizzaSpec> specs = new ArrayList<>();
+        for (Order order : orders) {
+            indexOf(order.getName(), strings, stringIndexes);
+            indexOf(order.getCustomerTier(), strings, stringIndexes);
+            for (OrderLine line : order.getLines()) {
+                PizzaSpec spec = line.getSpec();
+                if (!specIndexes.containsKey(spec)) {
+                    specIndexes.put(spec, specs.size());
+                    specs.add(spec);
+                    indexOf(spec.getKind().getName(), strings, stringIndexes);
+                    indexOf(spec.getName(), strings, stringIndexes);
+                    for (Topping topping : spec.getToppings()) {
+                        indexOf(topping.toString(), strings, stringIndexes);
+                    }
+                    indexOf(spec.toString(), strings, stringIndexes);
+                }
+            }
+        }
+
+        Path temporary = Files.createTempFile(
+                target.toAbsolutePath().getParent(),
+                target.getFileName().toString(), ".tmp");
+        try {
+            try (FileChannel file = FileChannel.open(temporary,
+                    StandardOpenOption.WRITE)) {
+                CheckedOutputStream checked = new CheckedOutputStream(
+                        new BufferedOutputStream(
+                                Channels.newOutputStream(file)),
+                        new CRC32());
+                DataOutputStream output = new DataOutputStream(checked);
+                output.writeInt(MAGIC);
+                output.writeInt(VERSION);
+                output.writeLong(firstSequence);
+                output.writeLong(sequence);
+                output.writeLong(withoutDiscountInCents);
+                output.writeLong(totalInCents);
+
+                output.writeInt(strings.size());
+                for (String string : strings) {
+                    byte[] bytes = string.getBytes(StandardCharsets.UTF_8);
+                    output.writeInt(bytes.length);
+                    output.write(bytes);
+                }
+
+                output.writeInt(specs.size());
+                for (PizzaSpec spec : specs) {
+                    output.writeInt(stringIndexes.get(
+                            spec.getKind().getName()));
+                    output.writeInt(indexOf(spec.getName(), stringIndexes));
+                    output.writeByte(spec.getSize().ordinal());
+                    output.writeByte(spec.getSauce().ordinal());
+                    output.writeByte(spec.getCheese().ordinal());
+                    output.writeInt(spec.getToppings().size());
+                    for (Topping topping : spec.getToppings()) {
+                        output.writeInt(stringIndexes.get(
+                                topping.toString()));
+                    }
+                    output.writeInt(stringIndexes.get(spec.toString()));
+                }
+
+                output.writeInt(orders.size());
+                for (Order order : orders) {
+                    UUID uuid = order.getUUID();
+                    output.writeLong(uuid.getMostSignificantBits());
+                    output.writeLong(uuid.getLeastSignificantBits());
+                    output.writeInt(indexOf(order.getName(), stringIndexes));
+                    output.writeInt(indexOf(order.getCustomerTier(),
+                            stringIndexes));
+                    output.writeLong(order.getDate() == null
+                            ? Long.MIN_VALUE : order.getDate().toEpochDay());
+                    output.writeLong(order.getTime() == null
+                            ? -1 : order.getTime().toNanoOfDay());
+                    output.writeLong(
+                            order.getOrderPriceWithoutDiscountInCents());
+                    output.writeLong(order.getTotalPriceInCents());
+                    output.writeInt(order.getLines().size());
+                    for (OrderLine line : order.getLines()) {
+                        output.writeInt(specIndexes.get(line.getSpec()));
+                        output.writeInt(line.getQuantity());
+                    }
+                }
+
+                output.writeLong(checked.getChecksum().getValue());
+                output.flush();
+                file.force(true);
+            }
+            Files.move(temporary, target,
+                    StandardCopyOption.REPLACE_EXISTING,
+                    StandardCopyOption.ATOMIC_MOVE);
+        } finally {
+            Files.deleteIfExists(temporary);
+        }
+        return new OrderCheckpoint(target, firstSequence, sequence,
+                withoutDiscountInCents, totalInCents, HEADER_SIZE);
+    }
+
+    /**
+     * Returns the index of the given string in the string table, adding it to
+     * the table if it is not already there.
+     * @param string string to be found, or null
+     * @param strings strings in the table, in order
+     * @param stringIndexes index of each string in the table
+     * @return index of the string in the table, or -1 if it is null
+     */
+    private static int indexOf(String string,
+                               List<String> strings,
+                               Map<String, Integer> stringIndexes) {
+        if (string == null) {
+            return -1;
+        }
+        Integer index = stringIndexes.get(string);
+        if (index == null) {
+            index = strings.size();
+            strings.add(string);
+            stringIndexes.put(string, index);
+        }
+        return index;
+    }
+
+    /**
+     * Returns the index of the given string in the string table.
+     * @param string string in the table, or null
+     * @param stringIndexes index of each string in the table
+     * @return index of the string in the table, or -1 if it is null
+     */
+    private static int indexOf(String string,
+                               Map<String, Integer> stringIndexes) {
+        return string == null ? -1 : stringIndexes.get(string);
+    }
+
+    /**
+     * Reads the orders held by this checkpoint, giving them to the consumer in
+     * journal order once every order has been read.
+     * @param orders consumer given each order in this checkpoint
+     * @throws IOException if the file cannot be read, has changed since it was
+     *     opened, or an order in it cannot be rebuilt
+     */
+    void read(Consumer<Order> orders)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        int end = buffer.limit() - Long.BYTES;
+        if (end < tablesPosition) {
+            throw new IOException("CHECKPOINT " + path + " IS CORRUPTED");
+        }
+        CRC32 checksum = new CRC32();
+        checksum.update(buffer.array(), 0, end);
+        if (checksum.getValue() != buffer.getLong(end)) {
+            throw new IOException("CHECKPOINT " + path + " IS CORRUPTED");
+        }
+        buffer.position(tablesPosition);
+        readTables(buffer, end, orders);
+    }
+
+    /**
+     * Reads the string, spec and order tables of this checkpoint, giving the
+     * orders to the consumer in journal order once every order has been read.
+     * @param buffer buffer holding the checkpoint file, positioned at the
+     *     start of the string table
+     * @param end position of the checksum at the end of the file
+     * @param orders consumer given each order in this checkpoint
+     * @throws IOException if an order in the checkpoint cannot be rebuilt
+     */
+    private void readTables(ByteBuffer buffer,
+                            int end,
+                            Consumer<Order> orders)
+            throws IOException {
+        List<Order> read = new ArrayList<>();
+        try {
+            String[] strings = new String[buffer.getInt()];
+            for (int index = 0; index < strings.length; index++) {
+                int length = buffer.getInt();
+                strings[index] = new String(buffer.array(), buffer.position(),
+                        length, StandardCharsets.UTF_8);
+                buffer.position(buffer.position() + length);
+            }
+
+            Bases.BaseSize[] sizes = Bases.BaseSize.values();
+            Sauces.Sauce[] sauces = Sauces.Sauce.values();
+            Cheeses.Cheese[] cheeses = Cheeses.Cheese.values();
+            PizzaSpec[] specs = new PizzaSpec[buffer.getInt()];
+            List<Topping> toppings = new ArrayList<>(Pizza.MAX_TOPPINGS);
+            for (int index = 0; index < specs.length; index++) {
+                Class<? extends Pizza> kind =
+                        OrderJournal.kindOf(strings[buffer.getInt()]);
+                String name = stringAt(strings, buffer.getInt());
+                Bases.BaseSize size = sizes[buffer.get()];
+                Sauces.Sauce sauce = sauces[buffer.get()];
+                Cheeses.Cheese cheese = cheeses[buffer.get()];
+                toppings.clear();
+                for (int count = buffer.getInt(); count > 0; count--) {
+                    toppings.add(Topping.recordedValueOf(
+                            strings[buffer.getInt()]));
+                }
+                specs[index] = PizzaSpec.of(kind, name, size, sauce, cheese,
+                        toppings, strings[buffer.getInt()]);
+            }
+
+            for (int count = buffer.getInt(); count > 0; count--) {
+                Order order = new Order();
+                order.setUUID(new UUID(buffer.getLong(), buffer.getLong()));
+                order.setName(stringAt(strings, buffer.getInt()));
+                order.setCustomerTier(stringAt(strings, buffer.getInt()));
+                long date = buffer.getLong();
+                order.setDate(date == Long.MIN_VALUE
+                        ? null : LocalDate.ofEpochDay(date));
+                long time = buffer.getLong();
+                order.setTime(time == -1 ? null : LocalTime.ofNanoOfDay(time));
+                long withoutDiscountInCents = buffer.getLong();
+                long totalInCents = buffer.getLong();
+                for (int line = buffer.getInt(); line > 0; line--) {
+                    order.add(specs[buffer.getInt()], buffer.getInt());
+                }
+                OrderJournal.restoreTotals(order, withoutDiscountInCents,
+                        totalInCents);
+                read.add(order);
+            }
+        } catch (BufferUnderflowException
+                 | IndexOutOfBoundsException
+                 | IllegalArgumentException exception) {
+            throw new IOException("CHECKPOINT " + path
+                    + " CANNOT BE READ", exception);
+        }
+        if (buffer.position() != end
+                || read.size() != size()) {
+            throw new IOException("CHECKPOINT " + path + " CANNOT BE READ");
+        }
+        read.forEach(orders);
+    }
+
+    /**
+     * Returns the string with the given index in the string table.
+     * @param strings strings in the table, in order
+     * @param index index of the string, or -1 for null
+     * @return string with the index, or null
+     */
+    private static String stringAt(String[] strings,
+                                   int index) {
+        return index == -1 ? null : strings[index];
+    }
+}
@@ -0,0 +1,530 @@
+package io;
+
+import menu.Order;
+import menu.OrderLine;
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.Pizza;
+import pizza.PizzaSpec;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.nio.BufferOverflowException;
+import java.nio.BufferUnderflowException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.time.DateTimeException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes orders to, and reads them from, a compact binary layout.
+ * <p>
+ * An order is laid out as,
+ *     UUID (long, long)
+ *     id of the ordinals of the toppings, from Topping.registryId() (long)
+ *     date as an epoch day, zigzag encoded plus one, or 0 if null
+ *     time as a nano of day plus one, or 0 if null
+ *     customer name and customer tier (string, string)
+ *     price without discounts and total price in cents
+ *     number of lines, then for each line,
+ *         kind of pizza, size, sauce and cheese ordinals, packed together
+ *         name of the pizza (string)
+ *         number of words, then each word of the bitset of topping ordinals
+ *         order of the toppings
+ *         quantity
+ * where every number other than the UUID is an unsigned variable length
+ * integer, 7 bits to a byte with the high bit set on all but the last byte.
+ * A string is written as 0 if it is null, 1 if it is the default name of the
+ * order or kind of pizza, and otherwise as its length in UTF-8 bytes plus 2
+ * followed by those bytes.
+ * <p>
+ * The order of the toppings is 0 if they are the toppings of the bitset in
+ * ordinal order, each once. Otherwise, as a pizza may have the same topping
+ * more than once, in any order, the low 3 bits hold the number of toppings,
+ * followed by 3 bits for each topping holding its rank in the bitset.
+ * <p>
+ * Toppings are written by their ordinals, which stay the same when the
+ * toppings are reloaded, so an order can be read back after a reload, even if
+ * its toppings have since been removed. An order written before
+ * Topping.resetToppings() was called, or by another run of the program, has
+ * another registry id and is rejected rather than read with toppings its
+ * ordinals do not mean. Orders are read back priced as they
+ * were written, whatever discounts were applied to them.
+ * <p>
+ * A codec encodes into a buffer it reuses, so it is not safe for use by more
+ * than one thread at a time.
+ */
+public class OrderCodec {
+
+    /**
+     * initial capacity in bytes of the buffer orders are encoded into
+     */
+    private static final int INITIAL_CAPACITY = 256;
+
+    /**
+     * kinds of pizza that can be written, by their index in the layout
+     */
+    private static final List<Class<? extends Pizza>> KINDS =
+            List.of(CustomPizza.class, MenuPizza.class);
+
+    /**
+     * base sizes by ordinal
+     */
+    private static final Bases.BaseSize[] SIZES = Bases.BaseSize.values();
+
+    /**
+     * sauces by ordinal
+     */
+    private static final Sauces.Sauce[] SAUCES = Sauces.Sauce.values();
+
+    /**
+     * cheeses by ordinal
+     */
+    private static final Cheeses.Cheese[] CHEESES = Cheeses.Cheese.values();
+
+    /**
+     * number of bits holding the number of toppings, and the rank of each
+     * topping, in the order of the toppings
+     */
+    private static final int RANK_BITS = 3;
+
+    /**
+     * buffer orders are encoded into, which grows as needed
+     */
+    private ByteBuffer buffer = ByteBuffer.allocate(INITIAL_CAPACITY);
+
+    /**
+     * Creates a codec with a small buffer, which grows to fit the largest
+     * order encoded by the codec.
+     */
+    public OrderCodec() {}
+
+    /**
+     * Encodes the given order into the buffer of this codec.
+     * <p>
+     * The returned buffer holds the encoded order between its position and
+     * limit. It is reused by the next call to this method, so it must be used
+     * before then.
+     * @param order order to be encoded
+     * @return buffer holding the encoded order
+     * @throws IllegalArgumentException if the order cannot be encoded
+     */
+    public ByteBuffer encode(Order order)
+            throws IllegalArgumentException {
+        while (true) {
+            buffer.clear();
+            try {
+                encode(order, buffer);
+                return buffer.flip();
+            } catch (BufferOverflowException exception) {
+                buffer = ByteBuffer.allocate(2 * buffer.capacity());
+            }
+        }
+    }
+
+    /**
+     * Encodes the given order into the given buffer, from its position.
+     * <p>
+     * If the order does not fit, the position of the buffer is left
+     * unchanged.
+     * @param order order to be encoded
+     * @param target buffer the order is encoded into
+     * @throws BufferOverflowException if the order does not fit in the buffer
+     * @throws IllegalArgumentException if the order has no UUID, or holds a
+     *     pizza other than a custom or menu pizza, or with more than
+     *     Pizza.MAX_TOPPINGS toppings
+     */
+    public void encode(Order order,
+                       ByteBuffer target)
+            throws BufferOverflowException,
+            IllegalArgumentException {
+        int start = target.position();
+        try {
+            UUID uuid = order.getUUID();
+            if (uuid == null) {
+                throw new IllegalArgumentException();
+            }
+            target.putLong(uuid.getMostSignificantBits());
+            target.putLong(uuid.getLeastSignificantBits());
+            target.putLong(Topping.registryId());
+            LocalDate date = order.getDate();
+            putNumber(target, date == null
+                    ? 0 : zigzag(date.toEpochDay()) + 1);
+            LocalTime time = order.getTime();
+            putNumber(target, time == null ? 0 : time.toNanoOfDay() + 1);
+            putString(target, order.getName(), Order.DEFAULT_NAME);
+            putString(target, order.getCustomerTier(), null);
+            putNumber(target, order.getOrderPriceWithoutDiscountInCents());
+            putNumber(target, order.getTotalPriceInCents());
+
+            List<OrderLine> lines = order.getLines();
+            putNumber(target, lines.size());
+            for (int index = 0; index < lines.size(); index++) {
+                putLine(target, lines.get(index));
+            }
+        } catch (BufferOverflowException
+                 | IllegalArgumentException exception) {
+            target.position(start);
+            throw exception;
+        }
+    }
+
+    /**
+     * Encodes a line of an order into the given buffer.
+     * @param target buffer the line is encoded into
+     * @param line line to be encoded
+     * @throws IllegalArgumentException if the pizza is not a custom or menu
+     *     pizza, or has more than Pizza.MAX_TOPPINGS toppings
+     */
+    private static void putLine(ByteBuffer target,
+                                OrderLine line)
+            throws IllegalArgumentException {
+        PizzaSpec spec = line.getSpec();
+        int kind = KINDS.indexOf(spec.getKind());
+        List<Topping> toppings = spec.getToppings();
+        if (kind < 0
+                || toppings.size() > Pizza.MAX_TOPPINGS) {
+            throw new IllegalArgumentException();
+        }
+        putNumber(target, ((kind * SIZES.length
+                + spec.getSize().ordinal()) * SAUCES.length
+                + spec.getSauce().ordinal()) * CHEESES.length
+                + spec.getCheese().ordinal());
+        putString(target, spec.getName(),
+                kind == 0 ? CustomPizza.DEFAULT_NAME : null);
+
+        int highest = -1;
+        boolean isOrdered = true;
+        for (int index = 0; index < toppings.size(); index++) {
+            int ordinal = toppings.get(index).ordinal();
+            isOrdered &= ordinal > highest;
+            highest = Math.max(highest, ordinal);
+        }
+        int words = highest / Long.SIZE + 1;
+        putNumber(target, words);
+        for (int word = 0; word < words; word++) {
+            long bits = 0;
+            for (int index = 0; index < toppings.size(); index++) {
+                int ordinal = toppings.get(index).ordinal();
+                if (ordinal / Long.SIZE == word) {
+                    bits |= 1L << ordinal;
+                }
+            }
+            putNumber(target, bits);
+        }
+
+        if (isOrdered) {
+            putNumber(target, 0);
+        } else {
+            long order = toppings.size();
+            for (int index = 0; index < toppings.size(); index++) {
+                order |= (long) rank(toppings, index)
+                        << RANK_BITS * (index + 1);
+            }
+            putNumber(target, order);
+        }
+        putNumber(target, line.getQuantity());
+    }
+
+    /**
+     * Returns the rank in the bitset of the toppings of the topping at the
+     * given index, being the number of distinct toppings with a lower
+     * ordinal.
+     * @param toppings toppings on a pizza in order
+     * @param index index of the topping
+     * @return rank of the topping
+     */
+    private static int rank(List<Topping> toppings,
+                            int index) {
+        int ordinal = toppings.get(index).ordinal();
+        int rank = 0;
+        for (int other = 0; other < toppings.size(); other++) {
+            int lower = toppings.get(other).ordinal();
+            if (lower < ordinal
+                    && indexOf(toppings, lower) == other) {
+                rank++;
+            }
+        }
+        return rank;
+    }
+
+    /**
+     * Returns the index of the first topping with the given ordinal.
+     * @param toppings toppings on a pizza in order
+     * @param ordinal ordinal of the topping
+     * @return index of the first topping with the ordinal
+     */
+    private static int indexOf(List<Topping> toppings,
+                               int ordinal) {
+        int index = 0;
+        while (toppings.get(index).ordinal() != ordinal) {
+            index++;
+        }
+        return index;
+    }
+
+    /**
+     * Decodes an order from the given buffer, from its position, leaving the
+     * buffer positioned after the order.
+     * @param source buffer holding the encoded order
+     * @return decoded order
+     * @throws IllegalArgumentException if the buffer does not hold a valid
+     *     order, or the order was encoded with the ordinals of another
+     *     registry of toppings
+     */
+    public Order decode(ByteBuffer source)
+            throws IllegalArgumentException {
+        try {
+            Order order = new Order();
+            order.setUUID(new UUID(source.getLong(), source.getLong()));
+            if (source.getLong() != Topping.registryId()) {
+                throw new IllegalArgumentException(
+                        "ORDER WAS ENCODED WITH OTHER TOPPINGS");
+            }
+            long date = getNumber(source);
+            order.setDate(date == 0 ? null
+                    : LocalDate.ofEpochDay(unzigzag(date - 1)));
+            long time = getNumber(source);
+            order.setTime(time == 0 ? null
+                    : LocalTime.ofNanoOfDay(time - 1));
+            order.setName(getString(source, Order.DEFAULT_NAME));
+            order.setCustomerTier(getString(source, null));
+            long withoutDiscountInCents = getNumber(source);
+            long totalInCents = getNumber(source);
+
+            List<Topping> set = new ArrayList<>(Pizza.MAX_TOPPINGS);
+            List<Topping> toppings = new ArrayList<>(Pizza.MAX_TOPPINGS);
+            for (int line = toInt(getNumber(source)); line > 0; line--) {
+                int packed = toInt(getNumber(source));
+                Cheeses.Cheese cheese = CHEESES[packed % CHEESES.length];
+                packed /= CHEESES.length;
+                Sauces.Sauce sauce = SAUCES[packed % SAUCES.length];
+                packed /= SAUCES.length;
+                Bases.BaseSize size = SIZES[packed % SIZES.length];
+                int kind = packed / SIZES.length;
+                String name = getString(source,
+                        kind == 0 ? CustomPizza.DEFAULT_NAME : null);
+
+                set.clear();
+                for (int word = 0, words = toInt(getNumber(source));
+                     word < words; word++) {
+                    long bits = getNumber(source);
+                    while (bits != 0) {
+                        int ordinal = word * Long.SIZE
+                                + Long.numberOfTrailingZeros(bits);
+                        if (set.size() == Pizza.MAX_TOPPINGS) {
+                            throw new IllegalArgumentException();
+                        }
+                        set.add(Topping.forOrdinal(ordinal));
+                        bits &= bits - 1;
+                    }
+                }
+                long layout = getNumber(source);
+                toppings.clear();
+                if (layout == 0) {
+                    toppings.addAll(set);
+                } else {
+                    int mask = (1 << RANK_BITS) - 1;
+                    int count = (int) layout & mask;
+                    if (count > Pizza.MAX_TOPPINGS) {
+                        throw new IllegalArgumentException();
+                    }
+                    for (int index = 0; index < count; index++) {
+                        toppings.add(set.get((int) (layout
+                                >>> RANK_BITS * (index + 1)) & mask));
+                    }
+                }
+                order.add(PizzaSpec.of(KINDS.get(kind), name, size, sauce,
+                        cheese, toppings), toInt(getNumber(source)));
+            }
+            OrderJournal.restoreTotals(order, withoutDiscountInCents,
+                    totalInCents);
+            return order;
+        } catch (BufferUnderflowException
+                 | IndexOutOfBoundsException
+                 | DateTimeException exception) {
+            throw new IllegalArgumentException("INVALID ORDER", exception);
+        }
+    }
+
+    /**
+     * Writes the given number to the given buffer as an unsigned variable
+     * length integer.
+     * @param target buffer the number is written to
+     * @param number number to be written
+     * @throws BufferOverflowException if the number does not fit in the
+     *     buffer
+     */
+    private static void putNumber(ByteBuffer target,
+                                  long number)
+            throws BufferOverflowException {
+        while ((number & ~0x7FL) != 0) {
+            target.put((byte) (number | 0x80));
+            number >>>= 7;
+        }
+        target.put((byte) number);
+    }
+
+    /**
+     * Reads an unsigned variable length integer from the given buffer.
+     * @param source buffer the number is read from
+     * @return number read
+     * @throws BufferUnderflowException if the buffer ends before the number
+     * @throws IllegalArgumentException if the number is longer than a long
+     */
+    private static long getNumber(ByteBuffer source)
+            throws BufferUnderflowException,
+            IllegalArgumentException {
+        long number = 0;
+        for (int shift = 0; shift < Long.SIZE; shift += 7) {
+            byte next = source.get();
+            number |= (long) (next & 0x7F) << shift;
+            if (next >= 0) {
+                return number;
+            }
+        }
+        throw new IllegalArgumentException("INVALID ORDER");
+    }
+
+    /**
+     * Returns the given number as an int.
+     * @param number number read from an encoded order
+     * @return number as an int
+     * @throws IllegalArgumentException if the number does not fit in an int
+     */
+    private static int toInt(long number)
+            throws IllegalArgumentException {
+        if (number < 0
+                || number > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("INVALID ORDER");
+        }
+        return (int) number;
+    }
+
+    /**
+     * Returns the given signed number zigzag encoded, so that numbers near
+     * zero, either side of it, are written in few bytes.
+     * @param number signed number
+     * @return zigzag encoded number
+     */
+    private static long zigzag(long number) {
+        return (number << 1) ^ (number >> 63);
+    }
+
+    /**
+     * Returns the signed number the given zigzag encoded number encodes.
+     * @param number zigzag encoded number
+     * @return signed number
+     */
+    private static long unzigzag(long number) {
+        return (number >>> 1) ^ -(number & 1);
+    }
+
+    /**
+     * Writes the given string to the given buffer, as 0 if it is null, 1 if
+     * it is the given default, and otherwise as its length in UTF-8 bytes
+     * plus 2 followed by those bytes. An unpaired surrogate is written as '?',
+     * as String.getBytes() would write it.
+     * @param target buffer the string is written to
+     * @param string string to be written, or null
+     * @param byDefault default string, or null if there is none
+     * @throws BufferOverflowException if the string does not fit in the
+     *     buffer
+     */
+    private static void putString(ByteBuffer target,
+                                  String string,
+                                  String byDefault)
+            throws BufferOverflowException {
+        if (string == null) {
+            putNumber(target, 0);
+            return;
+        } else if (string.equals(byDefault)) {
+            putNumber(target, 1);
+            return;
+        }
+        long length = 0;
+        for (int index = 0; index < string.length(); index++) {
+            char next = string.charAt(index);
+            if (next < 0x80) {
+                length += 1;
+            } else if (next < 0x800) {
+                length += 2;
+            } else if (Character.isHighSurrogate(next)
+                    && index + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(index + 1))) {
+                length += 4;
+                index++;
+            } else if (Character.isSurrogate(next)) {
+                length += 1;
+            } else {
+                length += 3;
+            }
+        }
+        putNumber(target, length + 2);
+        for (int index = 0; index < string.length(); index++) {
+            char next = string.charAt(index);
+            if (next < 0x80) {
+                target.put((byte) next);
+            } else if (next < 0x800) {
+                target.put((byte) (0xC0 | next >> 6));
+                target.put((byte) (0x80 | next & 0x3F));
+            } else if (Character.isHighSurrogate(next)
+                    && index + 1 < string.length()
+                    && Character.isLowSurrogate(string.charAt(index + 1))) {
+                int point = Character.toCodePoint(next,
+                        string.charAt(++index));
+                target.put((byte) (0xF0 | point >> 18));
+                target.put((byte) (0x80 | point >> 12 & 0x3F));
+                target.put((byte) (0x80 | point >> 6 & 0x3F));
+                target.put((byte) (0x80 | point & 0x3F));
+            } else if (Character.isSurrogate(next)) {
+                target.put((byte) '?');
+            } else {
+                target.put((byte) (0xE0 | next >> 12));
+                target.put((byte) (0x80 | next >> 6 & 0x3F));
+                target.put((byte) (0x80 | next & 0x3F));
+            }
+        }
+    }
+
+    /**
+     * Reads a string written by putString() from the given buffer.
+     * @param source buffer the string is read from
+     * @param byDefault default string, or null if there is none
+     * @return string read, or null if a null string was written
+     * @throws BufferUnderflowException if the buffer ends before the string
+     * @throws IllegalArgumentException if the length of the string is not
+     *     valid
+     */
+    private static String getString(ByteBuffer source,
+                                    String byDefault)
+            throws BufferUnderflowException,
+            IllegalArgumentException {
+        long marker = getNumber(source);
+        if (marker == 0) {
+            return null;
+        } else if (marker == 1) {
+            return byDefault;
+        }
+        int length = toInt(marker - 2);
+        if (length > source.remaining()) {
+            throw new BufferUnderflowException();
+        }
+        if (!source.hasArray()) {
+            byte[] bytes = new byte[length];
+            source.get(bytes);
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+        String string = new String(source.array(),
+                source.arrayOffset() + source.position(), length,
+                StandardCharsets.UTF_8);
+        source.position(source.position() + length);
+        return string;
+    }
+}
@@ -0,0 +1,1194 @@
+package io;
+
+import menu.DiscountEngine;
+import menu.DiscountRule;
+import menu.MenuItem;
+import menu.Order;
+import menu.OrderLine;
+import pizza.Pizza;
+import pizza.PizzaSpec;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.InterruptedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Consumer;
+import java.util.zip.CRC32;
+
+/**
+ * Append-only journal of confirmed orders, kept in a folder of segment files
+ * so that the orders survive the application stopping or crashing.
+ * <p>
+ * Each confirmed order is appended as a record holding its UUID, customer
+ * name, customer tier, date, time, lines and totals. Each segment file starts
+ * with a header of,
+ *     magic number and format version (int, int)
+ *     sequence number of its first record (long)
+ * followed by its records, each laid out as,
+ *     length of the record (int)
+ *     CRC32 checksum of the record (int)
+ *     record, as UTF-8 text
+ * A segment is named after the sequence number of its first record, and once
+ * it has grown past the segment size, a new segment is started.
+ * <p>
+ * Records are written by a background thread. Orders appended while the
+ * thread is writing are written together in the next batch, which is forced
+ * to the disk with a single fsync before any of its orders are reported as
+ * appended, so the cost of the fsync is shared by every order in the batch.
+ * <p>
+ * When the journal is opened, every record is read back and replayed as an
+ * order. A record at the end of the last segment that was not completely
+ * written, because the application stopped while writing it, is discarded
+ * and cut off the segment. Such a record was never reported as appended.
+ * <p>
+ * So that the segments do not grow without end, the orders can be
+ * checkpointed, every given number of orders or period of time, on another
+ * background thread. A checkpoint holds only the records appended since the
+ * last one, read from the segments rather than from the writer, so appending
+ * is not held up while it is written, and adds to a chain of OrderCheckpoint
+ * files, which merges them as a binary counter does. Once the checkpoint has
+ * been forced to the disk, the segments whose records it covers are deleted.
+ * <p>
+ * Opening the journal replays the orders of the chain of checkpoints and then
+ * those of the records appended after it. A journal opened without replaying
+ * its checkpoints only replays the records appended after them, and gives the
+ * number and totals of the checkpointed orders from the running totals the
+ * checkpoints hold, so the checkpointed orders are not read at all.
+ */
+public class OrderJournal
+        implements Closeable {
+
+    /**
+     * default folder holding the journal of the application
+     */
+    public static final String DEFAULT_DIRECTORY = "./orders/";
+
+    /**
+     * default size in bytes a segment can grow to before a new segment is
+     * started
+     */
+    public static final long DEFAULT_SEGMENT_SIZE = 64L * 1024 * 1024;
+
+    /**
+     * number identifying a segment file, "PZOJ"
+     */
+    private static final int MAGIC = 0x505A4F4A;
+
+    /**
+     * version of the segment file format
+     */
+    private static final int VERSION = 1;
+
+    /**
+     * number of bytes in the header of a segment
+     */
+    private static final int HEADER_SIZE = 2 * Integer.BYTES + Long.BYTES;
+
+    /**
+     * number of bytes in the length and checksum before each record
+     */
+    private static final int FRAME_SIZE = 2 * Integer.BYTES;
+
+    /**
+     * prefix of the name of each segment file
+     */
+    private static final String PREFIX = "journal-";
+
+    /**
+     * suffix of the name of each segment file
+     */
+    private static final String SUFFIX = ".log";
+
+    /**
+     * default number of orders appended after which a checkpoint is written
+     */
+    public static final int DEFAULT_CHECKPOINT_ORDERS = 1000;
+
+    /**
+     * default time in milliseconds after which a checkpoint is written, if
+     * any order has been appended since the last one
+     */
+    public static final long DEFAULT_CHECKPOINT_MILLIS = 60 * 1000;
+
+    /**
+     * string written for a field that is null, which no escaped string can
+     * be equal to
+     */
+    private static final String NULL = "\\0";
+
+    /**
+     * folder holding the segment files
+     */
+    private final Path directory;
+
+    /**
+     * size in bytes a segment can grow to before a new segment is started
+     */
+    private final long segmentSize;
+
+    /**
+     * background thread writing the appended records
+     */
+    private final Thread writer;
+
+    /**
+     * lock held while a checkpoint is written
+     */
+    private final Object checkpointLock = new Object();
+
+    /**
+     * background thread writing checkpoints, or null if checkpoints are not
+     * written periodically
+     */
+    private Thread checkpointer;
+
+    /**
+     * sequence number of the first record not covered by the latest
+     * checkpoint, or 0 if there is no checkpoint
+     */
+    private long checkpointSequence;
+
+    /**
+     * chain of checkpoints in journal order, which is only read and written
+     * while holding the checkpoint lock
+     */
+    private final List<OrderCheckpoint> checkpoints;
+
+    /**
+     * last checkpoint in the chain, or null if there is no checkpoint
+     */
+    private volatile OrderCheckpoint latestCheckpoint;
+
+    /**
+     * sequence number of the first record not yet forced to the disk
+     */
+    private long durableSequence;
+
+    /**
+     * records appended since the last batch was taken by the writer
+     */
+    private List<Append> pending = new ArrayList<>();
+
+    /**
+     * sequence number of the next record to be appended
+     */
+    private long nextSequence;
+
+    /**
+     * true once the journal has been closed
+     */
+    private boolean isClosed;
+
+    /**
+     * exception that stopped the writer, or null if it has not failed
+     */
+    private IOException failure;
+
+    /**
+     * channel of the segment records are written to
+     */
+    private FileChannel segment;
+
+    /**
+     * number of bytes in the segment records are written to
+     */
+    private long segmentPosition;
+
+    /**
+     * Opens the journal in the given folder with the default segment size,
+     * replaying the orders it holds.
+     * @param directory folder holding the segment files, which is created if
+     *     it does not exist
+     * @param replay consumer given each order in the journal, in the order
+     *     they were appended
+     * @throws IOException if the journal cannot be read or a record cannot be
+     *     replayed
+     * @throws IllegalArgumentException if directory or replay is null
+     */
+    public OrderJournal(Path directory,
+                        Consumer<Order> replay)
+            throws IOException,
+            IllegalArgumentException {
+        this(directory, DEFAULT_SEGMENT_SIZE, replay);
+    }
+
+    /**
+     * Opens the journal in the given folder, replaying the orders it holds.
+     * @param directory folder holding the segment files, which is created if
+     *     it does not exist
+     * @param segmentSize size in bytes a segment can grow to before a new
+     *     segment is started
+     * @param replay consumer given each order in the journal, in the order
+     *     they were appended
+     * @throws IOException if the journal cannot be read or a record cannot be
+     *     replayed
+     * @throws IllegalArgumentException if directory or replay is null, or
+     *     segmentSize is less than one
+     */
+    public OrderJournal(Path directory,
+                        long segmentSize,
+                        Consumer<Order> replay)
+            throws IOException,
+            IllegalArgumentException {
+        this(directory, segmentSize, replay, true);
+    }
+
+    /**
+     * Opens the journal in the given folder, replaying the orders it holds,
+     * or only those appended after its checkpoints.
+     * <p>
+     * The toppings of the replayed orders are found by name with
+     * Topping.recordedValueOf(String), so an order can be replayed whether or
+     * not the menu has been loaded or still defines its toppings.
+     * @param directory folder holding the segment files, which is created if
+     *     it does not exist
+     * @param segmentSize size in bytes a segment can grow to before a new
+     *     segment is started
+     * @param replay consumer given each order in the journal, in the order
+     *     they were appended
+     * @param replaysCheckpoints true if the orders covered by the checkpoints
+     *     are replayed, or false if only those appended after them are
+     * @throws IOException if the journal cannot be read or a record cannot be
+     *     replayed
+     * @throws IllegalArgumentException if directory or replay is null, or
+     *     segmentSize is less than one
+     */
+    public OrderJournal(Path directory,
+                        long segmentSize,
+                        Consumer<Order> replay,
+                        boolean replaysCheckpoints)
+            throws IOException,
+            IllegalArgumentException {
+        if (directory == null
+                || replay == null
+                || segmentSize < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.directory = directory;
+        this.segmentSize = segmentSize;
+        Files.createDirectories(directory);
+
+        // a checkpoint after a corrupted one is not used, so the records it
+        // covers must still be in the segments
+        checkpoints = OrderCheckpoint.readChain(directory);
+        if (!checkpoints.isEmpty()) {
+            latestCheckpoint = checkpoints.get(checkpoints.size() - 1);
+            checkpointSequence = latestCheckpoint.getSequence();
+        }
+        if (replaysCheckpoints) {
+            for (OrderCheckpoint checkpoint : checkpoints) {
+                checkpoint.read(replay);
+            }
+        }
+
+        List<Path> segments = listSegments(directory);
+        for (int index = 0; index < segments.size(); index++) {
+            recover(segments.get(index), index == segments.size() - 1, replay);
+        }
+        segments = listSegments(directory);
+        if (nextSequence < checkpointSequence) {
+            // the checkpoint holds records the journal lost after it was taken
+            nextSequence = checkpointSequence;
+            startSegment(nextSequence);
+        } else if (segments.isEmpty()) {
+            startSegment(nextSequence);
+        } else {
+            segment = FileChannel.open(segments.get(segments.size() - 1),
+                    StandardOpenOption.WRITE);
+            segmentPosition = segment.size();
+            segment.position(segmentPosition);
+        }
+
+        durableSequence = nextSequence;
+        writer = new Thread(this::write, "OrderJournal");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * Returns the segment files in the given folder, in the order they were
+     * started.
+     * @param directory folder holding the segment files
+     * @return paths of the segment files
+     * @throws IOException if the folder cannot be read
+     */
+    static List<Path> listSegments(Path directory)
+            throws IOException {
+        List<Path> segments = new ArrayList<>();
+        try (DirectoryStream<Path> stream = Files.newDirectoryStream(
+                directory, PREFIX + "*" + SUFFIX)) {
+            stream.forEach(segments::add);
+        }
+        // names hold zero padded sequence numbers, so sort in sequence order
+        segments.sort(null);
+        return segments;
+    }
+
+    /**
+     * Reads the records of a segment, replaying each that is not covered by
+     * the checkpoint as an order, and cuts off an incomplete record at the end
+     * of the last segment.
+     * @param path path of the segment file
+     * @param isLast true if this is the last segment
+     * @param replay consumer given each order in the segment
+     * @throws IOException if the segment cannot be read, is corrupted other
+     *     than at the end of the last segment, or a record cannot be replayed
+     */
+    private void recover(Path path,
+                         boolean isLast,
+                         Consumer<Order> replay)
+            throws IOException {
+        ByteBuffer buffer = ByteBuffer.wrap(Files.readAllBytes(path));
+        if (buffer.remaining() < HEADER_SIZE) {
+            if (!isLast) {
+                throw new IOException("JOURNAL SEGMENT " + path
+                        + " IS CORRUPTED AT 0");
+            }
+            // the segment was started but its header was never written
+            Files.delete(path);
+            return;
+        }
+        // a segment follows the previous one, or a gap the checkpoint covers
+        long first = buffer.getInt() == MAGIC
+                && buffer.getInt() == VERSION
+                ? buffer.getLong() : -1;
+        if (first < nextSequence
+                || first > Math.max(nextSequence, checkpointSequence)) {
+            throw new IOException("JOURNAL SEGMENT " + path
+                    + " HAS AN INVALID HEADER");
+        }
+        nextSequence = first;
+
+        CRC32 checksum = new CRC32();
+        while (buffer.hasRemaining()) {
+            int length = nextRecord(buffer, checksum);
+            if (length < 0) {
+                truncate(path, buffer.position(), isLast);
+                return;
+            }
+            if (nextSequence >= checkpointSequence) {
+                replay.accept(decode(buffer, length, nextSequence));
+            }
+            buffer.position(buffer.position() + length);
+            nextSequence++;
+        }
+    }
+
+    /**
+     * Checks the record at the position of the given buffer, leaving the
+     * buffer positioned at the start of the bytes of the record if it is
+     * complete and its checksum matches.
+     * @param buffer buffer holding the bytes of a segment
+     * @param checksum checksum to be reused
+     * @return length of the record, or -1 if it is incomplete or corrupted,
+     *     leaving the position of the buffer unchanged
+     */
+    private static int nextRecord(ByteBuffer buffer,
+                                  CRC32 checksum) {
+        int start = buffer.position();
+        if (buffer.remaining() < FRAME_SIZE) {
+            return -1;
+        }
+        int length = buffer.getInt();
+        int expected = buffer.getInt();
+        if (length < 0
+                || length > buffer.remaining()) {
+            buffer.position(start);
+            return -1;
+        }
+        checksum.reset();
+        checksum.update(buffer.array(), buffer.position(), length);
+        if ((int) checksum.getValue() != expected) {
+            buffer.position(start);
+            return -1;
+        }
+        return length;
+    }
+
+    /**
+     * Returns the order held by the record at the position of the given
+     * buffer.
+     * @param buffer buffer positioned at the start of the bytes of the record
+     * @param length length of the record
+     * @param sequence sequence number of the record
+     * @return order held by the record
+     * @throws IOException if the order cannot be rebuilt from the record
+     */
+    private static Order decode(ByteBuffer buffer,
+                                int length,
+                                long sequence)
+            throws IOException {
+        try {
+            return decode(new String(buffer.array(), buffer.position(),
+                    length, StandardCharsets.UTF_8));
+        } catch (RuntimeException exception) {
+            throw new IOException("JOURNAL RECORD " + sequence
+                    + " CANNOT BE REPLAYED", exception);
+        }
+    }
+
+    /**
+     * Cuts off the end of the last segment from the given position, where an
+     * incomplete record starts.
+     * @param path path of the segment file
+     * @param position position of the incomplete record
+     * @param isLast true if this is the last segment
+     * @throws IOException if this is not the last segment, or the segment
+     *     cannot be truncated
+     */
+    private static void truncate(Path path,
+                                 long position,
+                                 boolean isLast)
+            throws IOException {
+        if (!isLast) {
+            throw new IOException("JOURNAL SEGMENT " + path
+                    + " IS CORRUPTED AT " + position);
+        }
+        try (FileChannel channel = FileChannel.open(path,
+                StandardOpenOption.WRITE)) {
+            channel.truncate(position);
+            channel.force(true);
+        }
+    }
+
+    /**
+     * Starts a new segment, forcing its header to the disk.
+     * @param firstSequence sequence number of the first record of the segment
+     * @throws IOException if the segment cannot be created
+     */
+    private void startSegment(long firstSequence)
+            throws IOException {
+        Path path = directory.resolve(
+                String.format("%s%020d%s", PREFIX, firstSequence, SUFFIX));
+        segment = FileChannel.open(path,
+                StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.WRITE);
+        ByteBuffer header = ByteBuffer.allocate(HEADER_SIZE);
+        header.putInt(MAGIC).putInt(VERSION).putLong(firstSequence).flip();
+        while (header.hasRemaining()) {
+            segment.write(header);
+        }
+        segment.force(true);
+        segmentPosition = HEADER_SIZE;
+    }
+
+    /**
+     * Appends a record of the given order, returning once the record has been
+     * forced to the disk.
+     * @param order confirmed order
+     * @return sequence number of the record
+     * @throws IOException if the record cannot be written
+     * @throws IllegalStateException if the journal has been closed
+     */
+    public long append(Order order)
+            throws IOException,
+            IllegalStateException {
+        try {
+            return appendAsync(order).join();
+        } catch (CompletionException exception) {
+            throw (IOException) exception.getCause();
+        }
+    }
+
+    /**
+     * Appends a record of the given order without waiting for it to be
+     * written.
+     * <p>
+     * The record is taken from the order before this method returns, so the
+     * order can be changed afterwards without changing the record.
+     * @param order confirmed order
+     * @return future completed with the sequence number of the record once it
+     *     has been forced to the disk, or completed exceptionally with the
+     *     IOException if it cannot be written
+     * @throws IllegalStateException if the journal has been closed
+     */
+    public CompletableFuture<Long> appendAsync(Order order)
+            throws IllegalStateException {
+        byte[] record = encode(order).getBytes(StandardCharsets.UTF_8);
+        CRC32 checksum = new CRC32();
+        checksum.update(record);
+        ByteBuffer frame = ByteBuffer.allocate(FRAME_SIZE + record.length);
+        frame.putInt(record.length).putInt((int) checksum.getValue())
+                .put(record).flip();
+
+        CompletableFuture<Long> future = new CompletableFuture<>();
+        synchronized (this) {
+            if (isClosed) {
+                throw new IllegalStateException("JOURNAL IS CLOSED");
+            } else if (failure != null) {
+                future.completeExceptionally(failure);
+            } else {
+                pending.add(new Append(nextSequence++, frame, future));
+                notifyAll();
+            }
+        }
+        return future;
+    }
+
+    /**
+     * Writes the appended records in batches until the journal is closed and
+     * every appended record has been written.
+     */
+    private void write() {
+        while (true) {
+            List<Append> batch;
+            synchronized (this) {
+                while (pending.isEmpty()
+                        && !isClosed) {
+                    try {
+                        wait();
+                    } catch (InterruptedException exception) {
+                        // only close() stops the writer
+                    }
+                }
+                if (pending.isEmpty()) {
+                    return;
+                }
+                batch = pending;
+                pending = new ArrayList<>();
+            }
+
+            try {
+                writeBatch(batch);
+            } catch (IOException exception) {
+                synchronized (this) {
+                    failure = exception;
+                    batch.addAll(pending);
+                    pending.clear();
+                }
+                for (Append append : batch) {
+                    append.future.completeExceptionally(exception);
+                }
+                continue;
+            }
+            synchronized (this) {
+                durableSequence = batch.get(batch.size() - 1).sequence + 1;
+                if (checkpointer != null) {
+                    notifyAll();
+                }
+            }
+            for (Append append : batch) {
+                append.future.complete(append.sequence);
+            }
+        }
+    }
+
+    /**
+     * Writes a batch of records and forces them to the disk, starting a new
+     * segment whenever the current one has grown past the segment size.
+     * @param batch records to be written, in sequence order
+     * @throws IOException if the records cannot be written
+     */
+    private void writeBatch(List<Append> batch)
+            throws IOException {
+        if (failure != null) {
+            throw failure;
+        }
+        int first = 0;
+        while (first < batch.size()) {
+            if (segmentPosition >= segmentSize) {
+                segment.force(false);
+                segment.close();
+                startSegment(batch.get(first).sequence);
+            }
+            int end = first;
+            long size = 0;
+            // a segment holds at least one record, however large it is
+            while (end < batch.size()
+                    && (end == first
+                    || segmentPosition + size < segmentSize)) {
+                size += batch.get(end).frame.remaining();
+                end++;
+            }
+            ByteBuffer[] frames = new ByteBuffer[end - first];
+            for (int index = first; index < end; index++) {
+                frames[index - first] = batch.get(index).frame;
+            }
+            long written = 0;
+            while (written < size) {
+                written += segment.write(frames);
+            }
+            segmentPosition += size;
+            first = end;
+        }
+        segment.force(false);
+    }
+
+    /**
+     * Starts writing checkpoints on a background thread, once the given number
+     * of orders have been appended since the last checkpoint, or the given
+     * time has passed since the last checkpoint and any order has been
+     * appended.
+     * @param everyOrders number of orders after which a checkpoint is written
+     * @param everyMillis time in milliseconds after which a checkpoint is
+     *     written
+     * @throws IllegalArgumentException if everyOrders or everyMillis is less
+     *     than one
+     * @throws IllegalStateException if checkpoints have already been started,
+     *     or the journal has been closed
+     */
+    public void startCheckpoints(int everyOrders,
+                                 long everyMillis)
+            throws IllegalArgumentException,
+            IllegalStateException {
+        // the records are still in the journal, so the next checkpoint
+        // covers them instead
+        startCheckpoints(everyOrders, everyMillis, exception -> {});
+    }
+
+    /**
+     * Starts writing checkpoints on a background thread, once the given number
+     * of orders have been appended since the last checkpoint, or the given
+     * time has passed since the last checkpoint and any order has been
+     * appended, giving the exception of each checkpoint that cannot be
+     * written to the given consumer.
+     * <p>
+     * The records of a checkpoint that cannot be written are still in the
+     * journal, so the next checkpoint covers them instead.
+     * @param everyOrders number of orders after which a checkpoint is written
+     * @param everyMillis time in milliseconds after which a checkpoint is
+     *     written
+     * @param failures consumer given the exception of each checkpoint that
+     *     cannot be written, on the checkpoint thread
+     * @throws IllegalArgumentException if everyOrders or everyMillis is less
+     *     than one, or failures is null
+     * @throws IllegalStateException if checkpoints have already been started,
+     *     or the journal has been closed
+     */
+    public synchronized void startCheckpoints(int everyOrders,
+                                              long everyMillis,
+                                              Consumer<IOException> failures)
+            throws IllegalArgumentException,
+            IllegalStateException {
+        if (failures == null
+                || everyOrders < 1
+                || everyMillis < 1) {
+            throw new IllegalArgumentException();
+        } else if (checkpointer != null
+                || isClosed) {
+            throw new IllegalStateException();
+        }
+        checkpointer = new Thread(() -> checkpointPeriodically(
+                everyOrders, everyMillis, failures), "OrderJournal checkpoint");
+        checkpointer.setDaemon(true);
+        checkpointer.start();
+    }
+
+    /**
+     * Writes checkpoints until the journal is closed, once enough orders have
+     * been appended or enough time has passed.
+     * @param everyOrders number of orders after which a checkpoint is written
+     * @param everyMillis time in milliseconds after which a checkpoint is
+     *     written
+     * @param failures consumer given the exception of each checkpoint that
+     *     cannot be written
+     */
+    private void checkpointPeriodically(int everyOrders,
+                                        long everyMillis,
+                                        Consumer<IOException> failures) {
+        long checkpointed = durableSequence;
+        while (true) {
+            synchronized (this) {
+                long deadline = System.currentTimeMillis() + everyMillis;
+                long remaining = everyMillis;
+                while (!isClosed
+                        && durableSequence - checkpointed < everyOrders
+                        && remaining > 0) {
+                    try {
+                        wait(remaining);
+                    } catch (InterruptedException exception) {
+                        // only close() stops the checkpointer
+                    }
+                    remaining = deadline - System.currentTimeMillis();
+                }
+                if (isClosed) {
+                    return;
+                }
+                checkpointed = durableSequence;
+            }
+            try {
+                checkpoint();
+            } catch (IOException exception) {
+                failures.accept(exception);
+            }
+        }
+    }
+
+    /**
+     * Writes a checkpoint of the orders appended since the last checkpoint
+     * now, on the current thread, and deletes the segments it covers.
+     * <p>
+     * Only the segments holding records after the last checkpoint are read,
+     * and the earlier checkpoints are only read when the new checkpoint is
+     * merged with them. Orders can still be appended while the checkpoint is
+     * written. The checkpoint covers the records that have been completely
+     * written when their segment is read.
+     * @return sequence number of the first record not covered by the
+     *     checkpoint
+     * @throws IOException if the checkpoint cannot be written
+     */
+    public long checkpoint()
+            throws IOException {
+        synchronized (checkpointLock) {
+            long covered;
+            synchronized (this) {
+                covered = checkpointSequence;
+            }
+            List<Order> orders = new ArrayList<>();
+            long sequence = covered;
+            List<Path> segments = listSegments(directory);
+            CRC32 checksum = new CRC32();
+            for (int index = 0; index < segments.size(); index++) {
+                if (index + 1 < segments.size()
+                        && firstSequenceOf(segments.get(index + 1))
+                        <= covered) {
+                    // every record of the segment is already covered
+                    continue;
+                }
+                Path path = segments.get(index);
+                ByteBuffer buffer =
+                        ByteBuffer.wrap(Files.readAllBytes(path));
+                if (buffer.remaining() < HEADER_SIZE) {
+                    // the segment is being started
+                    break;
+                }
+                long current = buffer.getLong(2 * Integer.BYTES);
+                buffer.position(HEADER_SIZE);
+                int length;
+                while ((length = nextRecord(buffer, checksum)) >= 0) {
+                    if (current == sequence) {
+                        orders.add(decode(buffer, length, current));
+                        sequence++;
+                    }
+                    buffer.position(buffer.position() + length);
+                    current++;
+                }
+                if (buffer.hasRemaining()) {
+                    // the rest of the segment is being written
+                    break;
+                }
+            }
+            if (sequence == covered) {
+                return covered;
+            }
+
+            latestCheckpoint = OrderCheckpoint.write(directory,
+                    latestCheckpoint, sequence, orders);
+            checkpoints.add(latestCheckpoint);
+            synchronized (this) {
+                checkpointSequence = sequence;
+            }
+            // the last segment may still be written to, so it is kept
+            for (int index = 0; index + 1 < segments.size(); index++) {
+                if (firstSequenceOf(segments.get(index + 1)) <= sequence) {
+                    Files.delete(segments.get(index));
+                }
+            }
+            mergeCheckpoints();
+            return sequence;
+        }
+    }
+
+    /**
+     * Merges the last checkpoint in the chain with the one before it for as
+     * long as it holds at least as many orders, so that the chain holds about
+     * log2 of the number of checkpointed orders checkpoints.
+     * <p>
+     * If a merge fails, the chain is read again from the files, as the merged
+     * checkpoint may have replaced the later one.
+     * @throws IOException if a checkpoint cannot be merged
+     */
+    private void mergeCheckpoints()
+            throws IOException {
+        int size = checkpoints.size();
+        try {
+            while (size >= 2
+                    && checkpoints.get(size - 2).size()
+                    <= checkpoints.get(size - 1).size()) {
+                OrderCheckpoint merged = OrderCheckpoint.merge(
+                        checkpoints.get(size - 2), checkpoints.get(size - 1));
+                checkpoints.remove(size - 1);
+                checkpoints.set(size - 2, merged);
+                size--;
+            }
+        } catch (IOException exception) {
+            checkpoints.clear();
+            checkpoints.addAll(OrderCheckpoint.readChain(directory));
+            throw exception;
+        }
+        latestCheckpoint = checkpoints.get(size - 1);
+    }
+
+    /**
+     * Returns the number of orders covered by the checkpoints of the journal,
+     * which are not replayed when the journal is opened without replaying
+     * its checkpoints.
+     * @return number of checkpointed orders
+     */
+    public long getCheckpointedOrders() {
+        OrderCheckpoint latest = latestCheckpoint;
+        return latest == null ? 0 : latest.getSequence();
+    }
+
+    /**
+     * Returns the total price in cents of the orders covered by the
+     * checkpoints of the journal, from the running totals they hold.
+     * @return total price of the checkpointed orders in cents
+     */
+    public long getCheckpointedTotalPriceInCents() {
+        OrderCheckpoint latest = latestCheckpoint;
+        return latest == null ? 0 : latest.getTotalInCents();
+    }
+
+    /**
+     * Returns the sequence number of the first record of a segment, held by
+     * its name.
+     * @param segment path of the segment file
+     * @return sequence number of the first record of the segment
+     */
+    private static long firstSequenceOf(Path segment) {
+        String name = segment.getFileName().toString();
+        return Long.parseLong(name.substring(PREFIX.length(),
+                name.length() - SUFFIX.length()));
+    }
+
+    /**
+     * Closes the journal, once every appended record has been written.
+     * @throws IOException if the last segment cannot be closed
+     */
+    @Override
+    public void close()
+            throws IOException {
+        synchronized (this) {
+            if (isClosed) {
+                return;
+            }
+            isClosed = true;
+            notifyAll();
+        }
+        try {
+            writer.join();
+            if (checkpointer != null) {
+                checkpointer.join();
+            }
+        } catch (InterruptedException exception) {
+            Thread.currentThread().interrupt();
+            throw new InterruptedIOException();
+        }
+        segment.close();
+    }
+
+    /**
+     * Returns the record of the given order as text.
+     * <p>
+     * The record is laid out as lines holding the UUID, customer name,
+     * customer tier, date, time, price without discounts and total price in
+     * cents, and the number of lines of the order, followed by one line for
+     * each line of the order holding its quantity, and the kind, name, size,
+     * sauce, cheese, toppings and string representation of its pizza,
+     * separated by tabs. Toppings are separated by commas. Strings are
+     * escaped so they cannot hold a new line, tab or comma.
+     * @param order order to be recorded
+     * @return record of the order
+     */
+    static String encode(Order order) {
+        StringBuilder record = new StringBuilder();
+        record.append(order.getUUID()).append('\n');
+        escape(record, order.getName()).append('\n');
+        escape(record, order.getCustomerTier()).append('\n');
+        escape(record, toString(order.getDate())).append('\n');
+        escape(record, toString(order.getTime())).append('\n');
+        record.append(order.getOrderPriceWithoutDiscountInCents())
+                .append('\n');
+        record.append(order.getTotalPriceInCents()).append('\n');
+        List<OrderLine> lines = order.getLines();
+        record.append(lines.size());
+        for (OrderLine line : lines) {
+            PizzaSpec spec = line.getSpec();
+            record.append('\n').append(line.getQuantity()).append('\t');
+            record.append(spec.getKind().getName()).append('\t');
+            escape(record, spec.getName()).append('\t');
+            record.append(spec.getSize()).append('\t');
+            record.append(spec.getSauce()).append('\t');
+            record.append(spec.getCheese()).append('\t');
+            List<Topping> toppings = spec.getToppings();
+            for (int index = 0; index < toppings.size(); index++) {
+                if (index > 0) {
+                    record.append(',');
+                }
+                escape(record, toppings.get(index).toString());
+            }
+            record.append('\t');
+            escape(record, spec.toString());
+        }
+        return record.toString();
+    }
+
+    /**
+     * Returns the order held by the given record.
+     * <p>
+     * The order is priced as it was when it was recorded, whatever discounts
+     * were applied to it then. Its toppings are found by name, even if the
+     * menu no longer defines them.
+     * @param record record of an order
+     * @return order held by the record
+     * @throws IllegalArgumentException if the record is not a valid record of
+     *     an order
+     */
+    static Order decode(String record)
+            throws IllegalArgumentException {
+        String[] fields = record.split("\n", -1);
+        int numberOfLines = Integer.parseInt(fields[7]);
+        if (fields.length != 8 + numberOfLines) {
+            throw new IllegalArgumentException("INVALID RECORD");
+        }
+        Order order = new Order();
+        order.setUUID(UUID.fromString(fields[0]));
+        order.setName(unescape(fields[1]));
+        order.setCustomerTier(unescape(fields[2]));
+        String date = unescape(fields[3]);
+        order.setDate(date == null ? null : LocalDate.parse(date));
+        String time = unescape(fields[4]);
+        order.setTime(time == null ? null : LocalTime.parse(time));
+        long totalInCents = Long.parseLong(fields[6]);
+
+        for (int index = 0; index < numberOfLines; index++) {
+            String[] line = fields[8 + index].split("\t", -1);
+            if (line.length != 8) {
+                throw new IllegalArgumentException("INVALID RECORD");
+            }
+            List<Topping> toppings = new ArrayList<>();
+            if (!line[6].isEmpty()) {
+                for (String topping : line[6].split(",")) {
+                    toppings.add(Topping.recordedValueOf(
+                            unescape(topping)));
+                }
+            }
+            order.add(PizzaSpec.of(kindOf(line[1]),
+                    unescape(line[2]),
+                    Bases.BaseSize.valueOf(line[3]),
+                    Sauces.Sauce.valueOf(line[4]),
+                    Cheeses.Cheese.valueOf(line[5]),
+                    toppings,
+                    unescape(line[7])), Integer.parseInt(line[0]));
+        }
+        restoreTotals(order, Long.parseLong(fields[5]), totalInCents);
+        return order;
+    }
+
+    /**
+     * Prices a rebuilt order as it was recorded, whatever discounts were
+     * applied to it then.
+     * @param order order rebuilt from its lines
+     * @param withoutDiscountInCents recorded price of the order in cents
+     *     without discounts
+     * @param totalInCents recorded total price of the order in cents
+     * @throws IllegalArgumentException if the lines of the order do not add
+     *     up to the recorded price without discounts
+     */
+    static void restoreTotals(Order order,
+                              long withoutDiscountInCents,
+                              long totalInCents)
+            throws IllegalArgumentException {
+        if (withoutDiscountInCents
+                != order.getOrderPriceWithoutDiscountInCents()) {
+            throw new IllegalArgumentException("INVALID RECORD");
+        } else if (totalInCents != order.getTotalPriceInCents()) {
+            order.setDiscountEngine(new DiscountEngine(List.of(
+                    DiscountRule.forQuantity(1,
+                            new RecordedPrice(totalInCents)))));
+        }
+    }
+
+    /**
+     * Returns the kind of pizza with the given class name.
+     * @param name name of the class of the pizza
+     * @return class of the pizza
+     * @throws IllegalArgumentException if there is no such kind of pizza
+     */
+    static Class<? extends Pizza> kindOf(String name)
+            throws IllegalArgumentException {
+        try {
+            return Class.forName(name).asSubclass(Pizza.class);
+        } catch (ClassNotFoundException
+                 | ClassCastException exception) {
+            throw new IllegalArgumentException(exception);
+        }
+    }
+
+    /**
+     * Returns the string representation of the given value, or null if it is
+     * null.
+     * @param value value to be recorded
+     * @return string representation of the value, or null
+     */
+    private static String toString(Object value) {
+        return value == null ? null : value.toString();
+    }
+
+    /**
+     * Appends the given string to the record, escaping backslashes, new
+     * lines, tabs and commas, or appends NULL if it is null.
+     * @param record record being built
+     * @param string string to be appended
+     * @return record being built
+     */
+    private static StringBuilder escape(StringBuilder record,
+                                        String string) {
+        if (string == null) {
+            return record.append(NULL);
+        }
+        for (int index = 0; index < string.length(); index++) {
+            char character = string.charAt(index);
+            switch (character) {
+                case '\\':
+                    record.append("\\\\");
+                    break;
+                case '\n':
+                    record.append("\\n");
+                    break;
+                case '\t':
+                    record.append("\\t");
+                    break;
+                case ',':
+                    record.append("\\c");
+                    break;
+                default:
+                    record.append(character);
+            }
+        }
+        return record;
+    }
+
+    /**
+     * Returns the string escaped by escape(StringBuilder, String).
+     * @param escaped escaped string
+     * @return string, or null if NULL was recorded
+     * @throws IllegalArgumentException if the string is not escaped correctly
+     */
+    private static String unescape(String escaped)
+            throws IllegalArgumentException {
+        if (escaped.equals(NULL)) {
+            return null;
+        } else if (escaped.indexOf('\\') < 0) {
+            return escaped;
+        }
+        StringBuilder string = new StringBuilder(escaped.length());
+        for (int index = 0; index < escaped.length(); index++) {
+            char character = escaped.charAt(index);
+            if (character == '\\') {
+                if (++index == escaped.length()) {
+                    throw new IllegalArgumentException("INVALID ESCAPE");
+                }
+                switch (escaped.charAt(index)) {
+                    case '\\':
+                        character = '\\';
+                        break;
+                    case 'n':
+                        character = '\n';
+                        break;
+                    case 't':
+                        character = '\t';
+                        break;
+                    case 'c':
+                        character = ',';
+                        break;
+                    default:
+                        throw new IllegalArgumentException("INVALID ESCAPE");
+                }
+            }
+            string.append(character);
+        }
+        return string.toString();
+    }
+
+    /**
+     * Record appended to the journal and waiting to be written.
+     */
+    private static class Append {
+        /**
+         * sequence number of the record
+         */
+        private final long sequence;
+
+        /**
+         * length, checksum and bytes of the record
+         */
+        private final ByteBuffer frame;
+
+        /**
+         * future completed once the record has been written
+         */
+        private final CompletableFuture<Long> future;
+
+        /**
+         * Creates a record waiting to be written.
+         * @param sequence sequence number of the record
+         * @param frame length, checksum and bytes of the record
+         * @param future future completed once the record has been written
+         */
+        private Append(long sequence,
+                       ByteBuffer frame,
+                       CompletableFuture<Long> future) {
+            this.sequence = sequence;
+            this.frame = frame;
+            this.future = future;
+        }
+    }
+
+    /**
+     * Discount giving the total price a replayed order was recorded with.
+     */
+    private static class RecordedPrice
+            implements MenuItem.Discount {
+        /**
+         * total price of the order in cents when it was recorded
+         */
+        private final long priceInCents;
+
+        /**
+         * Creates a discount giving the recorded total price.
+         * @param priceInCents total price of the order in cents
+         */
+        private RecordedPrice(long priceInCents) {
+            this.priceInCents = priceInCents;
+        }
+
+        /**
+         * Returns the recorded total price in dollars.
+         * @param price price of the order, which is ignored
+         * @return recorded total price
+         */
+        @Override
+        public double applyDiscount(double price) {
+            return priceInCents / 100.0;
+        }
+
+        /**
+         * Returns the recorded total price in cents.
+         * @param priceInCents price of the order in cents, which is ignored
+         * @return recorded total price in cents
+         */
+        @Override
+        public long applyDiscountInCents(long priceInCents) {
+            return this.priceInCents;
+        }
+    }
+}
@@ -0,0 +1,225 @@
+package menu;
+
+import pizza.PizzaSpec;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Topping;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.Comparator;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeSet;
+
+/**
+ * Evaluates a fixed set of discount rules against orders.
+ * <p>
+ * The rules are compiled once, when the engine is created, into indexes by
+ * their trigger: line rules by topping and by base size, quantity rules by
+ * their minimum quantity, time of day rules by the spans of the day in which
+ * the same rules apply, and customer tier rules by tier. Evaluating a line or
+ * an order then only looks at the rules that apply to it, however many rules
+ * the engine holds.
+ * <p>
+ * Rules of the same level do not stack. Each line is discounted by the line
+ * rule that gives it the lowest price, and the sum of the discounted lines is
+ * then discounted by the order rule that gives the lowest price. A rule is
+ * never used to raise a price.
+ * <p>
+ * An engine is immutable, so it can be shared by many orders and threads.
+ */
+public final class DiscountEngine {
+
+    /**
+     * empty array of rules
+     */
+    private static final DiscountRule[] NO_RULES = new DiscountRule[0];
+
+    /**
+     * engine with no rules, which never discounts a price
+     */
+    public static final DiscountEngine NONE = new DiscountEngine(List.of());
+
+    /**
+     * topping rules by topping
+     */
+    private final Map<Topping, DiscountRule[]> toppingRules =
+            new IdentityHashMap<>();
+
+    /**
+     * size rules by base size
+     */
+    private final Map<Bases.BaseSize, DiscountRule[]> sizeRules =
+            new EnumMap<>(Bases.BaseSize.class);
+
+    /**
+     * quantity rules sorted by minimum quantity
+     */
+    private final DiscountRule[] quantityRules;
+
+    /**
+     * second of the day each span of the day starts at, in increasing order,
+     * starting at 0
+     */
+    private final int[] spanStarts;
+
+    /**
+     * time of day rules that apply in each span of the day
+     */
+    private final DiscountRule[][] spanRules;
+
+    /**
+     * customer tier rules by tier
+     */
+    private final Map<String, DiscountRule[]> customerTierRules =
+            new HashMap<>();
+
+    /**
+     * Creates an engine evaluating the given rules.
+     * @param rules rules to be evaluated
+     * @throws IllegalArgumentException if rules is null or contains null
+     */
+    public DiscountEngine(Collection<DiscountRule> rules)
+            throws IllegalArgumentException {
+        if (rules == null) {
+            throw new IllegalArgumentException();
+        }
+        Map<Topping, List<DiscountRule>> byTopping = new IdentityHashMap<>();
+        Map<Bases.BaseSize, List<DiscountRule>> bySize =
+                new EnumMap<>(Bases.BaseSize.class);
+        Map<String, List<DiscountRule>> byTier = new HashMap<>();
+        List<DiscountRule> byQuantity = new ArrayList<>();
+        List<DiscountRule> byTimeOfDay = new ArrayList<>();
+        for (DiscountRule rule : rules) {
+            if (rule == null) {
+                throw new IllegalArgumentException();
+            }
+            switch (rule.getTrigger()) {
+                case TOPPING:
+                    byTopping.computeIfAbsent(rule.getTopping(),
+                            key -> new ArrayList<>()).add(rule);
+                    break;
+                case SIZE:
+                    bySize.computeIfAbsent(rule.getSize(),
+                            key -> new ArrayList<>()).add(rule);
+                    break;
+                case QUANTITY:
+                    byQuantity.add(rule);
+                    break;
+                case TIME_OF_DAY:
+                    byTimeOfDay.add(rule);
+                    break;
+                default:
+                    byTier.computeIfAbsent(rule.getCustomerTier(),
+                            key -> new ArrayList<>()).add(rule);
+            }
+        }
+        byTopping.forEach((topping, list) ->
+                toppingRules.put(topping, list.toArray(NO_RULES)));
+        bySize.forEach((size, list) ->
+                sizeRules.put(size, list.toArray(NO_RULES)));
+        byTier.forEach((tier, list) ->
+                customerTierRules.put(tier, list.toArray(NO_RULES)));
+        quantityRules = byQuantity.toArray(NO_RULES);
+        Arrays.sort(quantityRules,
+                Comparator.comparingInt(DiscountRule::getMinimumQuantity));
+
+        // the rules that apply only change where a time of day starts or ends
+        TreeSet<Integer> starts = new TreeSet<>();
+        starts.add(0);
+        for (DiscountRule rule : byTimeOfDay) {
+            starts.add(rule.getFrom().toSecondOfDay());
+            starts.add(rule.getTo().toSecondOfDay());
+        }
+        spanStarts = starts.stream().mapToInt(Integer::intValue).toArray();
+        spanRules = new DiscountRule[spanStarts.length][];
+        for (int span = 0; span < spanStarts.length; span++) {
+            List<DiscountRule> active = new ArrayList<>();
+            for (DiscountRule rule : byTimeOfDay) {
+                if (rule.isActiveAt(spanStarts[span])) {
+                    active.add(rule);
+                }
+            }
+            spanRules[span] = active.toArray(NO_RULES);
+        }
+    }
+
+    /**
+     * Returns the price in cents of the given line, discounted by the topping
+     * or size rule that gives it the lowest price.
+     * @param line line of an order
+     * @return discounted price of the line in cents
+     */
+    public long applyToLine(OrderLine line) {
+        long price = line.getTotalPriceInCents();
+        PizzaSpec spec = line.getSpec();
+        long best = applyBest(sizeRules.get(spec.getSize()), price, price);
+        if (!toppingRules.isEmpty()) {
+            for (Topping topping : spec.getToppings()) {
+                best = applyBest(toppingRules.get(topping), price, best);
+            }
+        }
+        return best;
+    }
+
+    /**
+     * Returns the given price in cents of an order, discounted by the
+     * quantity, time of day or customer tier rule that gives it the lowest
+     * price.
+     * @param priceInCents price of the order in cents, after its lines have
+     *     been discounted
+     * @param numberOfPizzas number of pizzas in the order
+     * @param time time of the order, or null if it has no time
+     * @param customerTier tier of the customer, or null if the customer has no
+     *     tier
+     * @return discounted price of the order in cents
+     */
+    public long applyToOrder(long priceInCents,
+                             int numberOfPizzas,
+                             LocalTime time,
+                             String customerTier) {
+        long best = priceInCents;
+        for (DiscountRule rule : quantityRules) {
+            if (rule.getMinimumQuantity() > numberOfPizzas) {
+                break;
+            }
+            best = Math.min(best,
+                    rule.getDiscount().applyDiscountInCents(priceInCents));
+        }
+        if (time != null) {
+            int span = Arrays.binarySearch(spanStarts, time.toSecondOfDay());
+            best = applyBest(spanRules[span < 0 ? -span - 2 : span],
+                    priceInCents, best);
+        }
+        if (customerTier != null) {
+            best = applyBest(customerTierRules.get(customerTier),
+                    priceInCents, best);
+        }
+        return best;
+    }
+
+    /**
+     * Returns the lowest of the given best price and the price given by each
+     * of the given rules.
+     * @param rules rules that apply, or null if there are none
+     * @param priceInCents price in cents to be discounted
+     * @param best lowest price in cents found so far
+     * @return lowest price in cents
+     */
+    private static long applyBest(DiscountRule[] rules,
+                                  long priceInCents,
+                                  long best) {
+        if (rules != null) {
+            for (DiscountRule rule : rules) {
+                best = Math.min(best,
+                        rule.getDiscount().applyDiscountInCents(priceInCents));
+            }
+        }
+        return best;
+    }
+}
@@ -0,0 +1,300 @@
+package menu;
+
+import pizza.ingredients.Bases;
+import pizza.ingredients.Topping;
+
+import java.time.LocalTime;
+
+/**
+ * Promotion that applies a discount when its trigger is met.
+ * <p>
+ * Topping and size rules are line rules, which discount the price of each
+ * line of an order holding pizzas with the topping or of the size. Quantity,
+ * time of day and customer tier rules are order rules, which discount the
+ * price of the whole order once its lines have been discounted.
+ * <p>
+ * Rules are created with the static factory methods and are immutable. They
+ * are evaluated by a DiscountEngine.
+ */
+public final class DiscountRule {
+
+    /**
+     * Condition that must be met for a rule to apply.
+     */
+    public enum Trigger {
+        /**
+         * line of pizzas with a given topping
+         */
+        TOPPING,
+        /**
+         * line of pizzas with a given base size
+         */
+        SIZE,
+        /**
+         * order with at least a given number of pizzas
+         */
+        QUANTITY,
+        /**
+         * order made within a given time of day
+         */
+        TIME_OF_DAY,
+        /**
+         * order for a customer in a given tier
+         */
+        CUSTOMER_TIER
+    }
+
+    /**
+     * condition that must be met for this rule to apply
+     */
+    private final Trigger trigger;
+
+    /**
+     * discount applied by this rule
+     */
+    private final MenuItem.Discount discount;
+
+    /**
+     * topping of a topping rule, otherwise, null
+     */
+    private final Topping topping;
+
+    /**
+     * base size of a size rule, otherwise, null
+     */
+    private final Bases.BaseSize size;
+
+    /**
+     * minimum number of pizzas of a quantity rule, otherwise, 0
+     */
+    private final int minimumQuantity;
+
+    /**
+     * start of the time of day of a time of day rule, otherwise, null
+     */
+    private final LocalTime from;
+
+    /**
+     * end of the time of day of a time of day rule, otherwise, null
+     */
+    private final LocalTime to;
+
+    /**
+     * customer tier of a customer tier rule, otherwise, null
+     */
+    private final String customerTier;
+
+    /**
+     * Creates a rule with the given trigger and discount.
+     * @param trigger condition that must be met for the rule to apply
+     * @param discount discount applied by the rule
+     * @param topping topping of a topping rule
+     * @param size base size of a size rule
+     * @param minimumQuantity minimum number of pizzas of a quantity rule
+     * @param from start of the time of day of a time of day rule
+     * @param to end of the time of day of a time of day rule
+     * @param customerTier customer tier of a customer tier rule
+     */
+    private DiscountRule(Trigger trigger,
+                         MenuItem.Discount discount,
+                         Topping topping,
+                         Bases.BaseSize size,
+                         int minimumQuantity,
+                         LocalTime from,
+                         LocalTime to,
+                         String customerTier) {
+        this.trigger = trigger;
+        this.discount = discount;
+        this.topping = topping;
+        this.size = size;
+        this.minimumQuantity = minimumQuantity;
+        this.from = from;
+        this.to = to;
+        this.customerTier = customerTier;
+    }
+
+    /**
+     * Returns a rule discounting each line of pizzas with the given topping.
+     * @param topping topping the pizzas must have
+     * @param discount discount applied to the price of the line
+     * @return topping rule
+     * @throws IllegalArgumentException if topping or discount is null
+     */
+    public static DiscountRule forTopping(Topping topping,
+                                          MenuItem.Discount discount)
+            throws IllegalArgumentException {
+        if (topping == null
+                || discount == null) {
+            throw new IllegalArgumentException();
+        }
+        return new DiscountRule(Trigger.TOPPING, discount,
+                topping, null, 0, null, null, null);
+    }
+
+    /**
+     * Returns a rule discounting each line of pizzas with the given base size.
+     * @param size base size the pizzas must have
+     * @param discount discount applied to the price of the line
+     * @return size rule
+     * @throws IllegalArgumentException if size or discount is null
+     */
+    public static DiscountRule forSize(Bases.BaseSize size,
+                                       MenuItem.Discount discount)
+            throws IllegalArgumentException {
+        if (size == null
+                || discount == null) {
+            throw new IllegalArgumentException();
+        }
+        return new DiscountRule(Trigger.SIZE, discount,
+                null, size, 0, null, null, null);
+    }
+
+    /**
+     * Returns a rule discounting an order with at least the given number of
+     * pizzas.
+     * @param minimumQuantity minimum number of pizzas in the order
+     * @param discount discount applied to the price of the order
+     * @return quantity rule
+     * @throws IllegalArgumentException if minimumQuantity is less than one or
+     *     discount is null
+     */
+    public static DiscountRule forQuantity(int minimumQuantity,
+                                           MenuItem.Discount discount)
+            throws IllegalArgumentException {
+        if (minimumQuantity < 1
+                || discount == null) {
+            throw new IllegalArgumentException();
+        }
+        return new DiscountRule(Trigger.QUANTITY, discount,
+                null, null, minimumQuantity, null, null, null);
+    }
+
+    /**
+     * Returns a rule discounting an order made from the start of the given
+     * time of day, inclusive, to its end, exclusive.
+     * <p>
+     * A time of day whose end is before its start runs past midnight, and one
+     * whose end is equal to its start runs all day.
+     * @param from start of the time of day
+     * @param to end of the time of day
+     * @param discount discount applied to the price of the order
+     * @return time of day rule
+     * @throws IllegalArgumentException if from, to or discount is null
+     */
+    public static DiscountRule forTimeOfDay(LocalTime from,
+                                            LocalTime to,
+                                            MenuItem.Discount discount)
+            throws IllegalArgumentException {
+        if (from == null
+                || to == null
+                || discount == null) {
+            throw new IllegalArgumentException();
+        }
+        return new DiscountRule(Trigger.TIME_OF_DAY, discount,
+                null, null, 0, from, to, null);
+    }
+
+    /**
+     * Returns a rule discounting an order for a customer in the given tier.
+     * @param customerTier tier the customer must be in
+     * @param discount discount applied to the price of the order
+     * @return customer tier rule
+     * @throws IllegalArgumentException if customerTier or discount is null
+     */
+    public static DiscountRule forCustomerTier(String customerTier,
+                                               MenuItem.Discount discount)
+            throws IllegalArgumentException {
+        if (customerTier == null
+                || discount == null) {
+            throw new IllegalArgumentException();
+        }
+        return new DiscountRule(Trigger.CUSTOMER_TIER, discount,
+                null, null, 0, null, null, customerTier);
+    }
+
+    /**
+     * Returns the condition that must be met for this rule to apply.
+     * @return trigger of this rule
+     */
+    public Trigger getTrigger() {
+        return trigger;
+    }
+
+    /**
+     * Returns the discount applied by this rule.
+     * @return discount of this rule
+     */
+    public MenuItem.Discount getDiscount() {
+        return discount;
+    }
+
+    /**
+     * Returns the topping of a topping rule, otherwise, null.
+     * @return topping the pizzas must have, or null
+     */
+    public Topping getTopping() {
+        return topping;
+    }
+
+    /**
+     * Returns the base size of a size rule, otherwise, null.
+     * @return base size the pizzas must have, or null
+     */
+    public Bases.BaseSize getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the minimum number of pizzas of a quantity rule, otherwise, 0.
+     * @return minimum number of pizzas in the order, or 0
+     */
+    public int getMinimumQuantity() {
+        return minimumQuantity;
+    }
+
+    /**
+     * Returns the start of the time of day of a time of day rule, otherwise,
+     * null.
+     * @return start of the time of day, or null
+     */
+    public LocalTime getFrom() {
+        return from;
+    }
+
+    /**
+     * Returns the end of the time of day of a time of day rule, otherwise,
+     * null.
+     * @return end of the time of day, or null
+     */
+    public LocalTime getTo() {
+        return to;
+    }
+
+    /**
+     * Returns the customer tier of a customer tier rule, otherwise, null.
+     * @return tier the customer must be in, or null
+     */
+    public String getCustomerTier() {
+        return customerTier;
+    }
+
+    /**
+     * Returns true if this is a time of day rule that applies at the given
+     * second of the day, otherwise, false.
+     * @param secondOfDay second of the day
+     * @return true if the time of day includes the second, otherwise, false
+     */
+    boolean isActiveAt(int secondOfDay) {
+        if (trigger != Trigger.TIME_OF_DAY) {
+            return false;
+        }
+        int start = from.toSecondOfDay();
+        int end = to.toSecondOfDay();
+        if (start < end) {
+            return start <= secondOfDay && secondOfDay < end;
+        } else if (start > end) {
+            return start <= secondOfDay || secondOfDay < end;
+        }
+        return true;
+    }
+}
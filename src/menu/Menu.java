@@ -1,10 +1,23 @@
 package menu;
 
 import pizza.Pizza;
+import pizza.ingredients.Topping;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Deque;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
 import java.util.Objects;
+import java.util.Set;
+import java.util.TreeMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.function.Consumer;
 
 /**
  * Singleton class which defines a menu that contains items that can be ordered
@@ -14,25 +27,119 @@ import java.util.Objects;
  * will allow them to be ordered in the simulation.
  * <p>
  * A Menu starts as empty but will grow over the programs run time.
+ * <p>
+ * Alongside the ordered list of items, the menu keeps an index of its items by
+ * hash code so that checking whether an item has been seen before does not
+ * compare it against every item on the menu, and indexes of its items by name
+ * for finding items by name or name prefix. Items whose equality or name can
+ * change after registration must call updateMenuItem(MenuItem) after each
+ * change.
+ * <p>
+ * The menu is where items are registered as they are created or loaded.
+ * Readers such as orders and the GUI should instead use the MenuSnapshot
+ * returned by snapshot(), which holds the menu as it was when publish() was
+ * last called. Publishing replaces the snapshot in a single step, so readers
+ * never block and never see a menu that is only partly loaded.
+ * <p>
+ * A thread may also stage a whole new set of items, such as when the menu is
+ * reloaded. After stage(), items registered or updated by that thread go to a
+ * separate staged menu, until publishStaged() replaces the items on this menu
+ * with the staged items and publishes them, along with any toppings staged by
+ * the thread, in one step. Only the differences
+ * are applied, so items that have not changed stay on the menu as the same
+ * objects, and the differences are given to the change listeners. Only the
+ * items that were loaded are replaced. Items registered since the loaded items
+ * were published, such as custom pizzas made in the GUI, are kept.
  */
 public class Menu {
 
     /**
      * singleton instance of menu
      */
-    private static Menu menu;
+    private static final Menu menu = new Menu();
+
+    /**
+     * menu holding the items being staged by the current thread, or null if
+     * the thread is not staging items
+     */
+    private static final ThreadLocal<Menu> stagedMenu = new ThreadLocal<>();
+
+    /**
+     * snapshot of the menu that was last published
+     */
+    private volatile MenuSnapshot snapshot = MenuSnapshot.EMPTY;
+
+    /**
+     * listeners given the differences each time staged items are published
+     */
+    private final List<Consumer<MenuDiff>> changeListeners =
+            new CopyOnWriteArrayList<>();
 
     /**
      * list of items on the menu
      */
     private List<MenuItem> menuItems;
 
+    /**
+     * number of items at the start of the menu that were loaded, which are
+     * the items on the menu when it was last published; the items after them
+     * were registered since, and are not replaced by staged items
+     */
+    private int numberOfLoadedItems;
+
+    /**
+     * items on the menu grouped by the hash code they were last indexed under
+     */
+    private Map<Integer, List<MenuItem>> itemsByHashCode;
+
+    /**
+     * items on the menu grouped by name, in the order they were registered
+     */
+    private Map<String, List<MenuItem>> itemsByName;
+
+    /**
+     * items on the menu grouped by lowercase name, sorted by lowercase name
+     */
+    private NavigableMap<String, List<MenuItem>> itemsBySearchName;
+
+    /**
+     * position, hash code and name each item on the menu was last indexed
+     * under
+     */
+    private Map<MenuItem, IndexEntry> indexEntries;
+
+    /**
+     * Entry recording where an item on the menu has been indexed.
+     */
+    private static class IndexEntry {
+        /**
+         * position of the item in the list of items on the menu
+         */
+        private final int position;
+        /**
+         * hash code the item is indexed under
+         */
+        private int hashCode;
+        /**
+         * name the item is indexed under
+         */
+        private String name;
+
+        /**
+         * Creates an index entry for an item at the given position.
+         * @param position position of the item on the menu
+         */
+        private IndexEntry(int position) {
+            this.position = position;
+        }
+    }
+
     /**
      * Constructs menu which defines a menu that contains menu pizzas from the
      * given pizza menu file.
      */
     private Menu() {
-        menuItems = new ArrayList<>();
+        clear();
     }
 
     /**
@@ -40,12 +147,290 @@ public class Menu {
      * @return singleton instance of the menu
      */
     public static Menu getInstance() {
-        if (menu == null) {
-            menu = new Menu();
-        }
         return menu;
     }
 
+    /**
+     * Returns the snapshot of the menu that was last published.
+     * <p>
+     * This method never blocks.
+     * @return snapshot of the menu that was last published
+     */
+    public MenuSnapshot snapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Publishes the items currently on the menu as a new snapshot, replacing
+     * the previous snapshot for all readers at once.
+     * <p>
+     * The published items are taken to be loaded, so they are the items
+     * replaced by the next call to publishStaged().
+     * @return snapshot that was published
+     */
+    public synchronized MenuSnapshot publish() {
+        numberOfLoadedItems = menuItems.size();
+        return publishSnapshot();
+    }
+
+    /**
+     * Publishes the items currently on the menu as a new snapshot, without
+     * changing which items are loaded.
+     * @return snapshot that was published
+     */
+    private MenuSnapshot publishSnapshot() {
+        snapshot = new MenuSnapshot(snapshot.getVersion() + 1,
+                menuItems,
+                Topping.values(),
+                snapshot);
+        return snapshot;
+    }
+
+    /**
+     * Starts staging a new set of items on the current thread.
+     * <p>
+     * Until the staged items are published or discarded, items registered or
+     * updated by the current thread go to a new empty menu rather than this
+     * menu, so other threads do not see them.
+     */
+    public void stage() {
+        stagedMenu.set(new Menu());
+    }
+
+    /**
+     * Replaces the items on this menu with the items staged by the current
+     * thread and publishes them, all in one step, and stops staging.
+     * <p>
+     * If the current thread is also staging toppings, they are published with
+     * the items, while holding the lock on this menu, so the toppings and
+     * items are replaced together.
+     * <p>
+     * Only the loaded items on this menu are replaced, which are those on the
+     * menu when it was last published. Items registered with this menu since
+     * then, such as custom pizzas, are kept after the staged items, and the
+     * staged items are taken to be the loaded items from then on.
+     * <p>
+     * Only the differences between the loaded items on this menu and the
+     * staged items are applied. Items on this menu that are equal to the
+     * staged item they are matched with, as described by MenuDiff, are kept in
+     * place of the staged item, so only added and changed items are new
+     * objects. The toppings are compared with those of the last published
+     * snapshot.
+     * <p>
+     * If nothing has changed, no new snapshot is published. Otherwise, the
+     * change listeners are given the differences once they are published.
+     * @return differences that were published
+     * @throws IllegalStateException if the current thread is not staging items
+     */
+    public MenuDiff publishStaged()
+            throws IllegalStateException {
+        Menu staged = stagedMenu.get();
+        if (staged == null) {
+            throw new IllegalStateException(
+                    "MENU ITEMS ARE NOT BEING STAGED");
+        }
+        stagedMenu.remove();
+
+        MenuDiff diff;
+        synchronized (this) {
+            List<MenuChange<Topping>> toppingChanges =
+                    diffToppings(snapshot.getToppings(), Topping.values());
+            List<MenuItem> items = new ArrayList<>();
+            List<MenuChange<MenuItem>> itemChanges =
+                    diffItems(staged.getItems(), items);
+
+            if (Topping.isStagingToppings()) {
+                Topping.publishStagedToppings();
+            }
+            if (toppingChanges.isEmpty()
+                    && itemChanges.isEmpty()) {
+                return new MenuDiff(toppingChanges, itemChanges, snapshot);
+            }
+            MenuSnapshot previous = snapshot;
+            List<MenuItem> registeredItems = new ArrayList<>(menuItems.subList(
+                    numberOfLoadedItems, menuItems.size()));
+            clear();
+            for (MenuItem item : items) {
+                register(item);
+            }
+            numberOfLoadedItems = menuItems.size();
+            for (MenuItem item : registeredItems) {
+                register(item);
+            }
+            MenuSnapshot current = publishSnapshot();
+            diff = new MenuDiff(toppingChanges,
+                    snapshotChanges(itemChanges, previous, current),
+                    current);
+        }
+        for (Consumer<MenuDiff> listener : changeListeners) {
+            listener.accept(diff);
+        }
+        return diff;
+    }
+
+    /**
+     * Returns the given changes to the items on this menu as changes to the
+     * read-only copies held by the snapshots before and after the changes.
+     * <p>
+     * An item that was registered after the previous snapshot was published
+     * has no copy in it, so a new read-only copy is used.
+     * @param changes changes to the items on this menu
+     * @param previous snapshot published before the changes
+     * @param current snapshot published with the changes
+     * @return changes to the items held by the snapshots
+     */
+    private static List<MenuChange<MenuItem>> snapshotChanges(
+            List<MenuChange<MenuItem>> changes,
+            MenuSnapshot previous,
+            MenuSnapshot current) {
+        List<MenuChange<MenuItem>> snapshotChanges =
+                new ArrayList<>(changes.size());
+        for (MenuChange<MenuItem> change : changes) {
+            MenuItem previousItem = change.getPrevious();
+            if (previousItem != null) {
+                MenuItem copy = previous.copyOf(previousItem);
+                previousItem = copy == null
+                        ? previousItem.readOnlyCopy() : copy;
+            }
+            MenuItem currentItem = change.getCurrent() == null
+                    ? null : current.copyOf(change.getCurrent());
+            snapshotChanges.add(new MenuChange<>(previousItem, currentItem));
+        }
+        return snapshotChanges;
+    }
+
+    /**
+     * Returns the changes from the previous toppings to the current toppings,
+     * matching toppings by name.
+     * @param previous toppings of the last published snapshot
+     * @param current toppings that are now defined
+     * @return changes in the order of the current toppings, followed by
+     *     removed toppings
+     */
+    private static List<MenuChange<Topping>> diffToppings(
+            List<Topping> previous,
+            Topping[] current) {
+        Map<String, Topping> previousByName = new LinkedHashMap<>();
+        for (Topping topping : previous) {
+            previousByName.put(topping.toString(), topping);
+        }
+        List<MenuChange<Topping>> changes = new ArrayList<>();
+        for (Topping topping : current) {
+            Topping match = previousByName.remove(topping.toString());
+            if (match != topping) {
+                changes.add(new MenuChange<>(match, topping));
+            }
+        }
+        for (Topping topping : previousByName.values()) {
+            changes.add(new MenuChange<>(topping, null));
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the changes from the loaded items on this menu to the given
+     * staged items, adding the items the menu should hold to the given list,
+     * in the order of the staged items.
+     * <p>
+     * Each staged item is matched with the first unmatched loaded item on
+     * this menu with the same name. A match that is equal to the staged item
+     * and is shown the same way, as the order of toppings is not part of
+     * equality, is kept in place of the staged item.
+     * @param stagedItems items staged in place of the items on this menu
+     * @param items list to add the items the menu should hold to
+     * @return changes in the order of the staged items, followed by removed
+     *     items
+     */
+    private List<MenuChange<MenuItem>> diffItems(List<MenuItem> stagedItems,
+                                                 List<MenuItem> items) {
+        Map<String, Deque<MenuItem>> unmatched = new HashMap<>();
+        Set<MenuItem> matched = Collections.newSetFromMap(
+                new IdentityHashMap<>());
+        List<MenuChange<MenuItem>> changes = new ArrayList<>();
+        for (MenuItem item : stagedItems) {
+            MenuItem match = null;
+            if (item.getName() != null) {
+                match = unmatched.computeIfAbsent(item.getName(),
+                        this::loadedItemsNamed).poll();
+            }
+            if (match != null) {
+                matched.add(match);
+            }
+            if (match != null
+                    && Objects.equals(match, item)
+                    && match.toString().equals(item.toString())) {
+                items.add(match);
+            } else {
+                items.add(item);
+                changes.add(new MenuChange<>(match, item));
+            }
+        }
+        for (MenuItem item : menuItems.subList(0, numberOfLoadedItems)) {
+            if (!matched.contains(item)) {
+                changes.add(new MenuChange<>(item, null));
+            }
+        }
+        return changes;
+    }
+
+    /**
+     * Returns the loaded items on this menu with the given name, in menu
+     * order.
+     * @param name name of the items
+     * @return loaded items with the name
+     */
+    private Deque<MenuItem> loadedItemsNamed(String name) {
+        Deque<MenuItem> items = new ArrayDeque<>();
+        for (MenuItem item : itemsByName.getOrDefault(name, List.of())) {
+            if (indexEntries.get(item).position < numberOfLoadedItems) {
+                items.add(item);
+            }
+        }
+        return items;
+    }
+
+    /**
+     * Adds a listener to be given the differences each time staged items are
+     * published with changes.
+     * <p>
+     * Listeners are called on the thread publishing the staged items, after
+     * the new snapshot has been published.
+     * @param listener listener to be given the differences
+     * @throws IllegalArgumentException if listener is null
+     */
+    public void addChangeListener(Consumer<MenuDiff> listener)
+            throws IllegalArgumentException {
+        if (listener == null) {
+            throw new IllegalArgumentException();
+        }
+        changeListeners.add(listener);
+    }
+
+    /**
+     * Removes a listener added by addChangeListener(Consumer).
+     * @param listener listener to be removed
+     */
+    public void removeChangeListener(Consumer<MenuDiff> listener) {
+        changeListeners.remove(listener);
+    }
+
+    /**
+     * Discards any items staged by the current thread and stops staging.
+     */
+    public void discardStaged() {
+        stagedMenu.remove();
+    }
+
+    /**
+     * Returns the menu that items registered or updated by the current thread
+     * go to, which is the staged menu while the thread is staging items.
+     * @return menu for the current thread to register items with
+     */
+    private Menu target() {
+        Menu staged = stagedMenu.get();
+        return staged == null ? this : staged;
+    }
+
     /**
      * Returns the items that have been registered with the menu.
      * <p>
@@ -53,7 +438,7 @@ public class Menu {
      * original list.
      * @return items on the menu
      */
-    public List<MenuItem> getItems() {
+    public synchronized List<MenuItem> getItems() {
         return new ArrayList<>(menuItems);
     }
 
@@ -67,29 +452,198 @@ public class Menu {
      * @param item menu item to be registered to the menu
      */
     public void registerMenuItem(MenuItem item) {
+        target().register(item);
+    }
+
+    /**
+     * Registers a menu item with this menu if it has not seen it before.
+     * @param item menu item to be registered to the menu
+     */
+    private synchronized void register(MenuItem item) {
         if (!isExistingMenuItem(item)) {
+            index(item, menuItems.size());
             menuItems.add(item);
         }
     }
 
+    /**
+     * Updates the indexes of a registered menu item after a change to the item
+     * that may have changed its hash code or name.
+     * <p>
+     * Items that are not registered with this menu are ignored.
+     * @param item menu item that has changed
+     */
+    public void updateMenuItem(MenuItem item) {
+        target().update(item);
+    }
+
+    /**
+     * Updates the indexes of a menu item registered with this menu.
+     * @param item menu item that has changed
+     */
+    private synchronized void update(MenuItem item) {
+        IndexEntry entry = indexEntries.get(item);
+        if (entry == null) {
+            return;
+        }
+        if (entry.hashCode != item.hashCode()) {
+            removeFromGroup(itemsByHashCode, entry.hashCode, item);
+            entry.hashCode = item.hashCode();
+            itemsByHashCode.computeIfAbsent(entry.hashCode,
+                    key -> new ArrayList<>(1)).add(item);
+        }
+        if (!Objects.equals(entry.name, item.getName())) {
+            unindexName(item, entry);
+            entry.name = item.getName();
+            indexName(item, entry);
+        }
+    }
+
+    /**
+     * Adds the given item, at the given position on the menu, to the indexes.
+     * @param item menu item to be indexed
+     * @param position position of the item on the menu
+     */
+    private void index(MenuItem item, int position) {
+        IndexEntry entry = new IndexEntry(position);
+        entry.hashCode = item.hashCode();
+        entry.name = item.getName();
+        indexEntries.put(item, entry);
+        itemsByHashCode.computeIfAbsent(entry.hashCode,
+                key -> new ArrayList<>(1)).add(item);
+        indexName(item, entry);
+    }
+
+    /**
+     * Adds the given item to the name indexes under the name in its entry.
+     * @param item menu item to be indexed
+     * @param entry index entry of the item
+     */
+    private void indexName(MenuItem item, IndexEntry entry) {
+        if (entry.name == null) {
+            return;
+        }
+        addInMenuOrder(itemsByName.computeIfAbsent(entry.name,
+                key -> new ArrayList<>(1)), item, entry.position);
+        addInMenuOrder(itemsBySearchName.computeIfAbsent(
+                entry.name.toLowerCase(),
+                key -> new ArrayList<>(1)), item, entry.position);
+    }
+
+    /**
+     * Removes the given item from the name indexes under the name in its entry.
+     * @param item menu item to be removed from the indexes
+     * @param entry index entry of the item
+     */
+    private void unindexName(MenuItem item, IndexEntry entry) {
+        if (entry.name == null) {
+            return;
+        }
+        removeFromGroup(itemsByName, entry.name, item);
+        removeFromGroup(itemsBySearchName, entry.name.toLowerCase(), item);
+    }
+
+    /**
+     * Inserts the given item into a group of items so that the group stays in
+     * the order the items appear on the menu.
+     * @param items group of items in menu order
+     * @param item menu item to be inserted
+     * @param position position of the item on the menu
+     */
+    private void addInMenuOrder(List<MenuItem> items,
+                                MenuItem item,
+                                int position) {
+        int index = items.size();
+        while (index > 0
+                && indexEntries.get(items.get(index - 1)).position > position) {
+            index--;
+        }
+        items.add(index, item);
+    }
+
+    /**
+     * Removes the given item from the group of items under the given key,
+     * removing the group if it becomes empty.
+     * @param groups groups of items by key
+     * @param key key of the group the item is in
+     * @param item menu item to be removed
+     * @param <K> type of the key
+     */
+    private static <K> void removeFromGroup(Map<K, List<MenuItem>> groups,
+                                            K key,
+                                            MenuItem item) {
+        List<MenuItem> items = groups.get(key);
+        for (int index = 0; index < items.size(); index++) {
+            if (items.get(index) == item) {
+                items.remove(index);
+                break;
+            }
+        }
+        if (items.isEmpty()) {
+            groups.remove(key);
+        }
+    }
+
+    /**
+     * Returns the first item on the menu with the given name, or null if there
+     * is no item with that name.
+     * @param name name of the item to be found
+     * @return first item with the given name, or null if there is none
+     */
+    public synchronized MenuItem findByName(String name) {
+        List<MenuItem> items = itemsByName.get(name);
+        return items == null ? null : items.get(0);
+    }
+
+    /**
+     * Returns the items on the menu whose name starts with the given prefix,
+     * ignoring case, sorted by name.
+     * <p>
+     * At most limit items are returned, such that the cost of a search depends
+     * on the number of items returned rather than the size of the menu.
+     * @param prefix start of the names of the items to be found
+     * @param limit maximum number of items to return
+     * @return items with names starting with the prefix, sorted by name
+     * @throws IllegalArgumentException if prefix is null or limit is negative
+     */
+    public synchronized List<MenuItem> searchByPrefix(String prefix, int limit)
+            throws IllegalArgumentException {
+        if (prefix == null
+                || limit < 0) {
+            throw new IllegalArgumentException();
+        }
+        String searchPrefix = prefix.toLowerCase();
+        List<MenuItem> found = new ArrayList<>();
+        for (Map.Entry<String, List<MenuItem>> entry
+                : itemsBySearchName.tailMap(searchPrefix, true).entrySet()) {
+            if (!entry.getKey().startsWith(searchPrefix)) {
+                break;
+            }
+            for (MenuItem item : entry.getValue()) {
+                if (found.size() == limit) {
+                    return found;
+                }
+                found.add(item);
+            }
+        }
+        return found;
+    }
+
     /**
      * Returns true if the menu item is an existing menu item, otherwise, false
      * @param item menu item to confirm if existing menu item
      * @return boolean for if menu item is an existing menu item
      */
     private boolean isExistingMenuItem(MenuItem item) {
-        boolean isExistingMenuItem = false;
-
-        if (getItems() != null) {
-            for (MenuItem menuItem : getItems()) {
-                if (item.equals(menuItem)) {
-                    isExistingMenuItem = true;
-                    break;
+        List<MenuItem> items = itemsByHashCode.get(item.hashCode());
+        if (items != null) {
+            for (MenuItem menuItem : items) {
+                if (Objects.equals(item, menuItem)) {
+                    return true;
                 }
             }
         }
-
-        return isExistingMenuItem;
+        return false;
     }
 
     /**
@@ -98,22 +652,28 @@ public class Menu {
      * @return item that has been found
      * @throws IndexOutOfBoundsException if index does not exist or array is null
      */
-    public MenuItem get(int index)
+    public synchronized MenuItem get(int index)
             throws IndexOutOfBoundsException {
-        if (getItems() == null
-                | index < 0
-                | index >= getItems().size()) {
+        if (index < 0
+                | index >= menuItems.size()) {
             throw new IndexOutOfBoundsException();
         } else {
-            return getItems().get(index);
+            return menuItems.get(index);
         }
     }
 
     /**
      * Removes all loaded items from the Menu such that getItems() will return a
      * list of size 0.
+     * <p>
+     * The published snapshot is not changed until publish() is called.
      */
-    public void clear() {
+    public synchronized void clear() {
         menuItems = new ArrayList<>();
+        numberOfLoadedItems = 0;
+        itemsByHashCode = new HashMap<>();
+        itemsByName = new HashMap<>();
+        itemsBySearchName = new TreeMap<>();
+        indexEntries = new IdentityHashMap<>();
     }
 }
\ No newline at end of file
@@ -0,0 +1,99 @@
+package menu;
+
+/**
+ * Change to a single topping or menu item between two loads of the menu.
+ * <p>
+ * An added value has no previous value, a removed value has no current value,
+ * and a changed value has both, where the current value replaces the previous
+ * one on the menu.
+ * @param <T> type of the value that has changed, Topping or MenuItem
+ */
+public final class MenuChange<T> {
+
+    /**
+     * Kind of change made to a value.
+     */
+    public enum Kind {
+        /**
+         * value that was not on the previous menu
+         */
+        ADDED,
+        /**
+         * value that is no longer on the menu
+         */
+        REMOVED,
+        /**
+         * value that has been replaced by a different value of the same name
+         */
+        CHANGED
+    }
+
+    /**
+     * kind of change
+     */
+    private final Kind kind;
+
+    /**
+     * value on the previous menu, or null if the value was added
+     */
+    private final T previous;
+
+    /**
+     * value on the current menu, or null if the value was removed
+     */
+    private final T current;
+
+    /**
+     * Creates a change from the given previous value to the given current
+     * value.
+     * @param previous value on the previous menu, or null if it was added
+     * @param current value on the current menu, or null if it was removed
+     */
+    MenuChange(T previous, T current) {
+        this.kind = previous == null ? Kind.ADDED
+                : current == null ? Kind.REMOVED
+                : Kind.CHANGED;
+        this.previous = previous;
+        this.current = current;
+    }
+
+    /**
+     * Returns the kind of change.
+     * @return kind of change
+     */
+    public Kind getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the value on the previous menu, or null if the value was added.
+     * @return previous value, or null
+     */
+    public T getPrevious() {
+        return previous;
+    }
+
+    /**
+     * Returns the value on the current menu, or null if the value was removed.
+     * @return current value, or null
+     */
+    public T getCurrent() {
+        return current;
+    }
+
+    /**
+     * Returns the kind of change followed by the values that have changed.
+     * @return string representation of this change
+     */
+    @Override
+    public String toString() {
+        switch (kind) {
+            case ADDED:
+                return kind + " " + current;
+            case REMOVED:
+                return kind + " " + previous;
+            default:
+                return kind + " " + previous + " TO " + current;
+        }
+    }
+}
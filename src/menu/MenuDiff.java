@@ -0,0 +1,108 @@
+package menu;
+
+import pizza.ingredients.Topping;
+
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Differences between the toppings and menu items of the menu before and
+ * after the staged items were published by Menu.publishStaged().
+ * <p>
+ * Toppings are matched by name. Menu items are matched by name, in menu order
+ * for items with the same name, and a matched item is only changed if it is
+ * not equal to its match or is shown differently. Items that are unchanged
+ * are kept on the menu as the same objects, so that anything keyed on them
+ * stays valid.
+ * <p>
+ * The changed items are the read-only copies held by the snapshots published
+ * before and with the changes.
+ */
+public final class MenuDiff {
+
+    /**
+     * changes to the toppings, in the order of the current toppings, followed
+     * by removed toppings
+     */
+    private final List<MenuChange<Topping>> toppingChanges;
+
+    /**
+     * changes to the menu items, in the order of the current items, followed
+     * by removed items
+     */
+    private final List<MenuChange<MenuItem>> itemChanges;
+
+    /**
+     * snapshot published with the changes
+     */
+    private final MenuSnapshot snapshot;
+
+    /**
+     * Creates the differences published in the given snapshot.
+     * @param toppingChanges changes to the toppings
+     * @param itemChanges changes to the menu items
+     * @param snapshot snapshot published with the changes
+     */
+    MenuDiff(List<MenuChange<Topping>> toppingChanges,
+             List<MenuChange<MenuItem>> itemChanges,
+             MenuSnapshot snapshot) {
+        this.toppingChanges = Collections.unmodifiableList(toppingChanges);
+        this.itemChanges = Collections.unmodifiableList(itemChanges);
+        this.snapshot = snapshot;
+    }
+
+    /**
+     * Returns the changes to the toppings, in the order of the current
+     * toppings, followed by the removed toppings.
+     * @return changes to the toppings
+     */
+    public List<MenuChange<Topping>> getToppingChanges() {
+        return toppingChanges;
+    }
+
+    /**
+     * Returns the changes to the menu items, in the order of the current menu
+     * items, followed by the removed items in their previous order.
+     * @return changes to the menu items
+     */
+    public List<MenuChange<MenuItem>> getItemChanges() {
+        return itemChanges;
+    }
+
+    /**
+     * Returns true if neither the toppings nor the menu items have changed,
+     * otherwise, false.
+     * @return true if nothing has changed, otherwise, false
+     */
+    public boolean isEmpty() {
+        return toppingChanges.isEmpty()
+                && itemChanges.isEmpty();
+    }
+
+    /**
+     * Returns the snapshot published with the changes, which is the previous
+     * snapshot if nothing has changed.
+     * @return snapshot of the menu after the changes
+     */
+    public MenuSnapshot getSnapshot() {
+        return snapshot;
+    }
+
+    /**
+     * Returns the number of changes and each of the changes, one per line.
+     * @return string representation of this diff
+     */
+    @Override
+    public String toString() {
+        StringBuilder diff = new StringBuilder();
+        diff.append(toppingChanges.size()).append(" TOPPING CHANGES AND ")
+                .append(itemChanges.size()).append(" ITEM CHANGES");
+        for (MenuChange<Topping> change : toppingChanges) {
+            diff.append(System.lineSeparator()).append(change);
+        }
+        for (MenuChange<MenuItem> change : itemChanges) {
+            diff.append(System.lineSeparator()).append(change);
+        }
+        return diff.toString();
+    }
+}
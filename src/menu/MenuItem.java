@@ -15,6 +15,19 @@ public interface MenuItem {
          * @return discounted price
          */
         double applyDiscount(double price);
+
+        /**
+         * Apply a discount to the given price in cents.
+         * <p>
+         * By default the discount is applied to the price in dollars and the
+         * result is rounded to the nearest cent. Implementations should
+         * override this method to discount the price with integer arithmetic.
+         * @param priceInCents input price in cents
+         * @return discounted price in cents
+         */
+        default long applyDiscountInCents(long priceInCents) {
+            return Math.round(applyDiscount(priceInCents / 100.0) * 100);
+        }
     }
 
     /**
@@ -23,6 +36,16 @@ public interface MenuItem {
      */
     double getTotalPrice();
 
+    /**
+     * Returns the price of a menu item in cents.
+     * <p>
+     * By default the price is rounded to the nearest cent.
+     * @return price of the menu item in cents
+     */
+    default long getTotalPriceInCents() {
+        return Math.round(getTotalPrice() * 100);
+    }
+
     /**
      * Registers this item with the Menu singleton class.
      * <p>
@@ -32,6 +55,39 @@ public interface MenuItem {
         Menu.getInstance().registerMenuItem(this);
     }
 
+    /**
+     * Updates this item with the Menu singleton class.
+     * <p>
+     * This method should be called by each implementing class after a change
+     * that may affect the equality of this item.
+     */
+    default void updateMenuItem() {
+        Menu.getInstance().updateMenuItem(this);
+    }
+
+    /**
+     * Returns a copy of this item which cannot be changed, to be held by a
+     * MenuSnapshot.
+     * <p>
+     * An item that cannot be changed may return itself, which is the default.
+     * @return read-only copy of this item
+     */
+    default MenuItem readOnlyCopy() {
+        return this;
+    }
+
+    /**
+     * Returns the number of times this item has been changed, which a read-only
+     * copy of the item shares until the item is changed again.
+     * <p>
+     * An item that cannot be changed may return 0, which is the default. An
+     * item that overrides readOnlyCopy() must also override this method.
+     * @return number of changes made to this item
+     */
+    default long getModificationCount() {
+        return 0;
+    }
+
     /**
      * Returns the name of this menu item.
      * @return name of this menu item
@@ -0,0 +1,232 @@
+package menu;
+
+import pizza.ingredients.Topping;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Immutable view of the items on the Menu at the time it was published.
+ * <p>
+ * A snapshot never changes once it has been published, so it can be read by
+ * many threads without locking while the Menu is cleared or reloaded. Each
+ * published snapshot has a version one greater than the previous one.
+ * <p>
+ * The snapshot holds read-only copies of the items on the Menu, so later
+ * changes to an item, such as the size of a pizza, are not seen through the
+ * snapshot. An item taken from a snapshot must be copied before it is changed.
+ * A copy is shared with the previous snapshot while its item is unchanged.
+ * <p>
+ * A snapshot also holds the toppings that were defined when it was published,
+ * so that the items and toppings read from one snapshot always belong to the
+ * same load of the menu.
+ */
+public final class MenuSnapshot {
+
+    /**
+     * empty snapshot published before anything has been loaded into the menu
+     */
+    static final MenuSnapshot EMPTY =
+            new MenuSnapshot(0, List.of(), new Topping[0], null);
+
+    /**
+     * version of this snapshot
+     */
+    private final long version;
+
+    /**
+     * read-only copies of the items on the menu in the order they were
+     * registered
+     */
+    private final List<MenuItem> items;
+
+    /**
+     * read-only copy of each item on the menu, by the item it was copied from
+     */
+    private final Map<MenuItem, MenuItem> copies;
+
+    /**
+     * toppings defined when this snapshot was published, in the order they
+     * were created
+     */
+    private final List<Topping> toppings;
+
+    /**
+     * first item with each name, by name at the time of publishing
+     */
+    private final Map<String, MenuItem> itemsByName;
+
+    /**
+     * lowercase names of the items at the time of publishing, sorted
+     */
+    private final String[] searchNames;
+
+    /**
+     * items in the same order as searchNames, keeping menu order for equal
+     * names
+     */
+    private final MenuItem[] itemsBySearchName;
+
+    /**
+     * Creates a snapshot of read-only copies of the given items.
+     * <p>
+     * The copy of an item in the previous snapshot is reused if the item has
+     * not changed since, which is found from the modification counts of the
+     * item and the copy without comparing them.
+     * @param version version of this snapshot
+     * @param menuItems items on the menu in the order they were registered
+     * @param toppings toppings defined when the snapshot is published
+     * @param previous snapshot published before this one, or null if there is
+     *     none
+     */
+    MenuSnapshot(long version,
+                 List<MenuItem> menuItems,
+                 Topping[] toppings,
+                 MenuSnapshot previous) {
+        this.version = version;
+        this.copies = new IdentityHashMap<>();
+        List<MenuItem> items = new ArrayList<>(menuItems.size());
+        for (MenuItem item : menuItems) {
+            MenuItem copy = previous == null ? null : previous.copyOf(item);
+            if (copy == null
+                    || copy.getModificationCount()
+                            != item.getModificationCount()) {
+                copy = item.readOnlyCopy();
+            }
+            copies.put(item, copy);
+            items.add(copy);
+        }
+        this.items = Collections.unmodifiableList(items);
+        this.toppings = List.of(toppings);
+        this.itemsByName = new HashMap<>();
+
+        Integer[] order = new Integer[items.size()];
+        String[] names = new String[items.size()];
+        for (int index = 0; index < items.size(); index++) {
+            String name = items.get(index).getName();
+            if (name != null) {
+                itemsByName.putIfAbsent(name, items.get(index));
+            }
+            names[index] = name == null ? "" : name.toLowerCase();
+            order[index] = index;
+        }
+        // the sort is stable, so items with equal names stay in menu order
+        Arrays.sort(order, (first, second) ->
+                names[first].compareTo(names[second]));
+
+        this.searchNames = new String[order.length];
+        this.itemsBySearchName = new MenuItem[order.length];
+        for (int index = 0; index < order.length; index++) {
+            searchNames[index] = names[order[index]];
+            itemsBySearchName[index] = items.get(order[index]);
+        }
+    }
+
+    /**
+     * Returns the read-only copy this snapshot holds of the given item on the
+     * menu, or null if the item was not on the menu when this snapshot was
+     * published.
+     * @param item item on the menu
+     * @return read-only copy of the item, or null if there is none
+     */
+    MenuItem copyOf(MenuItem item) {
+        return copies.get(item);
+    }
+
+    /**
+     * Returns the version of this snapshot.
+     * @return version of this snapshot
+     */
+    public long getVersion() {
+        return version;
+    }
+
+    /**
+     * Returns the items on the menu in the order they were registered.
+     * <p>
+     * The returned list cannot be modified.
+     * @return items on the menu
+     */
+    public List<MenuItem> getItems() {
+        return items;
+    }
+
+    /**
+     * Returns the toppings that were defined when this snapshot was published,
+     * in the order they were created.
+     * <p>
+     * The returned list cannot be modified.
+     * @return toppings defined when this snapshot was published
+     */
+    public List<Topping> getToppings() {
+        return toppings;
+    }
+
+    /**
+     * Returns the item at the given position on the menu.
+     * @param index position of the item on the menu
+     * @return item at the given position
+     * @throws IndexOutOfBoundsException if index is out of range
+     */
+    public MenuItem get(int index)
+            throws IndexOutOfBoundsException {
+        return items.get(index);
+    }
+
+    /**
+     * Returns the number of items on the menu.
+     * @return number of items on the menu
+     */
+    public int size() {
+        return items.size();
+    }
+
+    /**
+     * Returns the first item on the menu with the given name, or null if there
+     * is no item with that name.
+     * @param name name of the item to be found
+     * @return first item with the given name, or null if there is none
+     */
+    public MenuItem findByName(String name) {
+        return itemsByName.get(name);
+    }
+
+    /**
+     * Returns the items on the menu whose name starts with the given prefix,
+     * ignoring case, sorted by name.
+     * @param prefix start of the names of the items to be found
+     * @param limit maximum number of items to return
+     * @return items with names starting with the prefix, sorted by name
+     * @throws IllegalArgumentException if prefix is null or limit is negative
+     */
+    public List<MenuItem> searchByPrefix(String prefix, int limit)
+            throws IllegalArgumentException {
+        if (prefix == null
+                || limit < 0) {
+            throw new IllegalArgumentException();
+        }
+        String searchPrefix = prefix.toLowerCase();
+        int low = 0;
+        int high = searchNames.length;
+        while (low < high) {
+            int middle = (low + high) >>> 1;
+            if (searchNames[middle].compareTo(searchPrefix) < 0) {
+                low = middle + 1;
+            } else {
+                high = middle;
+            }
+        }
+        List<MenuItem> found = new ArrayList<>();
+        for (int index = low; index < searchNames.length
+                && found.size() < limit
+                && searchNames[index].startsWith(searchPrefix); index++) {
+            found.add(itemsBySearchName[index]);
+        }
+        return found;
+    }
+}
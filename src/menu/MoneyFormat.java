@@ -0,0 +1,126 @@
+package menu;
+
+import java.io.IOException;
+
+/**
+ * Formats prices in cents as dollars and cents, writing the digits by hand
+ * rather than through a DecimalFormat or String.format().
+ * <p>
+ * Two formats are shared: WITH_ZERO_DOLLARS gives the output of the "0.00"
+ * DecimalFormat pattern and of "%.2f", as used for order totals and the
+ * prices shown by the GUI, and WITHOUT_ZERO_DOLLARS gives the output of the
+ * "#.00" pattern, as used in the string representation of a pizza, which
+ * leaves out the dollars when there are none. Both always write a '.' as the
+ * decimal separator, as those patterns do in an English locale.
+ * <p>
+ * The string of each price below $100.00 is kept once it has been formatted,
+ * so formatting the price of a pizza usually only reads an array. Formats are
+ * immutable apart from that cache, which only ever holds the one string for
+ * each price, so they can be shared by many threads.
+ */
+public final class MoneyFormat {
+
+    /**
+     * number of prices in cents, from 0, whose strings are kept
+     */
+    private static final int CACHE_SIZE = 10000;
+
+    /**
+     * format of the "0.00" pattern, such as 0.50 or 12.00
+     */
+    public static final MoneyFormat WITH_ZERO_DOLLARS = new MoneyFormat(true);
+
+    /**
+     * format of the "#.00" pattern, such as .50 or 12.00
+     */
+    public static final MoneyFormat WITHOUT_ZERO_DOLLARS =
+            new MoneyFormat(false);
+
+    /**
+     * whether zero dollars is written as 0, rather than left out
+     */
+    private final boolean isZeroDollarsWritten;
+
+    /**
+     * strings of the prices below CACHE_SIZE cents, filled in as they are
+     * formatted; a thread that sees null formats the price itself, and
+     * strings are immutable, so they can be shared without locking
+     */
+    private final String[] cache = new String[CACHE_SIZE];
+
+    /**
+     * Creates a format.
+     * @param isZeroDollarsWritten whether zero dollars is written as 0
+     */
+    private MoneyFormat(boolean isZeroDollarsWritten) {
+        this.isZeroDollarsWritten = isZeroDollarsWritten;
+    }
+
+    /**
+     * Returns the given price formatted as dollars and cents.
+     * @param priceInCents price in cents
+     * @return price in dollars and cents
+     */
+    public String format(long priceInCents) {
+        if (priceInCents < 0
+                || priceInCents >= CACHE_SIZE) {
+            return appendTo(new StringBuilder(24), priceInCents).toString();
+        }
+        String price = cache[(int) priceInCents];
+        if (price == null) {
+            price = appendTo(new StringBuilder(8), priceInCents).toString();
+            cache[(int) priceInCents] = price;
+        }
+        return price;
+    }
+
+    /**
+     * Appends the given price formatted as dollars and cents to the given
+     * StringBuilder.
+     * @param target StringBuilder the price is appended to
+     * @param priceInCents price in cents
+     * @return target
+     */
+    public StringBuilder appendTo(StringBuilder target,
+                                  long priceInCents) {
+        try {
+            appendTo((Appendable) target, priceInCents);
+        } catch (IOException exception) {
+            // a StringBuilder does not throw
+            throw new IllegalStateException(exception);
+        }
+        return target;
+    }
+
+    /**
+     * Appends the given price formatted as dollars and cents to the given
+     * Appendable, without allocating.
+     * @param target Appendable the price is appended to
+     * @param priceInCents price in cents
+     * @throws IOException if the price cannot be appended to target
+     */
+    public void appendTo(Appendable target,
+                         long priceInCents)
+            throws IOException {
+        if (priceInCents < 0) {
+            target.append('-');
+        }
+        // the price is divided before its sign is dropped, so that
+        // Long.MIN_VALUE is written correctly
+        long dollars = Math.abs(priceInCents / 100);
+        int cents = (int) Math.abs(priceInCents % 100);
+        if (dollars != 0
+                || isZeroDollarsWritten) {
+            long power = 1;
+            while (power <= dollars / 10) {
+                power *= 10;
+            }
+            for (; power > 0; power /= 10) {
+                target.append((char) ('0' + dollars / power % 10));
+            }
+        }
+        target.append('.');
+        target.append((char) ('0' + cents / 10));
+        target.append((char) ('0' + cents % 10));
+    }
+}
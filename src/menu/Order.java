@@ -1,13 +1,15 @@
 package menu;
 
 import pizza.Pizza;
+import pizza.PizzaSpec;
 
-import java.text.DecimalFormat;
 import java.time.LocalDate;
 import java.time.LocalTime;
-import java.time.format.DateTimeFormatter;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 import java.util.UUID;
 
 /**
@@ -15,23 +17,73 @@ import java.util.UUID;
  * <p>
  * An order will have an associated date, time and customer name, to make it
  * easy to identify order's they are also given a UUID.
+ * <p>
+ * The order keeps the PizzaSpec of each pizza as it was when it was added,
+ * rather than the pizza itself. Specs are shared by every pizza made the same
+ * way, so the memory held by many orders grows with the number of distinct
+ * pizzas rather than with the number of pizzas ordered, and an order does not
+ * change when a pizza is changed after it has been added.
+ * <p>
+ * Pizzas with the same spec are kept as a single OrderLine with a quantity,
+ * wherever they are added in the order, so a large order of the same few
+ * pizzas takes the same space as a small one. Lines are kept in the order
+ * their spec was first added.
+ * <p>
+ * As a result the receipt lists the pizzas grouped by spec rather than in
+ * the order they were added. Adding pizzas A, B and then A again prints
+ * 1 - A, 2 - A and 3 - B, where the receipt before lines were merged
+ * printed 1 - A, 2 - B and 3 - A.
  */
 public class Order {
 
     /**
-     * A constant lambda functional interface to apply a 10% discount.
+     * A constant discount to apply a 10% discount.
+     */
+    public static final MenuItem.Discount DISCOUNT_10 =
+            new PercentageDiscount(10);
+
+    /**
+     * A constant discount to apply a 25% discount.
+     */
+    public static final MenuItem.Discount DISCOUNT_25 =
+            new PercentageDiscount(25);
+
+    /**
+     * engine used by orders unless another is set, which applies a 10%
+     * discount to orders of 3 or more pizzas, and a 25% discount instead to
+     * orders of 6 or more pizzas
+     */
+    public static final DiscountEngine DEFAULT_DISCOUNT_ENGINE =
+            new DiscountEngine(List.of(
+                    DiscountRule.forQuantity(3, DISCOUNT_10),
+                    DiscountRule.forQuantity(6, DISCOUNT_25)));
+
+    /**
+     * name of an order until another name is set
      */
-    public static final MenuItem.Discount DISCOUNT_10 = price -> 0.90 * price;
+    public static final String DEFAULT_NAME = "Not Given";
 
     /**
-     * A constant lambda functional interface to apply a 25% discount.
+     * generator giving new orders their UUID, unless another is passed to
+     * the constructor
      */
-    public static final MenuItem.Discount DISCOUNT_25 = price -> 0.75 * price;
+    private static volatile OrderIdGenerator defaultIdGenerator =
+            OrderIdGenerator.TIME_ORDERED;
 
     /**
-     * list of pizzas in this order
+     * lines of the pizzas in this order, in the order they were added
      */
-    private List<Pizza> pizzasInOrder;
+    private List<OrderLine> pizzasInOrder;
+
+    /**
+     * position of the line of each spec in the lines of this order
+     */
+    private Map<PizzaSpec, Integer> lineIndexes;
+
+    /**
+     * number of pizzas in this order, over all of its lines
+     */
+    private int numberOfPizzas;
 
     /**
      * name for this order
@@ -53,31 +105,110 @@ public class Order {
      */
     private LocalTime time;
 
+    /**
+     * snapshot of the menu when this order was created
+     */
+    private final MenuSnapshot menuSnapshot;
+
     /**
      * boolean for if the order is discounted
      */
     private boolean isDiscounted = false;
 
     /**
-     * price of this order with discounts applied
+     * engine choosing the discounts applied to this order
+     */
+    private DiscountEngine discountEngine = DEFAULT_DISCOUNT_ENGINE;
+
+    /**
+     * tier of the customer of this order, or null if the customer has no tier
      */
-    private double orderPriceWithDiscount;
+    private String customerTier;
+
+    /**
+     * sum in cents of the price of each line of this order with the line
+     * discounts applied
+     */
+    private long linePricesWithDiscountsInCents;
+
+    /**
+     * price of this order in cents without discounts, summed as pizzas are
+     * added
+     */
+    private long orderPriceWithoutDiscountInCents;
+
+    /**
+     * price of this order in cents with discounts applied
+     */
+    private long orderPriceWithDiscountInCents;
 
     /**
      * Creates an order initialising any member variables, as required.
+     * <p>
+     * The order keeps the snapshot of the menu that was published when it was
+     * created, so the menu it is taken from does not change if the menu is
+     * reloaded while the order is in progress.
+     * <p>
+     * The order is given its UUID by the default generator.
      */
     public Order() {
-        setName("Not Given");
-        setUUID(UUID.randomUUID());
+        this(defaultIdGenerator);
+    }
+
+    /**
+     * Creates an order whose UUID is given by the given generator, as
+     * Order() does with the default generator.
+     * @param idGenerator generator of the UUID of the order
+     * @throws IllegalArgumentException if idGenerator is null
+     */
+    public Order(OrderIdGenerator idGenerator)
+            throws IllegalArgumentException {
+        if (idGenerator == null) {
+            throw new IllegalArgumentException();
+        }
+        menuSnapshot = Menu.getInstance().snapshot();
+        setName(DEFAULT_NAME);
+        setUUID(idGenerator.nextId());
         setDate(LocalDate.now());
         setTime(LocalTime.now());
     }
 
+    /**
+     * Returns the generator giving new orders their UUID.
+     * @return default generator of UUIDs
+     */
+    public static OrderIdGenerator getDefaultIdGenerator() {
+        return defaultIdGenerator;
+    }
+
+    /**
+     * Sets the generator giving new orders their UUID, unless another is
+     * passed to the constructor. By default orders are given time ordered
+     * UUIDs.
+     * @param idGenerator generator of UUIDs
+     * @throws IllegalArgumentException if idGenerator is null
+     */
+    public static void setDefaultIdGenerator(OrderIdGenerator idGenerator)
+            throws IllegalArgumentException {
+        if (idGenerator == null) {
+            throw new IllegalArgumentException();
+        }
+        defaultIdGenerator = idGenerator;
+    }
+
+    /**
+     * Returns the snapshot of the menu this order is taken from.
+     * @return snapshot of the menu when this order was created
+     */
+    public MenuSnapshot getMenuSnapshot() {
+        return menuSnapshot;
+    }
+
     /**
      * Returns the name of this order.
      * @return name of this order
      */
-    private String getName() {
+    public String getName() {
         return name;
     }
 
@@ -85,7 +216,7 @@ public class Order {
      * Returns the uuid of this order.
      * @return uuid of this order
      */
-    private UUID getUUID() {
+    public UUID getUUID() {
         return uuid;
     }
 
@@ -93,7 +224,7 @@ public class Order {
      * Returns the date of this order.
      * @return date of this order
      */
-    private LocalDate getDate() {
+    public LocalDate getDate() {
         return date;
     }
 
@@ -101,30 +232,52 @@ public class Order {
      * Returns the time of this order.
      * @return time of this order
      */
-    private LocalTime getTime() {
+    public LocalTime getTime() {
         return time;
     }
 
     /**
-     * Returns the price of this order without discounts.
-     * @return price of this order without discounts
+     * Returns the tier of the customer of this order.
+     * @return tier of the customer, or null if the customer has no tier
      */
-    private double getOrderPriceWithoutDiscount() {
-        double orderPriceWithoutDiscount = 0;
-        if (pizzasInOrder != null) {
-            for (Pizza pizza : pizzasInOrder) {
-                orderPriceWithoutDiscount += pizza.getTotalPrice();
-            }
-        }
-        return orderPriceWithoutDiscount;
+    public String getCustomerTier() {
+        return customerTier;
+    }
+
+    /**
+     * Returns the price of this order in cents without discounts.
+     * @return price of this order in cents without discounts
+     */
+    public long getOrderPriceWithoutDiscountInCents() {
+        return orderPriceWithoutDiscountInCents;
+    }
+
+    /**
+     * Returns the price of this order in cents with discounts.
+     * @return price of this order in cents with discounts
+     */
+    private long getOrderPriceWithDiscountInCents() {
+        return orderPriceWithDiscountInCents;
+    }
+
+    /**
+     * Returns the total price of this order in cents, with discounts applied
+     * if the order is discounted.
+     * @return total price of this order in cents
+     */
+    public long getTotalPriceInCents() {
+        return isDiscounted
+                ? getOrderPriceWithDiscountInCents()
+                : getOrderPriceWithoutDiscountInCents();
     }
 
     /**
-     * Returns the price of this order with discounts.
-     * @return price of this order with discounts
+     * Returns the total price of this order, with discounts applied if the
+     * order is discounted.
+     * @return total price of this order
      */
-    private double getOrderPriceWithDiscount() {
-        return orderPriceWithDiscount;
+    public double getTotalPrice() {
+        return getTotalPriceInCents() / 100.0;
     }
 
     /**
@@ -132,7 +285,20 @@ public class Order {
      * @return number of pizzas in this order
      */
     private int getNumberOfPizzas() {
-        return pizzasInOrder.size();
+        return numberOfPizzas;
+    }
+
+    /**
+     * Returns the lines of this order, in the order the spec of each line was
+     * first added.
+     * <p>
+     * The returned list cannot be modified.
+     * @return lines of this order
+     */
+    public List<OrderLine> getLines() {
+        return pizzasInOrder == null
+                ? List.of()
+                : Collections.unmodifiableList(pizzasInOrder);
     }
 
     /**
@@ -165,6 +331,37 @@ public class Order {
      */
     public void setTime(LocalTime time) {
         this.time = time;
+        updateDiscount();
+    }
+
+    /**
+     * Mutator method to modify the tier of the customer, which customer tier
+     * discount rules are matched against.
+     * @param customerTier tier of the customer, or null if the customer has
+     *     no tier
+     */
+    public void setCustomerTier(String customerTier) {
+        this.customerTier = customerTier;
+        updateDiscount();
+    }
+
+    /**
+     * Sets the engine choosing the discounts applied to this order, and
+     * applies its discounts to the pizzas already in the order.
+     * @param discountEngine engine choosing the discounts
+     * @throws IllegalArgumentException if discountEngine is null
+     */
+    public void setDiscountEngine(DiscountEngine discountEngine)
+            throws IllegalArgumentException {
+        if (discountEngine == null) {
+            throw new IllegalArgumentException();
+        }
+        this.discountEngine = discountEngine;
+        linePricesWithDiscountsInCents = 0;
+        for (OrderLine line : getLines()) {
+            linePricesWithDiscountsInCents += discountEngine.applyToLine(line);
+        }
+        updateDiscount();
     }
 
     /**
@@ -177,23 +374,97 @@ public class Order {
      * applied.
      * <p>
      * This supersedes the previous 10% discount.
+     * <p>
+     * These are the discounts of the DEFAULT_DISCOUNT_ENGINE. If another
+     * engine has been set, its rules choose the discounts instead.
+     * <p>
+     * The totals of the order are updated as each pizza is added, using the
+     * price of the pizza at the time it is added. The discount is chosen from
+     * the number of pizzas in the order, over all of its lines.
+     * <p>
+     * The pizza is kept as its spec, so later changes to the pizza do not
+     * change this order.
      * @param pizza pizza to add to this order
      */
     public void add(Pizza pizza) {
+        add(pizza, 1);
+    }
+
+    /**
+     * Adds the given number of a completed pizza to the order list, as
+     * add(Pizza) does for a single pizza.
+     * <p>
+     * If a line of the order has the same spec as the pizza, the quantity of
+     * that line is increased, otherwise a new line is added at the end. The
+     * totals and the discount are updated once for the whole quantity.
+     * <p>
+     * A pizza merged into an earlier line is printed on the receipt with
+     * that line, before any pizzas added between them.
+     * @param pizza pizza to add to this order
+     * @param quantity number of the pizza to add
+     * @throws IllegalArgumentException if quantity is less than one
+     */
+    public void add(Pizza pizza, int quantity)
+            throws IllegalArgumentException {
+        if (quantity < 1) {
+            throw new IllegalArgumentException();
+        }
+        add(pizza.toSpec(), quantity);
+    }
+
+    /**
+     * Adds the given number of pizzas with the given spec to the order list,
+     * as add(Pizza, int) does for a pizza with that spec.
+     * <p>
+     * This allows an order to be rebuilt from the specs it was recorded with,
+     * without making the pizzas again.
+     * @param spec spec of the pizzas to add
+     * @param quantity number of the pizzas to add
+     * @throws IllegalArgumentException if spec is null or quantity is less
+     *     than one
+     */
+    public void add(PizzaSpec spec, int quantity)
+            throws IllegalArgumentException {
+        if (spec == null
+                || quantity < 1) {
+            throw new IllegalArgumentException();
+        }
         if (pizzasInOrder == null) {
             pizzasInOrder = new ArrayList<>();
+            lineIndexes = new HashMap<>();
         }
-        pizzasInOrder.add(pizza);
-
-        if (getNumberOfPizzas() > 5) {
-            orderPriceWithDiscount = DISCOUNT_25
-                    .applyDiscount(getOrderPriceWithoutDiscount());
-            isDiscounted = true;
-        } else if (getNumberOfPizzas() > 2) {
-            orderPriceWithDiscount = DISCOUNT_10
-                    .applyDiscount(getOrderPriceWithoutDiscount());
-            isDiscounted = true;
+        Integer index = lineIndexes.get(spec);
+        OrderLine line;
+        if (index != null) {
+            linePricesWithDiscountsInCents -=
+                    discountEngine.applyToLine(pizzasInOrder.get(index));
+            line = pizzasInOrder.get(index).plus(quantity);
+            pizzasInOrder.set(index, line);
+        } else {
+            line = new OrderLine(spec, quantity);
+            lineIndexes.put(spec, pizzasInOrder.size());
+            pizzasInOrder.add(line);
         }
+        linePricesWithDiscountsInCents += discountEngine.applyToLine(line);
+        numberOfPizzas = Math.addExact(numberOfPizzas, quantity);
+        orderPriceWithoutDiscountInCents +=
+                quantity * spec.getTotalPriceInCents();
+        updateDiscount();
+    }
+
+    /**
+     * Applies the order discounts of the discount engine to the discounted
+     * lines of this order. The order is discounted if the discounts lower its
+     * price.
+     */
+    private void updateDiscount() {
+        orderPriceWithDiscountInCents = discountEngine.applyToOrder(
+                linePricesWithDiscountsInCents,
+                getNumberOfPizzas(),
+                getTime(),
+                customerTier);
+        isDiscounted = orderPriceWithDiscountInCents
+                < getOrderPriceWithoutDiscountInCents();
     }
 
     /**
@@ -218,71 +489,13 @@ public class Order {
      *         'VEGAN' cheese $3.00
      *     <p>
      *     Multi item discount applied of $36.00 applied, new Total: $32.40
+     * <p>
+     * The string is written by a ReceiptRenderer, which can also write it
+     * straight into a Writer or a reused buffer.
      * @return string representing the instantiated class
      */
     @Override
     public String toString() {
-        return "Date: "
-                + getDate() + "\n"
-                + "Time: "
-                + getTime().format(DateTimeFormatter.ofPattern("HH:mm")) + "\n"
-                + "Customer: "
-                + getName() + "\n"
-                + "Order number: "
-                + getUUID() + "\n"
-                + "Order:" + "\n"
-                + toStringPizzasInOrder() + "\n"
-                + toStringTotal() + "\n";
-    }
-
-    /**
-     * Returns the string representation of the list of pizzas in this order.
-     * @return string representation of the list of pizzas in this order
-     */
-    private String toStringPizzasInOrder() {
-        StringBuilder toStringPizzasInOrder = new StringBuilder();
-
-        int pizzaNumber = 1;
-
-        if (pizzasInOrder != null) {
-            for (Pizza pizza : pizzasInOrder) {
-                toStringPizzasInOrder.append(pizzaNumber);
-                toStringPizzasInOrder.append(" - ");
-                toStringPizzasInOrder.append(pizza.toString());
-                toStringPizzasInOrder.append("\n");
-                pizzaNumber++;
-            }
-        }
-
-        return toStringPizzasInOrder.toString();
-    }
-
-    /**
-     * Returns the string representation of the total including discounts
-     * applied to this order accordingly.
-     * @return string representation of the total for this order
-     */
-    private String toStringTotal() {
-        String toStringTotal = "";
-        if (isDiscounted) {
-            toStringTotal += "Multi item discount applied of $"
-                    + toDollarsAndCents(getOrderPriceWithoutDiscount())
-                    + " applied, new Total: $"
-                    + toDollarsAndCents(getOrderPriceWithDiscount());
-        } else {
-            toStringTotal += "Total: $"
-                    + toDollarsAndCents(getOrderPriceWithoutDiscount());
-        }
-        return toStringTotal;
-    }
-
-    /**
-     * Returns the given price formatted to two decimal places i.e. to dollars
-     * and cents.
-     * @param price price to be formatted to dollars and cents
-     * @return price in dollars and cents
-     */
-    private String toDollarsAndCents(double price) {
-        return new DecimalFormat("0.00").format(price);
+        return new ReceiptRenderer().render(this).toString();
     }
 }
@@ -0,0 +1,30 @@
+package menu;
+
+import java.util.UUID;
+
+/**
+ * A functional interface to allow the strategy giving each new Order its UUID
+ * to be passed to an Order, or set as the default for all orders.
+ */
+@FunctionalInterface
+public interface OrderIdGenerator {
+
+    /**
+     * generator of random, version 4 UUIDs, which draws every UUID from a
+     * shared SecureRandom
+     */
+    OrderIdGenerator RANDOM = UUID::randomUUID;
+
+    /**
+     * generator of time ordered, version 7 UUIDs, which are unique, sort in
+     * the order they were generated, and are generated without contention
+     * between threads
+     */
+    OrderIdGenerator TIME_ORDERED = new TimeOrderedIdGenerator();
+
+    /**
+     * Returns the UUID of a new order.
+     * @return UUID of a new order
+     */
+    UUID nextId();
+}
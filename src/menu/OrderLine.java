@@ -0,0 +1,86 @@
+package menu;
+
+import pizza.PizzaSpec;
+
+/**
+ * Line of an order, holding the spec of a pizza and the number of those
+ * pizzas added to the order.
+ * <p>
+ * Order lines are immutable.
+ */
+public final class OrderLine {
+
+    /**
+     * spec of the pizzas on this line
+     */
+    private final PizzaSpec spec;
+
+    /**
+     * number of pizzas on this line
+     */
+    private final int quantity;
+
+    /**
+     * Creates a line of the given number of pizzas with the given spec.
+     * @param spec spec of the pizzas on the line
+     * @param quantity number of pizzas on the line
+     * @throws IllegalArgumentException if spec is null or quantity is less
+     *     than one
+     */
+    public OrderLine(PizzaSpec spec, int quantity)
+            throws IllegalArgumentException {
+        if (spec == null
+                || quantity < 1) {
+            throw new IllegalArgumentException();
+        }
+        this.spec = spec;
+        this.quantity = quantity;
+    }
+
+    /**
+     * Returns the spec of the pizzas on this line.
+     * @return spec of the pizzas
+     */
+    public PizzaSpec getSpec() {
+        return spec;
+    }
+
+    /**
+     * Returns the number of pizzas on this line.
+     * @return number of pizzas
+     */
+    public int getQuantity() {
+        return quantity;
+    }
+
+    /**
+     * Returns the price in cents of all the pizzas on this line.
+     * @return price of this line in cents
+     */
+    public long getTotalPriceInCents() {
+        return quantity * spec.getTotalPriceInCents();
+    }
+
+    /**
+     * Returns a line with the given number of pizzas added to this line.
+     * @param quantity number of pizzas to add
+     * @return line with the added pizzas
+     * @throws IllegalArgumentException if quantity is less than one
+     */
+    OrderLine plus(int quantity)
+            throws IllegalArgumentException {
+        if (quantity < 1) {
+            throw new IllegalArgumentException();
+        }
+        return new OrderLine(spec, Math.addExact(this.quantity, quantity));
+    }
+
+    /**
+     * Returns the number of pizzas followed by their spec.
+     * @return string representation of this line
+     */
+    @Override
+    public String toString() {
+        return quantity + " x " + spec;
+    }
+}
@@ -0,0 +1,60 @@
+package menu;
+
+/**
+ * Discount which takes a fixed percentage off a price.
+ * <p>
+ * Prices in cents are discounted with integer arithmetic, rounding half a cent
+ * up, so the discounted price is exact.
+ */
+public class PercentageDiscount
+        implements MenuItem.Discount {
+
+    /**
+     * percentage taken off the price, from 0 to 100
+     */
+    private final int percentage;
+
+    /**
+     * Creates a discount that takes the given percentage off a price.
+     * @param percentage percentage to take off the price, from 0 to 100
+     * @throws IllegalArgumentException if percentage is less than 0 or greater
+     *     than 100
+     */
+    public PercentageDiscount(int percentage)
+            throws IllegalArgumentException {
+        if (percentage < 0
+                || percentage > 100) {
+            throw new IllegalArgumentException();
+        }
+        this.percentage = percentage;
+    }
+
+    /**
+     * Returns the percentage taken off the price by this discount.
+     * @return percentage taken off the price
+     */
+    public int getPercentage() {
+        return percentage;
+    }
+
+    /**
+     * Apply this discount to the given price.
+     * @param price input price
+     * @return discounted price
+     */
+    @Override
+    public double applyDiscount(double price) {
+        return (100 - percentage) / 100.0 * price;
+    }
+
+    /**
+     * Apply this discount to the given price in cents, rounding half a cent
+     * up.
+     * @param priceInCents input price in cents
+     * @return discounted price in cents
+     */
+    @Override
+    public long applyDiscountInCents(long priceInCents) {
+        return (priceInCents * (100 - percentage) + 50) / 100;
+    }
+}
@@ -0,0 +1,227 @@
+package menu;
+
+import java.io.IOException;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+/**
+ * Writes the receipt of an order, in the format of Order.toString(), straight
+ * into an Appendable such as a Writer or a StringBuilder.
+ * <p>
+ * Dates, times, UUIDs, pizza numbers and prices are written digit by digit,
+ * and the description of each pizza is the string its PizzaSpec already
+ * holds, so rendering a receipt into a reused buffer or a buffered Writer
+ * allocates almost nothing.
+ * <p>
+ * A renderer reuses its buffer, so it is not safe for use by more than one
+ * thread at a time.
+ */
+public final class ReceiptRenderer {
+
+    /**
+     * digits of a number in base 16
+     */
+    private static final char[] HEX_DIGITS = "0123456789abcdef".toCharArray();
+
+    /**
+     * initial capacity in chars of the buffer receipts are rendered into
+     */
+    private static final int INITIAL_CAPACITY = 1024;
+
+    /**
+     * buffer receipts are rendered into by render(Order)
+     */
+    private final StringBuilder buffer = new StringBuilder(INITIAL_CAPACITY);
+
+    /**
+     * digits of the number being written, from the last digit
+     */
+    private final char[] digits = new char[20];
+
+    /**
+     * Creates a renderer with an empty buffer.
+     */
+    public ReceiptRenderer() {}
+
+    /**
+     * Renders the receipt of the given order into the buffer of this
+     * renderer.
+     * <p>
+     * The returned buffer is reused by the next call to this method, so it
+     * must be used before then.
+     * @param order order to be rendered
+     * @return buffer holding the receipt
+     * @throws IllegalArgumentException if the order has no time
+     */
+    public CharSequence render(Order order)
+            throws IllegalArgumentException {
+        buffer.setLength(0);
+        try {
+            render(order, buffer);
+        } catch (IOException exception) {
+            // a StringBuilder does not throw
+            throw new IllegalStateException(exception);
+        }
+        return buffer;
+    }
+
+    /**
+     * Renders the receipt of the given order into the given Appendable.
+     * @param order order to be rendered
+     * @param target Appendable the receipt is written to
+     * @throws IOException if the receipt cannot be written to target
+     * @throws IllegalArgumentException if the order has no time
+     */
+    public void render(Order order,
+                       Appendable target)
+            throws IOException,
+            IllegalArgumentException {
+        LocalTime time = order.getTime();
+        if (time == null) {
+            throw new IllegalArgumentException();
+        }
+        target.append("Date: ");
+        appendDate(target, order.getDate());
+        target.append("\nTime: ");
+        appendTwoDigits(target, time.getHour());
+        target.append(':');
+        appendTwoDigits(target, time.getMinute());
+        target.append("\nCustomer: ");
+        target.append(order.getName());
+        target.append("\nOrder number: ");
+        appendUUID(target, order.getUUID());
+        target.append("\nOrder:\n");
+
+        int pizzaNumber = 1;
+        List<OrderLine> lines = order.getLines();
+        for (int index = 0; index < lines.size(); index++) {
+            OrderLine line = lines.get(index);
+            String pizza = line.getSpec().toString();
+            for (int count = 0; count < line.getQuantity(); count++) {
+                appendNumber(target, pizzaNumber);
+                target.append(" - ");
+                target.append(pizza);
+                target.append('\n');
+                pizzaNumber++;
+            }
+        }
+
+        target.append('\n');
+        long withoutDiscountInCents =
+                order.getOrderPriceWithoutDiscountInCents();
+        long totalInCents = order.getTotalPriceInCents();
+        MoneyFormat money = MoneyFormat.WITH_ZERO_DOLLARS;
+        if (totalInCents < withoutDiscountInCents) {
+            target.append("Multi item discount applied of $");
+            money.appendTo(target, withoutDiscountInCents);
+            target.append(" applied, new Total: $");
+            money.appendTo(target, totalInCents);
+        } else {
+            target.append("Total: $");
+            money.appendTo(target, withoutDiscountInCents);
+        }
+        target.append('\n');
+    }
+
+    /**
+     * Writes the given date as LocalDate.toString() would.
+     * @param target Appendable the date is written to
+     * @param date date to be written, or null
+     * @throws IOException if the date cannot be written to target
+     */
+    private static void appendDate(Appendable target,
+                                   LocalDate date)
+            throws IOException {
+        if (date == null
+                || date.getYear() < 0
+                || date.getYear() > 9999) {
+            target.append(String.valueOf(date));
+            return;
+        }
+        appendTwoDigits(target, date.getYear() / 100);
+        appendTwoDigits(target, date.getYear() % 100);
+        target.append('-');
+        appendTwoDigits(target, date.getMonthValue());
+        target.append('-');
+        appendTwoDigits(target, date.getDayOfMonth());
+    }
+
+    /**
+     * Writes the given UUID as UUID.toString() would.
+     * @param target Appendable the UUID is written to
+     * @param uuid UUID to be written, or null
+     * @throws IOException if the UUID cannot be written to target
+     */
+    private static void appendUUID(Appendable target,
+                                   UUID uuid)
+            throws IOException {
+        if (uuid == null) {
+            target.append("null");
+            return;
+        }
+        long most = uuid.getMostSignificantBits();
+        long least = uuid.getLeastSignificantBits();
+        appendHex(target, most >>> 32, 8);
+        target.append('-');
+        appendHex(target, most >>> 16, 4);
+        target.append('-');
+        appendHex(target, most, 4);
+        target.append('-');
+        appendHex(target, least >>> 48, 4);
+        target.append('-');
+        appendHex(target, least, 12);
+    }
+
+    /**
+     * Writes the given number of the lowest hex digits of the given bits.
+     * @param target Appendable the digits are written to
+     * @param bits bits to be written
+     * @param numberOfDigits number of hex digits to be written
+     * @throws IOException if the digits cannot be written to target
+     */
+    private static void appendHex(Appendable target,
+                                  long bits,
+                                  int numberOfDigits)
+            throws IOException {
+        for (int digit = numberOfDigits - 1; digit >= 0; digit--) {
+            target.append(HEX_DIGITS[(int) (bits >>> 4 * digit) & 0xF]);
+        }
+    }
+
+    /**
+     * Writes the given number from 0 to 99 as two digits.
+     * @param target Appendable the number is written to
+     * @param number number to be written
+     * @throws IOException if the number cannot be written to target
+     */
+    private static void appendTwoDigits(Appendable target,
+                                        int number)
+            throws IOException {
+        target.append((char) ('0' + number / 10));
+        target.append((char) ('0' + number % 10));
+    }
+
+    /**
+     * Writes the given number in decimal.
+     * @param target Appendable the number is written to
+     * @param number number to be written
+     * @throws IOException if the number cannot be written to target
+     */
+    private void appendNumber(Appendable target,
+                              long number)
+            throws IOException {
+        if (number < 0) {
+            target.append('-');
+        }
+        int length = 0;
+        do {
+            digits[length++] = (char) ('0' + Math.abs(number % 10));
+            number /= 10;
+        } while (number != 0);
+        while (length > 0) {
+            target.append(digits[--length]);
+        }
+    }
+}
@@ -0,0 +1,138 @@
+package menu;
+
+import java.security.SecureRandom;
+import java.util.UUID;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Generates time ordered, version 7 UUIDs without contention between threads.
+ * <p>
+ * The 48 most significant bits of a UUID hold the milliseconds since the
+ * epoch, followed by the version, then 12 bits holding the fraction of the
+ * millisecond. The time is read from a monotonic clock, started from the wall
+ * clock when this class is loaded, so it never goes back when the wall clock
+ * is changed. After the variant, the remaining 62 bits hold 24 bits
+ * identifying the thread that generated the UUID, and a 38 bit counter of the
+ * UUIDs that thread has generated, which starts at a random value.
+ * <p>
+ * Each thread only touches its own state, so UUIDs are generated at the same
+ * rate on every core. The bits identifying each of the first 2^24 threads to
+ * generate a UUID are distinct, so every UUID generated in a process is
+ * unique, and UUIDs sort by the time they were generated, in the order they
+ * were generated by each thread. The process salt and the random start of
+ * each counter make it unlikely that two processes generate the same UUID in
+ * the same fraction of a millisecond.
+ */
+final class TimeOrderedIdGenerator
+        implements OrderIdGenerator {
+
+    /**
+     * number of fractions each millisecond is divided into
+     */
+    private static final int FRACTIONS_PER_MILLI = 1 << 12;
+
+    /**
+     * version 7 in the version bits of the most significant long
+     */
+    private static final long VERSION = 7L << 12;
+
+    /**
+     * variant 2 in the variant bits of the least significant long
+     */
+    private static final long VARIANT = 1L << 63;
+
+    /**
+     * number of bits of the counter
+     */
+    private static final int COUNTER_BITS = 38;
+
+    /**
+     * mask of the bits of the counter
+     */
+    private static final long COUNTER_MASK = (1L << COUNTER_BITS) - 1;
+
+    /**
+     * mask of the bits identifying a thread
+     */
+    private static final long THREAD_MASK = (1L << 24) - 1;
+
+    /**
+     * wall clock time in nanoseconds since the epoch when this class was
+     * loaded
+     */
+    private static final long START_NANOS =
+            System.currentTimeMillis() * 1_000_000;
+
+    /**
+     * monotonic clock time in nanoseconds when this class was loaded
+     */
+    private static final long START_TICKS = System.nanoTime();
+
+    /**
+     * random bits identifying this process, drawn once
+     */
+    private static final long SALT = new SecureRandom().nextLong();
+
+    /**
+     * number of threads that have generated a UUID
+     */
+    private static final AtomicInteger numberOfThreads = new AtomicInteger();
+
+    /**
+     * state of the generator in each thread
+     */
+    private static final ThreadLocal<ThreadState> threadState =
+            ThreadLocal.withInitial(ThreadState::new);
+
+    /**
+     * State of the generator in a single thread.
+     */
+    private static final class ThreadState {
+
+        /**
+         * bits identifying the thread, in place in the least significant
+         * long
+         */
+        private final long threadBits = ((numberOfThreads.getAndIncrement()
+                ^ SALT) & THREAD_MASK) << COUNTER_BITS;
+
+        /**
+         * counter of the UUIDs generated by the thread, starting at a random
+         * value in the lower half of its range so it does not wrap around
+         */
+        private long counter = ThreadLocalRandom.current()
+                .nextLong(1L << (COUNTER_BITS - 1));
+
+        /**
+         * time of the last UUID generated by the thread, in fractions of a
+         * millisecond since the epoch
+         */
+        private long lastTime;
+    }
+
+    /**
+     * Creates the generator, of which there is only one.
+     */
+    TimeOrderedIdGenerator() {}
+
+    /**
+     * Returns a new time ordered UUID.
+     * @return UUID of a new order
+     */
+    @Override
+    public UUID nextId() {
+        ThreadState state = threadState.get();
+        long nanos = START_NANOS + (System.nanoTime() - START_TICKS);
+        long time = Math.max(state.lastTime, nanos / 1_000_000
+                * FRACTIONS_PER_MILLI
+                + nanos % 1_000_000 * FRACTIONS_PER_MILLI / 1_000_000);
+        state.lastTime = time;
+        return new UUID((time / FRACTIONS_PER_MILLI) << 16
+                | VERSION
+                | time % FRACTIONS_PER_MILLI,
+                VARIANT
+                | state.threadBits
+                | state.counter++ & COUNTER_MASK);
+    }
+}
@@ -17,6 +17,11 @@ public class CustomPizza
         extends Pizza
         implements MenuItem {
 
+    /**
+     * name of a custom pizza until another name is set
+     */
+    public static final String DEFAULT_NAME = "Custom Pizza";
+
     /**
      * Default constructor which creates a medium cheese pizza.
      * <p>
@@ -27,7 +32,7 @@ public class CustomPizza
      */
     public CustomPizza() {
         super();
-        setName("Custom Pizza");
+        setName(DEFAULT_NAME);
         registerMenuItem();
     }
 
@@ -45,10 +50,32 @@ public class CustomPizza
                        Cheeses.Cheese cheese)
             throws IllegalArgumentException {
         super(size, sauce, cheese);
-        setName("Custom Pizza");
+        setName(DEFAULT_NAME);
         registerMenuItem();
     }
 
+    /**
+     * Creates a copy of the given custom pizza, which is not registered with
+     * the menu.
+     * @param other custom pizza to be copied
+     * @param isReadOnly if the copy cannot be changed
+     */
+    private CustomPizza(CustomPizza other,
+                        boolean isReadOnly) {
+        super(other, isReadOnly);
+    }
+
+    /**
+     * Returns a copy of this custom pizza, which is not registered with the
+     * menu.
+     * @param isReadOnly if the copy cannot be changed
+     * @return copy of this custom pizza
+     */
+    @Override
+    protected CustomPizza copy(boolean isReadOnly) {
+        return new CustomPizza(this, isReadOnly);
+    }
+
     /**
      * The add method allows toppings to be added to the pizza, limited to the
      * maximum permissible amount of five.
@@ -66,12 +93,12 @@ public class CustomPizza
             IllegalArgumentException {
         if (toppings == null) {
             throw new IllegalArgumentException();
-        } else if (getToppings().size() + toppings.size() > MAX_TOPPINGS) {
+        } else if (getNumberOfToppings() + toppings.size() > MAX_TOPPINGS) {
             throw new TooManyToppingsException(
                     "NUMBER OF TOPPINGS IS GREATER THAN THE MAXIMUM ALLOWABLE "
                             + "NUMBER OF TOPPINGS");
         } else {
-            accessToppings().addAll(toppings);
+            addToppings(toppings);
         }
     }
 
@@ -88,12 +115,12 @@ public class CustomPizza
             IllegalArgumentException {
         if (topping == null) {
             throw new IllegalArgumentException();
-        } else if (getToppings().size() + 1 > MAX_TOPPINGS) {
+        } else if (getNumberOfToppings() + 1 > MAX_TOPPINGS) {
             throw new TooManyToppingsException(
                     "NUMBER OF TOPPINGS IS GREATER THAN THE MAXIMUM ALLOWABLE "
                             + "NUMBER OF TOPPINGS");
         } else {
-            accessToppings().add(topping);
+            addTopping(topping);
         }
     }
 
@@ -105,6 +132,6 @@ public class CustomPizza
      * @param topping topping to be removed from the pizza
      */
     public void remove(Topping topping) {
-        accessToppings().remove(topping);
+        removeTopping(topping);
     }
 }
\ No newline at end of file
@@ -20,6 +20,11 @@ public class MenuPizza
         extends Pizza
         implements MenuItem {
 
+    /**
+     * prefix of the string representation of a menu pizza
+     */
+    static final String PREFIX = "[MenuPizza] ";
+
     /**
      * Creating a menu pizza with a set base size, sauce, cheese and list of
      * toppings.
@@ -41,6 +46,28 @@ public class MenuPizza
         registerMenuItem();
     }
 
+    /**
+     * Creates a copy of the given menu pizza, which is not registered with the
+     * menu.
+     * @param other menu pizza to be copied
+     * @param isReadOnly if the copy cannot be changed
+     */
+    private MenuPizza(MenuPizza other,
+                      boolean isReadOnly) {
+        super(other, isReadOnly);
+    }
+
+    /**
+     * Returns a copy of this menu pizza, which is not registered with the
+     * menu.
+     * @param isReadOnly if the copy cannot be changed
+     * @return copy of this menu pizza
+     */
+    @Override
+    protected MenuPizza copy(boolean isReadOnly) {
+        return new MenuPizza(this, isReadOnly);
+    }
+
     /**
      * Returns the human-readable string representation of this Menu Pizza.
      * <p>
@@ -55,6 +82,6 @@ public class MenuPizza
      */
     @Override
     public String toString() {
-        return "[MenuPizza] " + super.toString();
+        return PREFIX + super.toString();
     }
 }
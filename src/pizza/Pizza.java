@@ -2,14 +2,17 @@ package pizza;
 
 import exceptions.TooManyToppingsException;
 import menu.MenuItem;
+import menu.MoneyFormat;
 
 import pizza.ingredients.Bases;
 import pizza.ingredients.Cheeses;
 import pizza.ingredients.Sauces;
 import pizza.ingredients.Topping;
+import pizza.ingredients.ToppingSet;
 
-import java.text.DecimalFormat;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Comparator;
 import java.util.List;
 import java.util.Objects;
 
@@ -17,7 +20,7 @@ import static pizza.ingredients.Bases.BaseSize.MEDIUM;
 import static pizza.ingredients.Sauces.Sauce.TOMATO;
 import static pizza.ingredients.Cheeses.Cheese.MOZZARELLA;
 
-import static pizza.ingredients.Topping.PRICE;
+import static pizza.ingredients.Topping.PRICE_IN_CENTS;
 
 /**
  * Pizza combines the required basic elements of a pizza, being the base, sauce
@@ -56,6 +59,35 @@ public abstract class Pizza
      */
     private List<Topping> toppings = new ArrayList<>();
 
+    /**
+     * set of the distinct toppings on this pizza, kept up to date as toppings
+     * are added and removed
+     */
+    private ToppingSet toppingSet = ToppingSet.EMPTY;
+
+    /**
+     * toppings on this pizza sorted by name, used as the canonical form of the
+     * toppings when comparing pizzas with a topping on them more than once,
+     * or null if it is yet to be built
+     */
+    private Topping[] sortedToppings;
+
+    /**
+     * cached hash code of this pizza, or 0 if it is yet to be computed
+     */
+    private int hash;
+
+    /**
+     * number of times this pizza has been changed, or of the pizza it was
+     * copied from when it was copied
+     */
+    private long modificationCount;
+
+    /**
+     * true if this pizza is a read-only copy, such as one held by a
+     * MenuSnapshot, which cannot be changed
+     */
+    private boolean isReadOnly = false;
 
     /**
      * maximum number of toppings that can be placed on a pizza (5)
@@ -139,12 +171,106 @@ public abstract class Pizza
             this.size = size;
             this.sauce = sauce;
             this.cheese = cheese;
-            this.toppings = toppings;
+            this.toppings = new ArrayList<>(toppings);
+            this.toppingSet = ToppingSet.of(toppings);
             setName("Dr Java's Pizza");
             registerMenuItem();
         }
     }
 
+    /**
+     * Creates a copy of the given pizza, with the same name, base size, sauce,
+     * cheese and toppings.
+     * <p>
+     * Unlike the other constructors, the copy is not registered with the menu.
+     * @param other pizza to be copied
+     * @param isReadOnly if the copy cannot be changed
+     */
+    protected Pizza(Pizza other,
+                    boolean isReadOnly) {
+        this.name = other.name;
+        this.size = other.size;
+        this.sauce = other.sauce;
+        this.cheese = other.cheese;
+        this.toppings = new ArrayList<>(other.toppings);
+        this.toppingSet = other.toppingSet;
+        this.modificationCount = other.modificationCount;
+        this.isReadOnly = isReadOnly;
+        if (isReadOnly) {
+            // built before the copy is shared, so readers on other threads
+            // never see them half built
+            if (toppingSet.size() < toppings.size()) {
+                getSortedToppings();
+            }
+            hashCode();
+        }
+    }
+
+    /**
+     * Returns a copy of this pizza of the same kind, which is not registered
+     * with the menu.
+     * @param isReadOnly if the copy cannot be changed
+     * @return copy of this pizza
+     */
+    protected abstract Pizza copy(boolean isReadOnly);
+
+    /**
+     * Returns a copy of this pizza that can be changed without changing this
+     * pizza, such as a pizza taken from a MenuSnapshot to be changed before it
+     * is ordered.
+     * <p>
+     * The copy is not registered with the menu.
+     * @return copy of this pizza
+     */
+    public Pizza copy() {
+        return copy(false);
+    }
+
+    /**
+     * Returns a copy of this pizza which cannot be changed, or this pizza if
+     * it is already read-only.
+     * <p>
+     * The copy is not registered with the menu, and its setters throw
+     * UnsupportedOperationException.
+     * @return read-only copy of this pizza
+     */
+    @Override
+    public MenuItem readOnlyCopy() {
+        return isReadOnly ? this : copy(true);
+    }
+
+    /**
+     * Returns the number of times this pizza has been changed. A copy starts
+     * with the count of the pizza it was copied from, so a copy is the same
+     * as its pizza while their counts are equal.
+     * @return number of changes made to this pizza
+     */
+    @Override
+    public long getModificationCount() {
+        return modificationCount;
+    }
+
+    /**
+     * Returns true if this pizza is a read-only copy which cannot be changed,
+     * otherwise, false.
+     * @return true if this pizza is read-only, otherwise, false
+     */
+    public boolean isReadOnly() {
+        return isReadOnly;
+    }
+
+    /**
+     * Checks that this pizza can be changed.
+     * @throws UnsupportedOperationException if this pizza is read-only
+     */
+    private void checkChangeable()
+            throws UnsupportedOperationException {
+        if (isReadOnly) {
+            throw new UnsupportedOperationException(
+                    "PIZZA IS READ-ONLY");
+        }
+    }
+
     /**
      * Returns the list of toppings that are on this pizza.
      * <p>
@@ -156,12 +282,44 @@ public abstract class Pizza
         return new ArrayList<>(toppings);
     }
 
+    /**
+     * Returns the set of the distinct toppings that are on this pizza.
+     * <p>
+     * The set is immutable, so later changes to this pizza do not change it.
+     * @return set of the toppings on this pizza
+     */
+    public ToppingSet getToppingSet() {
+        return toppingSet;
+    }
+
+    /**
+     * Returns true if the given topping is on this pizza, otherwise, false.
+     * @param topping topping to check for
+     * @return true if the topping is on this pizza, otherwise, false
+     */
+    public boolean contains(Topping topping) {
+        return topping != null
+                && toppingSet.contains(topping);
+    }
+
+    /**
+     * Returns the interned spec of this pizza as it is now, which is shared
+     * with every other pizza of the same kind made the same way.
+     * @return spec of this pizza
+     */
+    public PizzaSpec toSpec() {
+        PizzaSpec spec = PizzaSpec.find(getClass(), getName(), getSize(),
+                getSauce(), getCheese(), toppings);
+        return spec != null ? spec : PizzaSpec.intern(getClass(), getName(),
+                getSize(), getSauce(), getCheese(), toppings, toString());
+    }
+
     /**
      * Returns the number of toppings on this pizza.
      * @return number of toppings on this pizza
      */
-    private int getNumberOfToppings() {
-        return getToppings().size();
+    protected int getNumberOfToppings() {
+        return toppings.size();
     }
 
     /**
@@ -170,7 +328,18 @@ public abstract class Pizza
      * @return price of the pizza
      */
     public double getTotalPrice() {
-        return getSize().getPrice() + getNumberOfToppings() * PRICE;
+        return getTotalPriceInCents() / 100.0;
+    }
+
+    /**
+     * Returns the price of the pizza base size in cents, defined in the base
+     * size enum, and adds the price in cents of each topping on the pizza.
+     * @return price of the pizza in cents
+     */
+    @Override
+    public long getTotalPriceInCents() {
+        return getSize().getPriceInCents()
+                + getNumberOfToppings() * PRICE_IN_CENTS;
     }
 
     /**
@@ -208,38 +377,62 @@ public abstract class Pizza
     /**
      * Set the name of the pizza.
      * @param name string providing a replacement name of the pizza
+     * @throws IllegalArgumentException if name is null or blank
+     * @throws UnsupportedOperationException if this pizza is read-only
      */
     public void setName(String name)
-            throws IllegalArgumentException {
+            throws IllegalArgumentException,
+            UnsupportedOperationException {
+        checkChangeable();
         if (name == null
                 || name.isBlank()) {
             throw new IllegalArgumentException();
         }
         this.name = name;
+        modificationCount++;
+        updateMenuItem();
     }
 
     /**
      * Set the size of this pizza base.
      * @param size size of this pizza base
+     * @throws UnsupportedOperationException if this pizza is read-only
      */
-    public void set(Bases.BaseSize size) {
+    public void set(Bases.BaseSize size)
+            throws UnsupportedOperationException {
+        checkChangeable();
         this.size = size;
+        hash = 0;
+        modificationCount++;
+        updateMenuItem();
     }
 
     /**
      * Set the sauce on the pizza.
      * @param sauce sauce on this pizza
+     * @throws UnsupportedOperationException if this pizza is read-only
      */
-    public void set(Sauces.Sauce sauce) {
+    public void set(Sauces.Sauce sauce)
+            throws UnsupportedOperationException {
+        checkChangeable();
         this.sauce = sauce;
+        hash = 0;
+        modificationCount++;
+        updateMenuItem();
     }
 
     /**
      * Set the cheese on the pizza.
      * @param cheese cheese on this pizza
+     * @throws UnsupportedOperationException if this pizza is read-only
      */
-    public void set(Cheeses.Cheese cheese) {
+    public void set(Cheeses.Cheese cheese)
+            throws UnsupportedOperationException {
+        checkChangeable();
         this.cheese = cheese;
+        hash = 0;
+        modificationCount++;
+        updateMenuItem();
     }
 
     /**
@@ -247,98 +440,130 @@ public abstract class Pizza
      * <p>
      * Two pizzas' that are equal according to the equals(Object) method should
      * have the same hash code.
+     * <p>
+     * The hash code is cached in a single field, as String does, so a thread
+     * that reads the field either sees a hash code that was computed or 0, in
+     * which case it computes the hash code again. A hash code that is 0 is
+     * computed every time.
      * @return hash code of this pizza
      */
     @Override
     public int hashCode() {
-        return Objects.hash(getSize(),
-                getSauce(),
-                getCheese(),
-                getToppings().stream()
-                .sorted((topping1, topping2) -> topping1.toString()
-                        .compareTo(topping2.toString()))
-                .toList());
+        int result = hash;
+        if (result == 0) {
+            result = Objects.hashCode(getSize());
+            result = 31 * result + Objects.hashCode(getSauce());
+            result = 31 * result + Objects.hashCode(getCheese());
+            result = 31 * result + toppingSet.hashCode();
+            hash = result;
+        }
+        return result;
+    }
+
+    /**
+     * Returns the toppings on this pizza sorted by name.
+     * <p>
+     * Two pizzas have the same toppings if and only if their sorted toppings
+     * are equal, so the sorted toppings are built once and kept until the
+     * toppings on this pizza change. They are only needed when a topping is
+     * on the pizza more than once, as otherwise the sets of toppings are
+     * compared instead.
+     * @return toppings on this pizza sorted by name
+     */
+    private Topping[] getSortedToppings() {
+        if (sortedToppings == null) {
+            sortedToppings = toppings.toArray(new Topping[0]);
+            Arrays.sort(sortedToppings, Comparator.comparing(Topping::toString));
+        }
+        return sortedToppings;
+    }
+
+    /**
+     * Rebuilds the set of toppings and discards the canonical form and hash
+     * code of this pizza after its toppings have changed.
+     * <p>
+     * Subclasses that change the list returned by accessToppings() must call
+     * this method once they have finished changing it.
+     */
+    protected void toppingsChanged() {
+        toppingSet = ToppingSet.of(toppings);
+        toppingSetChanged();
+    }
+
+    /**
+     * Discards the canonical form and hash code of this pizza after its
+     * toppings and set of toppings have changed, and updates its entry in the
+     * menu.
+     */
+    private void toppingSetChanged() {
+        sortedToppings = null;
+        hash = 0;
+        modificationCount++;
+        updateMenuItem();
     }
 
     /**
      * Returns true, if the size of this pizza is equal to the size of the other
-     * given object.
-     * @param other reference object with which to compare
+     * pizza.
+     * @param other pizza with which to compare
      * @return true, if the size of this pizza is the same as the size of the
-     * other argument, otherwise, false
+     * other pizza, otherwise, false
      */
-    private boolean equalSize(Object other) {
-        if (!(other instanceof Pizza)) {
-            return false;
-        }
-        return this.getSize().equals(((Pizza) other).getSize());
+    private boolean equalSize(Pizza other) {
+        return this.getSize() == other.getSize();
     }
 
     /**
      * Returns true, if the sauce on this pizza is equal to the sauce on the
-     * other given object.
-     * @param other reference object with which to compare
-     * @return true, if the sauce on this pizza is the same as the size of the
-     * other argument, otherwise, false
+     * other pizza.
+     * @param other pizza with which to compare
+     * @return true, if the sauce on this pizza is the same as the sauce on the
+     * other pizza, otherwise, false
      */
-    private boolean equalSauce(Object other) {
-        if (!(other instanceof Pizza)) {
-            return false;
-        }
-        return this.getSauce().equals(((Pizza) other).getSauce());
+    private boolean equalSauce(Pizza other) {
+        return this.getSauce() == other.getSauce();
     }
 
     /**
      * Returns true, if the cheese on this pizza is equal to the cheese on the
-     * other given object.
-     * @param other reference object with which to compare
-     * @return true, if the cheese on this pizza is the same as the cheese of
-     * the other argument, otherwise, false
+     * other pizza.
+     * @param other pizza with which to compare
+     * @return true, if the cheese on this pizza is the same as the cheese on
+     * the other pizza, otherwise, false
      */
-    private boolean equalCheese(Object other) {
-        if (!(other instanceof Pizza)) {
-            return false;
-        }
-        return this.getCheese().equals(((Pizza) other).getCheese());
+    private boolean equalCheese(Pizza other) {
+        return this.getCheese() == other.getCheese();
     }
 
     /**
      * Returns true, if the number of toppings on this pizza are equal to the
-     * number of toppings on the other given object.
-     * @param other reference object with which to compare
+     * number of toppings on the other pizza.
+     * @param other pizza with which to compare
      * @return true, if the number of toppings on this pizza are the same as the
-     * number of toppings on the other argument, otherwise, false
+     * number of toppings on the other pizza, otherwise, false
      */
-    private boolean equalNumberOfToppings(Object other) {
-        if (!(other instanceof Pizza)) {
-            return false;
-        }
-        return this.getNumberOfToppings()
-                == ((Pizza) other).getNumberOfToppings();
+    private boolean equalNumberOfToppings(Pizza other) {
+        return this.getNumberOfToppings() == other.getNumberOfToppings();
     }
 
     /**
      * Returns true, if the toppings on this pizza are equal to the toppings on
-     * the other given object.
-     * @param other reference object with which to compare
+     * the other pizza, in any order.
+     * <p>
+     * The sets of toppings are compared a word at a time. Only if a topping
+     * is on this pizza more than once are the sorted toppings compared as
+     * well, to check each topping is on both pizzas as many times.
+     * @param other pizza with which to compare
      * @return true, if the toppings on this pizza are the same as the toppings
-     * on the other argument, otherwise, false
+     * on the other pizza, otherwise, false
      */
-    private boolean equalToppings(Object other) {
-        if (!(other instanceof Pizza)) {
-            return false;
-        } else if (!equalNumberOfToppings(other)) {
+    private boolean equalToppings(Pizza other) {
+        if (!this.toppingSet.equals(other.toppingSet)) {
             return false;
         }
-        List<Topping> thisToppings = this.getToppings().stream()
-                .sorted((topping1, topping2) -> topping1.toString()
-                        .compareTo(topping2.toString()))
-                .toList();
-        List<Topping> otherToppings = ((Pizza) other).getToppings().stream()
-                .sorted((topping1, topping2) -> topping1.toString()
-                        .compareTo(topping2.toString()))
-                .toList();
-        return thisToppings.equals(otherToppings);
+        return this.toppingSet.size() == this.getNumberOfToppings()
+                || Arrays.equals(this.getSortedToppings(),
+                        other.getSortedToppings());
     }
 
     /**
@@ -353,12 +578,16 @@ public abstract class Pizza
      */
     @Override
     public boolean equals(Object other) {
-        if (other instanceof Pizza) {
-            return equalSize(other)
-                    && equalSauce(other)
-                    && equalCheese(other)
-                    && equalNumberOfToppings(other)
-                    && equalToppings(other);
+        if (this == other) {
+            return true;
+        } else if (other instanceof Pizza) {
+            Pizza pizza = (Pizza) other;
+            return equalSize(pizza)
+                    && equalSauce(pizza)
+                    && equalCheese(pizza)
+                    && equalNumberOfToppings(pizza)
+                    && hashCode() == pizza.hashCode()
+                    && equalToppings(pizza);
         }
         return false;
     }
@@ -389,29 +618,55 @@ public abstract class Pizza
      */
     @Override
     public String toString() {
-        return getName() + ": is a '"
-                + getSize() + "' sized base with '"
-                + getSauce() + "' sauce and '"
-                + getCheese() + "' cheese"
-                + toStringToppings() + " $"
-                + toDollarsAndCents(getTotalPrice());
+        return describe(getName(), getSize(), getSauce(), getCheese(),
+                getToppings(), getTotalPriceInCents());
+    }
+
+    /**
+     * Returns the string representation of a pizza with the given properties,
+     * in the format given by toString().
+     * <p>
+     * This allows the string representation of a pizza to be built again from
+     * its PizzaSpec, without making the pizza.
+     * @param name name of the pizza
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order
+     * @param totalPriceInCents price of the pizza in cents
+     * @return string representation of the pizza
+     */
+    static String describe(String name,
+                           BaseSize size,
+                           Sauce sauce,
+                           Cheese cheese,
+                           List<Topping> toppings,
+                           long totalPriceInCents) {
+        return name + ": is a '"
+                + size + "' sized base with '"
+                + sauce + "' sauce and '"
+                + cheese + "' cheese"
+                + toStringToppings(toppings) + " $"
+                + MoneyFormat.WITHOUT_ZERO_DOLLARS.format(
+                        totalPriceInCents);
     }
 
     /**
-     * Returns the string representation of the toppings on this pizza
-     * @return string representation of the toppings on this pizza
+     * Returns the string representation of the toppings on a pizza
+     * @param toppings toppings on the pizza in order
+     * @return string representation of the toppings on the pizza
      */
-    private String toStringToppings() {
+    private static String toStringToppings(List<Topping> toppings) {
         StringBuilder toStringToppings = new StringBuilder();
 
         int pizzaNumber = 1;
 
-        if (!(getToppings().isEmpty())) {
+        if (!(toppings.isEmpty())) {
             toStringToppings.append(" - Toppings: [");
 
-            for (Topping topping : getToppings()) {
+            for (Topping topping : toppings) {
                 toStringToppings.append(topping.toString());
-                if (pizzaNumber < getNumberOfToppings()) {
+                if (pizzaNumber < toppings.size()) {
                     toStringToppings.append(", ");
                 } else {
                     toStringToppings.append("]");
@@ -422,16 +677,6 @@ public abstract class Pizza
         return toStringToppings.toString();
     }
 
-    /**
-     * Returns the given price formatted to two decimal places i.e. to dollars
-     * and cents.
-     * @param price price to be formatted to dollars and cents
-     * @return price in dollars and cents
-     */
-    private String toDollarsAndCents(double price) {
-        return new DecimalFormat("#.00").format(price);
-    }
-
     /**
      * Returns the list of toppings that are on the pizza.
      * <p>
@@ -439,10 +684,57 @@ public abstract class Pizza
      * pizza.
      * <p>
      * Adding or removing elements from the returned list should affect the
-     * original list.
+     * original list. Once the caller has finished changing the list it must
+     * call toppingsChanged().
      * @return list of toppings on this pizza
+     * @throws UnsupportedOperationException if this pizza is read-only
      */
-    protected List<Topping> accessToppings() {
+    protected List<Topping> accessToppings()
+            throws UnsupportedOperationException {
+        checkChangeable();
         return toppings;
     }
+
+    /**
+     * Adds the given toppings to the end of the list of toppings on this pizza.
+     * @param toppings toppings to be added to this pizza
+     * @throws UnsupportedOperationException if this pizza is read-only
+     */
+    protected void addToppings(List<Topping> toppings)
+            throws UnsupportedOperationException {
+        checkChangeable();
+        this.toppings.addAll(toppings);
+        toppingSet = toppingSet.union(ToppingSet.of(toppings));
+        toppingSetChanged();
+    }
+
+    /**
+     * Adds the given topping to the end of the list of toppings on this pizza.
+     * @param topping topping to be added to this pizza
+     * @throws UnsupportedOperationException if this pizza is read-only
+     */
+    protected void addTopping(Topping topping)
+            throws UnsupportedOperationException {
+        checkChangeable();
+        toppings.add(topping);
+        toppingSet = toppingSet.with(topping);
+        toppingSetChanged();
+    }
+
+    /**
+     * Removes the first occurrence of the given topping from this pizza, if it
+     * is present.
+     * @param topping topping to be removed from this pizza
+     * @throws UnsupportedOperationException if this pizza is read-only
+     */
+    protected void removeTopping(Topping topping)
+            throws UnsupportedOperationException {
+        checkChangeable();
+        if (toppings.remove(topping)) {
+            if (!toppings.contains(topping)) {
+                toppingSet = toppingSet.without(topping);
+            }
+            toppingSetChanged();
+        }
+    }
 }
\ No newline at end of file
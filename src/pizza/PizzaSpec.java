@@ -0,0 +1,559 @@
+package pizza;
+
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+import pizza.ingredients.ToppingSet;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+
+import static pizza.ingredients.Topping.PRICE_IN_CENTS;
+
+/**
+ * Immutable record of how a pizza was made, shared by every pizza made the
+ * same way.
+ * <p>
+ * A spec holds the kind of pizza, its name, size, sauce, cheese and toppings
+ * in order, and the string representation of the pizza, as they were when
+ * Pizza.toSpec() was called. Later changes to the pizza do not change the
+ * spec.
+ * <p>
+ * Specs are interned, so that pizzas made the same way return the same spec
+ * and something holding many pizzas, such as an order, only keeps one object
+ * for each distinct way of making a pizza. Specs are kept in a concurrent
+ * pool of at most POOL_CAPACITY specs, and once it is full the oldest spec in
+ * the pool is dropped for each new one. A spec that falls out of the pool
+ * remains valid, but a pizza made the same way afterwards gets a new spec, so
+ * specs should be compared with equals(Object).
+ * <p>
+ * Looking up the pool does not lock or allocate. Each thread looks up the pool
+ * with its own reusable key, which borrows the toppings it is given, so the
+ * toppings are only copied when a new spec is made.
+ */
+public final class PizzaSpec {
+
+    /**
+     * maximum number of specs kept in the pool
+     */
+    public static final int POOL_CAPACITY = 1024;
+
+    /**
+     * pooled specs, each keyed by itself, which are found with a Key
+     */
+    private static final Map<Object, PizzaSpec> pool =
+            new ConcurrentHashMap<>();
+
+    /**
+     * pooled specs in the order they were added to the pool
+     */
+    private static final Queue<PizzaSpec> poolOrder =
+            new ConcurrentLinkedQueue<>();
+
+    /**
+     * key each thread looks up the pool with
+     */
+    private static final ThreadLocal<Key> keys =
+            ThreadLocal.withInitial(Key::new);
+
+    /**
+     * kind of pizza this spec was taken from
+     */
+    private final Class<? extends Pizza> kind;
+
+    /**
+     * name of the pizza
+     */
+    private final String name;
+
+    /**
+     * base size of the pizza
+     */
+    private final Bases.BaseSize size;
+
+    /**
+     * sauce on the pizza
+     */
+    private final Sauces.Sauce sauce;
+
+    /**
+     * cheese on the pizza
+     */
+    private final Cheeses.Cheese cheese;
+
+    /**
+     * toppings on the pizza in order, which cannot be modified
+     */
+    private final List<Topping> toppings;
+
+    /**
+     * set of the distinct toppings on the pizza
+     */
+    private final ToppingSet toppingSet;
+
+    /**
+     * hash code of this spec
+     */
+    private final int hash;
+
+    /**
+     * string representation of the pizza
+     */
+    private final String description;
+
+    /**
+     * Creates a spec of a pizza.
+     * @param kind kind of pizza
+     * @param name name of the pizza
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order, which cannot be modified
+     * @param description string representation of the pizza, or null
+     */
+    private PizzaSpec(Class<? extends Pizza> kind,
+                      String name,
+                      Bases.BaseSize size,
+                      Sauces.Sauce sauce,
+                      Cheeses.Cheese cheese,
+                      List<Topping> toppings,
+                      String description) {
+        this.kind = kind;
+        this.name = name;
+        this.size = size;
+        this.sauce = sauce;
+        this.cheese = cheese;
+        this.toppings = toppings;
+        this.toppingSet = ToppingSet.of(toppings);
+        this.description = description;
+        this.hash = hash(kind, name, size, sauce, cheese, toppings);
+    }
+
+    /**
+     * Key to look up the pool with the properties of a pizza, without making
+     * a spec or copying its toppings.
+     * <p>
+     * A key is equal to a spec of a pizza with the same properties. It is
+     * only ever used to look up the pool, by the thread that owns it.
+     */
+    private static final class Key {
+        /**
+         * kind of pizza being looked up
+         */
+        private Class<? extends Pizza> kind;
+        /**
+         * name of the pizza being looked up
+         */
+        private String name;
+        /**
+         * base size of the pizza being looked up
+         */
+        private Bases.BaseSize size;
+        /**
+         * sauce on the pizza being looked up
+         */
+        private Sauces.Sauce sauce;
+        /**
+         * cheese on the pizza being looked up
+         */
+        private Cheeses.Cheese cheese;
+        /**
+         * toppings on the pizza being looked up, borrowed from the caller
+         */
+        private List<Topping> toppings;
+        /**
+         * hash code of the pizza being looked up
+         */
+        private int hash;
+
+        /**
+         * Returns the pooled spec of a pizza with the given properties, or
+         * null if there is none, leaving this key holding nothing.
+         * @param kind kind of pizza
+         * @param name name of the pizza
+         * @param size base size of the pizza
+         * @param sauce sauce on the pizza
+         * @param cheese cheese on the pizza
+         * @param toppings toppings on the pizza in order
+         * @return pooled spec of the pizza, or null
+         */
+        private PizzaSpec find(Class<? extends Pizza> kind,
+                               String name,
+                               Bases.BaseSize size,
+                               Sauces.Sauce sauce,
+                               Cheeses.Cheese cheese,
+                               List<Topping> toppings) {
+            this.kind = kind;
+            this.name = name;
+            this.size = size;
+            this.sauce = sauce;
+            this.cheese = cheese;
+            this.toppings = toppings;
+            this.hash = PizzaSpec.hash(kind, name, size, sauce, cheese,
+                    toppings);
+            try {
+                return pool.get(this);
+            } finally {
+                this.name = null;
+                this.toppings = null;
+            }
+        }
+
+        /**
+         * Returns the hash code of the pizza being looked up, which is the
+         * hash code of its spec.
+         * @return hash code of the pizza being looked up
+         */
+        @Override
+        public int hashCode() {
+            return hash;
+        }
+
+        /**
+         * Returns true if the other object is a spec of the pizza being
+         * looked up, otherwise, false.
+         * @param other reference object with which to compare
+         * @return true if the other object is a spec of the pizza, otherwise,
+         *     false
+         */
+        @Override
+        public boolean equals(Object other) {
+            if (!(other instanceof PizzaSpec)) {
+                return false;
+            }
+            PizzaSpec spec = (PizzaSpec) other;
+            return hash == spec.hash
+                    && kind == spec.kind
+                    && size == spec.size
+                    && sauce == spec.sauce
+                    && cheese == spec.cheese
+                    && Objects.equals(name, spec.name)
+                    && equalToppings(toppings, spec.toppings);
+        }
+    }
+
+    /**
+     * Returns the hash code of a spec with the given properties.
+     * @param kind kind of pizza
+     * @param name name of the pizza
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order
+     * @return hash code of the spec
+     */
+    private static int hash(Class<? extends Pizza> kind,
+                            String name,
+                            Bases.BaseSize size,
+                            Sauces.Sauce sauce,
+                            Cheeses.Cheese cheese,
+                            List<Topping> toppings) {
+        int result = kind.hashCode();
+        result = 31 * result + Objects.hashCode(name);
+        result = 31 * result + Objects.hashCode(size);
+        result = 31 * result + Objects.hashCode(sauce);
+        result = 31 * result + Objects.hashCode(cheese);
+        // the same as toppings.hashCode(), without an iterator
+        int toppingsHash = 1;
+        for (int index = 0; index < toppings.size(); index++) {
+            toppingsHash = 31 * toppingsHash + toppings.get(index).hashCode();
+        }
+        return 31 * result + toppingsHash;
+    }
+
+    /**
+     * Returns true if the given lists hold the same toppings in the same
+     * order, otherwise, false.
+     * @param toppings toppings on a pizza in order
+     * @param other toppings on another pizza in order
+     * @return true if the toppings are the same, otherwise, false
+     */
+    private static boolean equalToppings(List<Topping> toppings,
+                                         List<Topping> other) {
+        if (toppings.size() != other.size()) {
+            return false;
+        }
+        for (int index = 0; index < toppings.size(); index++) {
+            if (toppings.get(index) != other.get(index)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns the pooled spec of a pizza with the given properties, or null if
+     * there is none, without locking or allocating.
+     * @param kind kind of pizza
+     * @param name name of the pizza
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order, which are not kept
+     * @return pooled spec of the pizza, or null
+     */
+    static PizzaSpec find(Class<? extends Pizza> kind,
+                          String name,
+                          Bases.BaseSize size,
+                          Sauces.Sauce sauce,
+                          Cheeses.Cheese cheese,
+                          List<Topping> toppings) {
+        return keys.get().find(kind, name, size, sauce, cheese, toppings);
+    }
+
+    /**
+     * Returns the interned spec of a pizza with the given properties, adding
+     * a new spec with a copy of the toppings and the given string
+     * representation to the pool if there is none.
+     * @param kind kind of pizza
+     * @param name name of the pizza
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order
+     * @param description string representation of the pizza
+     * @return spec of the pizza
+     */
+    static PizzaSpec intern(Class<? extends Pizza> kind,
+                            String name,
+                            Bases.BaseSize size,
+                            Sauces.Sauce sauce,
+                            Cheeses.Cheese cheese,
+                            List<Topping> toppings,
+                            String description) {
+        PizzaSpec spec = new PizzaSpec(kind, name, size, sauce, cheese,
+                Collections.unmodifiableList(
+                        Arrays.asList(toppings.toArray(new Topping[0]))),
+                description);
+        PizzaSpec pooled = pool.putIfAbsent(spec, spec);
+        if (pooled != null) {
+            return pooled;
+        }
+        poolOrder.add(spec);
+        while (pool.size() > POOL_CAPACITY) {
+            PizzaSpec oldest = poolOrder.poll();
+            if (oldest == null) {
+                break;
+            }
+            pool.remove(oldest);
+        }
+        return spec;
+    }
+
+    /**
+     * Returns the interned spec of a pizza with the given properties and
+     * string representation, such as one read back from a record of an order.
+     * <p>
+     * The string representation is only kept if there is no spec for the
+     * pizza in the pool, as pizzas made the same way have the same string
+     * representation, and the toppings are only copied then.
+     * @param kind kind of pizza
+     * @param name name of the pizza, or null if it has no name
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order
+     * @param description string representation of the pizza
+     * @return spec of the pizza
+     * @throws IllegalArgumentException if any argument other than name is
+     *     null, or toppings contains null
+     */
+    public static PizzaSpec of(Class<? extends Pizza> kind,
+                               String name,
+                               Bases.BaseSize size,
+                               Sauces.Sauce sauce,
+                               Cheeses.Cheese cheese,
+                               List<Topping> toppings,
+                               String description)
+            throws IllegalArgumentException {
+        if (kind == null
+                || size == null
+                || sauce == null
+                || cheese == null
+                || toppings == null
+                || Collections.frequency(toppings, null) > 0
+                || description == null) {
+            throw new IllegalArgumentException();
+        }
+        PizzaSpec spec = find(kind, name, size, sauce, cheese, toppings);
+        if (spec != null) {
+            return spec;
+        }
+        return intern(kind, name, size, sauce, cheese, toppings, description);
+    }
+
+    /**
+     * Returns the interned spec of a custom or menu pizza with the given
+     * properties, building its string representation as the toString() method
+     * of the pizza would, if there is no spec for the pizza in the pool.
+     * @param kind kind of pizza, either CustomPizza or MenuPizza
+     * @param name name of the pizza
+     * @param size base size of the pizza
+     * @param sauce sauce on the pizza
+     * @param cheese cheese on the pizza
+     * @param toppings toppings on the pizza in order
+     * @return spec of the pizza
+     * @throws IllegalArgumentException if kind is not CustomPizza or
+     *     MenuPizza, any argument other than name is null, or toppings
+     *     contains null
+     */
+    public static PizzaSpec of(Class<? extends Pizza> kind,
+                               String name,
+                               Bases.BaseSize size,
+                               Sauces.Sauce sauce,
+                               Cheeses.Cheese cheese,
+                               List<Topping> toppings)
+            throws IllegalArgumentException {
+        if ((kind != CustomPizza.class
+                && kind != MenuPizza.class)
+                || size == null
+                || sauce == null
+                || cheese == null
+                || toppings == null
+                || Collections.frequency(toppings, null) > 0) {
+            throw new IllegalArgumentException();
+        }
+        PizzaSpec spec = find(kind, name, size, sauce, cheese, toppings);
+        if (spec != null) {
+            return spec;
+        }
+        return intern(kind, name, size, sauce, cheese, toppings,
+                (kind == MenuPizza.class ? MenuPizza.PREFIX : "")
+                        + Pizza.describe(name, size, sauce, cheese, toppings,
+                        size.getPriceInCents()
+                                + toppings.size() * PRICE_IN_CENTS));
+    }
+
+    /**
+     * Returns the number of specs in the pool.
+     * @return number of pooled specs
+     */
+    static int poolSize() {
+        return pool.size();
+    }
+
+    /**
+     * Returns the kind of pizza this spec was taken from.
+     * @return class of the pizza
+     */
+    public Class<? extends Pizza> getKind() {
+        return kind;
+    }
+
+    /**
+     * Returns the name of the pizza.
+     * @return name of the pizza
+     */
+    public String getName() {
+        return name;
+    }
+
+    /**
+     * Returns the base size of the pizza.
+     * @return base size of the pizza
+     */
+    public Bases.BaseSize getSize() {
+        return size;
+    }
+
+    /**
+     * Returns the sauce on the pizza.
+     * @return sauce on the pizza
+     */
+    public Sauces.Sauce getSauce() {
+        return sauce;
+    }
+
+    /**
+     * Returns the cheese on the pizza.
+     * @return cheese on the pizza
+     */
+    public Cheeses.Cheese getCheese() {
+        return cheese;
+    }
+
+    /**
+     * Returns the toppings on the pizza in order.
+     * <p>
+     * The returned list cannot be modified.
+     * @return toppings on the pizza
+     */
+    public List<Topping> getToppings() {
+        return toppings;
+    }
+
+    /**
+     * Returns the set of the distinct toppings on the pizza.
+     * @return set of the toppings on the pizza
+     */
+    public ToppingSet getToppingSet() {
+        return toppingSet;
+    }
+
+    /**
+     * Returns the price of the pizza in cents, being the price of its base
+     * size and of each of its toppings.
+     * @return price of the pizza in cents
+     */
+    public long getTotalPriceInCents() {
+        return size.getPriceInCents() + toppings.size() * PRICE_IN_CENTS;
+    }
+
+    /**
+     * Returns the price of the pizza.
+     * @return price of the pizza
+     */
+    public double getTotalPrice() {
+        return getTotalPriceInCents() / 100.0;
+    }
+
+    /**
+     * Returns the hash code of this spec.
+     * @return hash code of this spec
+     */
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    /**
+     * Returns true if the other object is a spec of the same kind of pizza
+     * with the same name, size, sauce, cheese and toppings in the same order,
+     * otherwise, false.
+     * @param other reference object with which to compare
+     * @return true if the pizzas were made the same way, otherwise, false
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (this == other) {
+            return true;
+        } else if (other instanceof PizzaSpec) {
+            PizzaSpec spec = (PizzaSpec) other;
+            return hash == spec.hash
+                    && kind == spec.kind
+                    && size == spec.size
+                    && sauce == spec.sauce
+                    && cheese == spec.cheese
+                    && Objects.equals(name, spec.name)
+                    && equalToppings(toppings, spec.toppings);
+        }
+        return false;
+    }
+
+    /**
+     * Returns the string representation of the pizza when this spec was
+     * taken, as given by its toString() method.
+     * @return string representation of the pizza
+     */
+    @Override
+    public String toString() {
+        return description;
+    }
+}
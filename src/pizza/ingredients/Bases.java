@@ -11,27 +11,27 @@ public interface Bases {
         /**
          * large base size, $7.00
          */
-        LARGE(7.00),
+        LARGE(700),
         /**
          * medium base size, $5.00
          */
-        MEDIUM(5.00),
+        MEDIUM(500),
         /**
          * small base size, $3.00
          */
-        SMALL(3.00);
+        SMALL(300);
 
         /**
-         * price of this pizza base size
+         * price of this pizza base size in cents
          */
-        private final double price;
+        private final long priceInCents;
 
         /**
          * Creates BaseSize for the specified price
-         * @param price price of this pizza base size
+         * @param priceInCents price of this pizza base size in cents
          */
-        BaseSize(double price) {
-            this.price = price;
+        BaseSize(long priceInCents) {
+            this.priceInCents = priceInCents;
         }
 
         /**
@@ -39,7 +39,15 @@ public interface Bases {
          * @return price of this pizza base
          */
         public double getPrice() {
-            return price;
+            return priceInCents / 100.0;
+        }
+
+        /**
+         * Returns the price of this pizza base in cents
+         * @return price of this pizza base in cents
+         */
+        public long getPriceInCents() {
+            return priceInCents;
         }
     }
 
@@ -1,7 +1,10 @@
 package pizza.ingredients;
 
-import java.util.ArrayList;
-import java.util.List;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ThreadLocalRandom;
 
 /**
  * Topping class represents possible toppings that can be placed on a pizza.
@@ -19,12 +22,37 @@ import java.util.List;
  * <p>
  * Toppings that are available in the values() method will be any previously
  * created toppings.
+ * <p>
+ * Each topping is given an ordinal when it is created, starting from zero in
+ * the order toppings are created, such that forOrdinal(t.ordinal()) == t.
+ * Until the toppings are reloaded, the ordinals are dense and
+ * values()[t.ordinal()] == t.
+ * <p>
+ * The toppings are kept in a registry which is safe to use from many threads.
+ * Reading toppings never blocks, creating a topping is atomic, and
+ * resetToppings() replaces the whole registry at once.
+ * <p>
+ * A thread may also stage a new set of toppings, such as when the menu is
+ * reloaded. After stageToppings(), the toppings created and read by that
+ * thread are kept in a new registry which other threads do not see, until
+ * publishStagedToppings() replaces the registry with it at once, as
+ * resetToppings() does. A staged topping with the same name and vegan flag as
+ * an earlier topping is the earlier topping, and new toppings are given
+ * ordinals after those of every earlier topping, so that the ordinal of a
+ * topping never changes and pizzas and topping sets made before the reload
+ * stay valid. Toppings that the reload removes can still be found by
+ * forOrdinal(int), and by name with recordedValueOf(String).
  */
 public class Topping {
+    /**
+     * price of any topping in cents is 200
+     */
+    public static final long PRICE_IN_CENTS = 200;
+
     /**
      * price of any topping is $2.00
      */
-    public static final double PRICE = 2.00;
+    public static final double PRICE = PRICE_IN_CENTS / 100.0;
 
     /**
      * name of the topping
@@ -37,9 +65,216 @@ public class Topping {
     private final boolean isVegan;
 
     /**
-     * list of the toppings that have been defined by this class
+     * position of this topping in the order toppings were given ordinals
      */
-    private static List<Topping> toppings = new ArrayList<>();
+    private final int ordinal;
+
+    /**
+     * registry of the toppings that have been defined by this class
+     */
+    private static volatile Registry registry = new Registry();
+
+    /**
+     * registry of the toppings being staged by the current thread, or null if
+     * the thread is not staging toppings
+     */
+    private static final ThreadLocal<Registry> stagedRegistry =
+            new ThreadLocal<>();
+
+    /**
+     * Registry of defined toppings, keyed by their uppercase name and kept in
+     * the order they were created.
+     * <p>
+     * Lookups read a concurrent map and the arrays of toppings without
+     * locking. Creating a topping is synchronized on the registry so that
+     * checking for an existing topping, assigning the next ordinal and
+     * publishing the new topping happen as one step.
+     * <p>
+     * A registry staged in place of another carries on its ordinals. It keeps
+     * every topping the previous registry could look up by ordinal, including
+     * toppings that are no longer defined, and assigns new ordinals after
+     * them.
+     */
+    static final class Registry {
+        /**
+         * toppings in this registry keyed by their uppercase name
+         */
+        private final Map<String, Topping> toppingsByName =
+                new ConcurrentHashMap<>();
+
+        /**
+         * toppings in this registry in the order they were created, where
+         * only the first size elements are in use
+         */
+        private volatile Topping[] toppings = new Topping[16];
+
+        /**
+         * number of toppings in this registry, written after each new topping
+         * so that readers of size see the toppings before it
+         */
+        private volatile int size = 0;
+
+        /**
+         * every topping that has been given an ordinal by this registry or
+         * the registries it carries on from, indexed by ordinal, where only
+         * the first numberOfOrdinals elements are in use
+         */
+        private volatile Topping[] toppingsByOrdinal;
+
+        /**
+         * number of ordinals that have been given, written after each new
+         * topping so that readers see the toppings before it
+         */
+        private volatile int numberOfOrdinals;
+
+        /**
+         * latest topping given an ordinal for each uppercase name, which is
+         * only read and written while synchronized on this registry
+         */
+        private final Map<String, Topping> latestByName;
+
+        /**
+         * set of the vegan toppings that have been given an ordinal
+         */
+        private volatile ToppingSet veganToppings;
+
+        /**
+         * random id shared by every registry that carries on the same
+         * ordinals
+         */
+        private final long id;
+
+        /**
+         * Creates an empty registry whose ordinals start from zero.
+         */
+        Registry() {
+            this.id = ThreadLocalRandom.current().nextLong();
+            this.toppingsByOrdinal = new Topping[16];
+            this.numberOfOrdinals = 0;
+            this.latestByName = new HashMap<>();
+            this.veganToppings = ToppingSet.EMPTY;
+        }
+
+        /**
+         * Creates an empty registry that carries on the ordinals of the given
+         * registry and reuses its toppings where it can.
+         * @param previous registry whose ordinals are carried on
+         */
+        private Registry(Registry previous) {
+            this.id = previous.id;
+            synchronized (previous) {
+                this.toppingsByOrdinal = previous.toppingsByOrdinal.clone();
+                this.numberOfOrdinals = previous.numberOfOrdinals;
+                this.latestByName = new HashMap<>(previous.latestByName);
+                this.veganToppings = previous.veganToppings;
+            }
+        }
+
+        /**
+         * Creates a topping with the given uppercase name in this registry.
+         * <p>
+         * If a topping with the same name and vegan flag has been given an
+         * ordinal before, that topping is reused rather than a new one
+         * created, so that its ordinal stays the same. Otherwise, the new
+         * topping is given the next ordinal.
+         * @param key uppercase name of the topping
+         * @param isVegan if the topping is vegan or non-vegan
+         * @return topping that was created
+         * @throws IllegalArgumentException if a topping with that name has
+         *     already been created
+         */
+        private synchronized Topping create(String key, boolean isVegan)
+                throws IllegalArgumentException {
+            if (toppingsByName.containsKey(key)) {
+                throw new IllegalArgumentException(
+                        "TOPPING ALREADY EXISTS WITH THE SPECIFIED NAME OF "
+                                + key);
+            }
+            Topping topping = latestByName.get(key);
+            if (topping == null
+                    || topping.isVegan != isVegan) {
+                topping = new Topping(key, isVegan, numberOfOrdinals);
+                addOrdinal(topping);
+            }
+            if (size == toppings.length) {
+                toppings = Arrays.copyOf(toppings, 2 * size);
+            }
+            toppings[size] = topping;
+            toppingsByName.put(key, topping);
+            size++;
+            return topping;
+        }
+
+        /**
+         * Records the given new topping under the next ordinal.
+         * @param topping topping whose ordinal is the next ordinal
+         */
+        private void addOrdinal(Topping topping) {
+            int ordinal = numberOfOrdinals;
+            if (ordinal == toppingsByOrdinal.length) {
+                toppingsByOrdinal = Arrays.copyOf(toppingsByOrdinal,
+                        2 * ordinal);
+            }
+            toppingsByOrdinal[ordinal] = topping;
+            latestByName.put(topping.name, topping);
+            if (topping.isVegan) {
+                veganToppings = veganToppings.with(topping);
+            }
+            numberOfOrdinals = ordinal + 1;
+        }
+
+        /**
+         * Returns the topping with the given uppercase name, or null if there
+         * is no such topping in this registry.
+         * @param key uppercase name of the topping
+         * @return topping with the given name, or null
+         */
+        private Topping get(String key) {
+            return toppingsByName.get(key);
+        }
+
+        /**
+         * Returns the topping with the given uppercase name, or if there is no
+         * such topping in this registry, the latest topping with that name
+         * given an ordinal, or if there is none, a new topping with that name
+         * given the next ordinal without being added to this registry.
+         * @param key uppercase name of the topping
+         * @return topping with the given name
+         */
+        private synchronized Topping recorded(String key) {
+            Topping topping = toppingsByName.get(key);
+            if (topping == null) {
+                topping = latestByName.get(key);
+            }
+            if (topping == null) {
+                topping = new Topping(key, false, numberOfOrdinals);
+                addOrdinal(topping);
+            }
+            return topping;
+        }
+
+        /**
+         * Returns the topping with the given ordinal, or null if no topping
+         * has been given that ordinal.
+         * @param ordinal ordinal of the topping
+         * @return topping with the given ordinal, or null
+         */
+        private Topping get(int ordinal) {
+            int count = numberOfOrdinals;
+            Topping[] byOrdinal = toppingsByOrdinal;
+            return ordinal >= 0 && ordinal < count ? byOrdinal[ordinal] : null;
+        }
+
+        /**
+         * Returns the toppings in this registry in the order they were
+         * created.
+         * @return array of the toppings in this registry
+         */
+        private Topping[] values() {
+            int count = size;
+            return Arrays.copyOf(toppings, count);
+        }
+    }
 
     /**
      * Creates a new topping with the specified name and vegan boolean state.
@@ -58,25 +293,21 @@ public class Topping {
                 || name.isEmpty()) {
             throw new IllegalArgumentException(
                     "NAME CANNOT BE NULL OR EMPTY");
-        } else if (isExistingTopping(name)) {
-            throw new IllegalArgumentException(
-                    "TOPPING ALREADY EXISTS WITH THE SPECIFIED NAME OF "
-                            + name.toUpperCase());
-        } else {
-            new Topping(name, isVegan);
         }
+        getRegistry().create(toKey(name), isVegan);
     }
 
     /**
-     * Constructs a topping with the specified name in uppercase and vegan
-     * boolean state.
+     * Constructs a topping with the specified name in uppercase, vegan boolean
+     * state and ordinal.
      * @param name name of this topping
      * @param isVegan if this topping is vegan or non-vegan
+     * @param ordinal position of this topping in the order of creation
      */
-    private Topping(String name, boolean isVegan) {
+    private Topping(String name, boolean isVegan, int ordinal) {
         this.name = name.toUpperCase();
         this.isVegan = isVegan;
-        toppings.add(this);
+        this.ordinal = ordinal;
     }
 
     /**
@@ -96,11 +327,43 @@ public class Topping {
     }
 
     /**
-     * Returns the list of toppings that have been defined by this class.
-     * @return list of toppings defined by this class
+     * Returns the ordinal of this topping, that is, its position in the order
+     * toppings were given ordinals, where the first topping has an ordinal of
+     * zero.
+     * @return ordinal of this topping
+     */
+    public int ordinal() {
+        return ordinal;
+    }
+
+    /**
+     * Returns the set of the vegan toppings that have been given an ordinal,
+     * including those no longer defined.
+     * @return set of the vegan toppings
+     */
+    static ToppingSet veganToppings() {
+        return getRegistry().veganToppings;
+    }
+
+    /**
+     * Returns the registry of the toppings that have been defined by this
+     * class, or of the toppings being staged if the current thread is staging
+     * toppings.
+     * @return registry of toppings defined by this class
      */
-    private static List<Topping> getToppings() {
-        return toppings;
+    private static Registry getRegistry() {
+        Registry staged = stagedRegistry.get();
+        return staged == null ? registry : staged;
+    }
+
+    /**
+     * Returns the key a topping with the given name is stored under, that is,
+     * the name in uppercase.
+     * @param name name of the topping
+     * @return key of the topping with the given name
+     */
+    private static String toKey(String name) {
+        return name.toUpperCase();
     }
 
     /**
@@ -110,15 +373,39 @@ public class Topping {
      *     class, in the order they are declared
      */
     public static Topping[] values() {
-        return toppings.toArray(new Topping[0]);
+        return getRegistry().values();
+    }
+
+    /**
+     * Returns the id of the ordinals of the toppings, which stays the same
+     * while toppings are created and reloaded, and changes when
+     * resetToppings() is called.
+     * <p>
+     * Something holding ordinals, such as an encoded order, can record this
+     * id to check that its ordinals still mean the same toppings.
+     * @return id of the ordinals of the toppings
+     */
+    public static long registryId() {
+        return getRegistry().id;
     }
 
     /**
-     * Returns the number of toppings defined by this class.
-     * @return number of toppings defined by this class
+     * Returns the topping that was given the specified ordinal, whether or not
+     * it is still defined, such that forOrdinal(t.ordinal()) == t.
+     * @param ordinal ordinal of the topping to be returned
+     * @return topping with the specified ordinal
+     * @throws IllegalArgumentException if no topping has been given the
+     *     specified ordinal
      */
-    private static int getNumberOfToppings() {
-        return getToppings().size();
+    public static Topping forOrdinal(int ordinal)
+            throws IllegalArgumentException {
+        Topping topping = getRegistry().get(ordinal);
+        if (topping == null) {
+            throw new IllegalArgumentException(
+                    "NO TOPPING EXISTS WITH THE SPECIFIED ORDINAL OF "
+                            + ordinal);
+        }
+        return topping;
     }
 
     /**
@@ -139,58 +426,107 @@ public class Topping {
         if (name == null) {
             throw new NullPointerException(
                     "NAME CANNOT BE NULL");
-        } else if (!(isExistingTopping(name))) {
+        }
+        String key = toKey(name);
+        Topping topping = getRegistry().get(key);
+        if (topping == null) {
             throw new IllegalArgumentException(
                     "NO TOPPING EXISTS WITH THE SPECIFIED NAME OF "
-                            + name.toUpperCase());
-        } else {
-            return getToppings()
-                    .get(indexExistingTopping(name));
+                            + key);
         }
+        return topping;
     }
 
     /**
-     * Returns true if the topping name is an existing topping name, otherwise,
-     * false
-     * @param toppingName topping name to confirm if existing topping name
-     * @return boolean for if the topping name is an existing topping name
+     * Returns the topping with the specified name, including a topping that
+     * is no longer defined, for rebuilding something recorded before the
+     * toppings changed, such as a journaled order.
+     * <p>
+     * If no topping is defined with that name, the latest topping with that
+     * name that was given an ordinal is returned, as forOrdinal(int) would.
+     * If there has never been one, a topping with that name is given the next
+     * ordinal and returned, without being defined, so values() and
+     * valueOf(String) do not include it. Such a topping is non-vegan, as
+     * whether it is vegan is not known.
+     * @param name name of the topping, in any case
+     * @return topping with the specified name
+     * @throws NullPointerException if the name is null
+     * @throws IllegalArgumentException if the name is empty
      */
-    private static boolean isExistingTopping(String toppingName) {
-        boolean isExistingTopping = false;
-
-        for (Topping existingTopping : getToppings()) {
-            if (existingTopping.getName()
-                    .equals(toppingName.toUpperCase())) {
-                isExistingTopping = true;
-                break;
-            }
+    public static Topping recordedValueOf(String name)
+            throws NullPointerException,
+            IllegalArgumentException {
+        if (name == null) {
+            throw new NullPointerException(
+                    "NAME CANNOT BE NULL");
+        } else if (name.isEmpty()) {
+            throw new IllegalArgumentException(
+                    "NAME CANNOT BE NULL OR EMPTY");
         }
+        String key = toKey(name);
+        Topping topping = getRegistry().get(key);
+        return topping == null ? getRegistry().recorded(key) : topping;
+    }
 
-        return isExistingTopping;
+    /**
+     * Resets topping such that values() returns an empty Topping[].
+     * <p>
+     * The ordinals of toppings created afterwards start from zero again, so
+     * topping sets of the previous toppings should no longer be used.
+     * <p>
+     * The toppings are replaced by a new empty registry in a single step, such
+     * that other threads either see all the previous toppings or none of them.
+     */
+    public static void resetToppings() {
+        registry = new Registry();
     }
 
     /**
-     * Returns the index of the existing topping from the toppings that have
-     * been defined by this class, based on the topping name provided,
-     * otherwise, returns negative one
-     * @param name name of the existing topping to index
-     * @return index of the existing topping
+     * Starts staging a new set of toppings on the current thread.
+     * <p>
+     * Until the staged toppings are published or discarded, the toppings
+     * created and read by the current thread are those in a new empty
+     * registry, while other threads still see the current toppings. Creating
+     * a topping with the same name and vegan flag as an earlier topping stages
+     * the earlier topping, with the same ordinal.
      */
-    private static int indexExistingTopping(String name) {
-        for (int index = 0; index < getNumberOfToppings(); index++) {
-            if (getToppings().get(index).getName()
-                    .equals(name.toUpperCase())) {
-                return index;
-            }
+    public static void stageToppings() {
+        stagedRegistry.set(new Registry(registry));
+    }
+
+    /**
+     * Replaces the toppings with those staged by the current thread, in a
+     * single step as resetToppings() does, and stops staging.
+     * @throws IllegalStateException if the current thread is not staging
+     *     toppings
+     */
+    public static void publishStagedToppings()
+            throws IllegalStateException {
+        Registry staged = stagedRegistry.get();
+        if (staged == null) {
+            throw new IllegalStateException(
+                    "TOPPINGS ARE NOT BEING STAGED");
         }
-        return -1;
+        stagedRegistry.remove();
+        registry = staged;
     }
 
     /**
-     * Resets topping such that values() returns an empty Topping[].
+     * Returns true if the current thread is staging toppings, otherwise,
+     * false.
+     * @return true if the current thread is staging toppings, otherwise,
+     *     false
      */
-    public static void resetToppings() {
-        toppings = new ArrayList<>();
+    public static boolean isStagingToppings() {
+        return stagedRegistry.get() != null;
+    }
+
+    /**
+     * Discards any toppings staged by the current thread and stops staging, so
+     * that the thread sees the current toppings again.
+     */
+    public static void discardStagedToppings() {
+        stagedRegistry.remove();
     }
 
     /**
@@ -0,0 +1,283 @@
+package pizza.ingredients;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collection;
+import java.util.List;
+
+/**
+ * ToppingSet is an immutable set of toppings stored as a bitset indexed by the
+ * ordinal of each topping.
+ * <p>
+ * Membership, set operations and the vegan check are performed a word (64
+ * toppings) at a time. Ordinals stay the same when the toppings are reloaded,
+ * so a topping set keeps its toppings across reloads, but a topping set should
+ * not be used once Topping.resetToppings() has been called.
+ */
+public final class ToppingSet {
+
+    /**
+     * empty topping set
+     */
+    public static final ToppingSet EMPTY = new ToppingSet(new long[0]);
+
+    /**
+     * number of bits in each word of the bitset
+     */
+    private static final int WORD_SIZE = Long.SIZE;
+
+    /**
+     * words of the bitset, where bit i is set if the topping with ordinal i is
+     * in this set, with no trailing zero words
+     */
+    private final long[] words;
+
+    /**
+     * Creates a topping set backed by the given words.
+     * @param words words of the bitset, which must not be modified afterwards
+     */
+    private ToppingSet(long[] words) {
+        this.words = trim(words);
+    }
+
+    /**
+     * Returns a topping set containing the given toppings.
+     * @param toppings toppings to be contained in the set
+     * @return topping set containing the given toppings
+     * @throws IllegalArgumentException if toppings is null
+     */
+    public static ToppingSet of(Collection<Topping> toppings)
+            throws IllegalArgumentException {
+        if (toppings == null) {
+            throw new IllegalArgumentException();
+        }
+        long[] words = new long[0];
+        for (Topping topping : toppings) {
+            int index = wordIndex(topping.ordinal());
+            if (index >= words.length) {
+                words = Arrays.copyOf(words, index + 1);
+            }
+            words[index] |= bit(topping.ordinal());
+        }
+        return new ToppingSet(words);
+    }
+
+    /**
+     * Returns the index of the word holding the bit for the given ordinal.
+     * @param ordinal ordinal of a topping
+     * @return index of the word holding the bit for the ordinal
+     */
+    private static int wordIndex(int ordinal) {
+        return ordinal / WORD_SIZE;
+    }
+
+    /**
+     * Returns the mask of the bit for the given ordinal within its word.
+     * @param ordinal ordinal of a topping
+     * @return mask of the bit for the ordinal
+     */
+    private static long bit(int ordinal) {
+        return 1L << (ordinal % WORD_SIZE);
+    }
+
+    /**
+     * Returns the given words without any trailing zero words.
+     * @param words words of a bitset
+     * @return words without trailing zero words
+     */
+    private static long[] trim(long[] words) {
+        int length = words.length;
+        while (length > 0 && words[length - 1] == 0) {
+            length--;
+        }
+        return length == words.length ? words : Arrays.copyOf(words, length);
+    }
+
+    /**
+     * Returns true if this set contains the given topping, otherwise, false.
+     * @param topping topping to check for
+     * @return true if this set contains the topping, otherwise, false
+     */
+    public boolean contains(Topping topping) {
+        int index = wordIndex(topping.ordinal());
+        return index < words.length
+                && (words[index] & bit(topping.ordinal())) != 0;
+    }
+
+    /**
+     * Returns true if this set contains every topping in the other set,
+     * otherwise, false.
+     * @param other set of toppings to check for
+     * @return true if this set contains all the other toppings, otherwise,
+     *     false
+     */
+    public boolean containsAll(ToppingSet other) {
+        if (other.words.length > words.length) {
+            return false;
+        }
+        for (int index = 0; index < other.words.length; index++) {
+            if ((other.words[index] & ~words[index]) != 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Returns a topping set containing the toppings of this set and the given
+     * topping.
+     * @param topping topping to be added
+     * @return topping set with the topping added
+     */
+    public ToppingSet with(Topping topping) {
+        if (contains(topping)) {
+            return this;
+        }
+        int index = wordIndex(topping.ordinal());
+        long[] result = Arrays.copyOf(words, Math.max(words.length, index + 1));
+        result[index] |= bit(topping.ordinal());
+        return new ToppingSet(result);
+    }
+
+    /**
+     * Returns a topping set containing the toppings of this set without the
+     * given topping.
+     * @param topping topping to be removed
+     * @return topping set with the topping removed
+     */
+    public ToppingSet without(Topping topping) {
+        if (!contains(topping)) {
+            return this;
+        }
+        long[] result = words.clone();
+        result[wordIndex(topping.ordinal())] &= ~bit(topping.ordinal());
+        return new ToppingSet(result);
+    }
+
+    /**
+     * Returns a topping set containing the toppings in this set or in the
+     * other set.
+     * @param other set of toppings to combine with
+     * @return union of this set and the other set
+     */
+    public ToppingSet union(ToppingSet other) {
+        long[] longer = words.length >= other.words.length
+                ? words : other.words;
+        long[] shorter = longer == words ? other.words : words;
+        long[] result = longer.clone();
+        for (int index = 0; index < shorter.length; index++) {
+            result[index] |= shorter[index];
+        }
+        return new ToppingSet(result);
+    }
+
+    /**
+     * Returns a topping set containing the toppings in both this set and the
+     * other set.
+     * @param other set of toppings to intersect with
+     * @return intersection of this set and the other set
+     */
+    public ToppingSet intersection(ToppingSet other) {
+        long[] result = new long[Math.min(words.length, other.words.length)];
+        for (int index = 0; index < result.length; index++) {
+            result[index] = words[index] & other.words[index];
+        }
+        return new ToppingSet(result);
+    }
+
+    /**
+     * Returns a topping set containing the toppings in this set that are not
+     * in the other set.
+     * @param other set of toppings to remove
+     * @return difference of this set and the other set
+     */
+    public ToppingSet difference(ToppingSet other) {
+        long[] result = words.clone();
+        int length = Math.min(words.length, other.words.length);
+        for (int index = 0; index < length; index++) {
+            result[index] &= ~other.words[index];
+        }
+        return new ToppingSet(result);
+    }
+
+    /**
+     * Returns true if every topping in this set is vegan, otherwise, false.
+     * <p>
+     * An empty set is vegan.
+     * @return true if every topping in this set is vegan, otherwise, false
+     */
+    public boolean isVegan() {
+        return Topping.veganToppings().containsAll(this);
+    }
+
+    /**
+     * Returns true if this set contains no toppings, otherwise, false.
+     * @return true if this set is empty, otherwise, false
+     */
+    public boolean isEmpty() {
+        return words.length == 0;
+    }
+
+    /**
+     * Returns the number of toppings in this set.
+     * @return number of toppings in this set
+     */
+    public int size() {
+        int size = 0;
+        for (long word : words) {
+            size += Long.bitCount(word);
+        }
+        return size;
+    }
+
+    /**
+     * Returns the toppings in this set, in the order of their ordinals.
+     * @return list of the toppings in this set
+     */
+    public List<Topping> toList() {
+        List<Topping> toppings = new ArrayList<>(size());
+        for (int index = 0; index < words.length; index++) {
+            long word = words[index];
+            while (word != 0) {
+                int ordinal = index * WORD_SIZE
+                        + Long.numberOfTrailingZeros(word);
+                toppings.add(Topping.forOrdinal(ordinal));
+                word &= word - 1;
+            }
+        }
+        return toppings;
+    }
+
+    /**
+     * Returns the hash code of this topping set.
+     * @return hash code of this topping set
+     */
+    @Override
+    public int hashCode() {
+        return Arrays.hashCode(words);
+    }
+
+    /**
+     * Returns true, if and only if, the other object is a topping set with the
+     * same toppings as this set.
+     * @param other reference object with which to compare
+     * @return true, if the other object is an equal topping set, otherwise,
+     *     false
+     */
+    @Override
+    public boolean equals(Object other) {
+        if (!(other instanceof ToppingSet)) {
+            return false;
+        }
+        return Arrays.equals(words, ((ToppingSet) other).words);
+    }
+
+    /**
+     * Returns the string representation of the toppings in this set.
+     * @return string representation of this topping set
+     */
+    @Override
+    public String toString() {
+        return toList().toString();
+    }
+}
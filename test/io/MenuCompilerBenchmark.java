@@ -0,0 +1,71 @@
+package io;
+
+import menu.Menu;
+
+import java.io.File;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the time MenuLoader.getCompiledMenu takes to load a generated menu
+ * file from its compiled file, against the time MenuLoader.getMenu takes to
+ * parse the memory-mapped menu file.
+ * <p>
+ * The number of pizza lines in the menu file may be given as the first
+ * argument and defaults to one hundred.
+ */
+public class MenuCompilerBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of pizza lines in the generated menu file
+     * @throws Exception if the generated menu cannot be loaded
+     */
+    public static void main(String[] args)
+            throws Exception {
+        int numberOfPizzas = args.length > 0
+                ? Integer.parseInt(args[0]) : 100;
+        StringBuilder text = new StringBuilder("PizzaMenu " + numberOfPizzas
+                + "\n\nBACON, HAM, PEPPERONI\nOLIVES, PINEAPPLE\n\n");
+        String[] toppings =
+                {"BACON", "HAM", "PEPPERONI", "OLIVES", "PINEAPPLE"};
+        for (int pizza = 0; pizza < numberOfPizzas; pizza++) {
+            text.append("the house special number ").append(pizza)
+                    .append(" [").append(toppings[pizza % 5]).append(", ")
+                    .append(toppings[pizza / 5 % 5]).append("]\n");
+        }
+        File file = File.createTempFile("PizzaMenu", ".txt");
+        file.deleteOnExit();
+        Path compiled = Paths.get(file.getPath() + MenuCompiler.EXTENSION);
+        compiled.toFile().deleteOnExit();
+        Files.write(file.toPath(),
+                text.toString().getBytes(StandardCharsets.UTF_8));
+
+        for (int round = 0; round < 20; round++) {
+            for (String mode : new String[] {"MappedByteBuffer",
+                    "Compiled"}) {
+                Menu.getInstance().clear();
+                resetToppings();
+
+                long start = System.nanoTime();
+                if (mode.equals("MappedByteBuffer")) {
+                    MenuLoader.getMenu(MenuLoader.map(file.getPath()));
+                } else {
+                    MenuLoader.getCompiledMenu(file.getPath());
+                }
+                long time = System.nanoTime() - start;
+
+                if (round % 5 == 4) {
+                    System.out.printf("%-16s %7d pizzas %9.3f ms%n",
+                            mode, numberOfPizzas, time / 1e6);
+                }
+            }
+        }
+        Menu.getInstance().clear();
+        resetToppings();
+    }
+}
@@ -0,0 +1,139 @@
+package io;
+
+import menu.Menu;
+import menu.MenuItem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pizza.ingredients.Topping;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class MenuCompilerTest {
+
+    private static final String MENU = "PizzaMenu 3\n"
+            + "\n"
+            + "BACON, HAM, PEPPERONI\n"
+            + "MUSHROOM, OLIVES, PINEAPPLE\n"
+            + "\n"
+            + "meat lovers [BACON, HAM, pepperoni]\n"
+            + "Hawaiian   [Ham, PINEAPPLE]\n"
+            + "vegan vegan [mushroom, olives, OLIVES]\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path menuFile;
+
+    private Path compiledFile;
+
+    @Before
+    public void setUp()
+            throws Exception {
+        Menu.getInstance().clear();
+        resetToppings();
+        menuFile = folder.getRoot().toPath().resolve("PizzaMenu.txt");
+        compiledFile = folder.getRoot().toPath()
+                .resolve("PizzaMenu.txt" + MenuCompiler.EXTENSION);
+        Files.write(menuFile, MENU.getBytes(StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Returns a description of the loaded menu and toppings.
+     */
+    private static String describeMenu() {
+        StringBuilder loaded = new StringBuilder();
+        for (Topping topping : values()) {
+            loaded.append(topping).append(topping.isVegan() ? "+" : "-");
+        }
+        for (MenuItem item : Menu.getInstance().snapshot().getItems()) {
+            loaded.append('\n').append('\'').append(item.getName())
+                    .append('\'').append(item);
+        }
+        return loaded.toString();
+    }
+
+    private static long checksum(String text) {
+        return MenuCompiler.checksum(ByteBuffer.wrap(
+                text.getBytes(StandardCharsets.UTF_8)));
+    }
+
+    @Test
+    public void compileAndLoadTest()
+            throws Exception {
+        MenuLoader.getCompiledMenu(menuFile.toString());
+        String expected = describeMenu();
+        assertTrue(Files.isRegularFile(compiledFile));
+
+        Menu.getInstance().clear();
+        resetToppings();
+        Menu menu = MenuCompiler.load(
+                MenuLoader.map(compiledFile.toString()), checksum(MENU));
+        assertNotNull(menu);
+        assertEquals(expected, describeMenu());
+        assertEquals("Vegan Vegan ", menu.snapshot().get(2).getName());
+        assertTrue(valueOf("OLIVES").isVegan());
+        assertFalse(valueOf("HAM").isVegan());
+    }
+
+    @Test
+    public void loadCompiledMenuTest()
+            throws Exception {
+        MenuLoader.getCompiledMenu(menuFile.toString());
+        String expected = describeMenu();
+        long modified = Files.getLastModifiedTime(compiledFile).toMillis();
+
+        Menu.getInstance().clear();
+        resetToppings();
+        MenuLoader.getCompiledMenu(menuFile.toString());
+        assertEquals(expected, describeMenu());
+        assertEquals(modified,
+                Files.getLastModifiedTime(compiledFile).toMillis());
+    }
+
+    @Test
+    public void staleCompiledFileTest()
+            throws Exception {
+        MenuLoader.getCompiledMenu(menuFile.toString());
+        String changed = MENU.replace("Hawaiian", "Tropical");
+        assertNull(MenuCompiler.load(
+                MenuLoader.map(compiledFile.toString()), checksum(changed)));
+
+        Files.write(menuFile, changed.getBytes(StandardCharsets.UTF_8));
+        Menu.getInstance().clear();
+        resetToppings();
+        Menu menu = MenuLoader.getCompiledMenu(menuFile.toString());
+        assertEquals("Tropical", menu.snapshot().get(1).getName());
+        Menu.getInstance().clear();
+        resetToppings();
+        assertNotNull(MenuCompiler.load(
+                MenuLoader.map(compiledFile.toString()), checksum(changed)));
+    }
+
+    @Test
+    public void corruptedCompiledFileTest()
+            throws Exception {
+        MenuLoader.getCompiledMenu(menuFile.toString());
+        byte[] bytes = Files.readAllBytes(compiledFile);
+        for (int index = 0; index < bytes.length; index++) {
+            byte[] corrupted = bytes.clone();
+            corrupted[index] ^= 0x10;
+            Menu.getInstance().clear();
+            resetToppings();
+            assertNull(MenuCompiler.load(
+                    ByteBuffer.wrap(corrupted), checksum(MENU)));
+            assertEquals(0, values().length);
+        }
+        for (int length = 0; length < bytes.length; length++) {
+            assertNull(MenuCompiler.load(
+                    ByteBuffer.wrap(bytes, 0, length), checksum(MENU)));
+        }
+    }
+}
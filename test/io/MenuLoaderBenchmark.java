@@ -0,0 +1,142 @@
+package io;
+
+import menu.Menu;
+
+import java.io.BufferedReader;
+import java.io.ByteArrayInputStream;
+import java.io.File;
+import java.io.InputStreamReader;
+import java.lang.management.ManagementFactory;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.ForkJoinPool;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the time and the bytes allocated by MenuLoader.getMenu(ByteBuffer),
+ * over bytes on the heap and over a memory-mapped file, and of
+ * MenuLoader.getMenu(ByteBuffer, ForkJoinPool) on the common pool, against
+ * MenuLoader.getMenu(BufferedReader) on a generated menu file.
+ * <p>
+ * The bytes allocated are only those of the calling thread.
+ * <p>
+ * The number of lines in the menu file may be given as the first argument and
+ * defaults to one million.
+ */
+public class MenuLoaderBenchmark {
+
+    /**
+     * number of toppings defined by the generated menu file
+     */
+    private static final int NUMBER_OF_TOPPINGS = 64;
+
+    /**
+     * Generates a menu file with the given number of lines, where every pizza
+     * has five different toppings and a name of several words.
+     * @param numberOfLines number of lines in the menu file
+     * @return bytes of the menu file
+     */
+    private static byte[] generateMenu(int numberOfLines) {
+        int numberOfPizzas = numberOfLines - 5;
+        StringBuilder text = new StringBuilder();
+        text.append("PizzaMenu ").append(numberOfPizzas).append("\n\n");
+        for (int index = 0; index < NUMBER_OF_TOPPINGS; index++) {
+            text.append(index == 0 || index == NUMBER_OF_TOPPINGS / 2
+                    ? "" : ", ").append("TOPPING").append(index);
+            if (index == NUMBER_OF_TOPPINGS / 2 - 1) {
+                text.append('\n');
+            }
+        }
+        text.append("\n\n");
+
+        int[] combination = {0, 1, 2, 3, 4};
+        for (int pizza = 0; pizza < numberOfPizzas; pizza++) {
+            text.append("the house special number ").append(pizza)
+                    .append(" of the house [");
+            for (int index = 0; index < combination.length; index++) {
+                text.append(index == 0 ? "" : ", ")
+                        .append("topping").append(combination[index]);
+            }
+            text.append("]\n");
+            nextCombination(combination);
+        }
+        return text.toString().getBytes(StandardCharsets.UTF_8);
+    }
+
+    /**
+     * Moves the given combination of topping indexes to the next combination
+     * in lexicographic order.
+     * @param combination increasing topping indexes
+     */
+    private static void nextCombination(int[] combination) {
+        int index = combination.length - 1;
+        while (combination[index]
+                == NUMBER_OF_TOPPINGS - combination.length + index) {
+            index--;
+        }
+        combination[index]++;
+        for (index++; index < combination.length; index++) {
+            combination[index] = combination[index - 1] + 1;
+        }
+    }
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of lines in the generated menu file
+     * @throws Exception if the generated menu cannot be loaded
+     */
+    public static void main(String[] args)
+            throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        int numberOfLines = args.length > 0
+                ? Integer.parseInt(args[0]) : 1_000_000;
+        byte[] menu = generateMenu(numberOfLines);
+        File file = File.createTempFile("PizzaMenu", ".txt");
+        file.deleteOnExit();
+        Files.write(file.toPath(), menu);
+
+        for (int round = 0; round < 3; round++) {
+            for (String mode : new String[] {"BufferedReader",
+                    "ByteBuffer",
+                    "MappedByteBuffer",
+                    "Parallel"}) {
+                Menu.getInstance().clear();
+                resetToppings();
+                System.gc();
+
+                long bytes = threads.getThreadAllocatedBytes(thread);
+                long start = System.nanoTime();
+                if (mode.equals("BufferedReader")) {
+                    MenuLoader.getMenu(new BufferedReader(new InputStreamReader(
+                            new ByteArrayInputStream(menu),
+                            StandardCharsets.UTF_8)));
+                } else if (mode.equals("ByteBuffer")) {
+                    MenuLoader.getMenu(ByteBuffer.wrap(menu));
+                } else if (mode.equals("MappedByteBuffer")) {
+                    MenuLoader.getMenu(MenuLoader.map(file.getPath()));
+                } else {
+                    MenuLoader.getMenu(MenuLoader.map(file.getPath()),
+                            ForkJoinPool.commonPool());
+                }
+                long time = System.nanoTime() - start;
+                bytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+                System.out.printf("%-16s %7d lines %7.1f ms %7.1f ns/line "
+                                + "%7.1f B/line%n",
+                        mode,
+                        numberOfLines,
+                        time / 1e6,
+                        (double) time / numberOfLines,
+                        (double) bytes / numberOfLines);
+            }
+        }
+        Menu.getInstance().clear();
+        resetToppings();
+    }
+}
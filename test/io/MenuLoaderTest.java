@@ -0,0 +1,399 @@
+package io;
+
+import menu.Menu;
+import menu.MenuItem;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pizza.ingredients.Topping;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileNotFoundException;
+import java.io.StringReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class MenuLoaderTest {
+
+    private static final String MENU = "PizzaMenu 3\n"
+            + "\n"
+            + "BACON, HAM, PEPPERONI\n"
+            + "MUSHROOM, OLIVES, PINEAPPLE\n"
+            + "\n"
+            + "meat lovers [BACON, HAM, pepperoni]\n"
+            + "Hawaiian   [Ham, PINEAPPLE]\n"
+            + "vegan vegan [mushroom, olives, OLIVES]\n";
+
+    private static final ForkJoinPool POOL = new ForkJoinPool(4);
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Before
+    public void setUp() {
+        Menu.getInstance().clear();
+        resetToppings();
+    }
+
+    /**
+     * Loads the given text with the line based parser if pool is null, or with
+     * the byte parser otherwise, returning a description of the loaded menu
+     * and toppings, or of the exception thrown.
+     */
+    private static String load(String text,
+                               boolean isBuffered,
+                               ForkJoinPool pool) {
+        Menu.getInstance().clear();
+        resetToppings();
+        try {
+            ByteBuffer buffer = ByteBuffer.wrap(
+                    text.getBytes(StandardCharsets.UTF_8));
+            if (isBuffered) {
+                MenuLoader.getMenu(new BufferedReader(new StringReader(text)));
+            } else if (pool == null) {
+                MenuLoader.getMenu(buffer);
+            } else {
+                MenuLoader.getMenu(buffer, pool);
+            }
+        } catch (IndexOutOfBoundsException exception) {
+            // the line based parser fails with either subclass
+            return IndexOutOfBoundsException.class.getName();
+        } catch (Exception exception) {
+            return exception.getClass().getName()
+                    + (exception.getMessage() != null
+                            && exception.getMessage().contains(" at ")
+                            ? ": " + exception.getMessage() : "");
+        }
+        return loaded();
+    }
+
+    /**
+     * Returns a description of the published menu and the toppings.
+     */
+    private static String loaded() {
+        StringBuilder loaded = new StringBuilder();
+        for (Topping topping : values()) {
+            loaded.append(topping).append(topping.isVegan() ? "+" : "-");
+        }
+        for (MenuItem item : Menu.getInstance().snapshot().getItems()) {
+            loaded.append('\n').append('\'').append(item.getName())
+                    .append('\'').append(item);
+        }
+        return loaded.toString();
+    }
+
+    private static void assertSameResult(String text) {
+        String expected = load(text, true, null);
+        assertEquals(text, expected, load(text, false, null));
+        assertEquals(text, expected, load(text, false, POOL));
+
+        // the first error reported is the one thrown when loading strictly
+        LoadReport report = MenuLoader.validate(ByteBuffer.wrap(
+                text.getBytes(StandardCharsets.UTF_8)));
+        if (report.isValid()) {
+            assertFalse(text, expected.startsWith("java.")
+                    || expected.startsWith("exceptions."));
+        } else {
+            Exception exception = report.getErrors().get(0).getException();
+            assertEquals(text, expected, exception.getClass().getName()
+                    + (exception.getMessage() != null
+                            && exception.getMessage().contains(" at ")
+                            ? ": " + exception.getMessage() : ""));
+        }
+    }
+
+    /**
+     * Generates a menu with the given number of pizza lines, each of which is
+     * replaced by the given replacements at the line numbers they are mapped
+     * to.
+     */
+    private static String generateMenu(int numberOfPizzas,
+                                       String... replacements) {
+        StringBuilder text = new StringBuilder("PizzaMenu " + numberOfPizzas
+                + "\r\n\r\nBACON, HAM, PEPPERONI\r\nOLIVES, PINEAPPLE\r\n\r\n");
+        String[] toppings =
+                {"BACON", "HAM", "PEPPERONI", "OLIVES", "PINEAPPLE"};
+        for (int lineNumber = 6; lineNumber - 6 < numberOfPizzas;
+             lineNumber++) {
+            String line = "pizza number " + lineNumber + " ["
+                    + toppings[lineNumber % 5] + ", "
+                    + toppings[lineNumber / 5 % 5] + "]";
+            for (int index = 0; index < replacements.length; index += 2) {
+                if (replacements[index].equals(String.valueOf(lineNumber))) {
+                    line = replacements[index + 1];
+                }
+            }
+            text.append(line).append(lineNumber % 2 == 0 ? "\n" : "\r\n");
+        }
+        return text.toString();
+    }
+
+    @Test
+    public void getMenuTest()
+            throws Exception {
+        Menu menu = MenuLoader.getMenu(ByteBuffer.wrap(
+                MENU.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(3, menu.snapshot().size());
+        assertEquals("Meat Lovers", menu.snapshot().get(0).getName());
+        assertEquals("Vegan Vegan ", menu.snapshot().get(2).getName());
+        assertEquals(6, values().length);
+        assertTrue(valueOf("olives").isVegan());
+        assertFalse(valueOf("ham").isVegan());
+    }
+
+    @Test
+    public void sameResultForValidMenusTest() {
+        assertSameResult(MENU);
+        assertSameResult(MENU.replace("\n", "\r\n"));
+        assertSameResult(MENU.replace("\n", "\r"));
+        assertSameResult(MENU.substring(0, MENU.length() - 1));
+        assertSameResult("PizzaMenu 0\n\nBACON\nOLIVES\n");
+        assertSameResult("PizzaMenu 1 extra\n\n  BACON  \nOLIVES\t\n\n"
+                + "  a  b  a [BACON]\n");
+        assertSameResult("PizzaMenu 1\n\nBACON, JALAPE\u00D1O\nOLIVES\n\n"
+                + "cr\u00E8me br\u00FBl\u00E9e [jalape\u00F1o, bacon]\n");
+    }
+
+    @Test
+    public void sameResultForInvalidMenusTest() {
+        for (String text : Arrays.asList(
+                "\n",
+                "Pizza",
+                "PizzaMenu",
+                "PizzaMenu3",
+                "PizzaMenu ",
+                "PizzaMenu three",
+                "PizzaMenu  3",
+                "PizzaMenu 3\nx",
+                MENU.replace("HAM, PEPPERONI", "HAM,, PEPPERONI"),
+                MENU.replace("HAM, PEPPERONI", "HAM, , PEPPERONI"),
+                MENU.replace("HAM, PEPPERONI", "HAM, ham"),
+                MENU.replace("OLIVES, PINEAPPLE\n", "OLIVES, PINEAPPLE\nx"),
+                MENU.replace("PizzaMenu 3", "PizzaMenu 4"),
+                MENU.replace("PizzaMenu 3", "PizzaMenu 2"),
+                MENU.replace("[Ham, PINEAPPLE]", "[Ham, SALAMI]"),
+                MENU.replace("[Ham, PINEAPPLE]", "[Ham,PINEAPPLE]"),
+                MENU.replace("[Ham, PINEAPPLE]", "[]"),
+                MENU.replace("[Ham, PINEAPPLE]", "Ham, PINEAPPLE]"),
+                MENU.replace("[Ham, PINEAPPLE]", "[Ham, PINEAPPLE"),
+                MENU.replace("[Ham, PINEAPPLE]", "]Ham, PINEAPPLE["),
+                MENU.replace("Hawaiian   [", "["),
+                MENU.replace("Hawaiian   [", " ["),
+                MENU.replace("[mushroom, olives, OLIVES]",
+                        "[mushroom, olives, OLIVES, HAM, BACON, PEPPERONI, "
+                                + "PINEAPPLE, HAM, BACON, PEPPERONI, HAM]"))) {
+            assertSameResult(text);
+        }
+    }
+
+    @Test
+    public void emptyBufferTest() {
+        try {
+            MenuLoader.getMenu(ByteBuffer.allocate(0));
+            fail();
+        } catch (Exception exception) {
+            assertEquals("GIVEN READER IS EMPTY at 1", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void nullBufferTest() {
+        try {
+            MenuLoader.getMenu((ByteBuffer) null);
+            fail();
+        } catch (Exception exception) {
+            assertEquals("GIVEN READER IS NULL at 1", exception.getMessage());
+        }
+    }
+
+    @Test
+    public void bufferPositionTest()
+            throws Exception {
+        byte[] bytes = ("ignored" + MENU).getBytes(StandardCharsets.UTF_8);
+        ByteBuffer buffer = ByteBuffer.wrap(bytes);
+        buffer.position("ignored".length());
+        assertEquals(3, MenuLoader.getMenu(buffer).snapshot().size());
+    }
+
+    @Test
+    public void mappedMenuTest()
+            throws Exception {
+        File file = folder.newFile("PizzaMenu.txt");
+        Files.write(file.toPath(), MENU.replace("\n", "\r\n")
+                .getBytes(StandardCharsets.UTF_8));
+        Menu menu = MenuLoader.getMenu(MenuLoader.map(file.getPath()));
+        assertEquals(3, menu.snapshot().size());
+        assertEquals("Hawaiian", menu.snapshot().get(1).getName());
+        assertEquals("Vegan Vegan ", menu.snapshot().get(2).getName());
+    }
+
+    @Test
+    public void mappedMenuLineNumberTest()
+            throws Exception {
+        File file = folder.newFile("PizzaMenu.txt");
+        Files.write(file.toPath(), MENU.replace("[Ham, PINEAPPLE]",
+                "[Ham, SALAMI]").getBytes(StandardCharsets.UTF_8));
+        try {
+            MenuLoader.getMenu(MenuLoader.map(file.getPath()));
+            fail();
+        } catch (Exception exception) {
+            assertTrue(exception.getMessage().endsWith(" at 7"));
+        }
+    }
+
+    @Test
+    public void mappedMenuEmptyFileTest()
+            throws Exception {
+        File file = folder.newFile("PizzaMenu.txt");
+        try {
+            MenuLoader.getMenu(MenuLoader.map(file.getPath()));
+            fail();
+        } catch (Exception exception) {
+            assertEquals("GIVEN READER IS EMPTY at 1", exception.getMessage());
+        }
+    }
+
+    @Test(expected = FileNotFoundException.class)
+    public void mappedMenuMissingFileTest()
+            throws Exception {
+        MenuLoader.map(new File(folder.getRoot(), "Missing.txt").getPath());
+    }
+
+    @Test
+    public void parallelMenuTest() {
+        String text = generateMenu(40_000);
+        String expected = load(text, false, null);
+        assertEquals(expected, load(text, false, POOL));
+        // equal pizzas are only registered once, keeping the first of them
+        assertEquals(15, Menu.getInstance().snapshot().size());
+        assertEquals("Pizza Number 6",
+                Menu.getInstance().snapshot().get(0).getName());
+    }
+
+    @Test
+    public void parallelMenuStagedToppingsTest()
+            throws Exception {
+        String text = generateMenu(40_000);
+        String expected = load(text, false, POOL);
+        Menu.getInstance().clear();
+        resetToppings();
+        stageToppings();
+        Menu.getInstance().stage();
+        try {
+            MenuLoader.getMenu(ByteBuffer.wrap(
+                    text.getBytes(StandardCharsets.UTF_8)), POOL);
+            Menu.getInstance().publishStaged();
+        } finally {
+            discardStagedToppings();
+            Menu.getInstance().discardStaged();
+        }
+        assertEquals(expected, loaded());
+    }
+
+    @Test
+    public void parallelMenuLowestLineNumberTest() {
+        String text = generateMenu(40_000,
+                "30000", "x [SALAMI]",
+                "20000", "x [HAM",
+                "25000", "x [SALAMI]");
+        assertEquals(load(text, true, null), load(text, false, POOL));
+        assertEquals("java.lang.IndexOutOfBoundsException",
+                load(text, false, POOL));
+
+        text = generateMenu(40_000,
+                "35000", "x [SALAMI]",
+                "15000", "x [HAM, HAM, HAM, HAM, HAM, HAM, HAM, HAM, HAM, HAM, "
+                        + "HAM, HAM, HAM, HAM, HAM]");
+        assertEquals(load(text, true, null), load(text, false, POOL));
+        assertEquals("exceptions.TooManyToppingsException",
+                load(text, false, POOL).split(":")[0]);
+
+        text = generateMenu(40_000, "39000", "x [SALAMI]", "38999", "x [HAM]");
+        assertEquals("exceptions.PizzaFormatException: PIZZA LINE CONTAINS "
+                        + "AN INVALID TOPPING NAME, SUCH THAT, IT WAS NOT "
+                        + "MENTIONED IN ANY TOPPING LINE at 39000",
+                load(text, false, POOL));
+    }
+
+    private static final String INVALID_MENU = "PizzaMenu 5\n"
+            + "\n"
+            + "BACON, , HAM, PEPPERONI\n"
+            + "MUSHROOM, OLIVES, PINEAPPLE\n"
+            + "\n"
+            + "meat lovers [BACON, HAM, pepperoni]\n"
+            + "pepperoni [SALAMI, PEPPERONI]\n"
+            + "everything [BACON, HAM, PEPPERONI, MUSHROOM, OLIVES, "
+            + "PINEAPPLE]\n"
+            + "Hawaiian   Ham, PINEAPPLE]\n"
+            + "vegan vegan [mushroom, olives, OLIVES]\n"
+            + "mushroom [mushroom]\n";
+
+    @Test
+    public void validateTest() {
+        LoadReport report = MenuLoader.validate(ByteBuffer.wrap(
+                MENU.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(report.isValid());
+        assertNull(report.getMenu());
+        assertEquals(8, report.getNumberOfLines());
+        assertEquals(0, values().length);
+        assertEquals(0, Menu.getInstance().getItems().size());
+    }
+
+    @Test
+    public void validateInvalidMenuTest() {
+        LoadReport report = MenuLoader.validate(ByteBuffer.wrap(
+                INVALID_MENU.getBytes(StandardCharsets.UTF_8)));
+        assertFalse(report.isValid());
+        assertEquals(11, report.getNumberOfLines());
+        int[] lineNumbers = {3, 7, 8, 9, 1};
+        String[] exceptions = {"PizzaFormatException",
+                "PizzaFormatException",
+                "TooManyToppingsException",
+                "PizzaFormatException",
+                "IndexOutOfBoundsException"};
+        assertEquals(lineNumbers.length, report.getErrors().size());
+        for (int index = 0; index < lineNumbers.length; index++) {
+            LoadReport.LineError error = report.getErrors().get(index);
+            assertEquals(lineNumbers[index], error.getLineNumber());
+            assertEquals(exceptions[index],
+                    error.getException().getClass().getSimpleName());
+        }
+        assertEquals("PIZZA LINE CONTAINS AN INVALID TOPPING NAME, SUCH THAT, "
+                        + "IT WAS NOT MENTIONED IN ANY TOPPING LINE at 7",
+                report.getErrors().get(1).getException().getMessage());
+        assertEquals(0, values().length);
+        assertEquals(0, Menu.getInstance().getItems().size());
+    }
+
+    @Test
+    public void loadLenientlyTest() {
+        LoadReport report = MenuLoader.loadLeniently(ByteBuffer.wrap(
+                INVALID_MENU.getBytes(StandardCharsets.UTF_8)));
+        assertEquals(5, report.getErrors().size());
+        assertSame(Menu.getInstance(), report.getMenu());
+        assertEquals(6, values().length);
+        assertEquals(3, report.getMenu().snapshot().size());
+        assertEquals("Meat Lovers",
+                report.getMenu().snapshot().get(0).getName());
+        assertEquals("Vegan Vegan ",
+                report.getMenu().snapshot().get(1).getName());
+        assertEquals("Mushroom",
+                report.getMenu().snapshot().get(2).getName());
+    }
+
+    @Test
+    public void loadLenientlyValidMenuTest() {
+        LoadReport report = MenuLoader.loadLeniently(ByteBuffer.wrap(
+                MENU.getBytes(StandardCharsets.UTF_8)));
+        assertTrue(report.isValid());
+        assertEquals(3, report.getMenu().snapshot().size());
+    }
+}
@@ -0,0 +1,167 @@
+package io;
+
+import menu.Menu;
+import menu.MenuChange;
+import menu.MenuDiff;
+import menu.MenuItem;
+import menu.MenuSnapshot;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pizza.ingredients.Topping;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class MenuReloaderTest {
+
+    private static final String MENU = "PizzaMenu 2\n"
+            + "\n"
+            + "BACON, HAM\n"
+            + "PINEAPPLE\n"
+            + "\n"
+            + "meat lovers [BACON, HAM]\n"
+            + "hawaiian [HAM, PINEAPPLE]\n";
+
+    private static final String NEW_MENU = "PizzaMenu 1\n"
+            + "\n"
+            + "CHICKEN\n"
+            + "OLIVES\n"
+            + "\n"
+            + "chicken and olives [CHICKEN, OLIVES]\n";
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path file;
+
+    private BlockingQueue<LoadReport> reports;
+
+    private MenuReloader reloader;
+
+    @Before
+    public void setUp()
+            throws IOException {
+        Menu.getInstance().clear();
+        resetToppings();
+        file = folder.getRoot().toPath().resolve("PizzaMenu.txt");
+        write(MENU);
+        reports = new LinkedBlockingQueue<>();
+        reloader = new MenuReloader(file, 50, reports::add);
+    }
+
+    @After
+    public void tearDown()
+            throws IOException {
+        reloader.close();
+    }
+
+    private void write(String text)
+            throws IOException {
+        Files.write(file, text.getBytes(StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void reloadTest()
+            throws IOException {
+        LoadReport report = reloader.reload();
+        assertTrue(report.isValid());
+        assertSame(Menu.getInstance(), report.getMenu());
+        MenuSnapshot snapshot = Menu.getInstance().snapshot();
+        assertEquals(2, snapshot.size());
+        assertEquals("Hawaiian", snapshot.get(1).getName());
+        assertEquals("[BACON, HAM, PINEAPPLE]",
+                snapshot.getToppings().toString());
+
+        write(NEW_MENU);
+        reloader.reload();
+        snapshot = Menu.getInstance().snapshot();
+        assertEquals(1, snapshot.size());
+        assertEquals("Chicken And Olives", snapshot.get(0).getName());
+        assertEquals("[CHICKEN, OLIVES]", snapshot.getToppings().toString());
+        assertEquals(2, values().length);
+        assertEquals(1, Menu.getInstance().getItems().size());
+    }
+
+    @Test
+    public void reloadKeepsUnchangedItemsTest()
+            throws IOException {
+        reloader.reload();
+        MenuSnapshot snapshot = Menu.getInstance().snapshot();
+        MenuItem meatLovers = snapshot.get(0);
+        Topping ham = valueOf("HAM");
+
+        write(MENU.replace("PizzaMenu 2", "PizzaMenu 3")
+                .replace("PINEAPPLE\n", "PINEAPPLE, OLIVES\n")
+                .replace("[HAM, PINEAPPLE]", "[HAM, OLIVES]")
+                + "ham [HAM]\n");
+        LoadReport report = reloader.reload();
+        assertTrue(report.isValid());
+        MenuDiff diff = report.getDiff();
+        assertEquals("[ADDED OLIVES]", diff.getToppingChanges().toString());
+        assertEquals(2, diff.getItemChanges().size());
+        assertEquals(MenuChange.Kind.CHANGED,
+                diff.getItemChanges().get(0).getKind());
+        assertSame(snapshot.get(1), diff.getItemChanges().get(0).getPrevious());
+        assertEquals(MenuChange.Kind.ADDED,
+                diff.getItemChanges().get(1).getKind());
+
+        assertSame(meatLovers, Menu.getInstance().snapshot().get(0));
+        assertSame(ham, valueOf("HAM"));
+        assertSame(diff.getSnapshot(), Menu.getInstance().snapshot());
+
+        assertTrue(reloader.reload().getDiff().isEmpty());
+        assertSame(diff.getSnapshot(), Menu.getInstance().snapshot());
+    }
+
+    @Test
+    public void reloadInvalidMenuTest()
+            throws IOException {
+        reloader.reload();
+        MenuSnapshot snapshot = Menu.getInstance().snapshot();
+
+        write(NEW_MENU.replace("[CHICKEN, OLIVES]", "[CHICKEN, SALAMI]"));
+        LoadReport report = reloader.reload();
+        assertFalse(report.isValid());
+        assertNull(report.getMenu());
+        assertEquals(6, report.getErrors().get(0).getLineNumber());
+
+        assertSame(snapshot, Menu.getInstance().snapshot());
+        assertEquals(2, Menu.getInstance().getItems().size());
+        assertEquals(3, values().length);
+        assertTrue(valueOf("Bacon").toString().equals("BACON"));
+    }
+
+    @Test
+    public void watchTest()
+            throws IOException,
+            InterruptedException {
+        reloader.start();
+        write(NEW_MENU);
+        LoadReport report = reports.poll(30, TimeUnit.SECONDS);
+        assertNotNull(report);
+        assertTrue(report.isValid());
+        assertEquals("Chicken And Olives",
+                Menu.getInstance().snapshot().get(0).getName());
+
+        // a single write may be seen as more than one change
+        Thread.sleep(500);
+        reports.clear();
+        write(NEW_MENU.replace("PizzaMenu 1", "PizzaMenu 2"));
+        report = reports.poll(30, TimeUnit.SECONDS);
+        assertNotNull(report);
+        assertFalse(report.isValid());
+        assertEquals("Chicken And Olives",
+                Menu.getInstance().snapshot().get(0).getName());
+    }
+}
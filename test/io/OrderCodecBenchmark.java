@@ -0,0 +1,88 @@
+package io;
+
+import menu.Menu;
+import menu.Order;
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.List;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the size of an order, and the time taken to write it, as the text
+ * of its toString() method in UTF-8 and as encoded by OrderCodec, along with
+ * the time OrderCodec takes to read the order back.
+ */
+public class OrderCodecBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     * @throws Exception if the order cannot be made
+     */
+    public static void main(String[] args)
+            throws Exception {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+        createTopping("Olives", true);
+        Order order = new Order();
+        order.setName("John Smith");
+        CustomPizza custom = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA);
+        custom.add(List.of(valueOf("Ham"), valueOf("Pineapple")));
+        order.add(custom, 3);
+        MenuPizza hawaiian = new MenuPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA,
+                List.of(valueOf("Pineapple"), valueOf("Ham")));
+        hawaiian.setName("Hawaiian");
+        order.add(hawaiian, 2);
+
+        OrderCodec codec = new OrderCodec();
+        int textSize = order.toString().getBytes(StandardCharsets.UTF_8).length;
+        int binarySize = codec.encode(order).remaining();
+        System.out.printf("text: %d bytes, binary: %d bytes (%.1fx)%n",
+                textSize, binarySize, (double) textSize / binarySize);
+
+        int numberOfOrders = 200000;
+        ByteBuffer encoded = ByteBuffer.allocate(binarySize);
+        for (int round = 0; round < 5; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int index = 0; index < numberOfOrders; index++) {
+                sink += order.toString()
+                        .getBytes(StandardCharsets.UTF_8).length;
+            }
+            long text = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int index = 0; index < numberOfOrders; index++) {
+                sink += codec.encode(order).remaining();
+            }
+            long encode = System.nanoTime() - start;
+
+            encoded.clear();
+            codec.encode(order, encoded);
+            start = System.nanoTime();
+            for (int index = 0; index < numberOfOrders; index++) {
+                encoded.rewind();
+                sink += codec.decode(encoded).getLines().size();
+            }
+            long decode = System.nanoTime() - start;
+
+            System.out.printf("round %d: text %d ns, encode %d ns (%.1fx),"
+                            + " decode %d ns per order (%d)%n",
+                    round, text / numberOfOrders, encode / numberOfOrders,
+                    (double) text / encode, decode / numberOfOrders, sink);
+        }
+    }
+}
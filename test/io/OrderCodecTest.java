@@ -0,0 +1,184 @@
+package io;
+
+import exceptions.TooManyToppingsException;
+import menu.DiscountEngine;
+import menu.DiscountRule;
+import menu.Menu;
+import menu.Order;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.PizzaSpec;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.nio.BufferOverflowException;
+import java.nio.ByteBuffer;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class OrderCodecTest {
+
+    private OrderCodec codec;
+
+    @Before
+    public void setUp() {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+        createTopping("Olives", true);
+        codec = new OrderCodec();
+    }
+
+    private static Order order()
+            throws TooManyToppingsException {
+        Order order = new Order();
+        order.setName("Zo\u00eb Smith");
+        order.setUUID(UUID.fromString("e6ef5932-7f6a-46ff-a81e-856a6afabc3c"));
+        order.setDate(LocalDate.of(2022, 10, 12));
+        order.setTime(LocalTime.of(14, 37, 12, 345));
+        CustomPizza custom = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.MOZZARELLA);
+        custom.add(List.of(valueOf("Ham"), valueOf("Olives")));
+        order.add(custom, 2);
+        MenuPizza hawaiian = new MenuPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.VEGAN,
+                List.of(valueOf("Pineapple"), valueOf("Ham"),
+                        valueOf("Pineapple")));
+        hawaiian.setName("Hawaiian");
+        order.add(hawaiian);
+        order.add(new CustomPizza(Bases.BaseSize.SMALL,
+                Sauces.Sauce.NONE,
+                Cheeses.Cheese.NONE));
+        return order;
+    }
+
+    @Test
+    public void roundTripTest()
+            throws TooManyToppingsException {
+        Order order = order();
+        Order decoded = codec.decode(codec.encode(order));
+        assertEquals(order.toString(), decoded.toString());
+        assertEquals(order.getUUID(), decoded.getUUID());
+        assertEquals(order.getTime(), decoded.getTime());
+        assertNull(decoded.getCustomerTier());
+        for (int line = 0; line < order.getLines().size(); line++) {
+            assertSame(order.getLines().get(line).getSpec(),
+                    decoded.getLines().get(line).getSpec());
+        }
+    }
+
+    @Test
+    public void nullAndDiscountedTest()
+            throws TooManyToppingsException {
+        Order order = order();
+        order.setName(null);
+        order.setDate(null);
+        order.setCustomerTier("GOLD");
+        order.setDiscountEngine(new DiscountEngine(List.of(
+                DiscountRule.forCustomerTier("GOLD", Order.DISCOUNT_25))));
+        Order decoded = codec.decode(codec.encode(order));
+        assertEquals(order.toString(), decoded.toString());
+        assertEquals(order.getTotalPriceInCents(),
+                decoded.getTotalPriceInCents());
+        assertEquals("GOLD", decoded.getCustomerTier());
+        order.setTime(null);
+        assertNull(codec.decode(codec.encode(order)).getTime());
+
+        Order empty = new Order();
+        assertEquals(empty.toString(),
+                codec.decode(codec.encode(empty)).toString());
+    }
+
+    @Test
+    public void descriptionTest()
+            throws TooManyToppingsException {
+        // a spec that is not yet pooled has its description built again
+        PizzaSpec spec = PizzaSpec.of(CustomPizza.class, "Codec Pizza",
+                Bases.BaseSize.LARGE, Sauces.Sauce.GARLIC,
+                Cheeses.Cheese.VEGAN, List.of(valueOf("Olives"),
+                        valueOf("Ham"), valueOf("Olives")));
+        CustomPizza pizza = new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.GARLIC,
+                Cheeses.Cheese.VEGAN);
+        pizza.setName("Codec Pizza");
+        pizza.add(List.of(valueOf("Olives"), valueOf("Ham"),
+                valueOf("Olives")));
+        assertEquals(pizza.toString(), spec.toString());
+    }
+
+    @Test
+    public void bufferTest()
+            throws TooManyToppingsException {
+        Order order = order();
+        ByteBuffer encoded = codec.encode(order);
+        assertSame(encoded, codec.encode(new Order()));
+
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1024);
+        codec.encode(order, buffer);
+        codec.encode(new Order(), buffer);
+        codec.encode(order, buffer);
+        buffer.flip();
+        assertEquals(order.toString(), codec.decode(buffer).toString());
+        assertEquals(0, codec.decode(buffer).getLines().size());
+        assertEquals(order.toString(), codec.decode(buffer).toString());
+        assertFalse(buffer.hasRemaining());
+
+        ByteBuffer small = ByteBuffer.allocate(20);
+        small.position(3);
+        try {
+            codec.encode(order, small);
+            fail();
+        } catch (BufferOverflowException exception) {
+            assertEquals(3, small.position());
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void truncatedTest()
+            throws TooManyToppingsException {
+        ByteBuffer encoded = codec.encode(order());
+        encoded.limit(encoded.limit() - 1);
+        codec.decode(encoded);
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void unknownToppingTest()
+            throws TooManyToppingsException {
+        ByteBuffer encoded = codec.encode(order());
+        resetToppings();
+        codec.decode(encoded);
+    }
+
+    @Test
+    public void reloadedToppingsTest()
+            throws TooManyToppingsException {
+        Order order = order();
+        ByteBuffer encoded = codec.encode(order);
+        stageToppings();
+        try {
+            createTopping("Bacon", false);
+            createTopping("Olives", true);
+            createTopping("Pineapple", true);
+            publishStagedToppings();
+        } finally {
+            discardStagedToppings();
+        }
+        Order decoded = codec.decode(encoded);
+        assertEquals(order.toString(), decoded.toString());
+        for (int line = 0; line < order.getLines().size(); line++) {
+            assertSame(order.getLines().get(line).getSpec(),
+                    decoded.getLines().get(line).getSpec());
+        }
+    }
+}
@@ -0,0 +1,126 @@
+package io;
+
+import menu.Menu;
+import menu.Order;
+import pizza.CustomPizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CompletableFuture;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the number of orders per second OrderJournal appends and forces to
+ * the disk, with orders appended from several threads at once so that their
+ * records are forced together.
+ * <p>
+ * The number of appending threads may be given as the first argument and
+ * defaults to eight, and the folder to hold the journal as the second
+ * argument, which defaults to a new temporary folder.
+ * <p>
+ * It then measures the time the last journal takes to be opened, replaying
+ * its orders from the journal records, and then from a checkpoint.
+ */
+public class OrderJournalBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of threads and folder of the journal
+     * @throws Exception if the orders cannot be appended
+     */
+    public static void main(String[] args)
+            throws Exception {
+        int numberOfThreads = args.length > 0
+                ? Integer.parseInt(args[0]) : 8;
+        Path parent = args.length > 1
+                ? Files.createTempDirectory(Path.of(args[1]), "orders")
+                : Files.createTempDirectory("orders");
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+        CustomPizza pizza = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA);
+        pizza.add(List.of(valueOf("Ham"), valueOf("Pineapple")));
+        Order order = new Order();
+        order.setName("John Smith");
+        order.add(pizza, 3);
+
+        int numberOfOrders = 200000;
+        for (int round = 0; round < 5; round++) {
+            Path directory = parent.resolve("round" + round);
+            try (OrderJournal journal = new OrderJournal(directory,
+                    o -> {})) {
+                List<Thread> threads = new ArrayList<>();
+                for (int thread = 0; thread < numberOfThreads; thread++) {
+                    threads.add(new Thread(() -> {
+                        CompletableFuture<Long> last = null;
+                        for (int index = 0;
+                             index < numberOfOrders / numberOfThreads;
+                             index++) {
+                            // keep a window of appends in flight per thread
+                            last = journal.appendAsync(order);
+                            if (index % 64 == 63) {
+                                last.join();
+                            }
+                        }
+                        last.join();
+                    }));
+                }
+                long start = System.nanoTime();
+                threads.forEach(Thread::start);
+                for (Thread thread : threads) {
+                    thread.join();
+                }
+                long time = System.nanoTime() - start;
+                System.out.printf("%2d threads %7d orders %10.0f orders/s%n",
+                        numberOfThreads, numberOfOrders,
+                        numberOfOrders / (time / 1e9));
+            }
+            if (round == 4) {
+                restart(directory, "Journal");
+                new OrderJournal(directory, o -> {}).checkpoint();
+                restart(directory, "Checkpoint");
+            }
+            for (Path file : OrderJournal.listSegments(directory)) {
+                Files.delete(file);
+            }
+            for (Path file : OrderCheckpoint.list(directory)) {
+                Files.delete(file);
+            }
+            Files.delete(directory);
+        }
+        Files.delete(parent);
+        Menu.getInstance().clear();
+        resetToppings();
+    }
+
+    /**
+     * Measures the time the journal in the given folder takes to be opened,
+     * replaying its orders.
+     * @param directory folder holding the journal
+     * @param mode what the orders are replayed from
+     * @throws Exception if the journal cannot be opened
+     */
+    private static void restart(Path directory,
+                                String mode)
+            throws Exception {
+        for (int round = 0; round < 5; round++) {
+            int[] count = new int[1];
+            long start = System.nanoTime();
+            new OrderJournal(directory, o -> count[0]++).close();
+            long time = System.nanoTime() - start;
+            if (round == 4) {
+                System.out.printf("restart from %-10s %7d orders %9.3f ms%n",
+                        mode, count[0], time / 1e6);
+            }
+        }
+    }
+}
@@ -0,0 +1,482 @@
+package io;
+
+import exceptions.TooManyToppingsException;
+import menu.DiscountEngine;
+import menu.DiscountRule;
+import menu.Menu;
+import menu.Order;
+import org.junit.Before;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import pizza.CustomPizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStreamReader;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.zip.CRC32;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class OrderJournalTest {
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    private Path directory;
+
+    @Before
+    public void setUp() {
+        Menu.getInstance().clear();
+        resetToppings();
+        createToppings();
+        directory = folder.getRoot().toPath().resolve("orders");
+    }
+
+    private static void createToppings() {
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+        createTopping("Odd, Name", true);
+    }
+
+    /**
+     * Returns the order with the given number, whose pizzas and totals depend
+     * on the number.
+     */
+    private static Order order(int number)
+            throws TooManyToppingsException {
+        Order order = new Order();
+        order.setName("Customer " + number);
+        order.setUUID(new UUID(number, number));
+        order.setDate(LocalDate.of(2022, 10, 12));
+        order.setTime(LocalTime.of(14, 37, number % 60));
+        CustomPizza pizza = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA);
+        pizza.add(List.of(valueOf("Ham"), valueOf("Pineapple")));
+        order.add(pizza, 1 + number % 7);
+        return order;
+    }
+
+    private List<Order> replay()
+            throws IOException {
+        List<Order> orders = new ArrayList<>();
+        new OrderJournal(directory, orders::add).close();
+        return orders;
+    }
+
+    @Test
+    public void appendAndReplayTest()
+            throws IOException,
+            TooManyToppingsException {
+        Order order = order(5);
+        order.setName("Tab\tNew\nLine\\, Comma");
+        order.setCustomerTier("GOLD");
+        order.setDiscountEngine(new DiscountEngine(List.of(
+                DiscountRule.forCustomerTier("GOLD", Order.DISCOUNT_25))));
+        CustomPizza odd = new CustomPizza(Bases.BaseSize.SMALL,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.VEGAN);
+        odd.add(List.of(valueOf("Odd, Name")));
+        order.add(odd);
+
+        try (OrderJournal journal = new OrderJournal(directory,
+                replayed -> fail())) {
+            assertEquals(0, journal.append(order(1)));
+            assertEquals(1, journal.append(order));
+            assertEquals(2, journal.append(new Order()));
+        }
+
+        List<Order> orders = replay();
+        assertEquals(3, orders.size());
+        assertEquals(order(1).toString(), orders.get(0).toString());
+        assertEquals(order.toString(), orders.get(1).toString());
+        assertEquals(order.getTotalPriceInCents(),
+                orders.get(1).getTotalPriceInCents());
+        assertEquals("GOLD", orders.get(1).getCustomerTier());
+        assertSame(order.getLines().get(1).getSpec(),
+                orders.get(1).getLines().get(1).getSpec());
+        assertEquals(0, orders.get(2).getLines().size());
+    }
+
+    @Test
+    public void segmentsTest()
+            throws IOException,
+            TooManyToppingsException {
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            for (int number = 0; number < 50; number++) {
+                journal.appendAsync(order(number));
+            }
+        }
+        assertTrue(OrderJournal.listSegments(directory).size() > 1);
+
+        List<Order> orders = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                orders::add)) {
+            assertEquals(50, journal.append(order(50)));
+        }
+        assertEquals(50, orders.size());
+        orders = replay();
+        assertEquals(51, orders.size());
+        for (int number = 0; number < orders.size(); number++) {
+            assertEquals(order(number).toString(),
+                    orders.get(number).toString());
+        }
+    }
+
+    @Test
+    public void incompleteRecordTest()
+            throws IOException,
+            TooManyToppingsException {
+        try (OrderJournal journal = new OrderJournal(directory,
+                replayed -> fail())) {
+            for (int number = 0; number < 3; number++) {
+                journal.append(order(number));
+            }
+        }
+        Path segment = OrderJournal.listSegments(directory).get(0);
+        long size = Files.size(segment);
+        Files.write(segment, new byte[] {0, 0, 1, 0, 1, 2, 3},
+                StandardOpenOption.APPEND);
+
+        assertEquals(3, replay().size());
+        assertEquals(size, Files.size(segment));
+
+        // a record whose checksum does not match is also discarded
+        byte[] bytes = Files.readAllBytes(segment);
+        bytes[bytes.length - 1] ^= 1;
+        Files.write(segment, bytes);
+        assertEquals(2, replay().size());
+    }
+
+    @Test
+    public void checkpointTest()
+            throws IOException,
+            TooManyToppingsException {
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            for (int number = 0; number < 30; number++) {
+                journal.appendAsync(order(number));
+            }
+            journal.append(order(30));
+            assertEquals(31, journal.checkpoint());
+            assertEquals(31, journal.checkpoint());
+        }
+        assertEquals(1, OrderCheckpoint.list(directory).size());
+        assertEquals(1, OrderJournal.listSegments(directory).size());
+
+        List<Order> orders = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                orders::add)) {
+            assertEquals(31, orders.size());
+            for (int number = 31; number < 40; number++) {
+                journal.append(order(number));
+            }
+            assertEquals(40, journal.checkpoint());
+        }
+        // the second checkpoint holds fewer orders, so it is not merged
+        assertEquals(List.of(OrderCheckpoint.pathOf(directory, 31),
+                        OrderCheckpoint.pathOf(directory, 40)),
+                OrderCheckpoint.list(directory));
+
+        orders = replay();
+        assertEquals(40, orders.size());
+        for (int number = 0; number < orders.size(); number++) {
+            assertEquals(order(number).toString(),
+                    orders.get(number).toString());
+        }
+    }
+
+    @Test
+    public void periodicCheckpointTest()
+            throws IOException,
+            InterruptedException,
+            TooManyToppingsException {
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            journal.startCheckpoints(10, 60 * 1000);
+            for (int number = 0; number < 25; number++) {
+                journal.append(order(number));
+            }
+            for (int wait = 0; wait < 100
+                    && OrderCheckpoint.list(directory).isEmpty(); wait++) {
+                Thread.sleep(100);
+            }
+        }
+        assertFalse(OrderCheckpoint.list(directory).isEmpty());
+        assertEquals(25, replay().size());
+
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> {})) {
+            journal.startCheckpoints(1000, 100);
+            journal.append(order(25));
+            for (int wait = 0; wait < 100
+                    && !OrderCheckpoint.list(directory).contains(
+                    OrderCheckpoint.pathOf(directory, 26)); wait++) {
+                Thread.sleep(100);
+            }
+        }
+        List<Path> checkpoints = OrderCheckpoint.list(directory);
+        assertEquals(OrderCheckpoint.pathOf(directory, 26),
+                checkpoints.get(checkpoints.size() - 1));
+        assertEquals(26, replay().size());
+    }
+
+    @Test
+    public void checkpointChainTest()
+            throws IOException,
+            TooManyToppingsException {
+        long totalInCents = 0;
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            for (int number = 1; number <= 64; number++) {
+                journal.append(order(number));
+                totalInCents += order(number).getTotalPriceInCents();
+                assertEquals(number, journal.checkpoint());
+                // checkpoints of one order each are merged as a binary
+                // counter carries
+                assertEquals(Integer.bitCount(number),
+                        OrderCheckpoint.list(directory).size());
+                assertEquals(number, journal.getCheckpointedOrders());
+                assertEquals(totalInCents,
+                        journal.getCheckpointedTotalPriceInCents());
+            }
+        }
+        List<Order> orders = replay();
+        assertEquals(64, orders.size());
+        for (int number = 1; number <= orders.size(); number++) {
+            assertEquals(order(number).toString(),
+                    orders.get(number - 1).toString());
+        }
+    }
+
+    @Test
+    public void withoutReplayingCheckpointsTest()
+            throws IOException,
+            TooManyToppingsException {
+        long totalInCents = 0;
+        try (OrderJournal journal = new OrderJournal(directory,
+                replayed -> fail())) {
+            for (int number = 0; number < 15; number++) {
+                journal.append(order(number));
+                if (number < 10) {
+                    totalInCents += order(number).getTotalPriceInCents();
+                }
+                if (number == 9) {
+                    journal.checkpoint();
+                }
+            }
+        }
+        List<Order> orders = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(directory,
+                OrderJournal.DEFAULT_SEGMENT_SIZE, orders::add, false)) {
+            assertEquals(10, journal.getCheckpointedOrders());
+            assertEquals(totalInCents,
+                    journal.getCheckpointedTotalPriceInCents());
+        }
+        assertEquals(5, orders.size());
+        assertEquals(order(10).toString(), orders.get(0).toString());
+    }
+
+    @Test
+    public void firstVersionCheckpointTest()
+            throws IOException,
+            TooManyToppingsException {
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            for (int number = 0; number < 15; number++) {
+                journal.append(order(number));
+                if (number == 9) {
+                    journal.checkpoint();
+                }
+            }
+        }
+        // rewrite the checkpoint without the first sequence number and the
+        // running totals, as the first version wrote it
+        Path checkpoint = OrderCheckpoint.pathOf(directory, 10);
+        ByteBuffer current = ByteBuffer.wrap(Files.readAllBytes(checkpoint));
+        ByteBuffer first = ByteBuffer.allocate(current.limit() - 24);
+        first.putInt(current.getInt(0)).putInt(1).putLong(10);
+        first.put(current.array(), 40, current.limit() - 48);
+        CRC32 checksum = new CRC32();
+        checksum.update(first.array(), 0, first.position());
+        first.putLong(checksum.getValue());
+        Files.write(checkpoint, first.array());
+
+        long totalInCents = 0;
+        for (int number = 0; number < 10; number++) {
+            totalInCents += order(number).getTotalPriceInCents();
+        }
+        List<Order> orders = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                orders::add)) {
+            assertEquals(totalInCents,
+                    journal.getCheckpointedTotalPriceInCents());
+            for (int number = 15; number < 25; number++) {
+                journal.append(order(number));
+            }
+            assertEquals(25, journal.checkpoint());
+        }
+        assertEquals(15, orders.size());
+        assertEquals(List.of(OrderCheckpoint.pathOf(directory, 25)),
+                OrderCheckpoint.list(directory));
+        orders = replay();
+        for (int number = 0; number < 25; number++) {
+            assertEquals(order(number).toString(),
+                    orders.get(number).toString());
+        }
+    }
+
+    @Test
+    public void interruptedMergeTest()
+            throws IOException,
+            TooManyToppingsException {
+        Path first = OrderCheckpoint.pathOf(directory, 10);
+        byte[] bytes;
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            for (int number = 0; number < 20; number++) {
+                journal.append(order(number));
+                if (number == 9) {
+                    journal.checkpoint();
+                }
+            }
+            bytes = Files.readAllBytes(first);
+            assertEquals(20, journal.checkpoint());
+        }
+        assertEquals(List.of(OrderCheckpoint.pathOf(directory, 20)),
+                OrderCheckpoint.list(directory));
+        // as if the journal stopped before the merged checkpoint was deleted
+        Files.write(first, bytes);
+
+        List<Order> orders = replay();
+        assertEquals(20, orders.size());
+        for (int number = 0; number < orders.size(); number++) {
+            assertEquals(order(number).toString(),
+                    orders.get(number).toString());
+        }
+        assertEquals(List.of(OrderCheckpoint.pathOf(directory, 20)),
+                OrderCheckpoint.list(directory));
+    }
+
+    @Test
+    public void removedToppingsTest()
+            throws IOException,
+            TooManyToppingsException {
+        List<String> expected = new ArrayList<>();
+        try (OrderJournal journal = new OrderJournal(directory, 1024,
+                replayed -> fail())) {
+            for (int number = 0; number < 20; number++) {
+                journal.append(order(number));
+                expected.add(order(number).toString());
+                if (number == 9) {
+                    journal.checkpoint();
+                }
+            }
+        }
+        resetToppings();
+        createTopping("Olives", true);
+
+        List<Order> orders = replay();
+        assertEquals(20, orders.size());
+        for (int number = 0; number < orders.size(); number++) {
+            assertEquals(expected.get(number), orders.get(number).toString());
+        }
+        assertEquals(List.of(valueOf("Olives")), List.of(values()));
+        assertSame(recordedValueOf("Ham"),
+                orders.get(0).getLines().get(0).getSpec().getToppings().get(0));
+    }
+
+    @Test
+    public void killTest()
+            throws IOException,
+            InterruptedException,
+            TooManyToppingsException {
+        String java = System.getProperty("java.home")
+                + File.separator + "bin" + File.separator + "java";
+        Process process = new ProcessBuilder(java,
+                "-cp", System.getProperty("java.class.path"),
+                OrderJournalTest.class.getName(),
+                directory.toString())
+                .redirectError(ProcessBuilder.Redirect.INHERIT)
+                .start();
+
+        Set<Integer> appended = new HashSet<>();
+        try (BufferedReader reader = new BufferedReader(new InputStreamReader(
+                process.getInputStream(), StandardCharsets.UTF_8))) {
+            String line;
+            while (appended.size() < 2000
+                    && (line = reader.readLine()) != null) {
+                appended.add(Integer.parseInt(line));
+            }
+            process.destroyForcibly();
+            process.waitFor();
+        }
+        assertEquals(2000, appended.size());
+
+        List<Order> orders = replay();
+        assertTrue(orders.size() >= appended.size());
+        Set<UUID> replayed = new HashSet<>();
+        for (Order order : orders) {
+            int number = (int) order.getUUID().getMostSignificantBits();
+            assertEquals(order(number).toString(), order.toString());
+            replayed.add(order.getUUID());
+        }
+        for (int number : appended) {
+            assertTrue(replayed.contains(new UUID(number, number)));
+        }
+    }
+
+    /**
+     * Appends orders to the journal in the given folder from several threads
+     * until the process is killed, printing the number of each order once it
+     * has been appended.
+     * @param args folder holding the journal
+     * @throws Exception if an order cannot be appended
+     */
+    public static void main(String[] args)
+            throws Exception {
+        createToppings();
+        OrderJournal journal = new OrderJournal(Path.of(args[0]),
+                64 * 1024, order -> {});
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 4; thread++) {
+            int first = thread;
+            threads.add(new Thread(() -> {
+                try {
+                    for (int number = first; ; number += 4) {
+                        journal.append(order(number));
+                        synchronized (System.out) {
+                            System.out.println(number);
+                            System.out.flush();
+                        }
+                    }
+                } catch (Exception exception) {
+                    exception.printStackTrace();
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+    }
+}
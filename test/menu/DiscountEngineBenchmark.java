@@ -0,0 +1,110 @@
+package menu;
+
+import pizza.CustomPizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the time an order takes to be priced by a DiscountEngine holding
+ * many active promotions, against the time it takes with the default engine.
+ * <p>
+ * The number of promotions may be given as the first argument and defaults to
+ * one thousand, spread over topping, size, quantity, time of day and customer
+ * tier rules.
+ */
+public class DiscountEngineBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of promotions
+     * @throws Exception if the pizzas cannot be made
+     */
+    public static void main(String[] args)
+            throws Exception {
+        int numberOfRules = args.length > 0
+                ? Integer.parseInt(args[0]) : 1000;
+        Menu.getInstance().clear();
+        resetToppings();
+        for (int topping = 0; topping < 50; topping++) {
+            createTopping("Topping" + topping, topping % 2 == 0);
+        }
+        Topping[] toppings = values();
+        Bases.BaseSize[] sizes = Bases.BaseSize.values();
+
+        List<DiscountRule> rules = new ArrayList<>();
+        for (int rule = 0; rule < numberOfRules; rule++) {
+            MenuItem.Discount discount = new PercentageDiscount(rule % 30);
+            switch (rule % 5) {
+                case 0:
+                    rules.add(DiscountRule.forTopping(
+                            toppings[rule % toppings.length], discount));
+                    break;
+                case 1:
+                    rules.add(DiscountRule.forSize(
+                            sizes[rule % sizes.length], discount));
+                    break;
+                case 2:
+                    rules.add(DiscountRule.forQuantity(
+                            1 + rule % 20, discount));
+                    break;
+                case 3:
+                    int start = rule * 37 % 86400;
+                    rules.add(DiscountRule.forTimeOfDay(
+                            LocalTime.ofSecondOfDay(start),
+                            LocalTime.ofSecondOfDay((start + 3600) % 86400),
+                            discount));
+                    break;
+                default:
+                    rules.add(DiscountRule.forCustomerTier(
+                            "TIER" + rule % 100, discount));
+            }
+        }
+        DiscountEngine engine = new DiscountEngine(rules);
+
+        List<CustomPizza> pizzas = new ArrayList<>();
+        for (int pizza = 0; pizza < 8; pizza++) {
+            CustomPizza custom = new CustomPizza(sizes[pizza % sizes.length],
+                    Sauces.Sauce.TOMATO, Cheeses.Cheese.MOZZARELLA);
+            custom.add(List.of(toppings[pizza], toppings[pizza * 7 % 50]));
+            pizzas.add(custom);
+        }
+
+        int numberOfOrders = 20000;
+        long checksum = 0;
+        for (int round = 0; round < 20; round++) {
+            for (String mode : new String[] {"Default", "Promotions"}) {
+                long start = System.nanoTime();
+                for (int index = 0; index < numberOfOrders; index++) {
+                    Order order = new Order();
+                    if (mode.equals("Promotions")) {
+                        order.setDiscountEngine(engine);
+                        order.setCustomerTier("TIER" + index % 100);
+                    }
+                    order.setTime(LocalTime.ofSecondOfDay(index % 86400));
+                    for (CustomPizza pizza : pizzas) {
+                        order.add(pizza);
+                    }
+                    checksum += order.getTotalPriceInCents();
+                }
+                long time = System.nanoTime() - start;
+
+                if (round % 5 == 4) {
+                    System.out.printf("%-10s %5d rules %9.1f ns/order%n",
+                            mode, mode.equals("Default") ? 2 : numberOfRules,
+                            (double) time / numberOfOrders);
+                }
+            }
+        }
+        System.out.println("checksum " + checksum);
+        Menu.getInstance().clear();
+        resetToppings();
+    }
+}
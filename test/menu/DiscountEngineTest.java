@@ -0,0 +1,154 @@
+package menu;
+
+import exceptions.TooManyToppingsException;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.CustomPizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class DiscountEngineTest {
+
+    private static final MenuItem.Discount DISCOUNT_50 =
+            new PercentageDiscount(50);
+
+    private CustomPizza hamPizza;
+
+    private CustomPizza smallPizza;
+
+    @Before
+    public void setUp()
+            throws TooManyToppingsException {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Bacon", false);
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+
+        // $9.00
+        hamPizza = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA);
+        hamPizza.add(List.of(valueOf("Ham"), valueOf("Pineapple")));
+        // $3.00
+        smallPizza = new CustomPizza(Bases.BaseSize.SMALL,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.VEGAN);
+    }
+
+    private static OrderLine line(CustomPizza pizza, int quantity) {
+        return new OrderLine(pizza.toSpec(), quantity);
+    }
+
+    @Test
+    public void lineRulesTest() {
+        DiscountEngine engine = new DiscountEngine(List.of(
+                DiscountRule.forTopping(valueOf("Ham"), Order.DISCOUNT_10),
+                DiscountRule.forTopping(valueOf("Pineapple"),
+                        Order.DISCOUNT_25),
+                DiscountRule.forTopping(valueOf("Bacon"), DISCOUNT_50),
+                DiscountRule.forSize(Bases.BaseSize.SMALL, DISCOUNT_50)));
+        // the best line rule applies, rules do not stack
+        assertEquals(1350, engine.applyToLine(line(hamPizza, 2)));
+        assertEquals(150, engine.applyToLine(line(smallPizza, 1)));
+        assertEquals(900, DiscountEngine.NONE.applyToLine(line(hamPizza, 1)));
+    }
+
+    @Test
+    public void orderRulesTest() {
+        DiscountEngine engine = new DiscountEngine(List.of(
+                DiscountRule.forQuantity(6, Order.DISCOUNT_25),
+                DiscountRule.forQuantity(3, Order.DISCOUNT_10),
+                DiscountRule.forTimeOfDay(LocalTime.of(22, 0),
+                        LocalTime.of(2, 0), DISCOUNT_50),
+                DiscountRule.forTimeOfDay(LocalTime.of(15, 0),
+                        LocalTime.of(17, 0), Order.DISCOUNT_25),
+                DiscountRule.forCustomerTier("GOLD", Order.DISCOUNT_25)));
+        LocalTime noon = LocalTime.NOON;
+        assertEquals(1000, engine.applyToOrder(1000, 2, noon, null));
+        assertEquals(900, engine.applyToOrder(1000, 3, noon, null));
+        assertEquals(750, engine.applyToOrder(1000, 6, noon, null));
+        assertEquals(750, engine.applyToOrder(1000, 1, noon, "GOLD"));
+        assertEquals(1000, engine.applyToOrder(1000, 1, noon, "SILVER"));
+        assertEquals(1000, engine.applyToOrder(1000, 1, null, null));
+
+        assertEquals(750, engine.applyToOrder(1000, 1,
+                LocalTime.of(15, 0), null));
+        assertEquals(1000, engine.applyToOrder(1000, 1,
+                LocalTime.of(17, 0), null));
+        assertEquals(500, engine.applyToOrder(1000, 1,
+                LocalTime.of(23, 30), null));
+        assertEquals(500, engine.applyToOrder(1000, 1,
+                LocalTime.MIDNIGHT, null));
+        assertEquals(500, engine.applyToOrder(1000, 1,
+                LocalTime.of(1, 59, 59), null));
+        assertEquals(1000, engine.applyToOrder(1000, 1,
+                LocalTime.of(2, 0), null));
+    }
+
+    @Test
+    public void allDayRuleTest() {
+        DiscountEngine engine = new DiscountEngine(List.of(
+                DiscountRule.forTimeOfDay(LocalTime.MIDNIGHT,
+                        LocalTime.MIDNIGHT, Order.DISCOUNT_10)));
+        assertEquals(900, engine.applyToOrder(1000, 1,
+                LocalTime.of(13, 0), null));
+    }
+
+    @Test
+    public void orderTest() {
+        Order order = new Order();
+        order.setTime(LocalTime.NOON);
+        order.add(hamPizza, 2);
+        order.add(smallPizza);
+        assertEquals(1890, order.getTotalPriceInCents());
+
+        order.setDiscountEngine(new DiscountEngine(List.of(
+                DiscountRule.forSize(Bases.BaseSize.SMALL, DISCOUNT_50),
+                DiscountRule.forCustomerTier("GOLD", Order.DISCOUNT_10))));
+        assertEquals(1950, order.getTotalPriceInCents());
+        order.setCustomerTier("GOLD");
+        assertEquals(1755, order.getTotalPriceInCents());
+        assertTrue(order.toString().endsWith(
+                "Multi item discount applied of $21.00 applied, "
+                        + "new Total: $17.55\n"));
+
+        order.setDiscountEngine(DiscountEngine.NONE);
+        assertEquals(2100, order.getTotalPriceInCents());
+        assertTrue(order.toString().endsWith("Total: $21.00\n"));
+    }
+
+    @Test
+    public void manyRulesTest() {
+        List<DiscountRule> rules = new ArrayList<>();
+        for (int index = 0; index < 1000; index++) {
+            rules.add(DiscountRule.forCustomerTier("TIER" + index,
+                    new PercentageDiscount(index % 100)));
+            rules.add(DiscountRule.forTimeOfDay(
+                    LocalTime.ofSecondOfDay(index * 60),
+                    LocalTime.ofSecondOfDay(index * 60 + 30),
+                    new PercentageDiscount(index % 100)));
+        }
+        DiscountEngine engine = new DiscountEngine(rules);
+        assertEquals(10000, engine.applyToOrder(10000, 1, null, "TIER0"));
+        assertEquals(5100, engine.applyToOrder(10000, 1, null, "TIER49"));
+        assertEquals(8800, engine.applyToOrder(10000, 1,
+                LocalTime.ofSecondOfDay(12 * 60 + 29), null));
+        assertEquals(10000, engine.applyToOrder(10000, 1,
+                LocalTime.ofSecondOfDay(12 * 60 + 30), null));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullRuleTest() {
+        new DiscountEngine(java.util.Arrays.asList(
+                DiscountRule.forQuantity(3, Order.DISCOUNT_10), null));
+    }
+}
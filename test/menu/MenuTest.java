@@ -0,0 +1,472 @@
+package menu;
+
+import exceptions.TooManyToppingsException;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.Pizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class MenuTest {
+
+    private static final int NUMBER_OF_TOPPINGS = 24;
+
+    private Menu menu;
+
+    @Before
+    public void setUp() {
+        menu = Menu.getInstance();
+        menu.clear();
+        resetToppings();
+        for (int index = 0; index < NUMBER_OF_TOPPINGS; index++) {
+            createTopping("Topping" + index, index % 2 == 0);
+        }
+    }
+
+    /**
+     * Creates the given number of distinct menu pizzas, each with four
+     * different toppings.
+     */
+    private static List<MenuPizza> createPizzas(int numberOfPizzas)
+            throws TooManyToppingsException {
+        Topping[] toppings = values();
+        List<MenuPizza> pizzas = new ArrayList<>();
+        for (int a = 0; a < NUMBER_OF_TOPPINGS; a++) {
+            for (int b = a + 1; b < NUMBER_OF_TOPPINGS; b++) {
+                for (int c = b + 1; c < NUMBER_OF_TOPPINGS; c++) {
+                    for (int d = c + 1; d < NUMBER_OF_TOPPINGS; d++) {
+                        for (Bases.BaseSize size : Bases.BaseSize.values()) {
+                            for (Sauces.Sauce sauce : Sauces.Sauce.values()) {
+                                if (pizzas.size() == numberOfPizzas) {
+                                    return pizzas;
+                                }
+                                pizzas.add(new MenuPizza(size,
+                                        sauce,
+                                        Cheeses.Cheese.MOZZARELLA,
+                                        List.of(toppings[a], toppings[b],
+                                                toppings[c], toppings[d])));
+                            }
+                        }
+                    }
+                }
+            }
+        }
+        return pizzas;
+    }
+
+    @Test
+    public void registerMenuItemTest()
+            throws TooManyToppingsException {
+        CustomPizza pizza1 = new CustomPizza();
+        CustomPizza pizza2 = new CustomPizza();
+        assertEquals(1, menu.getItems().size());
+        assertSame(pizza1, menu.get(0));
+        menu.registerMenuItem(pizza2);
+        assertEquals(1, menu.getItems().size());
+    }
+
+    @Test
+    public void registerManyMenuItemsTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(110_000);
+        List<MenuItem> items = menu.getItems();
+        assertEquals(110_000, items.size());
+        for (int index = 0; index < pizzas.size(); index++) {
+            assertSame(pizzas.get(index), items.get(index));
+        }
+
+        // registering an equal pizza a second time has no effect
+        menu.registerMenuItem(new MenuPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA,
+                List.of(valueOf("Topping7"), valueOf("Topping3"),
+                        valueOf("Topping9"), valueOf("Topping1"))));
+        assertEquals(110_000, menu.getItems().size());
+
+        menu.clear();
+        assertEquals(0, menu.getItems().size());
+    }
+
+    @Test
+    public void updateMenuItemTest()
+            throws TooManyToppingsException {
+        CustomPizza pizza = new CustomPizza();
+        pizza.add(valueOf("Topping1"));
+
+        // an equal pizza is only seen by the menu after the change
+        CustomPizza other = new CustomPizza();
+        assertEquals(2, menu.getItems().size());
+        other.add(valueOf("Topping1"));
+        menu.registerMenuItem(other);
+        assertEquals(2, menu.getItems().size());
+
+        pizza.set(Bases.BaseSize.LARGE);
+        menu.registerMenuItem(new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA));
+        assertEquals(3, menu.getItems().size());
+    }
+
+    @Test
+    public void findByNameTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(3);
+        pizzas.get(0).setName("Hawaiian");
+        pizzas.get(1).setName("Meat Lovers");
+        pizzas.get(2).setName("Hawaiian");
+        assertSame(pizzas.get(0), menu.findByName("Hawaiian"));
+        assertSame(pizzas.get(1), menu.findByName("Meat Lovers"));
+        assertNull(menu.findByName("hawaiian"));
+        assertNull(menu.findByName("Margherita"));
+
+        pizzas.get(0).setName("Margherita");
+        assertSame(pizzas.get(2), menu.findByName("Hawaiian"));
+        assertSame(pizzas.get(0), menu.findByName("Margherita"));
+        pizzas.get(0).setName("Hawaiian");
+        assertSame(pizzas.get(0), menu.findByName("Hawaiian"));
+
+        menu.clear();
+        assertNull(menu.findByName("Hawaiian"));
+    }
+
+    @Test
+    public void searchByPrefixTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(100_000);
+        for (int index = 0; index < pizzas.size(); index++) {
+            pizzas.get(index).setName("Pizza " + index);
+        }
+        pizzas.get(500).setName("Hawaiian");
+        pizzas.get(100).setName("Ham and Cheese");
+        pizzas.get(300).setName("hawaiian");
+
+        List<MenuItem> found = menu.searchByPrefix("HA", 10);
+        assertEquals(3, found.size());
+        assertSame(pizzas.get(100), found.get(0));
+        assertSame(pizzas.get(300), found.get(1));
+        assertSame(pizzas.get(500), found.get(2));
+
+        assertEquals(List.of(pizzas.get(300), pizzas.get(500)),
+                menu.searchByPrefix("hawaiian", 10));
+        assertEquals(List.of(pizzas.get(100)),
+                menu.searchByPrefix("Ha", 1));
+        assertEquals(List.of(pizzas.get(1), pizzas.get(10)),
+                menu.searchByPrefix("pizza 1", 2));
+        assertEquals(11, menu.searchByPrefix("Pizza 9999", 20).size());
+        assertEquals(0, menu.searchByPrefix("Margherita", 10).size());
+        assertEquals(0, menu.searchByPrefix("Ha", 0).size());
+
+        menu.clear();
+        assertEquals(0, menu.searchByPrefix("", 10).size());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void searchByPrefixNegativeLimitTest() {
+        menu.searchByPrefix("Ha", -1);
+    }
+
+    @Test
+    public void snapshotTest()
+            throws TooManyToppingsException {
+        MenuSnapshot empty = menu.publish();
+        assertEquals(0, empty.size());
+        List<MenuPizza> pizzas = createPizzas(10);
+        pizzas.get(3).setName("Hawaiian");
+        assertSame(empty, menu.snapshot());
+
+        MenuSnapshot snapshot = menu.publish();
+        assertSame(snapshot, menu.snapshot());
+        assertEquals(empty.getVersion() + 1, snapshot.getVersion());
+        assertEquals(new ArrayList<MenuItem>(pizzas), snapshot.getItems());
+        assertEquals(pizzas.get(3), snapshot.findByName("Hawaiian"));
+        assertNotSame(pizzas.get(3), snapshot.findByName("Hawaiian"));
+        assertSame(snapshot.get(3), snapshot.findByName("Hawaiian"));
+        assertEquals(List.of(pizzas.get(3)),
+                snapshot.searchByPrefix("haw", 5));
+        assertEquals(10, snapshot.searchByPrefix("", 20).size());
+
+        menu.clear();
+        assertSame(snapshot, menu.snapshot());
+        assertEquals(10, snapshot.size());
+        assertEquals(0, menu.publish().size());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void snapshotImmutableTest() {
+        menu.publish().getItems().add(new CustomPizza());
+    }
+
+    @Test
+    public void snapshotItemsReadOnlyTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(2);
+        pizzas.get(0).setName("Hawaiian");
+        MenuSnapshot snapshot = menu.publish();
+        Pizza hawaiian = (Pizza) snapshot.findByName("Hawaiian");
+        String expected = hawaiian.toString();
+        assertTrue(hawaiian.isReadOnly());
+        try {
+            hawaiian.set(Bases.BaseSize.SMALL);
+            fail();
+        } catch (UnsupportedOperationException expectedException) {
+            assertEquals(expected, hawaiian.toString());
+        }
+
+        Pizza copy = hawaiian.copy();
+        assertFalse(copy.isReadOnly());
+        copy.set(Bases.BaseSize.SMALL);
+        assertEquals(expected, hawaiian.toString());
+        assertEquals(2, menu.getItems().size());
+
+        pizzas.get(0).set(Bases.BaseSize.SMALL);
+        assertEquals(expected, hawaiian.toString());
+        MenuSnapshot published = menu.publish();
+        assertEquals(copy, published.findByName("Hawaiian"));
+        assertSame(snapshot.get(1), published.get(1));
+
+        // a change that keeps the pizza equal still makes a new copy
+        pizzas.get(1).setName("Renamed");
+        MenuSnapshot renamed = menu.publish();
+        assertNotSame(published.get(1), renamed.get(1));
+        assertEquals("Renamed", renamed.get(1).getName());
+        assertSame(published.get(0), renamed.get(0));
+    }
+
+    @Test
+    public void orderSnapshotTest()
+            throws TooManyToppingsException {
+        createPizzas(5);
+        MenuSnapshot snapshot = menu.publish();
+        Order order = new Order();
+        menu.clear();
+        createPizzas(2);
+        menu.publish();
+        assertSame(snapshot, order.getMenuSnapshot());
+        assertEquals(5, order.getMenuSnapshot().size());
+        assertEquals(2, new Order().getMenuSnapshot().size());
+    }
+
+    @Test
+    public void concurrentPublishTest()
+            throws Exception {
+        int numberOfPizzas = 500;
+        menu.publish();
+        AtomicBoolean isRunning = new AtomicBoolean(true);
+        ConcurrentLinkedQueue<Throwable> failures =
+                new ConcurrentLinkedQueue<>();
+        List<Thread> readers = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            Thread reader = new Thread(() -> {
+                long version = 0;
+                while (isRunning.get()) {
+                    MenuSnapshot snapshot = menu.snapshot();
+                    try {
+                        assertTrue(snapshot.getVersion() >= version);
+                        assertTrue(snapshot.size() == 0
+                                || snapshot.size() == numberOfPizzas);
+                        version = snapshot.getVersion();
+                    } catch (Throwable throwable) {
+                        failures.add(throwable);
+                        return;
+                    }
+                }
+            });
+            readers.add(reader);
+            reader.start();
+        }
+        for (int reload = 0; reload < 50; reload++) {
+            menu.clear();
+            createPizzas(numberOfPizzas);
+            menu.publish();
+        }
+        isRunning.set(false);
+        for (Thread reader : readers) {
+            reader.join();
+        }
+        assertTrue(failures.toString(), failures.isEmpty());
+    }
+
+    @Test
+    public void stageTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(3);
+        MenuSnapshot snapshot = menu.publish();
+        menu.stage();
+        try {
+            new MenuPizza(Bases.BaseSize.SMALL,
+                    Sauces.Sauce.TOMATO,
+                    Cheeses.Cheese.MOZZARELLA,
+                    List.of()).setName("Staged");
+            assertEquals(new ArrayList<MenuItem>(pizzas), menu.getItems());
+            assertNull(menu.findByName("Staged"));
+            assertSame(snapshot, menu.snapshot());
+
+            MenuSnapshot staged = menu.publishStaged().getSnapshot();
+            assertSame(staged, menu.snapshot());
+            assertEquals(snapshot.getVersion() + 1, staged.getVersion());
+            assertEquals(1, staged.size());
+            assertEquals("Staged", staged.get(0).getName());
+            assertEquals(staged.get(0), menu.findByName("Staged"));
+            assertEquals(NUMBER_OF_TOPPINGS, staged.getToppings().size());
+        } finally {
+            menu.discardStaged();
+        }
+    }
+
+    @Test
+    public void publishStagedToppingsTest()
+            throws TooManyToppingsException {
+        createPizzas(1).get(0).setName("Pizza");
+        menu.publish();
+        stageToppings();
+        menu.stage();
+        try {
+            for (int index = 0; index < NUMBER_OF_TOPPINGS; index++) {
+                createTopping("Topping" + index, index % 2 == 0);
+            }
+            createTopping("Olives", true);
+            createPizzas(1).get(0).setName("Pizza");
+            assertTrue(isStagingToppings());
+            MenuDiff diff = menu.publishStaged();
+            assertFalse(isStagingToppings());
+            assertEquals("[ADDED OLIVES]",
+                    diff.getToppingChanges().toString());
+            assertEquals(List.of(values()), menu.snapshot().getToppings());
+            assertEquals("OLIVES", valueOf("Olives").toString());
+        } finally {
+            discardStagedToppings();
+            menu.discardStaged();
+        }
+    }
+
+    @Test
+    public void publishStagedDiffTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(3);
+        pizzas.get(0).setName("Kept");
+        pizzas.get(1).setName("Changed");
+        pizzas.get(2).setName("Removed");
+        MenuSnapshot snapshot = menu.publish();
+        List<MenuDiff> diffs = new ArrayList<>();
+        Consumer<MenuDiff> listener = diffs::add;
+        menu.addChangeListener(listener);
+        try {
+            menu.stage();
+            List<MenuPizza> staged = createPizzas(2);
+            staged.get(0).setName("Kept");
+            staged.get(1).setName("Changed");
+            staged.get(1).set(Bases.BaseSize.SMALL);
+            new MenuPizza(Bases.BaseSize.SMALL,
+                    Sauces.Sauce.GARLIC,
+                    Cheeses.Cheese.VEGAN,
+                    List.of()).setName("Added");
+            MenuDiff diff = menu.publishStaged();
+
+            assertEquals(List.of(diff), diffs);
+            assertTrue(diff.getToppingChanges().isEmpty());
+            List<MenuChange<MenuItem>> changes = diff.getItemChanges();
+            assertEquals(3, changes.size());
+            assertEquals(MenuChange.Kind.CHANGED, changes.get(0).getKind());
+            assertSame(snapshot.get(1), changes.get(0).getPrevious());
+            assertEquals(staged.get(1), changes.get(0).getCurrent());
+            assertEquals(MenuChange.Kind.ADDED, changes.get(1).getKind());
+            assertEquals("Added", changes.get(1).getCurrent().getName());
+            assertEquals(MenuChange.Kind.REMOVED, changes.get(2).getKind());
+            assertSame(snapshot.get(2), changes.get(2).getPrevious());
+
+            MenuSnapshot published = diff.getSnapshot();
+            assertSame(published, menu.snapshot());
+            assertEquals(snapshot.getVersion() + 1, published.getVersion());
+            assertSame(snapshot.get(0), published.get(0));
+            assertSame(published.get(1), changes.get(0).getCurrent());
+            assertSame(pizzas.get(0), menu.findByName("Kept"));
+            assertSame(staged.get(1), menu.findByName("Changed"));
+            assertNull(menu.findByName("Removed"));
+            assertEquals(3, menu.getItems().size());
+        } finally {
+            menu.discardStaged();
+            menu.removeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void publishStagedKeepsRegisteredItemsTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(2);
+        pizzas.get(0).setName("Kept");
+        pizzas.get(1).setName("Removed");
+        menu.publish();
+        CustomPizza custom = new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.VEGAN);
+        custom.setName("Removed");
+        for (int reload = 0; reload < 2; reload++) {
+            menu.stage();
+            try {
+                createPizzas(1).get(0).setName("Kept");
+                MenuDiff diff = menu.publishStaged();
+                assertEquals(1 - reload, diff.getItemChanges().size());
+            } finally {
+                menu.discardStaged();
+            }
+            assertEquals(List.of(pizzas.get(0), custom), menu.getItems());
+            assertSame(custom, menu.findByName("Removed"));
+        }
+        assertEquals(List.of(pizzas.get(0), custom),
+                menu.snapshot().getItems());
+    }
+
+    @Test
+    public void publishStagedWithoutChangesTest()
+            throws TooManyToppingsException {
+        createPizzas(3).get(0).setName("Pizza");
+        MenuSnapshot snapshot = menu.publish();
+        List<MenuItem> items = menu.getItems();
+        List<MenuDiff> diffs = new ArrayList<>();
+        Consumer<MenuDiff> listener = diffs::add;
+        menu.addChangeListener(listener);
+        try {
+            menu.stage();
+            createPizzas(3).get(0).setName("Pizza");
+            MenuDiff diff = menu.publishStaged();
+            assertTrue(diff.isEmpty());
+            assertSame(snapshot, diff.getSnapshot());
+            assertSame(snapshot, menu.snapshot());
+            assertTrue(diffs.isEmpty());
+            for (int index = 0; index < items.size(); index++) {
+                assertSame(items.get(index), menu.get(index));
+            }
+        } finally {
+            menu.discardStaged();
+            menu.removeChangeListener(listener);
+        }
+    }
+
+    @Test
+    public void discardStagedTest()
+            throws TooManyToppingsException {
+        List<MenuPizza> pizzas = createPizzas(3);
+        menu.stage();
+        createPizzas(5);
+        menu.discardStaged();
+        assertEquals(new ArrayList<MenuItem>(pizzas), menu.getItems());
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void publishStagedNotStagingTest() {
+        menu.publishStaged();
+    }
+}
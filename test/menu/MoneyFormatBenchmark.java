@@ -0,0 +1,46 @@
+package menu;
+
+import java.text.DecimalFormat;
+
+/**
+ * Measures the time taken to format a price with a new DecimalFormat, as
+ * prices were formatted before, with String.format(), and with MoneyFormat.
+ */
+public class MoneyFormatBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     */
+    public static void main(String[] args) {
+        int numberOfPrices = 1000000;
+        for (int round = 0; round < 5; round++) {
+            long sink = 0;
+            long start = System.nanoTime();
+            for (int index = 0; index < numberOfPrices; index++) {
+                sink += new DecimalFormat("#.00")
+                        .format(index % 5000 / 100.0).length();
+            }
+            long decimalFormat = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int index = 0; index < numberOfPrices; index++) {
+                sink += String.format("$%.2f", index % 5000 / 100.0).length();
+            }
+            long stringFormat = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            for (int index = 0; index < numberOfPrices; index++) {
+                sink += MoneyFormat.WITHOUT_ZERO_DOLLARS
+                        .format(index % 5000).length();
+            }
+            long moneyFormat = System.nanoTime() - start;
+
+            System.out.printf("round %d: DecimalFormat %d ns, String.format"
+                            + " %d ns, MoneyFormat %d ns per price (%d)%n",
+                    round, decimalFormat / numberOfPrices,
+                    stringFormat / numberOfPrices,
+                    moneyFormat / numberOfPrices, sink);
+        }
+    }
+}
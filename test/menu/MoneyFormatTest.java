@@ -0,0 +1,66 @@
+package menu;
+
+import org.junit.Test;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.text.DecimalFormatSymbols;
+import java.util.Locale;
+import java.util.Random;
+
+import static org.junit.Assert.*;
+
+public class MoneyFormatTest {
+
+    private static final DecimalFormatSymbols SYMBOLS =
+            DecimalFormatSymbols.getInstance(Locale.ENGLISH);
+
+    private static void assertFormats(long priceInCents) {
+        double price = priceInCents / 100.0;
+        String withZero = new DecimalFormat("0.00", SYMBOLS).format(price);
+        assertEquals(withZero,
+                MoneyFormat.WITH_ZERO_DOLLARS.format(priceInCents));
+        assertEquals(withZero, String.format(Locale.ENGLISH, "%.2f", price));
+        assertEquals(new DecimalFormat("#.00", SYMBOLS).format(price),
+                MoneyFormat.WITHOUT_ZERO_DOLLARS.format(priceInCents));
+    }
+
+    @Test
+    public void matchesPatternsTest() {
+        for (long priceInCents = -20000; priceInCents <= 20000;
+             priceInCents++) {
+            assertFormats(priceInCents);
+        }
+        Random random = new Random(42);
+        for (int index = 0; index < 10000; index++) {
+            // prices up to about ten billion dollars
+            assertFormats(random.nextLong() % 1_000_000_000_000L);
+        }
+    }
+
+    @Test
+    public void examplesTest() {
+        assertEquals(".50", MoneyFormat.WITHOUT_ZERO_DOLLARS.format(50));
+        assertEquals("0.50", MoneyFormat.WITH_ZERO_DOLLARS.format(50));
+        assertEquals(".00", MoneyFormat.WITHOUT_ZERO_DOLLARS.format(0));
+        assertEquals("12.05", MoneyFormat.WITH_ZERO_DOLLARS.format(1205));
+        assertEquals("-.07", MoneyFormat.WITHOUT_ZERO_DOLLARS.format(-7));
+        assertEquals("-92233720368547758.08",
+                MoneyFormat.WITH_ZERO_DOLLARS.format(Long.MIN_VALUE));
+        assertSame(MoneyFormat.WITH_ZERO_DOLLARS.format(1100),
+                MoneyFormat.WITH_ZERO_DOLLARS.format(1100));
+    }
+
+    @Test
+    public void appendTest()
+            throws IOException {
+        StringBuilder builder = new StringBuilder("$");
+        assertSame(builder,
+                MoneyFormat.WITH_ZERO_DOLLARS.appendTo(builder, 3240));
+        assertEquals("$32.40", builder.toString());
+        StringWriter writer = new StringWriter();
+        MoneyFormat.WITHOUT_ZERO_DOLLARS.appendTo(writer, 99);
+        assertEquals(".99", writer.toString());
+    }
+}
@@ -0,0 +1,70 @@
+package menu;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Measures the number of UUIDs per second generated by the random and time
+ * ordered order ID generators, from several threads at once.
+ * <p>
+ * The number of threads may be given as the first argument and defaults to
+ * the number of available processors.
+ */
+public class OrderIdGeneratorBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args optional number of threads
+     * @throws InterruptedException if interrupted while waiting for a thread
+     */
+    public static void main(String[] args)
+            throws InterruptedException {
+        int numberOfThreads = args.length > 0 ? Integer.parseInt(args[0])
+                : Runtime.getRuntime().availableProcessors();
+        int numberOfIds = 2000000;
+        for (int round = 0; round < 5; round++) {
+            System.out.printf("round %d: random %.0f, time ordered %.0f"
+                            + " UUIDs per second with %d threads%n",
+                    round,
+                    idsPerSecond(OrderIdGenerator.RANDOM, numberOfThreads,
+                            numberOfIds),
+                    idsPerSecond(OrderIdGenerator.TIME_ORDERED,
+                            numberOfThreads, numberOfIds),
+                    numberOfThreads);
+        }
+    }
+
+    /**
+     * Returns the number of UUIDs per second the given generator generates
+     * from the given number of threads.
+     * @param generator generator of UUIDs
+     * @param numberOfThreads number of generating threads
+     * @param numberOfIds number of UUIDs generated by each thread
+     * @return number of UUIDs generated per second
+     * @throws InterruptedException if interrupted while waiting for a thread
+     */
+    private static double idsPerSecond(OrderIdGenerator generator,
+                                       int numberOfThreads,
+                                       int numberOfIds)
+            throws InterruptedException {
+        AtomicLong sink = new AtomicLong();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            threads.add(new Thread(() -> {
+                long bits = 0;
+                for (int index = 0; index < numberOfIds; index++) {
+                    bits ^= generator.nextId().getLeastSignificantBits();
+                }
+                sink.addAndGet(bits);
+            }));
+        }
+        long start = System.nanoTime();
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        long elapsed = System.nanoTime() - start;
+        return (double) numberOfThreads * numberOfIds * 1e9 / elapsed;
+    }
+}
@@ -0,0 +1,73 @@
+package menu;
+
+import org.junit.After;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Set;
+import java.util.UUID;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static org.junit.Assert.*;
+
+public class OrderIdGeneratorTest {
+
+    @After
+    public void tearDown() {
+        Order.setDefaultIdGenerator(OrderIdGenerator.TIME_ORDERED);
+    }
+
+    @Test
+    public void timeOrderedTest() {
+        long before = System.currentTimeMillis();
+        UUID previous = OrderIdGenerator.TIME_ORDERED.nextId();
+        for (int index = 0; index < 100000; index++) {
+            UUID next = OrderIdGenerator.TIME_ORDERED.nextId();
+            assertEquals(7, next.version());
+            assertEquals(2, next.variant());
+            assertTrue(previous.compareTo(next) < 0);
+            previous = next;
+        }
+        long millis = previous.getMostSignificantBits() >>> 16;
+        assertTrue(millis >= before - 1000
+                && millis <= System.currentTimeMillis() + 1000);
+    }
+
+    @Test
+    public void uniqueAcrossThreadsTest()
+            throws InterruptedException {
+        Set<UUID> ids = ConcurrentHashMap.newKeySet();
+        List<Thread> threads = new ArrayList<>();
+        for (int thread = 0; thread < 8; thread++) {
+            threads.add(new Thread(() -> {
+                for (int index = 0; index < 50000; index++) {
+                    ids.add(OrderIdGenerator.TIME_ORDERED.nextId());
+                }
+            }));
+        }
+        threads.forEach(Thread::start);
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        assertEquals(8 * 50000, ids.size());
+    }
+
+    @Test
+    public void orderTest() {
+        UUID fixed = new UUID(1, 2);
+        assertEquals(fixed, new Order(() -> fixed).getUUID());
+        assertEquals(7, new Order().getUUID().version());
+
+        Order.setDefaultIdGenerator(OrderIdGenerator.RANDOM);
+        Order order = new Order();
+        assertEquals(4, order.getUUID().version());
+        order.setUUID(fixed);
+        assertEquals(fixed, order.getUUID());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void nullGeneratorTest() {
+        Order.setDefaultIdGenerator(null);
+    }
+}
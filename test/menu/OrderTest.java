@@ -0,0 +1,251 @@
+package menu;
+
+import exceptions.TooManyToppingsException;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.Pizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class OrderTest {
+
+    private Order order;
+
+    private List<Pizza> pizzas;
+
+    @Before
+    public void setUp()
+            throws TooManyToppingsException {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Bacon", false);
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+
+        order = new Order();
+        order.setName("John Smith");
+        order.setUUID(UUID.fromString("e6ef5932-7f6a-46ff-a81e-856a6afabc3c"));
+        order.setDate(LocalDate.of(2022, 10, 12));
+        order.setTime(LocalTime.of(14, 37, 12));
+
+        pizzas = new ArrayList<>();
+        CustomPizza custom = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.MOZZARELLA);
+        custom.add(List.of(valueOf("Bacon"), valueOf("Ham")));
+        pizzas.add(custom);
+        MenuPizza hawaiian = new MenuPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA,
+                List.of(valueOf("Pineapple"), valueOf("Ham")));
+        hawaiian.setName("Hawaiian");
+        pizzas.add(hawaiian);
+        pizzas.add(new CustomPizza(Bases.BaseSize.SMALL,
+                Sauces.Sauce.GARLIC,
+                Cheeses.Cheese.VEGAN));
+        pizzas.add(new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.NONE,
+                Cheeses.Cheese.NONE));
+    }
+
+    /**
+     * Returns the total line that an order of the first n pizzas (cycling
+     * through the test pizzas) should print, by summing every pizza again.
+     */
+    private String expectedTotal(int numberOfPizzas) {
+        double withoutDiscount = 0;
+        for (int index = 0; index < numberOfPizzas; index++) {
+            withoutDiscount += pizzas.get(index % pizzas.size())
+                    .getTotalPrice();
+        }
+        DecimalFormat format = new DecimalFormat("0.00");
+        if (numberOfPizzas > 5) {
+            return "Multi item discount applied of $"
+                    + format.format(withoutDiscount)
+                    + " applied, new Total: $"
+                    + format.format(0.75 * withoutDiscount);
+        } else if (numberOfPizzas > 2) {
+            return "Multi item discount applied of $"
+                    + format.format(withoutDiscount)
+                    + " applied, new Total: $"
+                    + format.format(0.90 * withoutDiscount);
+        }
+        return "Total: $" + format.format(withoutDiscount);
+    }
+
+    private static String totalLine(Order order) {
+        String[] lines = order.toString().split("\n");
+        return lines[lines.length - 1];
+    }
+
+    @Test
+    public void emptyOrderTest() {
+        assertEquals("Total: $0.00", totalLine(order));
+    }
+
+    @Test
+    public void totalsTest() {
+        for (int number = 1; number <= 500; number++) {
+            order.add(pizzas.get((number - 1) % pizzas.size()));
+            assertEquals(expectedTotal(number), totalLine(order));
+        }
+    }
+
+    @Test
+    public void getTotalPriceInCentsTest() {
+        order.add(pizzas.get(0));
+        order.add(pizzas.get(1));
+        assertEquals(1800, order.getTotalPriceInCents());
+        order.add(pizzas.get(2));
+        assertEquals(1890, order.getTotalPriceInCents());
+        for (int index = 0; index < 3; index++) {
+            order.add(pizzas.get(3));
+        }
+        assertEquals(3150, order.getTotalPriceInCents());
+        assertEquals(31.50, order.getTotalPrice(), 0);
+    }
+
+    @Test
+    public void percentageDiscountTest() {
+        assertEquals(3240, Order.DISCOUNT_10.applyDiscountInCents(3600));
+        assertEquals(2700, Order.DISCOUNT_25.applyDiscountInCents(3600));
+        // half a cent is rounded up
+        assertEquals(5, Order.DISCOUNT_10.applyDiscountInCents(5));
+        assertEquals(32.40, Order.DISCOUNT_10.applyDiscount(36.00), 1e-9);
+        assertEquals(4, ((MenuItem.Discount) price -> 0.8 * price)
+                .applyDiscountInCents(5));
+    }
+
+    @Test
+    public void toStringTest() {
+        for (Pizza pizza : pizzas) {
+            order.add(pizza);
+        }
+        assertEquals("Date: 2022-10-12\n"
+                        + "Time: 14:37\n"
+                        + "Customer: John Smith\n"
+                        + "Order number: e6ef5932-7f6a-46ff-a81e-856a6afabc3c\n"
+                        + "Order:\n"
+                        + "1 - Custom Pizza: is a 'MEDIUM' sized base with "
+                        + "'BBQ' sauce and 'MOZZARELLA' cheese - Toppings: "
+                        + "[BACON, HAM] $9.00\n"
+                        + "2 - [MenuPizza] Hawaiian: is a 'MEDIUM' sized base "
+                        + "with 'TOMATO' sauce and 'MOZZARELLA' cheese - "
+                        + "Toppings: [PINEAPPLE, HAM] $9.00\n"
+                        + "3 - Custom Pizza: is a 'SMALL' sized base with "
+                        + "'GARLIC' sauce and 'VEGAN' cheese $3.00\n"
+                        + "4 - Custom Pizza: is a 'LARGE' sized base with "
+                        + "'NONE' sauce and 'NONE' cheese $7.00\n"
+                        + "\n"
+                        + "Multi item discount applied of $28.00 applied, "
+                        + "new Total: $25.20\n",
+                order.toString());
+    }
+
+    @Test
+    public void pizzaChangedAfterAddTest() {
+        Pizza hawaiian = pizzas.get(1);
+        order.add(hawaiian);
+        String expected = order.toString();
+        hawaiian.set(Bases.BaseSize.LARGE);
+        hawaiian.setName("Large Hawaiian");
+        assertEquals(expected, order.toString());
+        assertEquals(900, order.getTotalPriceInCents());
+
+        order.add(hawaiian);
+        assertTrue(order.toString().contains("2 - [MenuPizza] Large Hawaiian"
+                + ": is a 'LARGE' sized base"));
+        assertEquals(2000, order.getTotalPriceInCents());
+    }
+
+    @Test
+    public void linesTest() {
+        for (int index = 0; index < 10; index++) {
+            order.add(pizzas.get(1));
+        }
+        order.add(pizzas.get(0));
+        order.add(pizzas.get(0), 2);
+        List<OrderLine> lines = order.getLines();
+        assertEquals(2, lines.size());
+        assertEquals(10, lines.get(0).getQuantity());
+        assertEquals(pizzas.get(1).toSpec(), lines.get(0).getSpec());
+        assertEquals(3, lines.get(1).getQuantity());
+        assertEquals(9000, lines.get(0).getTotalPriceInCents());
+
+        String[] printed = order.toString().split("\n");
+        assertEquals("10 - " + pizzas.get(1), printed[14]);
+        assertEquals("11 - " + pizzas.get(0), printed[15]);
+        assertEquals("13 - " + pizzas.get(0), printed[17]);
+        // 13 pizzas at $9.00 with the 25% discount
+        assertEquals(8775, order.getTotalPriceInCents());
+    }
+
+    @Test
+    public void receiptOrderTest() {
+        Pizza a = pizzas.get(0);
+        Pizza b = pizzas.get(2);
+        order.add(a);
+        order.add(b);
+        order.add(a);
+        List<OrderLine> lines = order.getLines();
+        assertEquals(2, lines.size());
+        assertEquals(a.toSpec(), lines.get(0).getSpec());
+        assertEquals(2, lines.get(0).getQuantity());
+        assertEquals(b.toSpec(), lines.get(1).getSpec());
+
+        // the second A is printed with the first, before B
+        String[] printed = order.toString().split("\n");
+        assertEquals("1 - Custom Pizza: is a 'MEDIUM' sized base with 'BBQ' "
+                + "sauce and 'MOZZARELLA' cheese - Toppings: [BACON, HAM] "
+                + "$9.00", printed[5]);
+        assertEquals("2 - Custom Pizza: is a 'MEDIUM' sized base with 'BBQ' "
+                + "sauce and 'MOZZARELLA' cheese - Toppings: [BACON, HAM] "
+                + "$9.00", printed[6]);
+        assertEquals("3 - Custom Pizza: is a 'SMALL' sized base with "
+                + "'GARLIC' sauce and 'VEGAN' cheese $3.00", printed[7]);
+        assertEquals("", printed[8]);
+        assertEquals("Multi item discount applied of $21.00 applied, "
+                + "new Total: $18.90", printed[9]);
+    }
+
+    @Test
+    public void addQuantityTest() {
+        order.add(pizzas.get(0), 2);
+        assertEquals(1800, order.getTotalPriceInCents());
+        order.add(pizzas.get(2), 4);
+        // 6 pizzas at $30.00 with the 25% discount
+        assertEquals(2250, order.getTotalPriceInCents());
+
+        Order single = new Order();
+        single.setName("John Smith");
+        single.setUUID(UUID.fromString(
+                "e6ef5932-7f6a-46ff-a81e-856a6afabc3c"));
+        single.setDate(LocalDate.of(2022, 10, 12));
+        single.setTime(LocalTime.of(14, 37, 12));
+        for (int index = 0; index < 2; index++) {
+            single.add(pizzas.get(0));
+        }
+        for (int index = 0; index < 4; index++) {
+            single.add(pizzas.get(2));
+        }
+        assertEquals(single.toString(), order.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void addZeroQuantityTest() {
+        order.add(pizzas.get(0), 0);
+    }
+}
@@ -0,0 +1,109 @@
+package menu;
+
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.io.BufferedWriter;
+import java.io.IOException;
+import java.io.Writer;
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the time taken, and the bytes allocated, to write the receipt of
+ * an order with Order.toString(), with a ReceiptRenderer into its reused
+ * buffer, and with a ReceiptRenderer into a buffered Writer.
+ */
+public class ReceiptRendererBenchmark {
+
+    /**
+     * Runs the benchmark.
+     * @param args not used
+     * @throws Exception if the order cannot be made
+     */
+    public static void main(String[] args)
+            throws Exception {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+        Order order = new Order();
+        order.setName("John Smith");
+        CustomPizza custom = new CustomPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA);
+        custom.add(List.of(valueOf("Ham"), valueOf("Pineapple")));
+        order.add(custom, 3);
+        MenuPizza hawaiian = new MenuPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA,
+                List.of(valueOf("Pineapple"), valueOf("Ham")));
+        hawaiian.setName("Hawaiian");
+        order.add(hawaiian, 2);
+
+        ReceiptRenderer renderer = new ReceiptRenderer();
+        Writer writer = new BufferedWriter(Writer.nullWriter(), 8192);
+        int numberOfReceipts = 200000;
+        for (int round = 0; round < 5; round++) {
+            long sink = 0;
+            long bytes = allocatedBytes();
+            long start = System.nanoTime();
+            for (int index = 0; index < numberOfReceipts; index++) {
+                sink += order.toString().length();
+            }
+            report("toString", start, bytes, numberOfReceipts);
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            for (int index = 0; index < numberOfReceipts; index++) {
+                sink += renderer.render(order).length();
+            }
+            report("buffer", start, bytes, numberOfReceipts);
+
+            bytes = allocatedBytes();
+            start = System.nanoTime();
+            for (int index = 0; index < numberOfReceipts; index++) {
+                renderer.render(order, writer);
+            }
+            writer.flush();
+            report("writer", start, bytes, numberOfReceipts);
+            System.out.println("round " + round + " (" + sink + ")");
+        }
+    }
+
+    /**
+     * Prints the time taken and bytes allocated per receipt since the given
+     * start.
+     * @param name name of the way the receipts were written
+     * @param start time the receipts started being written
+     * @param bytes bytes allocated by this thread when they started
+     * @param numberOfReceipts number of receipts written
+     */
+    private static void report(String name,
+                               long start,
+                               long bytes,
+                               int numberOfReceipts) {
+        long elapsed = System.nanoTime() - start;
+        System.out.printf("%-8s %6d ns %6d bytes per receipt%n", name,
+                elapsed / numberOfReceipts,
+                (allocatedBytes() - bytes) / numberOfReceipts);
+    }
+
+    /**
+     * Returns the number of bytes allocated by this thread, or 0 if the
+     * virtual machine does not count them.
+     * @return bytes allocated by this thread
+     */
+    private static long allocatedBytes() {
+        if (ManagementFactory.getThreadMXBean()
+                instanceof com.sun.management.ThreadMXBean bean) {
+            return bean.getCurrentThreadAllocatedBytes();
+        }
+        return 0;
+    }
+}
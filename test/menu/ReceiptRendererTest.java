@@ -0,0 +1,214 @@
+package menu;
+
+import exceptions.TooManyToppingsException;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.CustomPizza;
+import pizza.MenuPizza;
+import pizza.Pizza;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.io.IOException;
+import java.io.StringWriter;
+import java.text.DecimalFormat;
+import java.time.LocalDate;
+import java.time.LocalTime;
+import java.time.format.DateTimeFormatter;
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+import java.util.UUID;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class ReceiptRendererTest {
+
+    private ReceiptRenderer renderer;
+
+    @Before
+    public void setUp() {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+        createTopping("Olives", true);
+        renderer = new ReceiptRenderer();
+    }
+
+    /**
+     * Returns the receipt of the order as Order.toString() built it before
+     * it was written by a ReceiptRenderer, from the pizzas added to the order
+     * in the order they were added rather than from the lines of the order.
+     * <p>
+     * As pizzas are merged into the line of their spec, every pizza is
+     * printed after the first pizza added the same way.
+     */
+    private static String expected(Order order, List<Pizza> added) {
+        Map<String, Integer> counts = new LinkedHashMap<>();
+        long withoutDiscountInCents = 0;
+        for (Pizza pizza : added) {
+            counts.merge(pizza.toString(), 1, Integer::sum);
+            withoutDiscountInCents += pizza.getTotalPriceInCents();
+        }
+        StringBuilder pizzas = new StringBuilder();
+        int pizzaNumber = 1;
+        for (Map.Entry<String, Integer> pizza : counts.entrySet()) {
+            for (int count = 0; count < pizza.getValue(); count++) {
+                pizzas.append(pizzaNumber++).append(" - ")
+                        .append(pizza.getKey()).append("\n");
+            }
+        }
+        assertEquals(withoutDiscountInCents,
+                order.getOrderPriceWithoutDiscountInCents());
+        DecimalFormat format = new DecimalFormat("0.00");
+        double withoutDiscount = withoutDiscountInCents / 100.0;
+        String total = order.getTotalPriceInCents()
+                < order.getOrderPriceWithoutDiscountInCents()
+                ? "Multi item discount applied of $"
+                        + format.format(withoutDiscount)
+                        + " applied, new Total: $"
+                        + format.format(order.getTotalPrice())
+                : "Total: $" + format.format(withoutDiscount);
+        return "Date: " + order.getDate() + "\n"
+                + "Time: "
+                + order.getTime().format(DateTimeFormatter.ofPattern("HH:mm"))
+                + "\n"
+                + "Customer: " + order.getName() + "\n"
+                + "Order number: " + order.getUUID() + "\n"
+                + "Order:" + "\n"
+                + pizzas + "\n"
+                + total + "\n";
+    }
+
+    /**
+     * Returns an order of random pizzas, adding each pizza added to the order
+     * to the given list, once for each of its quantity.
+     */
+    private static Order randomOrder(Random random, List<Pizza> added)
+            throws TooManyToppingsException {
+        Order order = new Order();
+        LocalDate[] dates = {null, LocalDate.of(5, 1, 2),
+                LocalDate.of(-44, 3, 15), LocalDate.of(12345, 12, 31),
+                LocalDate.of(2022, 10, 12)};
+        order.setDate(dates[random.nextInt(dates.length)]);
+        order.setTime(LocalTime.ofSecondOfDay(random.nextInt(86400)));
+        order.setName(random.nextInt(5) == 0 ? null : "Customer "
+                + random.nextInt(1000));
+        order.setUUID(random.nextInt(5) == 0 ? null
+                : new UUID(random.nextLong(), random.nextLong()));
+        if (random.nextBoolean()) {
+            order.setCustomerTier("GOLD");
+            order.setDiscountEngine(new DiscountEngine(List.of(
+                    DiscountRule.forCustomerTier("GOLD",
+                            new PercentageDiscount(random.nextInt(101))))));
+        }
+        Topping[] toppings = Topping.values();
+        for (int number = random.nextInt(12); number > 0; number--) {
+            Bases.BaseSize size = Bases.BaseSize.values()[random.nextInt(3)];
+            Sauces.Sauce sauce = Sauces.Sauce.values()[random.nextInt(4)];
+            Cheeses.Cheese cheese = Cheeses.Cheese.values()[random.nextInt(3)];
+            List<Topping> on = new ArrayList<>();
+            for (int topping = random.nextInt(4); topping > 0; topping--) {
+                on.add(toppings[random.nextInt(toppings.length)]);
+            }
+            Pizza pizza;
+            if (random.nextBoolean()) {
+                CustomPizza custom = new CustomPizza(size, sauce, cheese);
+                custom.add(on);
+                pizza = custom;
+            } else {
+                MenuPizza menu = new MenuPizza(size, sauce, cheese, on);
+                menu.setName("Menu " + random.nextInt(3));
+                pizza = menu;
+            }
+            int quantity = 1 + random.nextInt(3);
+            order.add(pizza, quantity);
+            for (int count = 0; count < quantity; count++) {
+                added.add(pizza);
+            }
+        }
+        return order;
+    }
+
+    @Test
+    public void matchesToStringTest()
+            throws IOException,
+            TooManyToppingsException {
+        Random random = new Random(42);
+        for (int index = 0; index < 500; index++) {
+            List<Pizza> added = new ArrayList<>();
+            Order order = randomOrder(random, added);
+            String expected = expected(order, added);
+            assertEquals(expected, renderer.render(order).toString());
+            assertEquals(expected, order.toString());
+            StringWriter writer = new StringWriter();
+            renderer.render(order, writer);
+            assertEquals(expected, writer.toString());
+        }
+    }
+
+    @Test
+    public void receiptTest()
+            throws IOException,
+            TooManyToppingsException {
+        Order order = new Order();
+        order.setName("John Smith");
+        order.setUUID(UUID.fromString("e6ef5932-7f6a-46ff-a81e-856a6afabc3c"));
+        order.setDate(LocalDate.of(2022, 10, 12));
+        order.setTime(LocalTime.of(14, 37, 12));
+        MenuPizza hawaiian = new MenuPizza(Bases.BaseSize.MEDIUM,
+                Sauces.Sauce.TOMATO,
+                Cheeses.Cheese.MOZZARELLA,
+                List.of(valueOf("Pineapple"), valueOf("Ham")));
+        hawaiian.setName("Hawaiian");
+        order.add(hawaiian);
+        order.add(new CustomPizza(Bases.BaseSize.SMALL,
+                Sauces.Sauce.GARLIC,
+                Cheeses.Cheese.VEGAN));
+        order.add(hawaiian);
+        String expected = "Date: 2022-10-12\n"
+                + "Time: 14:37\n"
+                + "Customer: John Smith\n"
+                + "Order number: e6ef5932-7f6a-46ff-a81e-856a6afabc3c\n"
+                + "Order:\n"
+                + "1 - [MenuPizza] Hawaiian: is a 'MEDIUM' sized base with "
+                + "'TOMATO' sauce and 'MOZZARELLA' cheese - Toppings: "
+                + "[PINEAPPLE, HAM] $9.00\n"
+                + "2 - [MenuPizza] Hawaiian: is a 'MEDIUM' sized base with "
+                + "'TOMATO' sauce and 'MOZZARELLA' cheese - Toppings: "
+                + "[PINEAPPLE, HAM] $9.00\n"
+                + "3 - Custom Pizza: is a 'SMALL' sized base with "
+                + "'GARLIC' sauce and 'VEGAN' cheese $3.00\n"
+                + "\n"
+                + "Multi item discount applied of $21.00 applied, "
+                + "new Total: $18.90\n";
+        assertEquals(expected, renderer.render(order).toString());
+        StringWriter writer = new StringWriter();
+        renderer.render(order, writer);
+        assertEquals(expected, writer.toString());
+    }
+
+    @Test
+    public void bufferTest()
+            throws TooManyToppingsException {
+        Random random = new Random(7);
+        Order first = randomOrder(random, new ArrayList<>());
+        Order second = randomOrder(random, new ArrayList<>());
+        CharSequence buffer = renderer.render(first);
+        assertSame(buffer, renderer.render(second));
+        assertEquals(second.toString(), buffer.toString());
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void noTimeTest() {
+        Order order = new Order();
+        order.setTime(null);
+        renderer.render(order);
+    }
+}
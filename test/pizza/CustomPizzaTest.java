@@ -176,12 +176,32 @@ public class CustomPizzaTest {
                 customPizza1.getToppings().toString());
     }
 
+    @Test
+    public void getToppingSetTest()
+            throws TooManyToppingsException {
+        customPizza1.add(Topping.valueOf("Mushrooms"));
+        customPizza1.add(Topping.valueOf("Mushrooms"));
+        customPizza1.add(Topping.valueOf("Pineapple"));
+        assertTrue(customPizza1.getToppingSet().isVegan());
+        customPizza1.remove(Topping.valueOf("Mushrooms"));
+        assertTrue(customPizza1.getToppingSet()
+                .contains(Topping.valueOf("Mushrooms")));
+        customPizza1.remove(Topping.valueOf("Mushrooms"));
+        assertFalse(customPizza1.getToppingSet()
+                .contains(Topping.valueOf("Mushrooms")));
+        customPizza1.add(toppings1);
+        assertEquals(4, customPizza1.getToppingSet().size());
+        assertFalse(customPizza1.getToppingSet().isVegan());
+    }
+
     @Test
     public void getTotalPriceTest()
             throws TooManyToppingsException {
         customPizza1.add(valueOf("Bacon"));
         customPizza1.add(valueOf("Chicken"));
         assertTrue(9.00 - customPizza1.getTotalPrice() < 0.001);
+        assertEquals(900, customPizza1.getTotalPriceInCents());
+        assertEquals(700, customPizza4.getTotalPriceInCents());
     }
 
     @Test
@@ -263,6 +283,57 @@ public class CustomPizzaTest {
         assertNotEquals(customPizza4, customPizza5);
     }
 
+    @Test
+    public void equalsAfterChangeTest()
+            throws TooManyToppingsException {
+        customPizza4.add(Topping.valueOf("Bacon"));
+        customPizza5.add(Topping.valueOf("Bacon"));
+        assertEquals(customPizza4, customPizza5);
+        assertEquals(customPizza4.hashCode(), customPizza5.hashCode());
+        customPizza5.add(Topping.valueOf("Bacon"));
+        assertNotEquals(customPizza4, customPizza5);
+        customPizza5.remove(Topping.valueOf("Bacon"));
+        assertEquals(customPizza4, customPizza5);
+        customPizza5.set(Bases.BaseSize.SMALL);
+        assertNotEquals(customPizza4, customPizza5);
+        customPizza4.set(Bases.BaseSize.SMALL);
+        assertEquals(customPizza4, customPizza5);
+        assertEquals(customPizza4.hashCode(), customPizza5.hashCode());
+    }
+
+    @Test
+    public void equalsRepeatedToppingsTest()
+            throws TooManyToppingsException {
+        // same set of toppings and number of toppings, but different counts
+        customPizza4.add(Topping.valueOf("Bacon"));
+        customPizza4.add(Topping.valueOf("Bacon"));
+        customPizza4.add(Topping.valueOf("Chicken"));
+        customPizza5.add(Topping.valueOf("Chicken"));
+        customPizza5.add(Topping.valueOf("Bacon"));
+        customPizza5.add(Topping.valueOf("Chicken"));
+        assertEquals(customPizza4.getToppingSet(),
+                customPizza5.getToppingSet());
+        assertNotEquals(customPizza4, customPizza5);
+        customPizza5.remove(Topping.valueOf("Chicken"));
+        customPizza5.add(Topping.valueOf("Bacon"));
+        assertEquals(customPizza4, customPizza5);
+        assertEquals(customPizza4.hashCode(), customPizza5.hashCode());
+    }
+
+    @Test
+    public void containsTest()
+            throws TooManyToppingsException {
+        customPizza1.add(Topping.valueOf("Bacon"));
+        customPizza1.add(Topping.valueOf("Bacon"));
+        assertTrue(customPizza1.contains(Topping.valueOf("Bacon")));
+        assertFalse(customPizza1.contains(Topping.valueOf("Chicken")));
+        assertFalse(customPizza1.contains(null));
+        customPizza1.remove(Topping.valueOf("Bacon"));
+        assertTrue(customPizza1.contains(Topping.valueOf("Bacon")));
+        customPizza1.remove(Topping.valueOf("Bacon"));
+        assertFalse(customPizza1.contains(Topping.valueOf("Bacon")));
+    }
+
     @Test
     public void toStringTest()
             throws TooManyToppingsException {
@@ -0,0 +1,86 @@
+package pizza;
+
+import menu.Menu;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+
+import java.lang.management.ManagementFactory;
+import java.util.List;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the time and the bytes allocated by Pizza.equals(Object) and
+ * Pizza.hashCode() once a pizza's canonical form has been built.
+ * <p>
+ * Both methods should allocate zero bytes per call.
+ */
+public class PizzaBenchmark {
+
+    /**
+     * number of calls timed for each method
+     */
+    private static final int CALLS = 10_000_000;
+
+    /**
+     * Runs the benchmark.
+     * @param args provides no usable function
+     * @throws Exception if the pizzas cannot be created
+     */
+    public static void main(String[] args)
+            throws Exception {
+        com.sun.management.ThreadMXBean threads =
+                (com.sun.management.ThreadMXBean)
+                        ManagementFactory.getThreadMXBean();
+        long thread = Thread.currentThread().getId();
+
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Bacon", false);
+        createTopping("Chicken", false);
+        createTopping("Mushrooms", true);
+        createTopping("Pineapple", true);
+
+        CustomPizza pizza1 = new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.MOZZARELLA);
+        pizza1.add(List.of(valueOf("Bacon"), valueOf("Chicken"),
+                valueOf("Mushrooms"), valueOf("Pineapple")));
+        CustomPizza pizza2 = new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.MOZZARELLA);
+        pizza2.add(List.of(valueOf("Pineapple"), valueOf("Mushrooms"),
+                valueOf("Chicken"), valueOf("Bacon")));
+
+        for (int round = 0; round < 3; round++) {
+            int sink = 0;
+
+            long bytes = threads.getThreadAllocatedBytes(thread);
+            long start = System.nanoTime();
+            for (int index = 0; index < CALLS; index++) {
+                sink += pizza1.equals(pizza2) ? 1 : 0;
+            }
+            long equalsTime = System.nanoTime() - start;
+            long equalsBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+            bytes = threads.getThreadAllocatedBytes(thread);
+            start = System.nanoTime();
+            for (int index = 0; index < CALLS; index++) {
+                sink += pizza1.hashCode();
+            }
+            long hashTime = System.nanoTime() - start;
+            long hashBytes = threads.getThreadAllocatedBytes(thread) - bytes;
+
+            System.out.printf("equals %5.1f ns/op %5.2f B/op, "
+                            + "hashCode %5.1f ns/op %5.2f B/op (%d)%n",
+                    (double) equalsTime / CALLS,
+                    (double) equalsBytes / CALLS,
+                    (double) hashTime / CALLS,
+                    (double) hashBytes / CALLS,
+                    sink & 1);
+        }
+        Menu.getInstance().clear();
+        resetToppings();
+    }
+}
@@ -0,0 +1,154 @@
+package pizza;
+
+import exceptions.TooManyToppingsException;
+import menu.Menu;
+import org.junit.Before;
+import org.junit.Test;
+import pizza.ingredients.Bases;
+import pizza.ingredients.Cheeses;
+import pizza.ingredients.Sauces;
+import pizza.ingredients.Topping;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class PizzaSpecTest {
+
+    @Before
+    public void setUp() {
+        Menu.getInstance().clear();
+        resetToppings();
+        createTopping("Bacon", false);
+        createTopping("Ham", false);
+        createTopping("Pineapple", true);
+    }
+
+    private static CustomPizza createPizza(String... toppings)
+            throws TooManyToppingsException {
+        CustomPizza pizza = new CustomPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.MOZZARELLA);
+        for (String topping : toppings) {
+            pizza.add(valueOf(topping));
+        }
+        return pizza;
+    }
+
+    @Test
+    public void internTest()
+            throws TooManyToppingsException {
+        PizzaSpec spec = createPizza("Bacon", "Ham").toSpec();
+        assertSame(spec, createPizza("Bacon", "Ham").toSpec());
+        assertNotEquals(spec, createPizza("Ham", "Bacon").toSpec());
+        assertNotEquals(spec, createPizza("Bacon", "Ham", "Ham").toSpec());
+
+        CustomPizza named = createPizza("Bacon", "Ham");
+        named.setName("Named");
+        assertNotEquals(spec, named.toSpec());
+
+        MenuPizza menuPizza = new MenuPizza(Bases.BaseSize.LARGE,
+                Sauces.Sauce.BBQ,
+                Cheeses.Cheese.MOZZARELLA,
+                List.of(valueOf("Bacon"), valueOf("Ham")));
+        menuPizza.setName("Custom Pizza");
+        assertNotEquals(spec, menuPizza.toSpec());
+    }
+
+    @Test
+    public void specTest()
+            throws TooManyToppingsException {
+        CustomPizza pizza = createPizza("Pineapple", "Ham", "Ham");
+        PizzaSpec spec = pizza.toSpec();
+        assertEquals(pizza.toString(), spec.toString());
+        assertEquals(pizza.getTotalPriceInCents(),
+                spec.getTotalPriceInCents());
+        assertEquals(pizza.getToppings(), spec.getToppings());
+        assertEquals(pizza.getToppingSet(), spec.getToppingSet());
+        assertEquals("Custom Pizza", spec.getName());
+        assertEquals(Bases.BaseSize.LARGE, spec.getSize());
+        assertEquals(Sauces.Sauce.BBQ, spec.getSauce());
+        assertEquals(Cheeses.Cheese.MOZZARELLA, spec.getCheese());
+
+        String description = pizza.toString();
+        pizza.set(Bases.BaseSize.SMALL);
+        pizza.remove(valueOf("Ham"));
+        assertEquals(description, spec.toString());
+        assertNotSame(spec, pizza.toSpec());
+        assertEquals(pizza.toString(), pizza.toSpec().toString());
+    }
+
+    @Test(expected = UnsupportedOperationException.class)
+    public void immutableToppingsTest()
+            throws TooManyToppingsException {
+        createPizza("Bacon").toSpec().getToppings().add(valueOf("Ham"));
+    }
+
+    @Test
+    public void poolCapacityTest()
+            throws TooManyToppingsException {
+        PizzaSpec first = createPizza("Bacon").toSpec();
+        for (int index = 0; index <= PizzaSpec.POOL_CAPACITY; index++) {
+            CustomPizza pizza = createPizza("Bacon");
+            pizza.setName("Pizza " + index);
+            pizza.toSpec();
+        }
+        assertEquals(PizzaSpec.POOL_CAPACITY, PizzaSpec.poolSize());
+
+        PizzaSpec second = createPizza("Bacon").toSpec();
+        assertNotSame(first, second);
+        assertEquals(first, second);
+        assertEquals(first.toString(), second.toString());
+    }
+
+    @Test
+    public void borrowedToppingsTest() {
+        List<Topping> toppings = new ArrayList<>(List.of(valueOf("Ham"),
+                valueOf("Bacon")));
+        PizzaSpec spec = PizzaSpec.of(CustomPizza.class, null,
+                Bases.BaseSize.SMALL, Sauces.Sauce.BBQ, Cheeses.Cheese.NONE,
+                toppings);
+        toppings.set(0, valueOf("Pineapple"));
+        assertEquals(List.of(valueOf("Ham"), valueOf("Bacon")),
+                spec.getToppings());
+        assertSame(spec, PizzaSpec.of(CustomPizza.class, null,
+                Bases.BaseSize.SMALL, Sauces.Sauce.BBQ, Cheeses.Cheese.NONE,
+                List.of(valueOf("Ham"), valueOf("Bacon"))));
+        assertNotEquals(spec, PizzaSpec.of(CustomPizza.class, null,
+                Bases.BaseSize.SMALL, Sauces.Sauce.BBQ, Cheeses.Cheese.NONE,
+                toppings));
+    }
+
+    @Test
+    public void concurrentInternTest()
+            throws InterruptedException {
+        int numberOfThreads = 8;
+        PizzaSpec[][] specs = new PizzaSpec[numberOfThreads][];
+        Thread[] threads = new Thread[numberOfThreads];
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            int index = thread;
+            threads[thread] = new Thread(() -> {
+                specs[index] = new PizzaSpec[2 * PizzaSpec.POOL_CAPACITY];
+                for (int spec = 0; spec < specs[index].length; spec++) {
+                    specs[index][spec] = PizzaSpec.of(CustomPizza.class,
+                            "Pizza " + spec % 100, Bases.BaseSize.SMALL,
+                            Sauces.Sauce.BBQ, Cheeses.Cheese.NONE,
+                            List.of(valueOf("Ham")));
+                }
+            });
+            threads[thread].start();
+        }
+        for (Thread thread : threads) {
+            thread.join();
+        }
+        for (PizzaSpec[] thread : specs) {
+            for (int spec = 0; spec < thread.length; spec++) {
+                assertEquals(specs[0][spec], thread[spec]);
+                assertSame(specs[0][spec % 100], thread[spec]);
+            }
+        }
+        assertTrue(PizzaSpec.poolSize() <= PizzaSpec.POOL_CAPACITY);
+    }
+}
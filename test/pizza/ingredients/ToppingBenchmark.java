@@ -0,0 +1,58 @@
+package pizza.ingredients;
+
+import static pizza.ingredients.Topping.*;
+
+/**
+ * Measures the cost of Topping.valueOf(String) and
+ * Topping.createTopping(String, boolean) as the number of defined toppings
+ * grows.
+ * <p>
+ * The time per lookup should stay roughly constant between registry sizes.
+ */
+public class ToppingBenchmark {
+
+    /**
+     * number of lookups timed for each registry size
+     */
+    private static final int LOOKUPS = 1_000_000;
+
+    /**
+     * Runs the benchmark for registries of increasing size.
+     * @param args provides no usable function
+     */
+    public static void main(String[] args) {
+        for (int size : new int[] {10, 100, 1_000, 10_000, 100_000}) {
+            long createStart = System.nanoTime();
+            resetToppings();
+            for (int index = 0; index < size; index++) {
+                createTopping("Topping" + index, index % 2 == 0);
+            }
+            long createTime = System.nanoTime() - createStart;
+
+            String[] names = new String[size];
+            for (int index = 0; index < size; index++) {
+                names[index] = "topping" + index;
+            }
+
+            // warm up before timing the lookups
+            int sink = 0;
+            for (int index = 0; index < LOOKUPS; index++) {
+                sink += valueOf(names[index % size]).hashCode();
+            }
+
+            long lookupStart = System.nanoTime();
+            for (int index = 0; index < LOOKUPS; index++) {
+                sink += valueOf(names[index % size]).hashCode();
+            }
+            long lookupTime = System.nanoTime() - lookupStart;
+
+            System.out.printf("%7d toppings: createTopping %6.1f ns/op, "
+                            + "valueOf %6.1f ns/op (%d)%n",
+                    size,
+                    (double) createTime / size,
+                    (double) lookupTime / LOOKUPS,
+                    sink & 1);
+        }
+        resetToppings();
+    }
+}
@@ -0,0 +1,91 @@
+package pizza.ingredients;
+
+import org.junit.Before;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.*;
+import static pizza.ingredients.Topping.*;
+
+public class ToppingSetTest {
+
+    @Before
+    public void setUp() {
+        resetToppings();
+        createTopping("Bacon", false);
+        createTopping("Chicken", false);
+        createTopping("Mushrooms", true);
+        createTopping("Pineapple", true);
+        for (int index = 0; index < 100; index++) {
+            createTopping("Vegetable" + index, true);
+        }
+    }
+
+    @Test
+    public void emptyTest() {
+        assertTrue(ToppingSet.EMPTY.isEmpty());
+        assertEquals(0, ToppingSet.EMPTY.size());
+        assertTrue(ToppingSet.EMPTY.isVegan());
+        assertEquals("[]", ToppingSet.EMPTY.toString());
+    }
+
+    @Test
+    public void ofTest() {
+        ToppingSet toppings = ToppingSet.of(List.of(valueOf("Mushrooms"),
+                valueOf("Bacon"),
+                valueOf("Mushrooms")));
+        assertEquals(2, toppings.size());
+        assertTrue(toppings.contains(valueOf("Bacon")));
+        assertTrue(toppings.contains(valueOf("Mushrooms")));
+        assertFalse(toppings.contains(valueOf("Chicken")));
+        assertFalse(toppings.contains(valueOf("Vegetable99")));
+        assertEquals("[BACON, MUSHROOMS]", toppings.toString());
+    }
+
+    @Test
+    public void withWithoutTest() {
+        ToppingSet toppings = ToppingSet.EMPTY
+                .with(valueOf("Vegetable99"))
+                .with(valueOf("Chicken"));
+        assertEquals(2, toppings.size());
+        assertTrue(toppings.contains(valueOf("Vegetable99")));
+        toppings = toppings.without(valueOf("Vegetable99"));
+        assertEquals(ToppingSet.of(List.of(valueOf("Chicken"))), toppings);
+        assertEquals(ToppingSet.EMPTY, toppings.without(valueOf("Chicken")));
+    }
+
+    @Test
+    public void setOperationsTest() {
+        ToppingSet first = ToppingSet.of(List.of(valueOf("Bacon"),
+                valueOf("Chicken"),
+                valueOf("Vegetable70")));
+        ToppingSet second = ToppingSet.of(List.of(valueOf("Chicken"),
+                valueOf("Pineapple")));
+        assertEquals(ToppingSet.of(List.of(valueOf("Bacon"),
+                        valueOf("Chicken"),
+                        valueOf("Pineapple"),
+                        valueOf("Vegetable70"))),
+                first.union(second));
+        assertEquals(ToppingSet.of(List.of(valueOf("Chicken"))),
+                first.intersection(second));
+        assertEquals(ToppingSet.of(List.of(valueOf("Bacon"),
+                        valueOf("Vegetable70"))),
+                first.difference(second));
+        assertTrue(first.containsAll(first.intersection(second)));
+        assertFalse(first.containsAll(second));
+        assertEquals(first.hashCode(),
+                first.union(ToppingSet.EMPTY).hashCode());
+    }
+
+    @Test
+    public void isVeganTest() {
+        List<Topping> toppings = new ArrayList<>();
+        toppings.add(valueOf("Mushrooms"));
+        toppings.add(valueOf("Vegetable80"));
+        assertTrue(ToppingSet.of(toppings).isVegan());
+        toppings.add(valueOf("Bacon"));
+        assertFalse(ToppingSet.of(toppings).isVegan());
+    }
+}
@@ -4,6 +4,12 @@ import org.junit.Before;
 import org.junit.Test;
 
 import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
 
 import static org.junit.Assert.*;
 import static pizza.ingredients.Topping.*;
@@ -102,6 +108,97 @@ public class ToppingTest {
                 Arrays.toString(values()));
     }
 
+    @Test
+    public void ordinalTest() {
+        Topping[] values = values();
+        for (int index = 0; index < values.length; index++) {
+            assertEquals(index, values[index].ordinal());
+        }
+        resetToppings();
+        createTopping("Chillies", true);
+        assertEquals(0, valueOf("Chillies").ordinal());
+    }
+
+    @Test
+    public void valuesManyToppingsTest() {
+        resetToppings();
+        for (int index = 0; index < 5000; index++) {
+            createTopping("Topping" + index, index % 2 == 0);
+        }
+        Topping[] values = values();
+        assertEquals(5000, values.length);
+        for (int index = 0; index < 5000; index++) {
+            assertEquals("TOPPING" + index, values[index].toString());
+            assertSame(values[index], valueOf("topping" + index));
+        }
+    }
+
+    @Test
+    public void concurrentCreateToppingTest()
+            throws InterruptedException {
+        resetToppings();
+        int numberOfThreads = 32;
+        int numberOfNames = 2000;
+        AtomicInteger created = new AtomicInteger();
+        ConcurrentLinkedQueue<Throwable> failures =
+                new ConcurrentLinkedQueue<>();
+        CountDownLatch start = new CountDownLatch(1);
+        Thread[] threads = new Thread[numberOfThreads];
+
+        for (int thread = 0; thread < numberOfThreads; thread++) {
+            boolean isWriter = thread % 2 == 0;
+            int offset = thread;
+            threads[thread] = new Thread(() -> {
+                try {
+                    start.await();
+                    for (int index = 0; index < numberOfNames; index++) {
+                        String name = "Topping"
+                                + (index + offset) % numberOfNames;
+                        if (isWriter) {
+                            try {
+                                createTopping(name, index % 2 == 0);
+                                created.incrementAndGet();
+                            } catch (IllegalArgumentException exception) {
+                                // created by another writer
+                            }
+                        } else {
+                            try {
+                                assertEquals(name.toUpperCase(),
+                                        valueOf(name).toString());
+                            } catch (IllegalArgumentException exception) {
+                                // not created yet
+                            }
+                            Topping[] values = values();
+                            for (int ordinal = 0; ordinal < values.length;
+                                 ordinal++) {
+                                assertEquals(ordinal, values[ordinal].ordinal());
+                            }
+                        }
+                    }
+                } catch (Throwable throwable) {
+                    failures.add(throwable);
+                }
+            });
+            threads[thread].start();
+        }
+        start.countDown();
+        for (Thread thread : threads) {
+            thread.join();
+        }
+
+        assertTrue(failures.toString(), failures.isEmpty());
+        assertEquals(numberOfNames, created.get());
+        Topping[] values = values();
+        assertEquals(numberOfNames, values.length);
+        Set<String> names = new HashSet<>();
+        for (int ordinal = 0; ordinal < values.length; ordinal++) {
+            assertEquals(ordinal, values[ordinal].ordinal());
+            assertSame(values[ordinal], valueOf(values[ordinal].toString()));
+            names.add(values[ordinal].toString());
+        }
+        assertEquals(numberOfNames, names.size());
+    }
+
     @Test
     public void toStringTest() {
         assertEquals("BACON", valueOf("Bacon").toString());
@@ -112,4 +209,125 @@ public class ToppingTest {
         assertEquals("OLIVES", valueOf("Olives").toString());
         assertEquals("ONIONS", valueOf("Onions").toString());
     }
-}
\ No newline at end of file
+
+    @Test
+    public void stageToppingsTest()
+            throws InterruptedException {
+        Topping bacon = valueOf("Bacon");
+        stageToppings();
+        try {
+            assertEquals(0, values().length);
+            createTopping("Ham", false);
+            createTopping("Bacon", false);
+            assertSame(bacon, valueOf("Bacon"));
+            assertEquals(7, valueOf("Ham").ordinal());
+
+            Topping[] seenByOtherThread = new Topping[1];
+            Thread thread = new Thread(() ->
+                    seenByOtherThread[0] = valueOf("Bacon"));
+            thread.start();
+            thread.join();
+            assertSame(bacon, seenByOtherThread[0]);
+
+            publishStagedToppings();
+            assertEquals("[HAM, BACON]", Arrays.toString(values()));
+            assertSame(bacon, valueOf("Bacon"));
+        } finally {
+            discardStagedToppings();
+        }
+    }
+
+    @Test
+    public void stageToppingsReusesToppingsTest() {
+        Topping[] previous = values();
+        stageToppings();
+        try {
+            createTopping("Bacon", false);
+            createTopping("Chicken", true);
+            createTopping("Mushrooms", true);
+            createTopping("Ham", false);
+            publishStagedToppings();
+        } finally {
+            discardStagedToppings();
+        }
+        Topping[] values = values();
+        assertSame(previous[0], values[0]);
+        assertNotSame(previous[1], values[1]);
+        assertTrue(values[1].isVegan());
+        assertEquals(7, values[1].ordinal());
+        assertSame(previous[3], values[2]);
+        assertEquals(3, values[2].ordinal());
+        assertEquals(8, values[3].ordinal());
+        assertEquals("[BACON, CHICKEN, MUSHROOMS, HAM]",
+                Arrays.toString(values));
+    }
+
+    @Test
+    public void forOrdinalAfterReloadTest() {
+        Topping[] previous = values();
+        ToppingSet set = ToppingSet.of(Arrays.asList(previous));
+        stageToppings();
+        try {
+            createTopping("Ham", false);
+            createTopping("Onions", true);
+            createTopping("Prawn", true);
+            publishStagedToppings();
+        } finally {
+            discardStagedToppings();
+        }
+        for (Topping topping : previous) {
+            assertSame(topping, forOrdinal(topping.ordinal()));
+        }
+        assertSame(previous[6], valueOf("Onions"));
+        assertEquals(Arrays.asList(previous), set.toList());
+        assertFalse(set.isVegan());
+        assertTrue(ToppingSet.of(List.of(valueOf("Prawn"))).isVegan());
+        assertEquals(8, valueOf("Prawn").ordinal());
+    }
+
+    @Test
+    public void recordedValueOfTest() {
+        Topping bacon = valueOf("Bacon");
+        assertSame(bacon, recordedValueOf("bacon"));
+        stageToppings();
+        try {
+            createTopping("Ham", false);
+            publishStagedToppings();
+        } finally {
+            discardStagedToppings();
+        }
+        assertSame(bacon, recordedValueOf("BACON"));
+
+        Topping anchovies = recordedValueOf("Anchovies");
+        assertEquals("ANCHOVIES", anchovies.toString());
+        assertFalse(anchovies.isVegan());
+        assertSame(anchovies, recordedValueOf("anchovies"));
+        assertSame(anchovies, forOrdinal(anchovies.ordinal()));
+        assertEquals(8, anchovies.ordinal());
+        assertEquals(List.of(valueOf("Ham")), Arrays.asList(values()));
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void recordedValueOfNotDefinedTest() {
+        recordedValueOf("Anchovies");
+        valueOf("Anchovies");
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void forOrdinalNotGivenTest() {
+        forOrdinal(values().length);
+    }
+
+    @Test
+    public void discardStagedToppingsTest() {
+        stageToppings();
+        createTopping("Ham", false);
+        discardStagedToppings();
+        assertEquals(7, values().length);
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void publishStagedToppingsNotStagingTest() {
+        publishStagedToppings();
+    }
+}